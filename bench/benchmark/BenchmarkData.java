@@ -0,0 +1,129 @@
+package benchmark;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import tools.DatasetGenerator;
+import tools.TweetRowGenerator;
+
+/**
+ * Synthetic datasets shared by the benchmarks. Rows are generated by
+ * {@link TweetRowGenerator} with a fixed seed, so every run of a benchmark
+ * reads the same data. The files are written like the files of
+ * {@link DatasetGenerator}, but from rows in memory.
+ *
+ * @version 1.0
+ * @see TweetRowGenerator
+ * @see DatasetGenerator
+ */
+public final class BenchmarkData {
+
+	/** Seed of all synthetic rows. */
+	public static final long SEED = 20190320L;
+
+	/**
+	 * No instance is needed, all methods are static.
+	 */
+	private BenchmarkData() {
+
+	}
+
+	/**
+	 * Generate rows without the title.
+	 *
+	 * @param count
+	 *            number of rows
+	 * @return the rows
+	 */
+	public static String[][] rows(int count) {
+		TweetRowGenerator generator = new TweetRowGenerator(SEED);
+		String[][] rows = new String[count][];
+
+		for (int i = 0; i < count; i++) {
+			rows[i] = generator.next();
+		}
+
+		return rows;
+	}
+
+	/**
+	 * Write rows and the title into a CSV file.
+	 *
+	 * @param rows
+	 *            the rows
+	 * @param file
+	 *            the CSV file
+	 * @throws IOException
+	 *             If the file cannot be written
+	 */
+	public static void writeCsv(String[][] rows, File file) throws IOException {
+		try (Writer writer = new BufferedWriter(
+				new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+			DatasetGenerator.writeDelimitedRow(writer, TweetRowGenerator.TITLES, ',');
+			for (String[] row : rows) {
+				DatasetGenerator.writeDelimitedRow(writer, row, ',');
+			}
+		}
+	}
+
+	/**
+	 * Write rows and the title into an excel file.
+	 *
+	 * @param rows
+	 *            the rows
+	 * @param file
+	 *            the excel file
+	 * @throws IOException
+	 *             If the file cannot be written
+	 */
+	public static void writeXlsx(String[][] rows, File file) throws IOException {
+		SXSSFWorkbook workbook = new SXSSFWorkbook(1000);
+
+		try {
+			Sheet sheet = workbook.createSheet();
+			DatasetGenerator.writeXlsxRow(sheet.createRow(0), TweetRowGenerator.TITLES);
+			for (int i = 0; i < rows.length; i++) {
+				DatasetGenerator.writeXlsxRow(sheet.createRow(i + 1), rows[i]);
+			}
+
+			try (FileOutputStream out = new FileOutputStream(file)) {
+				workbook.write(out);
+			}
+		} finally {
+			workbook.dispose();
+			workbook.close();
+		}
+	}
+
+	/**
+	 * Delete a temporary directory and all of its files.
+	 *
+	 * @param directory
+	 *            the directory
+	 * @throws IOException
+	 *             If a file cannot be deleted
+	 */
+	public static void delete(Path directory) throws IOException {
+		if (directory == null || !Files.exists(directory)) {
+			return;
+		}
+
+		try (Stream<Path> paths = Files.walk(directory)) {
+			for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(path);
+			}
+		}
+	}
+}
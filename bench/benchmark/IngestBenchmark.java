@@ -0,0 +1,206 @@
+package benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.xssf.usermodel.XSSFRow;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dao.DelimitedFileDAOImpl;
+import dao.ExcelDAOImpl;
+import dao.RowInterner;
+import dao.TweetDAOImpl;
+import entity.Tweet;
+
+/**
+ * Benchmarks of reading rows: turning one excel row into a String array by
+ * {@link ExcelDAOImpl#getRow(XSSFRow)}, turning one row into a Tweet by
+ * {@link TweetDAOImpl#getTweet(String[])}, parsing numeric cells by
+ * {@link TweetDAOImpl#isNumber(String)}, and reading whole excel and CSV
+ * files.
+ *
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestBenchmark {
+
+	/** Number of rows of the files. */
+	@Param({ "20000" })
+	public int rows;
+
+	/** Rows as String arrays. */
+	private String[][] data;
+
+	/** Numeric cells: favs, rts and followers of all rows. */
+	private String[] numbers;
+
+	/** Rows of an excel sheet in memory. */
+	private XSSFRow[] excelRows;
+
+	/** Workbook of excelRows. */
+	private XSSFWorkbook workbook;
+
+	/** Temporary directory of the files. */
+	private Path directory;
+
+	/** The excel file. */
+	private File xlsx;
+
+	/** The CSV file. */
+	private File csv;
+
+	/** Reader of the excel file, only its getRow is used. */
+	private ExcelDAOImpl excelDAO;
+
+	/** Converts rows into Tweets. */
+	private TweetDAOImpl tweetDAO;
+
+	/** Index of the next row of the per-row benchmarks. */
+	private int nextRow;
+
+	/** Index of the next numeric cell. */
+	private int nextNumber;
+
+	/**
+	 * Write the synthetic rows into an excel file and a CSV file.
+	 *
+	 * @throws IOException
+	 *             If a file cannot be written
+	 * @throws InvalidFormatException
+	 *             If the excel file cannot be read
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws IOException, InvalidFormatException {
+		data = BenchmarkData.rows(rows);
+		numbers = new String[rows * 3];
+		for (int i = 0; i < rows; i++) {
+			numbers[i * 3] = data[i][6];
+			numbers[i * 3 + 1] = data[i][7];
+			numbers[i * 3 + 2] = data[i][10];
+		}
+
+		directory = Files.createTempDirectory("ingest-benchmark");
+		xlsx = directory.resolve("dataset.xlsx").toFile();
+		csv = directory.resolve("dataset.csv").toFile();
+		BenchmarkData.writeXlsx(data, xlsx);
+		BenchmarkData.writeCsv(data, csv);
+
+		try (FileInputStream in = new FileInputStream(xlsx)) {
+			workbook = new XSSFWorkbook(in);
+		}
+		XSSFSheet sheet = workbook.getSheetAt(0);
+		excelRows = new XSSFRow[rows];
+		for (int i = 0; i < rows; i++) {
+			excelRows[i] = sheet.getRow(i + 1);
+		}
+
+		excelDAO = new ExcelDAOImpl(xlsx, ExcelDAOImpl.ReadMode.EVENT_MODEL, 1, ExcelDAOImpl.DEFAULT_QUEUE_DEPTH,
+				false, null);
+		tweetDAO = new TweetDAOImpl();
+	}
+
+	/**
+	 * Delete the files.
+	 *
+	 * @throws IOException
+	 *             If a file cannot be deleted
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		workbook.close();
+		BenchmarkData.delete(directory);
+	}
+
+	/**
+	 * Benchmark of {@link ExcelDAOImpl#getRow(XSSFRow)}.
+	 *
+	 * @return the row
+	 */
+	@Benchmark
+	public String[] getRow() {
+		nextRow = nextRow + 1 == rows ? 0 : nextRow + 1;
+		return excelDAO.getRow(excelRows[nextRow]);
+	}
+
+	/**
+	 * Benchmark of {@link TweetDAOImpl#getTweet(String[])}.
+	 *
+	 * @return the tweet
+	 */
+	@Benchmark
+	public Tweet getTweet() {
+		nextRow = nextRow + 1 == rows ? 0 : nextRow + 1;
+		return tweetDAO.getTweet(data[nextRow]);
+	}
+
+	/**
+	 * Benchmark of {@link TweetDAOImpl#isNumber(String)}.
+	 *
+	 * @return the number
+	 */
+	@Benchmark
+	public int isNumber() {
+		nextNumber = nextNumber + 1 == numbers.length ? 0 : nextNumber + 1;
+		return tweetDAO.isNumber(numbers[nextNumber]);
+	}
+
+	/**
+	 * Benchmark of reading the whole excel file with the Event Model.
+	 *
+	 * @return all tweets
+	 * @throws IOException
+	 *             If the file cannot be read
+	 * @throws InvalidFormatException
+	 *             If the file is not valid
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 2)
+	@Measurement(iterations = 5)
+	public List<Tweet> readXlsx() throws IOException, InvalidFormatException {
+		return new ExcelDAOImpl(xlsx, ExcelDAOImpl.ReadMode.EVENT_MODEL, 1, ExcelDAOImpl.DEFAULT_QUEUE_DEPTH, true,
+				RowInterner.withDefaultColumns()).getAllTweets();
+	}
+
+	/**
+	 * Benchmark of reading the whole CSV file.
+	 *
+	 * @return all tweets
+	 * @throws IOException
+	 *             If the file cannot be read
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 5)
+	@Measurement(iterations = 10)
+	public List<Tweet> readCsv() throws IOException {
+		return new DelimitedFileDAOImpl(csv, true, RowInterner.withDefaultColumns()).getAllTweets();
+	}
+}
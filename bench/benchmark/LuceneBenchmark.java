@@ -0,0 +1,161 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import entity.Tweet;
+import lucene.Indexer;
+import lucene.SearchOptions;
+import lucene.SearchPage;
+import lucene.Searcher;
+
+/**
+ * Benchmarks of the Lucene index: writing all tweets by
+ * {@link Indexer#writeDocument()}, and searching one page by
+ * {@link Searcher#search(SearchOptions)} in the order of relevance, which is
+ * the query of {@link Searcher#search(String)} without printing, and in the
+ * order of engagement.
+ *
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class LuceneBenchmark {
+
+	/** Number of tweets. */
+	@Param({ "50000" })
+	public int rows;
+
+	/** The query. */
+	@Param({ "java", "lucene AND fast" })
+	public String query;
+
+	/** All tweets. */
+	private List<Tweet> tweets;
+
+	/** Directory of the index which is searched. */
+	private Path searchDirectory;
+
+	/** Directory of the index which is written. */
+	private Path writeDirectory;
+
+	/** The searcher. */
+	private Searcher searcher;
+
+	/** Version of the source, changed for every write so that all documents are written. */
+	private int version;
+
+	/**
+	 * Generate the tweets and write the index which is searched.
+	 *
+	 * @throws IOException
+	 *             If the index cannot be written
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		tweets = new ArrayList<Tweet>(rows);
+		for (String[] row : BenchmarkData.rows(rows)) {
+			tweets.add(new Tweet(row[0], row[1], row[2], row[3], row[4], row[5], Integer.parseInt(row[6]),
+					Integer.parseInt(row[7]), row[8], row[9], Integer.parseInt(row[10])));
+		}
+
+		searchDirectory = Files.createTempDirectory("search-benchmark");
+		writeDirectory = Files.createTempDirectory("index-benchmark");
+
+		Indexer indexer = new Indexer(searchDirectory.toString(), tweets, "search");
+		try {
+			indexer.writeDocument();
+		} finally {
+			indexer.close();
+		}
+		searcher = new Searcher(searchDirectory.toString());
+	}
+
+	/**
+	 * Close the searcher and delete the indexes.
+	 *
+	 * @throws IOException
+	 *             If the index cannot be closed or deleted
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		searcher.close();
+		BenchmarkData.delete(searchDirectory);
+		BenchmarkData.delete(writeDirectory);
+	}
+
+	/**
+	 * Benchmark of writing all tweets into the index, the source version is
+	 * changed every time so that no write is skipped.
+	 *
+	 * @return number of documents written
+	 * @throws IOException
+	 *             If the index cannot be written
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 2)
+	@Measurement(iterations = 5)
+	public int writeDocument() throws IOException {
+		Indexer indexer = new Indexer(writeDirectory.toString(), tweets, "v" + version++);
+		try {
+			return indexer.writeDocument();
+		} finally {
+			indexer.close();
+		}
+	}
+
+	/**
+	 * Benchmark of searching the first page in the order of relevance.
+	 *
+	 * @return the page
+	 * @throws IOException
+	 *             If the index cannot be read
+	 * @throws ParseException
+	 *             If the query is not valid
+	 */
+	@Benchmark
+	public SearchPage searchRelevance() throws IOException, ParseException {
+		return searcher.search(new SearchOptions(query));
+	}
+
+	/**
+	 * Benchmark of searching the first page in the order of engagement.
+	 *
+	 * @return the page
+	 * @throws IOException
+	 *             If the index cannot be read
+	 * @throws ParseException
+	 *             If the query is not valid
+	 */
+	@Benchmark
+	public SearchPage searchEngagement() throws IOException, ParseException {
+		SearchOptions options = new SearchOptions(query);
+		options.setOrder(SearchOptions.Order.ENGAGEMENT);
+		return searcher.search(options);
+	}
+}
@@ -0,0 +1,137 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import entity.Tweet;
+import service.Menu;
+import service.TweetTextSearch;
+
+/**
+ * Benchmarks of the text match: {@link Menu#match(String, String)} on one
+ * content, and searching all contents by {@link TweetTextSearch} with a serial
+ * scan, a parallel scan and the trigram index.
+ *
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MatchBenchmark {
+
+	/** Number of tweets. */
+	@Param({ "200000" })
+	public int rows;
+
+	/** The target, a common word and a rare phrase. */
+	@Param({ "java", "fast lucene index" })
+	public String target;
+
+	/** All tweets. */
+	private List<Tweet> tweets;
+
+	/** Search scanning contents on the calling thread. */
+	private TweetTextSearch serial;
+
+	/** Search scanning contents on one thread of each core. */
+	private TweetTextSearch parallel;
+
+	/** Search with the trigram index. */
+	private TweetTextSearch indexed;
+
+	/** Index of the next tweet of the per-tweet benchmark. */
+	private int next;
+
+	/**
+	 * Generate the tweets and prepare the searches.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		tweets = new ArrayList<Tweet>(rows);
+		for (String[] row : BenchmarkData.rows(rows)) {
+			tweets.add(new Tweet(row[0], row[1], row[2], row[3], row[4], row[5], Integer.parseInt(row[6]),
+					Integer.parseInt(row[7]), row[8], row[9], Integer.parseInt(row[10])));
+		}
+
+		serial = new TweetTextSearch(tweets, 1);
+		parallel = new TweetTextSearch(tweets, Runtime.getRuntime().availableProcessors());
+		indexed = new TweetTextSearch(tweets, 1, true);
+	}
+
+	/**
+	 * Stop the threads of the searches.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		serial.close();
+		parallel.close();
+		indexed.close();
+	}
+
+	/**
+	 * Benchmark of {@link Menu#match(String, String)} on one content.
+	 *
+	 * @return true if the content matches
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public boolean match() {
+		next = next + 1 == rows ? 0 : next + 1;
+		return Menu.match(tweets.get(next).getContent(), target);
+	}
+
+	/**
+	 * Benchmark of searching all contents serially.
+	 *
+	 * @param blackhole
+	 *            consumes the matching tweets
+	 * @return number of matching tweets
+	 */
+	@Benchmark
+	public int searchSerial(Blackhole blackhole) {
+		return serial.search(target, blackhole::consume);
+	}
+
+	/**
+	 * Benchmark of searching all contents on several threads.
+	 *
+	 * @param blackhole
+	 *            consumes the matching tweets
+	 * @return number of matching tweets
+	 */
+	@Benchmark
+	public int searchParallel(Blackhole blackhole) {
+		return parallel.search(target, blackhole::consume);
+	}
+
+	/**
+	 * Benchmark of searching with the trigram index.
+	 *
+	 * @param blackhole
+	 *            consumes the matching tweets
+	 * @return number of matching tweets
+	 */
+	@Benchmark
+	public int searchIndexed(Blackhole blackhole) {
+		return indexed.search(target, blackhole::consume);
+	}
+}
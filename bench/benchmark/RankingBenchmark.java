@@ -0,0 +1,105 @@
+package benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dao.DelimitedFileDAOImpl;
+import dao.IExcelDAO;
+import dao.RowInterner;
+import entity.Tweet;
+import entity.User;
+
+/**
+ * Benchmarks of ranking the top tweets and users, which is what
+ * {@link service.Menu#getTop()} asks the Excel DAO for. Both the list of Tweet
+ * objects and the columnar store are measured.
+ *
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RankingBenchmark {
+
+	/** Number of rows. */
+	@Param({ "200000" })
+	public int rows;
+
+	/** Whether tweets are stored in columns. */
+	@Param({ "false", "true" })
+	public boolean columnar;
+
+	/** Number of top tweets and users, as shown by the menu. */
+	private static final int TOP = 10;
+
+	/** All tweets and users. */
+	private IExcelDAO excelDAO;
+
+	/**
+	 * Read the synthetic rows.
+	 *
+	 * @throws IOException
+	 *             If a file cannot be written or read
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		Path directory = Files.createTempDirectory("ranking-benchmark");
+
+		try {
+			File csv = directory.resolve("dataset.csv").toFile();
+			BenchmarkData.writeCsv(BenchmarkData.rows(rows), csv);
+			excelDAO = new DelimitedFileDAOImpl(csv, columnar, RowInterner.withDefaultColumns());
+		} finally {
+			BenchmarkData.delete(directory);
+		}
+	}
+
+	/**
+	 * Release the data.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		excelDAO = null;
+	}
+
+	/**
+	 * Benchmark of the top tweets.
+	 *
+	 * @return the top tweets
+	 */
+	@Benchmark
+	public List<Tweet> topTweets() {
+		return excelDAO.getTopTweets(TOP);
+	}
+
+	/**
+	 * Benchmark of the top users.
+	 *
+	 * @return the top users
+	 */
+	@Benchmark
+	public List<User> topUsers() {
+		return excelDAO.getTopUsers(TOP);
+	}
+}
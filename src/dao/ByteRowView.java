@@ -0,0 +1,249 @@
+package dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A {@link RowView} over the UTF-8 bytes of one row, filled by
+ * {@link DelimitedRowParser}. The bytes of all cells are kept in one array
+ * which is reused for every row, so a cell is only decoded into a String when
+ * a DAO asks for it by {@link #getString(int)}. Numeric cells and ASCII cells
+ * are read in place through a {@code CharSequence} over the bytes.
+ *
+ * @version 1.0
+ * @see DelimitedRowParser
+ * @see RowView
+ */
+class ByteRowView implements RowView {
+
+	/** Bytes of all cells of the row. */
+	private byte[] bytes = new byte[1024];
+
+	/** Number of bytes of the row. */
+	private int length;
+
+	/** Start of the cell which is being filled. */
+	private int fieldStart;
+
+	/** Start of each cell in bytes. */
+	private final int[] starts;
+
+	/** End of each cell in bytes, exclusive. */
+	private final int[] ends;
+
+	/** Bit of each column whose bytes are all ASCII. */
+	private long ascii;
+
+	/** Whether all bytes of the cell being filled are ASCII. */
+	private boolean fieldAscii;
+
+	/** Decoded String of each column, null if it is not decoded yet. */
+	private final String[] strings;
+
+	/** Numeric value of each column whose bit is set in parsed. */
+	private final int[] ints;
+
+	/** Bit of each column whose numeric value is known. */
+	private long parsed;
+
+	/** Sequence over the bytes of each column. */
+	private final Cell[] cells;
+
+	/** Deduplicates decoded Strings, null if they are not interned. */
+	private final RowInterner interner;
+
+	/**
+	 * Instantiates an empty view of {@link SheetRowHandler#COLUMNS} columns.
+	 *
+	 * @param interner
+	 *            deduplicates decoded Strings, could be null
+	 */
+	ByteRowView(RowInterner interner) {
+		this.interner = interner;
+		this.starts = new int[SheetRowHandler.COLUMNS];
+		this.ends = new int[starts.length];
+		this.strings = new String[starts.length];
+		this.ints = new int[starts.length];
+		this.cells = new Cell[starts.length];
+
+		for (int i = 0; i < cells.length; i++) {
+			cells[i] = new Cell(i);
+		}
+
+		clear();
+	}
+
+	/**
+	 * Empty all cells for the next row.
+	 */
+	void clear() {
+		length = 0;
+		fieldStart = 0;
+		fieldAscii = true;
+		Arrays.fill(starts, 0);
+		Arrays.fill(ends, 0);
+		Arrays.fill(strings, null);
+		ascii = -1L;
+		parsed = 0;
+	}
+
+	/**
+	 * Add one byte to the cell which is being filled.
+	 *
+	 * @param b
+	 *            the byte
+	 */
+	void append(byte b) {
+		if (length == bytes.length) {
+			bytes = Arrays.copyOf(bytes, length * 2);
+		}
+
+		bytes[length++] = b;
+		fieldAscii &= b >= 0;
+	}
+
+	/**
+	 * Finish the cell which is being filled, it is trimmed like the cells of
+	 * excel rows.
+	 *
+	 * @param column
+	 *            index of the column
+	 */
+	void endField(int column) {
+		int start = fieldStart;
+		int end = length;
+
+		// Bytes of UTF-8 below 0x20 are the same characters, so this is String.trim()
+		while (start < end && (bytes[start] & 0xFF) <= ' ') {
+			start++;
+		}
+		while (end > start && (bytes[end - 1] & 0xFF) <= ' ') {
+			end--;
+		}
+
+		starts[column] = start;
+		ends[column] = end;
+		if (!fieldAscii) {
+			ascii &= ~(1L << column);
+		}
+
+		fieldStart = length;
+		fieldAscii = true;
+	}
+
+	/*
+	 * @see dao.RowView#getColumnCount()
+	 */
+	@Override
+	public int getColumnCount() {
+		return starts.length;
+	}
+
+	/*
+	 * @see dao.RowView#getCharSequence(int)
+	 */
+	@Override
+	public CharSequence getCharSequence(int column) {
+		if (strings[column] != null || (ascii & (1L << column)) == 0) {
+			return getString(column);
+		}
+
+		return cells[column];
+	}
+
+	/*
+	 * @see dao.RowView#getString(int)
+	 */
+	@Override
+	public String getString(int column) {
+		String value = strings[column];
+
+		if (value == null) {
+			int start = starts[column];
+			int end = ends[column];
+
+			if (start == end) {
+				value = "";
+			} else {
+				value = new String(bytes, start, end - start,
+						(ascii & (1L << column)) != 0 ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+				if (interner != null) {
+					value = interner.intern(column, value);
+				}
+			}
+
+			strings[column] = value;
+		}
+
+		return value;
+	}
+
+	/*
+	 * @see dao.RowView#getInt(int)
+	 */
+	@Override
+	public int getInt(int column) {
+		if ((parsed & (1L << column)) == 0) {
+			ints[column] = NumberParser.parseInt(getCharSequence(column));
+			parsed |= 1L << column;
+		}
+
+		return ints[column];
+	}
+
+	/*
+	 * @see dao.RowView#getDouble(int)
+	 */
+	@Override
+	public double getDouble(int column) {
+		return NumberParser.parseDouble(getCharSequence(column));
+	}
+
+	/**
+	 * The ASCII bytes of one column as characters.
+	 */
+	private class Cell implements CharSequence {
+
+		/** Index of the column */
+		private final int column;
+
+		/**
+		 * Instantiates a new cell.
+		 */
+		private Cell(int column) {
+			this.column = column;
+		}
+
+		/*
+		 * @see java.lang.CharSequence#length()
+		 */
+		@Override
+		public int length() {
+			return ends[column] - starts[column];
+		}
+
+		/*
+		 * @see java.lang.CharSequence#charAt(int)
+		 */
+		@Override
+		public char charAt(int index) {
+			return (char) bytes[starts[column] + index];
+		}
+
+		/*
+		 * @see java.lang.CharSequence#subSequence(int, int)
+		 */
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return new String(bytes, starts[column] + start, end - start, StandardCharsets.ISO_8859_1);
+		}
+
+		/*
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return getString(column);
+		}
+	}
+}
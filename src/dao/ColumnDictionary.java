@@ -0,0 +1,128 @@
+package dao;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded dictionary of the values of one excel column, which returns the
+ * same String object for equal values, so that repeated cells such as
+ * usernames and dates are only kept once in memory.
+ *
+ * <p>
+ * At most {@code maxEntries} distinct values are kept. When the dictionary is
+ * full, new values are returned as they are, so a column with mostly unique
+ * values would not fill the memory with a useless dictionary. Hits and misses
+ * are counted to show how useful the dictionary is.
+ *
+ * <p>
+ * This class is thread-safe, so one dictionary could be shared by the decode
+ * stage of several readers.
+ *
+ * @version 1.0
+ * @see RowInterner
+ */
+public class ColumnDictionary {
+
+	/** Canonical object of each distinct value. */
+	private final ConcurrentMap<String, String> values;
+
+	/** Maximum number of distinct values kept. */
+	private final int maxEntries;
+
+	/** Number of values found in the dictionary. */
+	private final LongAdder hits = new LongAdder();
+
+	/** Number of values not found in the dictionary. */
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Instantiates a new dictionary.
+	 *
+	 * @param maxEntries
+	 *            maximum number of distinct values kept
+	 */
+	public ColumnDictionary(int maxEntries) {
+		this.maxEntries = maxEntries;
+		this.values = new ConcurrentHashMap<String, String>();
+	}
+
+	/**
+	 * Returns the canonical object of a value, the value is added to the
+	 * dictionary if it is not full.
+	 *
+	 * @param value
+	 *            the value, could be null
+	 * @return an equal String object shared by all equal values, or the value
+	 *         itself
+	 */
+	public String intern(String value) {
+		if (value == null) {
+			return null;
+		}
+
+		String canonical = values.get(value);
+
+		if (canonical != null) {
+			hits.increment();
+			return canonical;
+		}
+
+		misses.increment();
+
+		if (values.size() >= maxEntries) {
+			return value;
+		}
+
+		canonical = values.putIfAbsent(value, value);
+		return canonical == null ? value : canonical;
+	}
+
+	/**
+	 * Returns the number of values found in the dictionary.
+	 *
+	 * @return the hits
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the number of values not found in the dictionary.
+	 *
+	 * @return the misses
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Returns the part of values found in the dictionary.
+	 *
+	 * @return hit rate between 0 and 1
+	 */
+	public double getHitRate() {
+		long hit = getHits();
+		long total = hit + getMisses();
+
+		return total == 0 ? 0 : (double) hit / total;
+	}
+
+	/**
+	 * Returns the number of distinct values kept.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return values.size();
+	}
+
+	/**
+	 * Check if no more value could be added.
+	 *
+	 * @return true, if full
+	 */
+	public boolean isFull() {
+		return values.size() >= maxEntries;
+	}
+}
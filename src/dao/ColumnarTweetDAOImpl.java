@@ -0,0 +1,96 @@
+package dao;
+
+import java.util.List;
+
+import entity.Tweet;
+
+/**
+ * An implementation of the {@code ITweetDAO} interface, which stores rows into
+ * a {@link ColumnarTweetStore} rather than creating one Tweet object for each
+ * row. This DAO could be used in place of {@link TweetDAOImpl} when memory is
+ * limited, the store is also a list of Tweets so the rest of the project works
+ * the same way.
+ *
+ * @version 1.0
+ * @see ColumnarTweetStore
+ * @see TweetDAOImpl
+ */
+public class ColumnarTweetDAOImpl implements ITweetDAO {
+
+	/** Store of all tweets. */
+	private ColumnarTweetStore store;
+
+	/**
+	 * Constructs an instance of ColumnarTweetDAOImpl object and initial the store.
+	 */
+	public ColumnarTweetDAOImpl() {
+		store = new ColumnarTweetStore();
+	}
+
+	/**
+	 * This method will append one row to the store.
+	 *
+	 * @param row
+	 *            String array contains all data in one excel row
+	 */
+	@Override
+	public void handle_row(String[] row) {
+		store.add(row);
+	}
+
+	/**
+	 * This method will append a view of one row to the store, coordinates and
+	 * numeric cells are parsed without keeping Strings.
+	 *
+	 * @param row
+	 *            view of one excel row
+	 */
+	@Override
+	public void handle_row(RowView row) {
+		store.add(row);
+	}
+
+	/**
+	 * This method will return the top Tweets ranked on the int columns of the
+	 * store.
+	 *
+	 * @param k
+	 *            number of Tweets needed
+	 * @return List containing at most k Tweet objects
+	 */
+	@Override
+	public List<Tweet> getTopTweets(int k) {
+		return store.getTopTweets(k);
+	}
+
+	/**
+	 * This method will return the store, which is a list of all tweets.
+	 *
+	 * @return the store
+	 */
+	public ColumnarTweetStore getStore() {
+		return store;
+	}
+
+	/**
+	 * This method will return a data structure which stores objects(Tweet or User).
+	 *
+	 * @return Object, could be a list or collection
+	 */
+	@Override
+	public Object getData() {
+		return store;
+	}
+
+	/**
+	 * This method will append all rows of another ColumnarTweetDAO to this store.
+	 *
+	 * @param other
+	 *            ColumnarTweetDAO whose rows would be added
+	 */
+	@Override
+	public void merge(IEntityDAO other) {
+		store.addAll(((ColumnarTweetDAOImpl) other).store);
+	}
+
+}
@@ -0,0 +1,496 @@
+package dao;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import entity.Tweet;
+
+/**
+ * A column oriented store of all tweets, which keeps the same data as a list of
+ * {@link Tweet} objects with much less memory.
+ *
+ * <p>
+ * Instead of one object with 8 Strings for each row, every column is stored in
+ * an array:
+ * <ul>
+ * <li>{@code favs}, {@code rts} and {@code followers} are int arrays.</li>
+ * <li>{@code username}, {@code nickname}, {@code date} and {@code hour} repeat a
+ * lot, so they are encoded by {@link StringDictionary} and only int codes are
+ * stored for each row.</li>
+ * <li>Latitude and longitude are packed into one double array, two values for
+ * each row, an empty or invalid coordinate is stored as {@code NaN}. The
+ * text of a coordinate which would not come back from its value, such as
+ * {@code "151.0"}, {@code "1e-5"} or text which is not a number, is also kept
+ * as it was read, see {@link #formatCoordinate(double)}.</li>
+ * <li>{@code id} and {@code content} are unique for each row, so they are kept
+ * as String arrays.</li>
+ * </ul>
+ *
+ * <p>
+ * This class is also a read-only {@link List} of Tweets, {@code get} creates a
+ * flyweight Tweet on demand which shares the Strings of the store, so code
+ * which works with Tweet objects such as {@link lucene.Indexer Indexer} does
+ * not need to change. Ranking and text matching should use the column methods
+ * such as {@link #getTopTweets(int)} and {@link #getContent(int)} instead, so
+ * that no Tweet is created for rows which are not needed.
+ *
+ * <p>
+ * So every cell of a Tweet created by this store is the same text as the cell
+ * which was read, and a snapshot written from this store has the same rows as
+ * one written from Tweet objects, see {@link SnapshotFile}.
+ *
+ * @version 1.0
+ * @see ColumnarTweetDAOImpl
+ * @see StringDictionary
+ */
+public class ColumnarTweetStore extends AbstractList<Tweet> implements RandomAccess {
+
+	/** Initial number of rows of each column. */
+	private static final int INITIAL_CAPACITY = 1024;
+
+	/** Number of rows stored. */
+	private int size;
+
+	/** Column of ids. */
+	private String[] ids;
+
+	/** Column of contents. */
+	private String[] contents;
+
+	/** Column of date codes. */
+	private int[] dates;
+
+	/** Column of hour codes. */
+	private int[] hours;
+
+	/** Column of username codes. */
+	private int[] usernames;
+
+	/** Column of nickname codes. */
+	private int[] nicknames;
+
+	/** Column of favs. */
+	private int[] favs;
+
+	/** Column of rts. */
+	private int[] rts;
+
+	/** Column of followers. */
+	private int[] followers;
+
+	/** Latitude and longitude of each row, packed one after the other. */
+	private double[] coordinates;
+
+	/**
+	 * Text of the coordinates which {@link #formatCoordinate(double)} does not
+	 * give back, by their index in {@link #coordinates}. Empty for usual data.
+	 */
+	private Map<Integer, String> coordinateTexts;
+
+	/** Dictionary of dates. */
+	private StringDictionary dateDictionary;
+
+	/** Dictionary of hours. */
+	private StringDictionary hourDictionary;
+
+	/** Dictionary of usernames. */
+	private StringDictionary usernameDictionary;
+
+	/** Dictionary of nicknames. */
+	private StringDictionary nicknameDictionary;
+
+	/**
+	 * Instantiates a new empty store.
+	 */
+	public ColumnarTweetStore() {
+		ids = new String[INITIAL_CAPACITY];
+		contents = new String[INITIAL_CAPACITY];
+		dates = new int[INITIAL_CAPACITY];
+		hours = new int[INITIAL_CAPACITY];
+		usernames = new int[INITIAL_CAPACITY];
+		nicknames = new int[INITIAL_CAPACITY];
+		favs = new int[INITIAL_CAPACITY];
+		rts = new int[INITIAL_CAPACITY];
+		followers = new int[INITIAL_CAPACITY];
+		coordinates = new double[INITIAL_CAPACITY * 2];
+		coordinateTexts = new HashMap<Integer, String>();
+
+		dateDictionary = new StringDictionary();
+		hourDictionary = new StringDictionary();
+		usernameDictionary = new StringDictionary();
+		nicknameDictionary = new StringDictionary();
+	}
+
+	/**
+	 * Append one excel row to the store.
+	 *
+	 * @param row
+	 *            String array contains all data in one excel row
+	 */
+	public void add(String[] row) {
+		append(row[0], row[1], row[2], row[3], row[4], row[5], NumberParser.parseInt(row[6]),
+				NumberParser.parseInt(row[7]), parseCoordinate(row[8]), parseCoordinate(row[9]),
+				NumberParser.parseInt(row[10]));
+		keepCoordinateText(size - 1, row[8], row[9]);
+	}
+
+	/**
+	 * Append a view of one excel row to the store, only the cells stored as text
+	 * are turned into Strings, and the coordinates which would not come back from
+	 * their values.
+	 *
+	 * @param row
+	 *            view of one excel row
+	 */
+	public void add(RowView row) {
+		append(row.getString(0), row.getString(1), row.getString(2), row.getString(3), row.getString(4),
+				row.getString(5), row.getInt(6), row.getInt(7), row.getDouble(8), row.getDouble(9), row.getInt(10));
+		keepCoordinateText(size - 1, row.getCharSequence(8), row.getCharSequence(9));
+	}
+
+	/**
+	 * Append all rows of another store to this one.
+	 *
+	 * @param other
+	 *            the other store
+	 */
+	public void addAll(ColumnarTweetStore other) {
+		for (int i = 0; i < other.size; i++) {
+			append(other.ids[i], other.dateDictionary.decode(other.dates[i]),
+					other.hourDictionary.decode(other.hours[i]), other.getUsername(i),
+					other.nicknameDictionary.decode(other.nicknames[i]), other.contents[i], other.favs[i],
+					other.rts[i], other.coordinates[i * 2], other.coordinates[i * 2 + 1], other.followers[i]);
+			if (!other.coordinateTexts.isEmpty()) {
+				keepCoordinateText(size - 1, other.getCoordinate(i * 2), other.getCoordinate(i * 2 + 1));
+			}
+		}
+	}
+
+	/**
+	 * Keep the text of the coordinates of a row if they would not come back from
+	 * their values.
+	 */
+	private void keepCoordinateText(int index, CharSequence latitude, CharSequence longitude) {
+		keepCoordinateText(index * 2, latitude);
+		keepCoordinateText(index * 2 + 1, longitude);
+	}
+
+	/**
+	 * Keep the text of one coordinate if it would not come back from its value.
+	 */
+	private void keepCoordinateText(int slot, CharSequence text) {
+		if (text == null || !formatCoordinate(coordinates[slot]).contentEquals(text)) {
+			coordinateTexts.put(slot, text == null ? null : text.toString());
+		}
+	}
+
+	/**
+	 * Returns the text of one coordinate as it was read.
+	 */
+	private String getCoordinate(int slot) {
+		if (!coordinateTexts.isEmpty() && coordinateTexts.containsKey(slot)) {
+			return coordinateTexts.get(slot);
+		}
+
+		return formatCoordinate(coordinates[slot]);
+	}
+
+	/**
+	 * Append one row whose numbers are already parsed.
+	 */
+	private void append(String id, String date, String hour, String username, String nickname, String content,
+			int favs, int rts, double latitude, double longitude, int followers) {
+		if (size == ids.length) {
+			grow();
+		}
+
+		this.ids[size] = id;
+		this.contents[size] = content;
+		this.dates[size] = dateDictionary.encode(date);
+		this.hours[size] = hourDictionary.encode(hour);
+		this.usernames[size] = usernameDictionary.encode(username);
+		this.nicknames[size] = nicknameDictionary.encode(nickname);
+		this.favs[size] = favs;
+		this.rts[size] = rts;
+		this.followers[size] = followers;
+		this.coordinates[size * 2] = latitude;
+		this.coordinates[size * 2 + 1] = longitude;
+		size++;
+	}
+
+	/**
+	 * Enlarge all columns by half of their size.
+	 */
+	private void grow() {
+		int capacity = ids.length + (ids.length >> 1);
+
+		ids = Arrays.copyOf(ids, capacity);
+		contents = Arrays.copyOf(contents, capacity);
+		dates = Arrays.copyOf(dates, capacity);
+		hours = Arrays.copyOf(hours, capacity);
+		usernames = Arrays.copyOf(usernames, capacity);
+		nicknames = Arrays.copyOf(nicknames, capacity);
+		favs = Arrays.copyOf(favs, capacity);
+		rts = Arrays.copyOf(rts, capacity);
+		followers = Arrays.copyOf(followers, capacity);
+		coordinates = Arrays.copyOf(coordinates, capacity * 2);
+	}
+
+	/*
+	 * @see java.util.AbstractCollection#size()
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Creates a flyweight Tweet of one row.
+	 *
+	 * @param index
+	 *            index of the row
+	 * @return a new Tweet object
+	 */
+	@Override
+	public Tweet get(int index) {
+		return view(index, new Tweet());
+	}
+
+	/**
+	 * Fills a Tweet object with one row, so that the same object could be reused
+	 * while rows are traversed.
+	 *
+	 * @param index
+	 *            index of the row
+	 * @param tweet
+	 *            Tweet object to be filled
+	 * @return the given Tweet object
+	 */
+	public Tweet view(int index, Tweet tweet) {
+		checkIndex(index);
+
+		tweet.setId(ids[index]);
+		tweet.setDate(dateDictionary.decode(dates[index]));
+		tweet.setHour(hourDictionary.decode(hours[index]));
+		tweet.setUsername(usernameDictionary.decode(usernames[index]));
+		tweet.setNickname(nicknameDictionary.decode(nicknames[index]));
+		tweet.setContent(contents[index]);
+		tweet.setFavs(favs[index]);
+		tweet.setRts(rts[index]);
+		tweet.setLatitude(getCoordinate(index * 2));
+		tweet.setLongitude(getCoordinate(index * 2 + 1));
+		tweet.setFollowers(followers[index]);
+
+		return tweet;
+	}
+
+	/**
+	 * Returns the content of one row.
+	 *
+	 * @param index
+	 *            index of the row
+	 * @return the content
+	 */
+	public String getContent(int index) {
+		checkIndex(index);
+		return contents[index];
+	}
+
+	/**
+	 * Returns the username of one row.
+	 *
+	 * @param index
+	 *            index of the row
+	 * @return the username
+	 */
+	public String getUsername(int index) {
+		checkIndex(index);
+		return usernameDictionary.decode(usernames[index]);
+	}
+
+	/**
+	 * Returns the sum of favs and rts of one row, which is used to rank Tweets.
+	 *
+	 * @param index
+	 *            index of the row
+	 * @return favs plus rts
+	 */
+	public int getEngagement(int index) {
+		checkIndex(index);
+		return favs[index] + rts[index];
+	}
+
+	/**
+	 * Returns the number of distinct usernames.
+	 *
+	 * @return the count
+	 */
+	public int getUsernameCount() {
+		return usernameDictionary.size();
+	}
+
+	/**
+	 * Returns the top Tweets ranked by the sum of favs and rts, in the same order
+	 * as {@link Tweet#compareTo(Tweet)}. Rows with the same sum are ordered by
+	 * their index. Only the int columns are read while ranking, Tweets are only
+	 * created for the result.
+	 *
+	 * @param k
+	 *            number of Tweets needed
+	 * @return List containing at most k Tweet objects, the biggest first
+	 * @throws IllegalArgumentException
+	 *             If k is negative
+	 */
+	public List<Tweet> getTopTweets(int k) {
+		int[] top = topIndexes(k);
+		List<Tweet> result = new ArrayList<Tweet>(top.length);
+
+		for (int index : top) {
+			result.add(get(index));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns indexes of the top rows ranked by the sum of favs and rts, using a
+	 * min-heap of k indexes whose head is the worst row kept.
+	 *
+	 * @param k
+	 *            number of rows needed
+	 * @return indexes of at most k rows, the biggest first
+	 * @throws IllegalArgumentException
+	 *             If k is negative
+	 */
+	public int[] topIndexes(int k) {
+		int[] heap = new int[Math.min(TopKSelector.checkK(k), size)];
+		int count = 0;
+
+		for (int i = 0; i < size; i++) {
+			if (count < heap.length) {
+				heap[count] = i;
+				siftUp(heap, count++);
+			} else if (count > 0 && isWorse(heap[0], i)) {
+				heap[0] = i;
+				siftDown(heap, 0, count);
+			}
+		}
+
+		// Take the worst row out one by one, from the end of the result
+		int[] result = new int[count];
+		for (int i = count - 1; i >= 0; i--) {
+			result[i] = heap[0];
+			heap[0] = heap[i];
+			siftDown(heap, 0, i);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Check if row a is ranked after row b, a row after another one with the same
+	 * sum of favs and rts is worse.
+	 */
+	private boolean isWorse(int a, int b) {
+		int sumA = favs[a] + rts[a];
+		int sumB = favs[b] + rts[b];
+
+		return sumA < sumB || (sumA == sumB && a > b);
+	}
+
+	/**
+	 * Move a new element up until its parent is worse than it.
+	 */
+	private void siftUp(int[] heap, int position) {
+		int value = heap[position];
+
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			if (!isWorse(value, heap[parent])) {
+				break;
+			}
+			heap[position] = heap[parent];
+			position = parent;
+		}
+
+		heap[position] = value;
+	}
+
+	/**
+	 * Move an element down until both of its children are better than it.
+	 */
+	private void siftDown(int[] heap, int position, int count) {
+		int value = heap[position];
+
+		while (true) {
+			int child = position * 2 + 1;
+			if (child >= count) {
+				break;
+			}
+			if (child + 1 < count && isWorse(heap[child + 1], heap[child])) {
+				child++;
+			}
+			if (!isWorse(heap[child], value)) {
+				break;
+			}
+			heap[position] = heap[child];
+			position = child;
+		}
+
+		heap[position] = value;
+	}
+
+	/**
+	 * Check if the index is within the rows stored.
+	 */
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+
+	/**
+	 * Turn a coordinate into double, empty or invalid text would be {@code NaN}.
+	 *
+	 * @param str
+	 *            the coordinate
+	 * @return the value
+	 */
+	public static double parseCoordinate(String str) {
+		if (str == null || str.isEmpty()) {
+			return Double.NaN;
+		}
+
+		try {
+			return Double.parseDouble(str);
+		} catch (NumberFormatException e) {
+			return Double.NaN;
+		}
+	}
+
+	/**
+	 * Turn a coordinate back into text, {@code NaN} would be empty. The text of
+	 * usual coordinates, such as {@code "-0.1275"} or {@code "51"}, is the same as
+	 * the text they were parsed from.
+	 *
+	 * @param value
+	 *            the value
+	 * @return the coordinate
+	 */
+	public static String formatCoordinate(double value) {
+		if (Double.isNaN(value)) {
+			return "";
+		}
+
+		if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+			return Long.toString((long) value);
+		}
+
+		return Double.toString(value);
+	}
+}
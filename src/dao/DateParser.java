@@ -0,0 +1,90 @@
+package dao;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.ResolverStyle;
+import java.time.temporal.ChronoField;
+import java.util.Locale;
+
+/**
+ * This class provides the method to turn the date of a tweet into a day
+ * number, so that dates could be compared as numbers rather than as text.
+ *
+ * <p>
+ * Date cells are text in the excel file such as {@code 2019-03-20}, but cells
+ * stored as dates are formatted by the Event Model with the format of the
+ * cell, which is {@code 3/20/19} for the default date format of Excel.
+ * Following forms are accepted, surrounding whitespace is ignored:
+ * <ul>
+ * <li>ISO dates, {@code yyyy-MM-dd}, month and day could have one digit, such
+ * as {@code 2019-3-20}.</li>
+ * <li>{@code yyyy/MM/dd}, such as {@code 2019/03/20}.</li>
+ * <li>Month first, {@code M/d/yy} or {@code M/d/yyyy}, such as
+ * {@code 3/20/19}. Years of two digits are in 2000 to 2099.</li>
+ * <li>{@code d-MMM-yy} or {@code d-MMM-yyyy} with English months, such as
+ * {@code 20-Mar-19}.</li>
+ * </ul>
+ * Dates which do not exist, such as {@code 2019-02-30}, are not valid.
+ *
+ * @version 1.0
+ * @see NumberParser
+ * @see lucene.Indexer
+ */
+public final class DateParser {
+
+	/** Value returned for invalid input. */
+	public static final long INVALID = Long.MIN_VALUE;
+
+	/** Accepted formats, the first one which parses the whole input is used. */
+	private static final DateTimeFormatter[] FORMATS = { format("uuuu-M-d"), format("uuuu/M/d"),
+			format("M/d/uuuu"), twoDigitYear("M/d/"), format("d-MMM-uuuu"), twoDigitYear("d-MMM-") };
+
+	/**
+	 * No instance is needed, all methods are static.
+	 */
+	private DateParser() {
+
+	}
+
+	/**
+	 * Turn a date into the number of days since 1970-01-01.
+	 *
+	 * @param str
+	 *            date to be parsed, could be null
+	 * @return the day, or {@link #INVALID} if this input is not a valid date
+	 */
+	public static long toEpochDay(String str) {
+		if (str == null || str.trim().isEmpty()) {
+			return INVALID;
+		}
+
+		String date = str.trim();
+		for (DateTimeFormatter format : FORMATS) {
+			try {
+				return LocalDate.parse(date, format).toEpochDay();
+			} catch (DateTimeException e) {
+				// Try the next format
+			}
+		}
+
+		return INVALID;
+	}
+
+	/**
+	 * Creates a strict formatter, so that days beyond the month are not valid.
+	 */
+	private static DateTimeFormatter format(String pattern) {
+		return DateTimeFormatter.ofPattern(pattern, Locale.ENGLISH).withResolverStyle(ResolverStyle.STRICT);
+	}
+
+	/**
+	 * Creates a strict formatter whose year has two digits, in 2000 to 2099.
+	 */
+	private static DateTimeFormatter twoDigitYear(String prefix) {
+		return new DateTimeFormatterBuilder().parseCaseInsensitive().appendPattern(prefix)
+				.appendValueReduced(ChronoField.YEAR, 2, 2, 2000).toFormatter(Locale.ENGLISH)
+				.withResolverStyle(ResolverStyle.STRICT);
+	}
+}
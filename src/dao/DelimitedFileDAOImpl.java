@@ -0,0 +1,260 @@
+package dao;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+import entity.Tweet;
+import entity.User;
+
+/**
+ * An implementation of the {@code IExcelDAO} interface which reads a CSV or TSV
+ * export of the excel file. The file has the same 11 columns as the excel
+ * sheet, including the title row, and it is parsed by a
+ * {@link DelimitedRowParser} which gives every row to TweetDAO and UserDAO, so
+ * the Tweet and User objects are the same as the ones read from the excel
+ * file.
+ *
+ * <p>
+ * Parsing text is much cheaper than unzipping and parsing the XML of an excel
+ * file, so this class is used when the data is exported as text, see
+ * {@link ExcelDAOFactory#listSources(File)}.
+ *
+ * @version 1.0
+ * @see DelimitedRowParser
+ * @see ExcelDAOImpl
+ */
+public class DelimitedFileDAOImpl implements IExcelDAO {
+
+	/** The file which is read. */
+	private File source;
+
+	/** The delimiter of fields. */
+	private char delimiter;
+
+	/** Whether tweets are stored in a {@link ColumnarTweetStore}. */
+	private boolean columnar;
+
+	/** Deduplicates repeated cells of each row, null if rows are not interned. */
+	private RowInterner interner;
+
+	/** Also receives every row as soon as it is read, null if nobody watches. */
+	private IRowSink observer;
+
+	/** List for storing all Tweet objects in the order of rows. */
+	private List<Tweet> tweets;
+
+	/** All user objects, one for each username. */
+	private Collection<User> users;
+
+	/** Row Data Access Object which outputs Tweet objects. */
+	private IEntityDAO tweetDAO;
+
+	/** Row Data Access Object which outputs User objects. */
+	private IEntityDAO userDAO;
+
+	/**
+	 * Constructs an instance of DelimitedFileDAOImpl object and read the file, the
+	 * delimiter is given by the extension of the file.
+	 *
+	 * @param source
+	 *            the CSV or TSV file
+	 * @param columnar
+	 *            true to store tweets in columns, see {@link ColumnarTweetDAOImpl}
+	 * @param interner
+	 *            deduplicates repeated cells of each row, null to keep every cell
+	 * @throws FileNotFoundException
+	 *             If the file does not exist
+	 * @throws IOException
+	 *             If the file cannot be read
+	 */
+	public DelimitedFileDAOImpl(File source, boolean columnar, RowInterner interner)
+			throws FileNotFoundException, IOException {
+		this(source, delimiterOf(source), columnar, interner);
+	}
+
+	/**
+	 * Constructs an instance of DelimitedFileDAOImpl object and read the file.
+	 *
+	 * @param source
+	 *            the delimited text file
+	 * @param delimiter
+	 *            the delimiter of fields
+	 * @param columnar
+	 *            true to store tweets in columns, see {@link ColumnarTweetDAOImpl}
+	 * @param interner
+	 *            deduplicates repeated cells of each row, null to keep every cell
+	 * @throws FileNotFoundException
+	 *             If the file does not exist
+	 * @throws IOException
+	 *             If the file cannot be read
+	 */
+	public DelimitedFileDAOImpl(File source, char delimiter, boolean columnar, RowInterner interner)
+			throws FileNotFoundException, IOException {
+		this(source, delimiter, columnar, interner, null);
+	}
+
+	/**
+	 * Constructs an instance of DelimitedFileDAOImpl object and read the file,
+	 * every row is also given to an observer as soon as it is parsed.
+	 *
+	 * @param source
+	 *            the delimited text file
+	 * @param delimiter
+	 *            the delimiter of fields
+	 * @param columnar
+	 *            true to store tweets in columns, see {@link ColumnarTweetDAOImpl}
+	 * @param interner
+	 *            deduplicates repeated cells of each row, null to keep every cell
+	 * @param observer
+	 *            also receives every row, null if not needed
+	 * @throws FileNotFoundException
+	 *             If the file does not exist
+	 * @throws IOException
+	 *             If the file cannot be read
+	 */
+	public DelimitedFileDAOImpl(File source, char delimiter, boolean columnar, RowInterner interner,
+			IRowSink observer) throws FileNotFoundException, IOException {
+		this.source = source;
+		this.delimiter = delimiter;
+		this.columnar = columnar;
+		this.interner = interner;
+		this.observer = observer;
+		read(columnar ? new ColumnarTweetDAOImpl() : new TweetDAOImpl(), new UserDAOImpl());
+	}
+
+	/**
+	 * Returns the delimiter of a file by its extension, tab for .tsv and .tab
+	 * files, otherwise comma.
+	 *
+	 * @param file
+	 *            the file
+	 * @return the delimiter
+	 */
+	public static char delimiterOf(File file) {
+		String name = file.getName().toLowerCase();
+		return name.endsWith(".tsv") || name.endsWith(".tab") ? '\t' : ',';
+	}
+
+	/**
+	 * Check if a file is a delimited text file by its extension.
+	 *
+	 * @param file
+	 *            the file
+	 * @return true for .csv, .tsv and .tab files
+	 */
+	public static boolean isDelimited(File file) {
+		String name = file.getName().toLowerCase();
+		return name.endsWith(".csv") || name.endsWith(".tsv") || name.endsWith(".tab");
+	}
+
+	/**
+	 * Parse the file and give every row to TweetDAO and UserDAO.
+	 *
+	 * @param tweetDAO
+	 *            tweet cell dao instance
+	 * @param userDAO
+	 *            user cell dao instance
+	 * @throws IOException
+	 *             If the file cannot be read
+	 * @throws FileNotFoundException
+	 *             If the file does not exist
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public void read(IEntityDAO tweetDAO, IEntityDAO userDAO) throws IOException, FileNotFoundException {
+		if (observer == null) {
+			new DelimitedRowParser(delimiter, interner, tweetDAO, userDAO).parse(source);
+		} else {
+			new DelimitedRowParser(delimiter, interner, tweetDAO, userDAO, observer).parse(source);
+		}
+
+		this.tweetDAO = tweetDAO;
+		this.userDAO = userDAO;
+		tweets = (List<Tweet>) tweetDAO.getData();
+		users = (Collection<User>) userDAO.getData();
+	}
+
+	/**
+	 * Returns the file which is read.
+	 *
+	 * @return the source
+	 */
+	public File getSource() {
+		return source;
+	}
+
+	/**
+	 * Returns whether tweets are stored in columns.
+	 *
+	 * @return true if tweets are stored in a {@link ColumnarTweetStore}
+	 */
+	public boolean isColumnar() {
+		return columnar;
+	}
+
+	/**
+	 * Returns the tweet cell dao which received all rows.
+	 *
+	 * @return tweet cell dao instance
+	 */
+	IEntityDAO getTweetDAO() {
+		return tweetDAO;
+	}
+
+	/**
+	 * Returns the user cell dao which received all rows.
+	 *
+	 * @return user cell dao instance
+	 */
+	IEntityDAO getUserDAO() {
+		return userDAO;
+	}
+
+	/**
+	 * Returns all Tweet objects.
+	 *
+	 * @return List that contains all Tweet objects
+	 */
+	@Override
+	public List<Tweet> getAllTweets() {
+		return tweets;
+	}
+
+	/**
+	 * Returns the top k Tweet objects ranked by the sum of favs and rts, the
+	 * biggest first.
+	 *
+	 * @param k
+	 *            number of Tweet objects needed
+	 * @return List that contains at most k Tweet objects
+	 */
+	@Override
+	public List<Tweet> getTopTweets(int k) {
+		return ((ITweetDAO) tweetDAO).getTopTweets(k);
+	}
+
+	/**
+	 * Returns all User objects.
+	 *
+	 * @return Collection that contains all User objects
+	 */
+	@Override
+	public Collection<User> getAllUsers() {
+		return users;
+	}
+
+	/**
+	 * Returns the top k User objects ranked by followers, the biggest first.
+	 *
+	 * @param k
+	 *            number of User objects needed
+	 * @return List that contains at most k User objects
+	 */
+	@Override
+	public List<User> getTopUsers(int k) {
+		return ((UserDAOImpl) userDAO).getTopUsers(k);
+	}
+}
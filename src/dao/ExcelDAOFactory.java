@@ -0,0 +1,211 @@
+package dao;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+
+/**
+ * This class decides which implementation of {@code IExcelDAO} should be used,
+ * so that classes on <b>Controller</b> layer such as {@link service.Menu Menu}
+ * only work with the interface.
+ *
+ * <p>
+ * If a snapshot written from the same excel file exists, rows are read from
+ * the snapshot by {@link SnapshotExcelDAOImpl}. Otherwise the excel file is
+ * parsed by {@link ExcelDAOImpl}, and a new snapshot is written for the next
+ * start. A snapshot which cannot be read or written is reported and ignored,
+ * the excel file is always the source of truth.
+ * 
+ * <p>
+ * The source could be one excel file, or a directory of excel files such as
+ * monthly exports, which are read at the same time by
+ * {@link MultiFileExcelDAOImpl}. The snapshot of a directory covers all of its
+ * excel files.
+ *
+ * @version 1.0
+ * @see IExcelDAO
+ * @see SnapshotFile
+ */
+public final class ExcelDAOFactory {
+
+	/**
+	 * No instance is needed, all methods are static.
+	 */
+	private ExcelDAOFactory() {
+
+	}
+
+	/**
+	 * Open the excel file at {@link ExcelDAOImpl#DATASET_PATH}, using its snapshot
+	 * if possible.
+	 *
+	 * @param snapshot
+	 *            the snapshot file, which is written if it is not valid
+	 * @param columnar
+	 *            true to store tweets in columns, see {@link ColumnarTweetDAOImpl}
+	 * @param interner
+	 *            deduplicates repeated cells of each row, null to keep every cell
+	 * @return the Excel DAO containing all tweets and users
+	 * @throws InvalidFormatException
+	 *             If file format is not valid for OPCPackage
+	 * @throws FileNotFoundException
+	 *             If the excel file does not exist
+	 * @throws IOException
+	 *             If the excel file cannot be read
+	 */
+	public static IExcelDAO open(File snapshot, boolean columnar, RowInterner interner)
+			throws InvalidFormatException, FileNotFoundException, IOException {
+		return open(snapshot, SourceFingerprint.of(new File(ExcelDAOImpl.DATASET_PATH)), columnar, interner);
+	}
+
+	/**
+	 * Open the excel file whose fingerprint is already computed, using its
+	 * snapshot if possible.
+	 *
+	 * @param snapshot
+	 *            the snapshot file, which is written if it is not valid
+	 * @param fingerprint
+	 *            fingerprint of the excel file, see {@link SourceFingerprint#of(File)}
+	 * @param columnar
+	 *            true to store tweets in columns, see {@link ColumnarTweetDAOImpl}
+	 * @param interner
+	 *            deduplicates repeated cells of each row, null to keep every cell
+	 * @return the Excel DAO containing all tweets and users
+	 * @throws InvalidFormatException
+	 *             If file format is not valid for OPCPackage
+	 * @throws FileNotFoundException
+	 *             If the excel file does not exist
+	 * @throws IOException
+	 *             If the excel file cannot be read
+	 */
+	public static IExcelDAO open(File snapshot, SourceFingerprint fingerprint, boolean columnar,
+			RowInterner interner) throws InvalidFormatException, FileNotFoundException, IOException {
+		return open(Collections.singletonList(new File(ExcelDAOImpl.DATASET_PATH)), snapshot, fingerprint, columnar,
+				interner, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Open the excel files whose fingerprint is already computed, using their
+	 * snapshot if possible.
+	 *
+	 * @param sources
+	 *            the excel files, see {@link #listSources(File)}
+	 * @param snapshot
+	 *            the snapshot file, which is written if it is not valid
+	 * @param fingerprint
+	 *            fingerprint of the excel files, see
+	 *            {@link SourceFingerprint#of(List)}
+	 * @param columnar
+	 *            true to store tweets in columns, see {@link ColumnarTweetDAOImpl}
+	 * @param interner
+	 *            deduplicates repeated cells of each row, null to keep every cell
+	 * @param workers
+	 *            number of threads which read excel files
+	 * @return the Excel DAO containing all tweets and users
+	 * @throws InvalidFormatException
+	 *             If file format is not valid for OPCPackage
+	 * @throws FileNotFoundException
+	 *             If an excel file does not exist
+	 * @throws IOException
+	 *             If an excel file cannot be read
+	 */
+	public static IExcelDAO open(List<File> sources, File snapshot, SourceFingerprint fingerprint, boolean columnar,
+			RowInterner interner, int workers) throws InvalidFormatException, FileNotFoundException, IOException {
+		return open(sources, snapshot, fingerprint, columnar, interner, workers, null);
+	}
+
+	/**
+	 * Open the excel files whose fingerprint is already computed, using their
+	 * snapshot if possible. Every row is also given to an observer as soon as it
+	 * is read, so that the rows read so far could be used before all files are
+	 * read. The observer must be thread-safe, because several files are read at
+	 * the same time.
+	 *
+	 * @param sources
+	 *            the excel files, see {@link #listSources(File)}
+	 * @param snapshot
+	 *            the snapshot file, which is written if it is not valid
+	 * @param fingerprint
+	 *            fingerprint of the excel files, see
+	 *            {@link SourceFingerprint#of(List)}
+	 * @param columnar
+	 *            true to store tweets in columns, see {@link ColumnarTweetDAOImpl}
+	 * @param interner
+	 *            deduplicates repeated cells of each row, null to keep every cell
+	 * @param workers
+	 *            number of threads which read excel files
+	 * @param observer
+	 *            also receives every row, null if not needed
+	 * @return the Excel DAO containing all tweets and users
+	 * @throws InvalidFormatException
+	 *             If file format is not valid for OPCPackage
+	 * @throws FileNotFoundException
+	 *             If an excel file does not exist
+	 * @throws IOException
+	 *             If an excel file cannot be read
+	 */
+	public static IExcelDAO open(List<File> sources, File snapshot, SourceFingerprint fingerprint, boolean columnar,
+			RowInterner interner, int workers, IRowSink observer)
+			throws InvalidFormatException, FileNotFoundException, IOException {
+		if (SnapshotFile.matches(snapshot, fingerprint)) {
+			try {
+				return new SnapshotExcelDAOImpl(snapshot, fingerprint, columnar, interner, observer);
+			} catch (IOException e) {
+				System.out.println("Snapshot is not valid, read excel file instead: " + e.getMessage());
+			}
+		}
+
+		// One file is read by a pipeline, several files are read at the same time
+		IExcelDAO excelDAO;
+		if (sources.size() > 1) {
+			excelDAO = new MultiFileExcelDAOImpl(sources, workers, columnar, interner, observer);
+		} else if (DelimitedFileDAOImpl.isDelimited(sources.get(0))) {
+			excelDAO = new DelimitedFileDAOImpl(sources.get(0), DelimitedFileDAOImpl.delimiterOf(sources.get(0)),
+					columnar, interner, observer);
+		} else {
+			excelDAO = new ExcelDAOImpl(sources.get(0), ExcelDAOImpl.ReadMode.PIPELINED, workers,
+					ExcelDAOImpl.DEFAULT_QUEUE_DEPTH, columnar, interner, observer);
+		}
+
+		try {
+			SnapshotFile.write(snapshot, fingerprint, excelDAO.getAllTweets());
+		} catch (IOException e) {
+			System.out.println("Fail to write snapshot: " + e.getMessage());
+		}
+
+		return excelDAO;
+	}
+
+	/**
+	 * List the excel files of a source. A directory gives all of its .xlsx files
+	 * and CSV or TSV exports sorted by name, temporary files of Excel starting
+	 * with "~$" are skipped.
+	 *
+	 * @param source
+	 *            an excel file or a directory of excel files
+	 * @return the excel files
+	 * @throws FileNotFoundException
+	 *             If the source does not exist, or the directory has no excel file
+	 */
+	public static List<File> listSources(File source) throws FileNotFoundException {
+		if (source.isFile()) {
+			return Collections.singletonList(source);
+		}
+
+		File[] files = source.listFiles(
+				f -> f.isFile() && (f.getName().toLowerCase().endsWith(".xlsx") || DelimitedFileDAOImpl.isDelimited(f))
+						&& !f.getName().startsWith("~$"));
+		if (files == null || files.length == 0) {
+			throw new FileNotFoundException("No excel file found: " + source.getPath());
+		}
+
+		Arrays.sort(files);
+		return new ArrayList<File>(Arrays.asList(files));
+	}
+}
@@ -3,18 +3,37 @@ package dao;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.PriorityQueue;
-import java.util.TreeSet;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.ooxml.util.SAXHelper;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
 import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
 import org.apache.poi.xssf.usermodel.XSSFCell;
 import org.apache.poi.xssf.usermodel.XSSFRow;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
 import entity.Tweet;
 import entity.User;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
 
 /**
  * An implementation of the {@code IExcelDAO} interface. In addition to
@@ -39,16 +58,21 @@ import entity.User;
  * {@link service.Menu Menu}
  * 
  * <p>
- * In order to sort object easily, {@code PriorityQueue} is used to sort
- * compareble objects. Tweet and User object in {@link entity.Tweet Tweet} and
+ * In order to sort object easily, Tweet and User object in {@link entity.Tweet Tweet} and
  * {@link entity.User User} have implemented Comparable interface according to
- * their own attributes.
+ * their own attributes. Only top Tweets are ranked, see {@link TopKSelector}.
  * 
  * <p>
  * Besides, this class use external jar packages from Apache POI to parse Excel
- * files, and its model is User Model rather than Event Model. See <a href=
+ * files. Two models are supported and selected by {@link ReadMode}: the User
+ * Model builds the whole sheet in memory through {@code XSSFWorkbook}, while
+ * the Event Model streams sheet XML through SAX and hands every row to the
+ * entity DAOs as soon as it is parsed, so the sheet is never held in memory.
+ * See <a href=
  * "http://poi.apache.org/components/spreadsheet/quick-guide.html#CellContents">Busy
- * Developers' Guide to HSSF and XSSF Features</a>.
+ * Developers' Guide to HSSF and XSSF Features</a> and <a href=
+ * "http://poi.apache.org/components/spreadsheet/how-to.html#xssf_sax_api">XSSF
+ * and SAX (Event API)</a>.
  * 
  * <p>
  * Efficiency and robustness are implemented through reduce dependency between
@@ -67,12 +91,78 @@ import entity.User;
  */
 
 public class ExcelDAOImpl implements IExcelDAO {
+
+	/**
+	 * Models of Apache POI which could be used to read the excel file.
+	 */
+	public enum ReadMode {
+		/** Load the whole workbook into memory through {@code XSSFWorkbook}. */
+		USER_MODEL,
+
+		/**
+		 * Stream the sheet through {@code XSSFReader} and SAX, rows are handled one by
+		 * one and never kept in memory.
+		 */
+		EVENT_MODEL,
+
+		/**
+		 * Stream the sheet like {@link #EVENT_MODEL}, while rows are converted to
+		 * Tweet and User objects by several worker threads, see {@link RowPipeline}.
+		 * The objects are in the same order as with {@link #EVENT_MODEL}.
+		 */
+		PIPELINED
+	}
+
+	/** Default maximum number of row batches waiting for the workers. */
+	public static final int DEFAULT_QUEUE_DEPTH = 64;
+
+	/** Default path of the excel file which contains all tweets, relative to the working directory. */
+	public static final String DATASET_PATH = "dataset.xlsx";
+
+	/** Time of opening the excel file, unzipping it and loading shared strings. */
+	private static final LatencyHistogram UNZIP = MetricsRegistry.getDefault().histogram("ingest_unzip");
+
+	/** Time of parsing the whole sheet, including the handlers of its rows. */
+	private static final LatencyHistogram SHEET_PARSE = MetricsRegistry.getDefault().histogram("ingest_sheet_parse");
+
+	/** Time of turning one XSSFRow into a String array. */
+	private static final LatencyHistogram ROW_CONVERT = MetricsRegistry.getDefault().histogram("ingest_row_convert");
+
+	/** Time of giving one row to TweetDAO and UserDAO. */
+	private static final LatencyHistogram DAO_HANDLE = MetricsRegistry.getDefault().histogram("ingest_dao_handle");
+
+	/** Number of rows read. */
+	private static final LongAdder ROWS = MetricsRegistry.getDefault().counter("ingest_rows");
+
+	/** Number of rows with at least one cell which could not be read. */
+	private static final LongAdder BAD_ROWS = MetricsRegistry.getDefault().counter("ingest_bad_rows");
+
+	/** The excel file which is read. */
+	private File source;
+
+	/** Model used to read the excel file. */
+	private ReadMode mode;
+
+	/** Number of worker threads used by {@link ReadMode#PIPELINED}. */
+	private int workerCount;
+
+	/** Maximum number of row batches waiting for the workers. */
+	private int queueDepth;
+
+	/** Whether tweets are stored in a {@link ColumnarTweetStore}. */
+	private boolean columnar;
+
+	/** Deduplicates repeated cells of each row, null if rows are not interned. */
+	private RowInterner interner;
+
+	/** Also receives every row as soon as it is read, null if nobody watches. */
+	private IRowSink observer;
 	
-	/** PriorityQueue for sorting and storing all Tweet objects. */
-	private PriorityQueue<Tweet> queue;
+	/** List for storing all Tweet objects in the order of excel rows. */
+	private List<Tweet> tweets;
 
-	/** TreeSet for sorting and deleting duplication of all user objects. */
-	private TreeSet<User> set;
+	/** All user objects, one for each username. */
+	private Collection<User> users;
 
 	/**
 	 * Row Data Access Object to handle the cell instance extracted by {@code read}
@@ -86,6 +176,15 @@ public class ExcelDAOImpl implements IExcelDAO {
 	 */
 	private IEntityDAO userDAO;
 
+	/** Formats cells read by {@link #getRow(XSSFRow)} as the Event Model does. */
+	private final DataFormatter formatter = new DataFormatter();
+
+	/** Number of rows read by {@link #getRow(XSSFRow)} with cells which could not be read. */
+	private int badRows;
+
+	/** Why the first cell which could not be read failed, null if every cell was read. */
+	private String firstBadCell;
+
 	/**
 	 * Constructs an instance of ExcelDAOImpl object and initial cell daos to read
 	 * data, due to the requirements of this coursework, all main function needed to
@@ -100,7 +199,168 @@ public class ExcelDAOImpl implements IExcelDAO {
 	 *             {@inheritDoc}
 	 */
 	public ExcelDAOImpl() throws InvalidFormatException, FileNotFoundException, IOException {
-		this.tweetDAO = new TweetDAOImpl();
+		this(ReadMode.USER_MODEL);
+	}
+
+	/**
+	 * Constructs an instance of ExcelDAOImpl object which reads the excel file at
+	 * {@link #DATASET_PATH} with the given model of Apache POI. Both models produce
+	 * the same Tweet and User objects.
+	 *
+	 * @param mode
+	 *            model used to read the excel file
+	 * @throws InvalidFormatException
+	 *             {@inheritDoc}
+	 * @throws FileNotFoundException
+	 *             {@inheritDoc}
+	 * @throws IOException
+	 *             {@inheritDoc}
+	 */
+	public ExcelDAOImpl(ReadMode mode) throws InvalidFormatException, FileNotFoundException, IOException {
+		this(mode, Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_DEPTH);
+	}
+
+	/**
+	 * Constructs an instance of ExcelDAOImpl object which reads the excel file with
+	 * the given model of Apache POI. The number of workers and the depth of the
+	 * queue are only used by {@link ReadMode#PIPELINED}.
+	 *
+	 * @param mode
+	 *            model used to read the excel file
+	 * @param workerCount
+	 *            number of threads which convert rows to Tweet and User objects
+	 * @param queueDepth
+	 *            maximum number of row batches waiting for the workers
+	 * @throws InvalidFormatException
+	 *             {@inheritDoc}
+	 * @throws FileNotFoundException
+	 *             {@inheritDoc}
+	 * @throws IOException
+	 *             {@inheritDoc}
+	 */
+	public ExcelDAOImpl(ReadMode mode, int workerCount, int queueDepth)
+			throws InvalidFormatException, FileNotFoundException, IOException {
+		this(mode, workerCount, queueDepth, false);
+	}
+
+	/**
+	 * Constructs an instance of ExcelDAOImpl object which reads the excel file with
+	 * the given model of Apache POI, and stores tweets either as Tweet objects or
+	 * in a {@link ColumnarTweetStore}.
+	 *
+	 * @param mode
+	 *            model used to read the excel file
+	 * @param workerCount
+	 *            number of threads which convert rows to Tweet and User objects
+	 * @param queueDepth
+	 *            maximum number of row batches waiting for the workers
+	 * @param columnar
+	 *            true to store tweets in columns, see {@link ColumnarTweetDAOImpl}
+	 * @throws InvalidFormatException
+	 *             {@inheritDoc}
+	 * @throws FileNotFoundException
+	 *             {@inheritDoc}
+	 * @throws IOException
+	 *             {@inheritDoc}
+	 */
+	public ExcelDAOImpl(ReadMode mode, int workerCount, int queueDepth, boolean columnar)
+			throws InvalidFormatException, FileNotFoundException, IOException {
+		this(mode, workerCount, queueDepth, columnar, RowInterner.withDefaultColumns());
+	}
+
+	/**
+	 * Constructs an instance of ExcelDAOImpl object which reads the excel file with
+	 * the given model of Apache POI, and deduplicates repeated cells with the
+	 * given interner before rows are given to TweetDAO and UserDAO.
+	 *
+	 * @param mode
+	 *            model used to read the excel file
+	 * @param workerCount
+	 *            number of threads which convert rows to Tweet and User objects
+	 * @param queueDepth
+	 *            maximum number of row batches waiting for the workers
+	 * @param columnar
+	 *            true to store tweets in columns, see {@link ColumnarTweetDAOImpl}
+	 * @param interner
+	 *            deduplicates repeated cells of each row, null to keep every cell
+	 * @throws InvalidFormatException
+	 *             {@inheritDoc}
+	 * @throws FileNotFoundException
+	 *             {@inheritDoc}
+	 * @throws IOException
+	 *             {@inheritDoc}
+	 */
+	public ExcelDAOImpl(ReadMode mode, int workerCount, int queueDepth, boolean columnar, RowInterner interner)
+			throws InvalidFormatException, FileNotFoundException, IOException {
+		this(new File(DATASET_PATH), mode, workerCount, queueDepth, columnar, interner);
+	}
+
+	/**
+	 * Constructs an instance of ExcelDAOImpl object which reads the given excel
+	 * file rather than {@link #DATASET_PATH}.
+	 *
+	 * @param source
+	 *            the excel file
+	 * @param mode
+	 *            model used to read the excel file
+	 * @param workerCount
+	 *            number of threads which convert rows to Tweet and User objects
+	 * @param queueDepth
+	 *            maximum number of row batches waiting for the workers
+	 * @param columnar
+	 *            true to store tweets in columns, see {@link ColumnarTweetDAOImpl}
+	 * @param interner
+	 *            deduplicates repeated cells of each row, null to keep every cell
+	 * @throws InvalidFormatException
+	 *             {@inheritDoc}
+	 * @throws FileNotFoundException
+	 *             {@inheritDoc}
+	 * @throws IOException
+	 *             {@inheritDoc}
+	 */
+	public ExcelDAOImpl(File source, ReadMode mode, int workerCount, int queueDepth, boolean columnar,
+			RowInterner interner) throws InvalidFormatException, FileNotFoundException, IOException {
+		this(source, mode, workerCount, queueDepth, columnar, interner, null);
+	}
+
+	/**
+	 * Constructs an instance of ExcelDAOImpl object which reads the given excel
+	 * file, and also gives every row to an observer as soon as it is read, so
+	 * that rows could be seen before the whole file is read. The observer is
+	 * called on the thread which parses the sheet.
+	 *
+	 * @param source
+	 *            the excel file
+	 * @param mode
+	 *            model used to read the excel file
+	 * @param workerCount
+	 *            number of threads which convert rows to Tweet and User objects
+	 * @param queueDepth
+	 *            maximum number of row batches waiting for the workers
+	 * @param columnar
+	 *            true to store tweets in columns, see {@link ColumnarTweetDAOImpl}
+	 * @param interner
+	 *            deduplicates repeated cells of each row, null to keep every cell
+	 * @param observer
+	 *            also receives every row, null if not needed
+	 * @throws InvalidFormatException
+	 *             {@inheritDoc}
+	 * @throws FileNotFoundException
+	 *             {@inheritDoc}
+	 * @throws IOException
+	 *             {@inheritDoc}
+	 */
+	public ExcelDAOImpl(File source, ReadMode mode, int workerCount, int queueDepth, boolean columnar,
+			RowInterner interner, IRowSink observer)
+			throws InvalidFormatException, FileNotFoundException, IOException {
+		this.source = source;
+		this.mode = mode;
+		this.interner = interner;
+		this.observer = observer;
+		this.workerCount = workerCount;
+		this.queueDepth = queueDepth;
+		this.columnar = columnar;
+		this.tweetDAO = newTweetDAO();
 		this.userDAO = new UserDAOImpl();
 		read(tweetDAO, userDAO);
 	}
@@ -109,26 +369,120 @@ public class ExcelDAOImpl implements IExcelDAO {
 	 * Returns all Tweet objects, classes on <b>Controller</b> layer would only need to invoke this method and {@link getAllUsers},
 	 * so that all data access operations are encapsulated in <b>Model</b> layer.
 	 *
-	 * @return PriorityQueue that contains all Tweet objects
+	 * @return List that contains all Tweet objects
+	 */
+	@Override
+	public List<Tweet> getAllTweets() {
+		return tweets;
+	}
+
+	/**
+	 * Returns the top k Tweet objects ranked by the sum of favs and rts, the
+	 * biggest first.
+	 *
+	 * @param k
+	 *            number of Tweet objects needed
+	 * @return List that contains at most k Tweet objects
 	 */
 	@Override
-	public PriorityQueue<Tweet> getAllTweets() {
-		return queue;
+	public List<Tweet> getTopTweets(int k) {
+		return ((ITweetDAO) tweetDAO).getTopTweets(k);
+	}
+
+	/**
+	 * Returns the excel file which is read.
+	 *
+	 * @return the source
+	 */
+	public File getSource() {
+		return source;
+	}
+
+	/**
+	 * Returns the tweet cell dao which received all rows.
+	 *
+	 * @return tweet cell dao instance
+	 */
+	IEntityDAO getTweetDAO() {
+		return tweetDAO;
+	}
+
+	/**
+	 * Returns the user cell dao which received all rows.
+	 *
+	 * @return user cell dao instance
+	 */
+	IEntityDAO getUserDAO() {
+		return userDAO;
+	}
+
+	/**
+	 * Returns the interner which deduplicated repeated cells, so that its hit
+	 * rates could be reported.
+	 *
+	 * @return the interner, null if rows were not interned
+	 */
+	public RowInterner getInterner() {
+		return interner;
 	}
 
 	/**
 	 * Returns all User objects,  classes on <b>Controller</b> layer would only need to invoke this method and {@link getAllTweets},
 	 * so that all data access operations are encapsulated in <b>Model</b> layer.
 	 *
-	 * @return TreeSet that contains all User objects
+	 * @return Collection that contains all User objects
 	 */
 	@Override
-	public TreeSet<User> getAllUsers() {
-		return set;
+	public Collection<User> getAllUsers() {
+		return users;
+	}
+
+	/**
+	 * Returns the top k User objects ranked by followers, the biggest first.
+	 *
+	 * @param k
+	 *            number of User objects needed
+	 * @return List that contains at most k User objects
+	 */
+	@Override
+	public List<User> getTopUsers(int k) {
+		return ((UserDAOImpl) userDAO).getTopUsers(k);
 	}
 
 	/**
 	 * Exact data from excel files and give them to TweetDAO or UserDAO instance,
+	 * using the model selected when this object was constructed.
+	 *
+	 * @param tweetDAO
+	 *            tweet cell dao instance
+	 * @param userDAO
+	 *            user cell dao instance
+	 * @throws InvalidFormatException
+	 *             {@inheritDoc}
+	 * @throws IOException
+	 *             {@inheritDoc}
+	 * @throws FileNotFoundException
+	 *             {@inheritDoc}
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public void read(IEntityDAO tweetDAO, IEntityDAO userDAO) throws InvalidFormatException, IOException, FileNotFoundException{
+		if (mode == ReadMode.PIPELINED) {
+			readPipelined(tweetDAO, userDAO);
+		} else if (mode == ReadMode.EVENT_MODEL) {
+			readEventModel(tweetDAO, userDAO);
+		} else {
+			readUserModel(tweetDAO, userDAO);
+		}
+
+		this.tweetDAO = tweetDAO;
+		this.userDAO = userDAO;
+		tweets = (List<Tweet>) tweetDAO.getData();
+		users = (Collection<User>) userDAO.getData();
+	}
+
+	/**
+	 * Exact data from excel files with User Model and give them to TweetDAO or UserDAO instance,
 	 * core codes reading data referenc from official demo codes of Apache POI, see
 	 * <a href=
 	 * "http://poi.apache.org/components/spreadsheet/quick-guide.html#CellContents">Busy
@@ -145,15 +499,16 @@ public class ExcelDAOImpl implements IExcelDAO {
 	 * @throws FileNotFoundException
 	 *             {@inheritDoc}
 	 */
-	@SuppressWarnings("unchecked")
-	@Override
-	public void read(IEntityDAO tweetDAO, IEntityDAO userDAO) throws InvalidFormatException, IOException, FileNotFoundException{
+	private void readUserModel(IEntityDAO tweetDAO, IEntityDAO userDAO) throws InvalidFormatException, IOException, FileNotFoundException{
 			// Use OPCPackage to unzip .xlsx file to get XML files
-			OPCPackage pkg = OPCPackage.open(new File("D:\\Study\\Year 3\\CSE210\\CW\\dataset.xlsx"));
+			long time = System.nanoTime();
+			OPCPackage pkg = OPCPackage.open(source);
+			time = UNZIP.recordSince(time);
 
 			// Workbook -> Sheet -> Row -> Cell -> Data
 			@SuppressWarnings("resource")
 			XSSFWorkbook workbook = new XSSFWorkbook(pkg);
+			SHEET_PARSE.recordSince(time);
 
 			// Only one sheet
 			XSSFSheet sheet = workbook.getSheetAt(0);
@@ -161,6 +516,8 @@ public class ExcelDAOImpl implements IExcelDAO {
 			// How many rows in total
 			int lastrow = sheet.getLastRowNum();
 			XSSFRow excel_row;
+			badRows = 0;
+			firstBadCell = null;
 
 			// Loop rows
 			for (int rowNum = 1; rowNum <= lastrow; rowNum++) {
@@ -172,22 +529,167 @@ public class ExcelDAOImpl implements IExcelDAO {
 					continue; // if this is an empty row, jump to next row
 				}
 
+				time = System.nanoTime();
 				String[] row = getRow(excel_row);
 
+				if (interner != null) {
+					interner.intern(row);
+				}
+				time = ROW_CONVERT.recordSince(time);
+
 				// To handle row
 				tweetDAO.handle_row(row);
 				userDAO.handle_row(row);
+				if (observer != null) {
+					observer.handle_row(row);
+				}
+				DAO_HANDLE.recordSince(time);
+				ROWS.increment();
 			}
 
-			queue = (PriorityQueue<Tweet>) tweetDAO.getData();
-			set = (TreeSet<User>) userDAO.getData();
+			// One line for all bad rows, they are also counted by ingest_bad_rows
+			if (badRows > 0) {
+				System.out.println(badRows + " row(s) of " + source.getName()
+						+ " have cells which cannot be read, the first one: " + firstBadCell);
+			}
 
 			pkg.close();
 
 	}
 
+	/**
+	 * Exact data from excel files with Event Model and give them to TweetDAO or
+	 * UserDAO instance.
+	 *
+	 * @param tweetDAO
+	 *            tweet cell dao instance
+	 * @param userDAO
+	 *            user cell dao instance
+	 * @throws InvalidFormatException
+	 *             If file format is not valid for OPCPackage
+	 * @throws IOException
+	 *             If sheet XML cannot be read or parsed
+	 * @throws FileNotFoundException
+	 *             If specified path name is not valid
+	 */
+	private void readEventModel(IEntityDAO tweetDAO, IEntityDAO userDAO) throws InvalidFormatException, IOException, FileNotFoundException{
+		parseSheet(withObserver(tweetDAO, userDAO));
+	}
+
+	/**
+	 * Exact data from excel files with Event Model, rows are converted to Tweet and
+	 * User objects by worker threads of a {@link RowPipeline}, and objects of each
+	 * batch of rows are merged into TweetDAO and UserDAO instance in the order of
+	 * rows.
+	 *
+	 * @param tweetDAO
+	 *            tweet cell dao instance
+	 * @param userDAO
+	 *            user cell dao instance
+	 * @throws InvalidFormatException
+	 *             If file format is not valid for OPCPackage
+	 * @throws IOException
+	 *             If sheet XML cannot be read or parsed, or a worker failed
+	 * @throws FileNotFoundException
+	 *             If specified path name is not valid
+	 */
+	private void readPipelined(IEntityDAO tweetDAO, IEntityDAO userDAO) throws InvalidFormatException, IOException, FileNotFoundException{
+		RowPipeline pipeline = new RowPipeline(workerCount, queueDepth, this::newTweetDAO, UserDAOImpl::new,
+				tweetDAO, userDAO);
+
+		try {
+			parseSheet(withObserver(pipeline));
+		} catch (IOException | RuntimeException e) {
+			pipeline.abort();
+			throw e;
+		}
+
+		pipeline.finish();
+	}
+
+	/**
+	 * Returns the handlers followed by the observer, if there is one.
+	 */
+	private IRowSink[] withObserver(IRowSink... handlers) {
+		if (observer == null) {
+			return handlers;
+		}
+
+		IRowSink[] all = Arrays.copyOf(handlers, handlers.length + 1);
+		all[handlers.length] = observer;
+		return all;
+	}
+
+	/**
+	 * Parse the first sheet of the excel file with Event Model. Sheet XML is parsed
+	 * by SAX and every row is passed to the handlers by {@link SheetRowHandler} as
+	 * soon as its end tag is reached, shared strings are loaded by the read-only
+	 * table, see <a href=
+	 * "http://poi.apache.org/components/spreadsheet/how-to.html#xssf_sax_api">XSSF
+	 * and SAX (Event API)</a>.
+	 *
+	 * @param handlers
+	 *            row handlers which receive every row in order
+	 * @throws InvalidFormatException
+	 *             If file format is not valid for OPCPackage
+	 * @throws IOException
+	 *             If sheet XML cannot be read or parsed
+	 * @throws FileNotFoundException
+	 *             If specified path name is not valid
+	 */
+	private void parseSheet(IRowSink... handlers) throws InvalidFormatException, IOException, FileNotFoundException{
+		// Read only, so that nothing would be written back into the excel file on close
+		long time = System.nanoTime();
+		OPCPackage pkg = OPCPackage.open(source, PackageAccess.READ);
+
+		try {
+			XSSFReader reader = new XSSFReader(pkg);
+			ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+			StylesTable styles = reader.getStylesTable();
+			time = UNZIP.recordSince(time);
+
+			SheetRowHandler rowHandler = new SheetRowHandler(interner, handlers);
+			XMLReader parser = SAXHelper.newXMLReader();
+			parser.setContentHandler(
+					new XSSFSheetXMLHandler(styles, null, strings, rowHandler, new DataFormatter(), false));
+
+			// Only one sheet
+			XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+			if (sheets.hasNext()) {
+				try (InputStream sheet = sheets.next()) {
+					parser.parse(new InputSource(sheet));
+				}
+				SHEET_PARSE.recordSince(time);
+			}
+		} catch (SAXException | ParserConfigurationException e) {
+			throw new IOException("Fail to parse sheet XML", e);
+		} catch (InvalidFormatException e) {
+			throw e;
+		} catch (OpenXML4JException e) {
+			throw new InvalidFormatException(e.getMessage());
+		} finally {
+			pkg.revert();
+		}
+	}
+
+	/**
+	 * Creates an empty DAO which stores tweets in the way selected when this object
+	 * was constructed.
+	 *
+	 * @return tweet cell dao instance
+	 */
+	private IEntityDAO newTweetDAO() {
+		return columnar ? new ColumnarTweetDAOImpl() : new TweetDAOImpl();
+	}
+
 	/**
 	 * Exact data from XSSFRow instances and return a String array which contains all cells in this row.
+	 * Every cell is formatted as Excel shows it by a {@link DataFormatter}, in the
+	 * same way as the Event Model, so numbers and dates are read as text rather
+	 * than failing. A row with cells which cannot be read is counted by the metric
+	 * {@code ingest_bad_rows}, see {@link MetricsRegistry}, and such cells are
+	 * left null. Nothing is printed for them here, the read prints one line for
+	 * all of them.
 	 *
 	 * @param excel_row
 	 *            XSSFRow instances that contains one row data in excel file
@@ -195,6 +697,7 @@ public class ExcelDAOImpl implements IExcelDAO {
 	 */
 	public String[] getRow(XSSFRow excel_row) {
 		String[] row = new String[11];
+		boolean bad = false;
 		for (int cellNum = 0; cellNum <= 10; cellNum++) {
 			try {
 				XSSFCell cell = excel_row.getCell(cellNum);
@@ -204,11 +707,17 @@ public class ExcelDAOImpl implements IExcelDAO {
 				if (empty) {
 					row[cellNum] = "";
 				} else {
-					row[cellNum] = cell.getStringCellValue().trim();
+					row[cellNum] = formatter.formatCellValue(cell).trim();
 				}
 			} catch (Exception e) {
-				System.out.println(cellNum);
-				e.printStackTrace();
+				// Counted once for each row
+				if (!bad) {
+					bad = true;
+					BAD_ROWS.increment();
+					if (badRows++ == 0) {
+						firstBadCell = "row " + (excel_row.getRowNum() + 1) + ", cell " + cellNum + ": " + e;
+					}
+				}
 				continue;
 			}
 		}
@@ -2,17 +2,19 @@ package dao;
 
 /**
  * Entity Data Access Object Interface defines the methods for creating Objects
- * according to the input data of one excel row.	
+ * according to the input data of one excel row, and combining the Objects of
+ * several DAOs. Readers only need the rows, see {@link IRowSink}.
  * 
  * @author Xunjie Liu
  * @version 1.0
  * @since 2019-03-20
  * @see TweetDAOImpl
  * @see UserDAOImpl
+ * @see IRowSink
  * 
  */
 
-public interface IEntityDAO {
+public interface IEntityDAO extends IRowSink {
 	
 	/**
 	 * This method will extract data from one String array and create an
@@ -21,12 +23,38 @@ public interface IEntityDAO {
 	 * @param row
 	 *            String array contains all data in one excel row
 	 */
+	@Override
 	public void handle_row(String[] row);
+
+	/**
+	 * This method will extract the needed cells from a view of one row and
+	 * create an Object(Tweet or User) to be stored. The view is only valid until
+	 * this method returns. By default all cells are copied into a String array
+	 * and given to {@link #handle_row(String[])}, DAOs override this method to
+	 * read only the columns they need.
+	 * 
+	 * @param row
+	 *            view of one excel row
+	 */
+	@Override
+	public default void handle_row(RowView row) {
+		handle_row(row.toArray());
+	}
 	
 	/**
 	 * This method will return a data structure which stores objects(Tweet or User).	
 	 * 
-	 * @return Object, could be a queue or set
+	 * @return Object, could be a list or collection
 	 */
 	public Object getData();
+
+	/**
+	 * This method will add all objects(Tweet or User) stored by another DAO of the
+	 * same type into this one, so that rows handled by different threads could be
+	 * combined.
+	 * 
+	 * @param other
+	 *            DAO of the same type whose objects would be added
+	 */
+	public void merge(IEntityDAO other);
 }
@@ -2,8 +2,8 @@ package dao;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.PriorityQueue;
-import java.util.TreeSet;
+import java.util.Collection;
+import java.util.List;
 
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
 
@@ -20,10 +20,12 @@ import entity.User;
  * In order to efficiently store data, following data structures are used in
  * this project:
  * <ul>
- * <li>PriorityQueue: for its feature that it would automatically sort data as
- * soon as data is added.
- * <li>TreeSet: In addition to its orderliness, it also do not allowed
- * duplicated objects.
+ * <li>List: Tweets are kept in the order of excel rows, and only the top ones
+ * are ranked by {@link TopKSelector}, which keeps K objects while data is
+ * added.
+ * <li>HashMap: Users are keyed by username, so that duplicated users are
+ * merged in constant time, and they are only ranked when top users are
+ * requested.
  * </ul>
  * 
  * @author Xunjie Liu
@@ -51,16 +53,41 @@ public interface IExcelDAO {
 	public void read(IEntityDAO tweethandler, IEntityDAO userhandler) throws InvalidFormatException, IOException, FileNotFoundException;
 
 	/**
-	 * This method is a getter method of IExcelDAO, return a queue of tweets<br>
+	 * This method is a getter method of IExcelDAO, return a list of tweets<br>
 	 * 
-	 * @return return a queue with all tweets inside
+	 * @return return a list with all tweets inside
 	 */
-	public PriorityQueue<Tweet> getAllTweets();
+	public List<Tweet> getAllTweets();
 
 	/**
-	 * This method is a getter method of IExcelDAO, return a queue of users<br>
+	 * This method will return the top k tweets ranked by the sum of favs and rts,
+	 * in the same order as {@link Tweet#compareTo(Tweet)}.<br>
 	 * 
-	 * @return return a queue with all users inside
+	 * @param k
+	 *            number of tweets needed
+	 * @return return a list with at most k tweets, the biggest first
+	 * @throws IllegalArgumentException
+	 *             If k is negative, 0 gives an empty list
 	 */
-	public TreeSet<User> getAllUsers();
+	public List<Tweet> getTopTweets(int k);
+
+	/**
+	 * This method is a getter method of IExcelDAO, return a collection of users,
+	 * one for each username<br>
+	 * 
+	 * @return return a collection with all users inside
+	 */
+	public Collection<User> getAllUsers();
+
+	/**
+	 * This method will return the top k users ranked by followers, in the same
+	 * order as {@link User#compareTo(User)}.<br>
+	 * 
+	 * @param k
+	 *            number of users needed
+	 * @return return a list with at most k users, the biggest first
+	 * @throws IllegalArgumentException
+	 *             If k is negative, 0 gives an empty list
+	 */
+	public List<User> getTopUsers(int k);
 }
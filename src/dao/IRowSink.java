@@ -0,0 +1,39 @@
+package dao;
+
+/**
+ * Row Sink Interface defines the methods which receive the rows of an excel
+ * file one after another, in the order of rows. It is all that the readers,
+ * such as {@link SheetRowHandler}, {@link DelimitedRowParser} and
+ * {@link SnapshotFile}, need from the objects they give rows to. DAOs which
+ * also keep and merge the objects created from the rows are
+ * {@link IEntityDAO}s.
+ * 
+ * @version 1.0
+ * @see IEntityDAO
+ * @see RowPipeline
+ * 
+ */
+
+public interface IRowSink {
+
+	/**
+	 * This method will receive the data of one String array.
+	 * 
+	 * @param row
+	 *            String array contains all data in one excel row
+	 */
+	public void handle_row(String[] row);
+
+	/**
+	 * This method will receive a view of one row. The view is only valid until
+	 * this method returns. By default all cells are copied into a String array
+	 * and given to {@link #handle_row(String[])}, sinks override this method to
+	 * read only the columns they need.
+	 * 
+	 * @param row
+	 *            view of one excel row
+	 */
+	public default void handle_row(RowView row) {
+		handle_row(row.toArray());
+	}
+}
@@ -0,0 +1,31 @@
+package dao;
+
+import java.util.List;
+
+import entity.Tweet;
+
+/**
+ * Tweet Data Access Object Interface defines the methods for DAOs which create
+ * Tweet objects from excel rows, in addition to the methods of
+ * {@link IEntityDAO}, top Tweets could be ranked.
+ * 
+ * @version 1.0
+ * @see TweetDAOImpl
+ * @see ColumnarTweetDAOImpl
+ * 
+ */
+
+public interface ITweetDAO extends IEntityDAO {
+
+	/**
+	 * This method will return the top Tweets ranked by the sum of favs and rts,
+	 * in the same order as {@link Tweet#compareTo(Tweet)}.
+	 * 
+	 * @param k
+	 *            number of Tweets needed
+	 * @return List containing at most k Tweet objects, the biggest first
+	 * @throws IllegalArgumentException
+	 *             If k is negative, 0 gives an empty list
+	 */
+	public List<Tweet> getTopTweets(int k);
+}
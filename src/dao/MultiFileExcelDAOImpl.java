@@ -0,0 +1,250 @@
+package dao;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+
+import entity.Tweet;
+import entity.User;
+
+/**
+ * An implementation of the {@code IExcelDAO} interface which reads several
+ * excel files, such as monthly exports, into one collection of tweets and
+ * users.
+ *
+ * <p>
+ * Each file is read by its own {@link ExcelDAOImpl} with the Event Model, or
+ * by a {@link DelimitedFileDAOImpl} for CSV and TSV exports, on a pool of
+ * worker threads, so files are parsed at the same time. When all files
+ * are read, their TweetDAO and UserDAO are merged into one TweetDAO and one
+ * UserDAO in the order of the files, so tweets are in the same order as if
+ * the files were read one after another. Users appearing in several files are
+ * merged, see {@link UserDAOImpl#merge(IEntityDAO)}.
+ *
+ * @version 1.0
+ * @see ExcelDAOImpl
+ * @see ExcelDAOFactory
+ */
+public class MultiFileExcelDAOImpl implements IExcelDAO {
+
+	/** The excel files in the order their tweets are kept. */
+	private List<File> sources;
+
+	/** Number of files read at the same time. */
+	private int fileWorkers;
+
+	/** Whether tweets are stored in a {@link ColumnarTweetStore}. */
+	private boolean columnar;
+
+	/** Deduplicates repeated cells of each row, null if rows are not interned. */
+	private RowInterner interner;
+
+	/** Also receives every row of every file, null if nobody watches. */
+	private IRowSink observer;
+
+	/** List for storing all Tweet objects in the order of files and rows. */
+	private List<Tweet> tweets;
+
+	/** All user objects, one for each username. */
+	private Collection<User> users;
+
+	/** Row Data Access Object which outputs Tweet objects. */
+	private IEntityDAO tweetDAO;
+
+	/** Row Data Access Object which outputs User objects. */
+	private IEntityDAO userDAO;
+
+	/**
+	 * Constructs an instance of MultiFileExcelDAOImpl object and read all files.
+	 *
+	 * @param sources
+	 *            the excel files in the order their tweets are kept
+	 * @param fileWorkers
+	 *            number of files read at the same time
+	 * @param columnar
+	 *            true to store tweets in columns, see {@link ColumnarTweetDAOImpl}
+	 * @param interner
+	 *            deduplicates repeated cells of each row, shared by all files,
+	 *            null to keep every cell
+	 * @throws InvalidFormatException
+	 *             If format of a file is not valid for OPCPackage
+	 * @throws FileNotFoundException
+	 *             If a file does not exist
+	 * @throws IOException
+	 *             If a file cannot be read
+	 */
+	public MultiFileExcelDAOImpl(List<File> sources, int fileWorkers, boolean columnar, RowInterner interner)
+			throws InvalidFormatException, FileNotFoundException, IOException {
+		this(sources, fileWorkers, columnar, interner, null);
+	}
+
+	/**
+	 * Constructs an instance of MultiFileExcelDAOImpl object and read all files,
+	 * every row is also given to an observer as soon as it is read. Files are
+	 * read at the same time, so the observer must be thread-safe.
+	 *
+	 * @param sources
+	 *            the excel files in the order their tweets are kept
+	 * @param fileWorkers
+	 *            number of files read at the same time
+	 * @param columnar
+	 *            true to store tweets in columns, see {@link ColumnarTweetDAOImpl}
+	 * @param interner
+	 *            deduplicates repeated cells of each row, shared by all files,
+	 *            null to keep every cell
+	 * @param observer
+	 *            also receives every row, null if not needed
+	 * @throws InvalidFormatException
+	 *             If format of a file is not valid for OPCPackage
+	 * @throws FileNotFoundException
+	 *             If a file does not exist
+	 * @throws IOException
+	 *             If a file cannot be read
+	 */
+	public MultiFileExcelDAOImpl(List<File> sources, int fileWorkers, boolean columnar, RowInterner interner,
+			IRowSink observer) throws InvalidFormatException, FileNotFoundException, IOException {
+		this.sources = new ArrayList<File>(sources);
+		this.fileWorkers = Math.max(1, fileWorkers);
+		this.columnar = columnar;
+		this.interner = interner;
+		this.observer = observer;
+		this.tweetDAO = columnar ? new ColumnarTweetDAOImpl() : new TweetDAOImpl();
+		this.userDAO = new UserDAOImpl();
+		read(tweetDAO, userDAO);
+	}
+
+	/**
+	 * Read all files at the same time, and merge the objects of each file into
+	 * TweetDAO and UserDAO in the order of files.
+	 *
+	 * @param tweetDAO
+	 *            tweet cell dao instance
+	 * @param userDAO
+	 *            user cell dao instance
+	 * @throws InvalidFormatException
+	 *             If format of a file is not valid for OPCPackage
+	 * @throws IOException
+	 *             If a file cannot be read, or reading is interrupted
+	 * @throws FileNotFoundException
+	 *             If a file does not exist
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public void read(IEntityDAO tweetDAO, IEntityDAO userDAO)
+			throws InvalidFormatException, IOException, FileNotFoundException {
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(fileWorkers, Math.max(1, sources.size())));
+		List<Future<IEntityDAO[]>> files = new ArrayList<Future<IEntityDAO[]>>();
+
+		try {
+			for (File source : sources) {
+				files.add(pool.submit(() -> readFile(source)));
+			}
+
+			for (Future<IEntityDAO[]> file : files) {
+				IEntityDAO[] daos = file.get();
+				tweetDAO.merge(daos[0]);
+				userDAO.merge(daos[1]);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Reading excel files is interrupted", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof InvalidFormatException) {
+				throw (InvalidFormatException) cause;
+			} else if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException("Fail to read excel files", cause);
+		} finally {
+			pool.shutdownNow();
+		}
+
+		this.tweetDAO = tweetDAO;
+		this.userDAO = userDAO;
+		tweets = (List<Tweet>) tweetDAO.getData();
+		users = (Collection<User>) userDAO.getData();
+	}
+
+	/**
+	 * Read one file, an excel file with the Event Model, or a CSV or TSV export.
+	 *
+	 * @return TweetDAO and UserDAO which received the rows of this file
+	 */
+	private IEntityDAO[] readFile(File source) throws InvalidFormatException, IOException {
+		if (DelimitedFileDAOImpl.isDelimited(source)) {
+			DelimitedFileDAOImpl textDAO = new DelimitedFileDAOImpl(source, DelimitedFileDAOImpl.delimiterOf(source),
+					columnar, interner, observer);
+			return new IEntityDAO[] { textDAO.getTweetDAO(), textDAO.getUserDAO() };
+		}
+
+		ExcelDAOImpl excelDAO = new ExcelDAOImpl(source, ExcelDAOImpl.ReadMode.EVENT_MODEL, 1,
+				ExcelDAOImpl.DEFAULT_QUEUE_DEPTH, columnar, interner, observer);
+		return new IEntityDAO[] { excelDAO.getTweetDAO(), excelDAO.getUserDAO() };
+	}
+
+	/**
+	 * Returns the excel files which are read.
+	 *
+	 * @return the sources
+	 */
+	public List<File> getSources() {
+		return sources;
+	}
+
+	/**
+	 * Returns all Tweet objects.
+	 *
+	 * @return List that contains all Tweet objects
+	 */
+	@Override
+	public List<Tweet> getAllTweets() {
+		return tweets;
+	}
+
+	/**
+	 * Returns the top k Tweet objects ranked by the sum of favs and rts, the
+	 * biggest first.
+	 *
+	 * @param k
+	 *            number of Tweet objects needed
+	 * @return List that contains at most k Tweet objects
+	 */
+	@Override
+	public List<Tweet> getTopTweets(int k) {
+		return ((ITweetDAO) tweetDAO).getTopTweets(k);
+	}
+
+	/**
+	 * Returns all User objects.
+	 *
+	 * @return Collection that contains all User objects
+	 */
+	@Override
+	public Collection<User> getAllUsers() {
+		return users;
+	}
+
+	/**
+	 * Returns the top k User objects ranked by followers, the biggest first.
+	 *
+	 * @param k
+	 *            number of User objects needed
+	 * @return List that contains at most k User objects
+	 */
+	@Override
+	public List<User> getTopUsers(int k) {
+		return ((UserDAOImpl) userDAO).getTopUsers(k);
+	}
+}
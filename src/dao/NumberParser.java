@@ -0,0 +1,206 @@
+package dao;
+
+/**
+ * This class provides the method to turn numeric cells such as favs, rts and
+ * followers into Integer. It is shared by {@link TweetDAOImpl} and
+ * {@link UserDAOImpl}.
+ *
+ * <p>
+ * Characters are scanned one by one instead of matching a regular expression,
+ * so no {@code Pattern} or String would be created for each cell. Following
+ * forms are accepted, surrounding whitespace is ignored:
+ * <ul>
+ * <li>Digits, such as {@code 1234}.</li>
+ * <li>Digits with thousands separators, such as {@code 1,234,567}. Every group
+ * after a separator must contain exactly three digits.</li>
+ * <li>Decimals, such as {@code 12.5}. The fraction is dropped, so the result
+ * would be {@code 12}.</li>
+ * </ul>
+ * Any other input, including negative numbers and empty strings, is not valid
+ * and the result would be 0. Numbers bigger than {@link Integer#MAX_VALUE}
+ * would return {@link Integer#MAX_VALUE} rather than overflow.
+ *
+ * <p>
+ * Coordinates are turned into double by {@link #parseDouble(CharSequence)}.
+ * Input could be any {@code CharSequence}, such as a cell of a
+ * {@link RowView} which is not turned into a String.
+ *
+ * @version 1.0
+ * @see TweetDAOImpl
+ * @see UserDAOImpl
+ */
+public final class NumberParser {
+
+	/** Value returned for invalid input. */
+	public static final int INVALID = 0;
+
+	/** Powers of ten which are exact doubles. */
+	private static final double[] POWERS_OF_TEN = new double[23];
+
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+		}
+	}
+
+	/**
+	 * No instance is needed, all methods are static.
+	 */
+	private NumberParser() {
+
+	}
+
+	/**
+	 * Turn a whole input string into Integer.
+	 *
+	 * @param str
+	 *            String to be parsed, could be null
+	 * @return the value, or 0 if this input is not valid
+	 */
+	public static int parseInt(CharSequence str) {
+		if (str == null) {
+			return INVALID;
+		}
+
+		return parseInt(str, 0, str.length());
+	}
+
+	/**
+	 * Turn part of an input string into Integer.
+	 *
+	 * @param str
+	 *            String to be parsed
+	 * @param start
+	 *            index of the first character, inclusive
+	 * @param end
+	 *            index of the last character, exclusive
+	 * @return the value, or 0 if this input is not valid
+	 */
+	public static int parseInt(CharSequence str, int start, int end) {
+		// Ignore surrounding whitespace
+		while (start < end && str.charAt(start) <= ' ') {
+			start++;
+		}
+		while (end > start && str.charAt(end - 1) <= ' ') {
+			end--;
+		}
+
+		if (start == end) {
+			return INVALID;
+		}
+
+		long value = 0;
+		boolean overflow = false;
+		int digits = 0; // digits in the current group
+		boolean grouped = false;
+		int i = start;
+
+		for (; i < end; i++) {
+			char c = str.charAt(i);
+
+			if (c >= '0' && c <= '9') {
+				if (!overflow) {
+					value = value * 10 + (c - '0');
+					overflow = value > Integer.MAX_VALUE;
+				}
+				digits++;
+			} else if (c == ',') {
+				// Separator must follow 1 to 3 digits at first, and exactly 3 later
+				if (digits == 0 || (grouped && digits != 3) || (!grouped && digits > 3)) {
+					return INVALID;
+				}
+				grouped = true;
+				digits = 0;
+			} else if (c == '.') {
+				break;
+			} else {
+				return INVALID;
+			}
+		}
+
+		if (digits == 0 || (grouped && digits != 3)) {
+			return INVALID;
+		}
+
+		// Fraction must contain at least one digit and nothing else
+		if (i < end) {
+			if (i + 1 == end) {
+				return INVALID;
+			}
+
+			for (int j = i + 1; j < end; j++) {
+				char c = str.charAt(j);
+				if (c < '0' || c > '9') {
+					return INVALID;
+				}
+			}
+		}
+
+		return overflow ? Integer.MAX_VALUE : (int) value;
+	}
+
+	/**
+	 * Turn a whole input string into a double, such as a latitude or longitude.
+	 * Plain decimals like {@code -12.345} are computed from their digits without
+	 * creating a String, other forms accepted by {@link Double#parseDouble(String)}
+	 * such as {@code 1e-5} are given to it.
+	 *
+	 * @param str
+	 *            String to be parsed, could be null
+	 * @return the value, or {@code NaN} if this input is empty or not valid
+	 */
+	public static double parseDouble(CharSequence str) {
+		if (str == null) {
+			return Double.NaN;
+		}
+
+		int start = 0;
+		int end = str.length();
+		while (start < end && str.charAt(start) <= ' ') {
+			start++;
+		}
+		while (end > start && str.charAt(end - 1) <= ' ') {
+			end--;
+		}
+
+		if (start == end) {
+			return Double.NaN;
+		}
+
+		boolean negative = str.charAt(start) == '-';
+		int i = negative || str.charAt(start) == '+' ? start + 1 : start;
+		long mantissa = 0;
+		int digits = 0;
+		int fraction = -1;
+
+		for (; i < end; i++) {
+			char c = str.charAt(i);
+
+			if (c >= '0' && c <= '9') {
+				mantissa = mantissa * 10 + (c - '0');
+				digits++;
+				if (fraction >= 0) {
+					fraction++;
+				}
+			} else if (c == '.' && fraction < 0) {
+				fraction = 0;
+			} else {
+				break;
+			}
+		}
+
+		// Both the mantissa and the power of ten are exact, so one division is
+		// rounded correctly
+		if (i == end && digits > 0 && digits <= 15 && fraction <= 22) {
+			double value = fraction > 0 ? mantissa / POWERS_OF_TEN[fraction] : mantissa;
+			return negative ? -value : value;
+		}
+
+		try {
+			return Double.parseDouble(str.subSequence(start, end).toString());
+		} catch (NumberFormatException e) {
+			return Double.NaN;
+		}
+	}
+}
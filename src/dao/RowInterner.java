@@ -0,0 +1,143 @@
+package dao;
+
+/**
+ * Deduplicates the cells of excel rows at ingest time, with one
+ * {@link ColumnDictionary} for each column which repeats a lot.
+ *
+ * <p>
+ * Rows are interned by the reader before they are given to TweetDAO and
+ * UserDAO, so both DAOs store the same String objects. For example, a username
+ * which appears in thousands of rows is kept once, and shared by all of its
+ * Tweets and its User.
+ *
+ * <p>
+ * Columns which are unique for each row such as {@code id} and
+ * {@code content} should not have a dictionary, so they are left out by
+ * {@link #withDefaultColumns()}. Dictionaries could also be added or removed
+ * by {@link #setDictionary(int, ColumnDictionary)}.
+ *
+ * @version 1.0
+ * @see ColumnDictionary
+ * @see ExcelDAOImpl
+ */
+public class RowInterner {
+
+	/** Default maximum number of distinct values of one column. */
+	public static final int DEFAULT_MAX_ENTRIES = 1 << 18;
+
+	/**
+	 * Columns which repeat a lot: date, hour, username, nickname, latitude and
+	 * longitude.
+	 */
+	public static final int[] DEFAULT_COLUMNS = { 1, 2, 3, 4, 8, 9 };
+
+	/** Names of the columns, used by the report. */
+	private static final String[] COLUMN_NAMES = { "id", "date", "hour", "username", "nickname", "content",
+			"favs", "rts", "latitude", "longitude", "followers" };
+
+	/** Dictionary of each column, null if this column is not interned. */
+	private final ColumnDictionary[] dictionaries;
+
+	/**
+	 * Instantiates a new interner with dictionaries for the given columns.
+	 *
+	 * @param maxEntries
+	 *            maximum number of distinct values of each column
+	 * @param columns
+	 *            indexes of columns to be interned
+	 */
+	public RowInterner(int maxEntries, int... columns) {
+		dictionaries = new ColumnDictionary[SheetRowHandler.COLUMNS];
+
+		for (int column : columns) {
+			dictionaries[column] = new ColumnDictionary(maxEntries);
+		}
+	}
+
+	/**
+	 * Creates an interner for {@link #DEFAULT_COLUMNS}.
+	 *
+	 * @return the interner
+	 */
+	public static RowInterner withDefaultColumns() {
+		return new RowInterner(DEFAULT_MAX_ENTRIES, DEFAULT_COLUMNS);
+	}
+
+	/**
+	 * Set the dictionary of one column.
+	 *
+	 * @param column
+	 *            index of the column
+	 * @param dictionary
+	 *            the dictionary, null to stop interning this column
+	 */
+	public void setDictionary(int column, ColumnDictionary dictionary) {
+		dictionaries[column] = dictionary;
+	}
+
+	/**
+	 * Returns the dictionary of one column.
+	 *
+	 * @param column
+	 *            index of the column
+	 * @return the dictionary, null if this column is not interned
+	 */
+	public ColumnDictionary getDictionary(int column) {
+		return dictionaries[column];
+	}
+
+	/**
+	 * Replace the cells of one row by their canonical objects, the array is
+	 * changed in place.
+	 *
+	 * @param row
+	 *            String array contains all data in one excel row
+	 * @return the same array
+	 */
+	public String[] intern(String[] row) {
+		int columns = Math.min(row.length, dictionaries.length);
+
+		for (int i = 0; i < columns; i++) {
+			if (dictionaries[i] != null) {
+				row[i] = dictionaries[i].intern(row[i]);
+			}
+		}
+
+		return row;
+	}
+
+	/**
+	 * Replace one cell by its canonical object.
+	 *
+	 * @param column
+	 *            index of the column
+	 * @param value
+	 *            the cell
+	 * @return the canonical object, or the cell itself if this column is not
+	 *         interned
+	 */
+	public String intern(int column, String value) {
+		ColumnDictionary dictionary = column < dictionaries.length ? dictionaries[column] : null;
+		return dictionary == null ? value : dictionary.intern(value);
+	}
+
+	/**
+	 * Returns the hit rates of all dictionaries, one line for each column.
+	 *
+	 * @return the report
+	 */
+	public String report() {
+		StringBuilder report = new StringBuilder("Dictionary hit rates:");
+
+		for (int i = 0; i < dictionaries.length; i++) {
+			ColumnDictionary dictionary = dictionaries[i];
+
+			if (dictionary != null) {
+				report.append(String.format("%n  %-10s %6.2f%% (%d distinct%s)", COLUMN_NAMES[i],
+						dictionary.getHitRate() * 100, dictionary.size(), dictionary.isFull() ? ", full" : ""));
+			}
+		}
+
+		return report.toString();
+	}
+}
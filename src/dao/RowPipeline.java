@@ -0,0 +1,382 @@
+package dao;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+
+/**
+ * A row handler which spreads rows over several threads, so that converting
+ * String arrays to Tweet and User objects would use all cores of the machine.
+ *
+ * <p>
+ * The pipeline has three stages:
+ * <ol>
+ * <li>Decode: the thread which parses sheet XML calls {@code handle_row}, rows
+ * are collected into numbered batches and put into a bounded queue. When the
+ * queue is full, parsing waits for the workers, so memory would not grow
+ * without limit.</li>
+ * <li>Convert: each worker thread takes batches from the queue and gives every
+ * row of a batch to a new TweetDAO and UserDAO of this batch only, so no lock
+ * is needed for these DAOs.</li>
+ * <li>Merge: the DAOs of each batch are merged into the DAOs given by the
+ * caller in the order of batch numbers, as soon as all earlier batches are
+ * merged. Batches which are done early wait for the earlier ones, and their
+ * DAOs are dropped once merged.</li>
+ * </ol>
+ * So the Tweet objects, the ties of top tweets and the order of users are the
+ * same as with one thread, whichever worker takes a batch. Only one thread
+ * merges at a time, the others go on converting.
+ *
+ * <p>
+ * Rows are kept by the workers after {@code handle_row} returns, so every row
+ * must be a new String array. Rows of the Event Model are views which are
+ * reused, and the default {@link IRowSink#handle_row(RowView)} of this class
+ * copies each of them into a new array.
+ *
+ * <p>
+ * The time of the workers is recorded as {@code ingest_worker_handle} for
+ * the first row of each batch, while {@code ingest_dao_handle} of the decode
+ * stage only measures putting rows into the queue, including the time waiting
+ * for the workers.
+ *
+ * @version 1.0
+ * @see ExcelDAOImpl
+ * @see SheetRowHandler
+ */
+public class RowPipeline implements IRowSink {
+
+	/** Time of giving one row to the DAOs of a worker. */
+	private static final LatencyHistogram WORKER_HANDLE = MetricsRegistry.getDefault()
+			.histogram("ingest_worker_handle");
+
+	/** Number of rows in one batch put into the queue. */
+	private static final int BATCH_SIZE = 256;
+
+	/** An empty batch which tells a worker that there are no more rows. */
+	private static final Batch END = new Batch(-1, new ArrayList<String[]>(0));
+
+	/** Bounded queue between the decode stage and the workers. */
+	private BlockingQueue<Batch> queue;
+
+	/** Rows of the batch which is being filled by the decode stage. */
+	private List<String[]> rows;
+
+	/** Worker threads of the convert stage. */
+	private Worker[] workers;
+
+	/** Creates an empty TweetDAO for each batch. */
+	private Supplier<IEntityDAO> tweetDAOs;
+
+	/** Creates an empty UserDAO for each batch. */
+	private Supplier<IEntityDAO> userDAOs;
+
+	/** TweetDAO which receives the objects of all batches. */
+	private IEntityDAO tweetDAO;
+
+	/** UserDAO which receives the objects of all batches. */
+	private IEntityDAO userDAO;
+
+	/** Converted batches waiting for earlier ones, by batch number. */
+	private final Map<Long, Batch> done = new HashMap<Long, Batch>();
+
+	/** Held by the thread which merges batches. */
+	private final ReentrantLock merging = new ReentrantLock();
+
+	/** Number of the next batch to be merged, guarded by {@link #done}. */
+	private long nextMerge;
+
+	/** Number of batches put into the queue. */
+	private long batchCount;
+
+	/** Number of rows given to this pipeline. */
+	private long rowCount;
+
+	/**
+	 * Instantiates a new row pipeline and start its worker threads.
+	 *
+	 * @param workerCount
+	 *            number of worker threads
+	 * @param queueDepth
+	 *            maximum number of batches waiting in the queue
+	 * @param tweetDAOs
+	 *            creates an empty TweetDAO for each batch
+	 * @param userDAOs
+	 *            creates an empty UserDAO for each batch
+	 * @param tweetDAO
+	 *            tweet cell dao instance which would contain all Tweet objects
+	 * @param userDAO
+	 *            user cell dao instance which would contain all User objects
+	 */
+	public RowPipeline(int workerCount, int queueDepth, Supplier<IEntityDAO> tweetDAOs,
+			Supplier<IEntityDAO> userDAOs, IEntityDAO tweetDAO, IEntityDAO userDAO) {
+		if (workerCount < 1 || queueDepth < 1) {
+			throw new IllegalArgumentException("Worker count and queue depth must be positive");
+		}
+
+		this.queue = new ArrayBlockingQueue<Batch>(queueDepth);
+		this.rows = new ArrayList<String[]>(BATCH_SIZE);
+		this.tweetDAOs = tweetDAOs;
+		this.userDAOs = userDAOs;
+		this.tweetDAO = tweetDAO;
+		this.userDAO = userDAO;
+		this.workers = new Worker[workerCount];
+
+		for (int i = 0; i < workerCount; i++) {
+			workers[i] = new Worker();
+			workers[i].setName("row-pipeline-" + i);
+			workers[i].setDaemon(true);
+			workers[i].start();
+		}
+	}
+
+	/**
+	 * This method will put one row into the current batch, and put the batch into
+	 * the queue when it is full.
+	 *
+	 * @param row
+	 *            String array contains all data in one excel row
+	 */
+	@Override
+	public void handle_row(String[] row) {
+		rows.add(row);
+		rowCount++;
+
+		if (rows.size() == BATCH_SIZE) {
+			put(new Batch(batchCount++, rows));
+			rows = new ArrayList<String[]>(BATCH_SIZE);
+		}
+	}
+
+	/**
+	 * Wait until all rows are handled by the workers and all batches are merged
+	 * into the DAOs given to the constructor.
+	 *
+	 * @throws IOException
+	 *             If a worker failed to handle a row, or waiting is interrupted
+	 */
+	public void finish() throws IOException {
+		try {
+			if (!rows.isEmpty()) {
+				queue.put(new Batch(batchCount++, rows));
+			}
+
+			for (int i = 0; i < workers.length; i++) {
+				queue.put(END);
+			}
+
+			for (Worker worker : workers) {
+				worker.join();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for row workers");
+		}
+
+		for (Worker worker : workers) {
+			if (worker.failure != null) {
+				throw new IOException("Fail to handle row", worker.failure);
+			}
+		}
+
+		// A batch is merged by the worker which completes the batches before it
+		synchronized (done) {
+			if (nextMerge != batchCount) {
+				throw new IllegalStateException(batchCount - nextMerge + " batches are not merged");
+			}
+		}
+	}
+
+	/**
+	 * Stop all workers without merging the remaining batches, used when the
+	 * decode stage failed and the rows would never be complete.
+	 */
+	public void abort() {
+		for (Worker worker : workers) {
+			worker.interrupt();
+		}
+	}
+
+	/**
+	 * Returns the number of rows given to this pipeline.
+	 *
+	 * @return the row count
+	 */
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * Put one batch into the queue, wait if the queue is full.
+	 *
+	 * @param batch
+	 *            the batch
+	 */
+	private void put(Batch batch) {
+		try {
+			queue.put(batch);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for row workers", e);
+		}
+	}
+
+	/**
+	 * Keep a converted batch, and merge all batches which are next in order if no
+	 * other thread is merging. A thread which finds the lock held leaves its
+	 * batch to the merging thread, which checks again for ready batches after
+	 * it releases the lock.
+	 *
+	 * @param batch
+	 *            the converted batch
+	 */
+	private void complete(Batch batch) {
+		synchronized (done) {
+			done.put(batch.sequence, batch);
+		}
+
+		do {
+			if (!merging.tryLock()) {
+				return;
+			}
+
+			try {
+				Batch next;
+				while ((next = takeNext()) != null) {
+					tweetDAO.merge(next.tweetDAO);
+					userDAO.merge(next.userDAO);
+				}
+			} finally {
+				merging.unlock();
+			}
+		} while (hasNext());
+	}
+
+	/**
+	 * Remove the next batch in order, if it is converted.
+	 *
+	 * @return the batch, null if it is not converted yet
+	 */
+	private Batch takeNext() {
+		synchronized (done) {
+			Batch next = done.remove(nextMerge);
+			if (next != null) {
+				nextMerge++;
+			}
+			return next;
+		}
+	}
+
+	/**
+	 * Check if the next batch in order is converted.
+	 */
+	private boolean hasNext() {
+		synchronized (done) {
+			return done.containsKey(nextMerge);
+		}
+	}
+
+	/**
+	 * Worker thread of the convert stage, which converts each batch into DAOs of
+	 * this batch only.
+	 */
+	private class Worker extends Thread {
+
+		/** The first error thrown by the DAOs, null if there is none. */
+		private volatile Throwable failure;
+
+		/*
+		 * Take batches until the end mark. After a failure, the remaining batches are
+		 * still taken but ignored, so that the decode stage would never be blocked.
+		 *
+		 * @see java.lang.Thread#run()
+		 */
+		@Override
+		public void run() {
+			try {
+				Batch batch;
+
+				while ((batch = queue.take()) != END) {
+					if (failure != null) {
+						continue;
+					}
+
+					try {
+						IEntityDAO tweets = tweetDAOs.get();
+						IEntityDAO users = userDAOs.get();
+						List<String[]> rows = batch.rows;
+
+						// Only the first row is timed, reading the clock for each row costs too much
+						long time = System.nanoTime();
+						tweets.handle_row(rows.get(0));
+						users.handle_row(rows.get(0));
+						WORKER_HANDLE.recordSince(time);
+
+						for (int i = 1; i < rows.size(); i++) {
+							tweets.handle_row(rows.get(i));
+							users.handle_row(rows.get(i));
+						}
+
+						complete(batch.converted(tweets, users));
+					} catch (RuntimeException e) {
+						failure = e;
+					}
+				}
+			} catch (InterruptedException e) {
+				failure = e;
+			}
+		}
+	}
+
+	/**
+	 * Rows of one batch with its number, and its DAOs once it is converted.
+	 */
+	private static class Batch {
+
+		/** Number of this batch, from 0 in the order of rows. */
+		private final long sequence;
+
+		/** Rows of this batch, dropped once it is converted. */
+		private List<String[]> rows;
+
+		/** TweetDAO of this batch only. */
+		private IEntityDAO tweetDAO;
+
+		/** UserDAO of this batch only. */
+		private IEntityDAO userDAO;
+
+		/**
+		 * Instantiates a new batch of rows.
+		 *
+		 * @param sequence
+		 *            number of this batch
+		 * @param rows
+		 *            rows of this batch
+		 */
+		private Batch(long sequence, List<String[]> rows) {
+			this.sequence = sequence;
+			this.rows = rows;
+		}
+
+		/**
+		 * Keep the DAOs of this batch and drop its rows.
+		 *
+		 * @return this batch
+		 */
+		private Batch converted(IEntityDAO tweetDAO, IEntityDAO userDAO) {
+			this.tweetDAO = tweetDAO;
+			this.userDAO = userDAO;
+			this.rows = null;
+			return this;
+		}
+	}
+}
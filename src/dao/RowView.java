@@ -0,0 +1,91 @@
+package dao;
+
+/**
+ * A view of one row being read, given by readers to
+ * {@link IRowSink#handle_row(RowView)} instead of a new String array.
+ *
+ * <p>
+ * The view is reused for every row and may be backed by the buffers of the
+ * reader, so it is only valid until {@code handle_row} returns. A DAO only
+ * reads the columns it needs: numeric columns are parsed by
+ * {@link #getInt(int)} and {@link #getDouble(int)} without creating Strings,
+ * and {@link #getCharSequence(int)} could be compared or searched in place.
+ * Values which are kept after the row, such as the fields of a Tweet, must be
+ * taken by {@link #getString(int)}.
+ *
+ * <p>
+ * Cells have the same layout and trimming as
+ * {@link ExcelDAOImpl#getRow(org.apache.poi.xssf.usermodel.XSSFRow) getRow},
+ * missing cells are empty. Results are cached for the current row, so several
+ * DAOs reading the same column parse it only once, and the Strings they get
+ * are the same objects, already interned if the reader was given a
+ * {@link RowInterner}.
+ *
+ * @version 1.0
+ * @see IRowSink
+ * @see StringRowView
+ */
+public interface RowView {
+
+	/**
+	 * Returns the number of columns, which is
+	 * {@link SheetRowHandler#COLUMNS}.
+	 *
+	 * @return the number of columns
+	 */
+	public int getColumnCount();
+
+	/**
+	 * Returns the characters of one cell without creating a String if possible.
+	 * The sequence is only valid until the row is handled.
+	 *
+	 * @param column
+	 *            index of the column
+	 * @return the cell, empty if the cell is missing
+	 */
+	public CharSequence getCharSequence(int column);
+
+	/**
+	 * Returns one cell as a String which could be kept after the row.
+	 *
+	 * @param column
+	 *            index of the column
+	 * @return the cell, empty if the cell is missing
+	 */
+	public String getString(int column);
+
+	/**
+	 * Returns one numeric cell such as favs or followers, see
+	 * {@link NumberParser#parseInt(CharSequence)}.
+	 *
+	 * @param column
+	 *            index of the column
+	 * @return the value, or 0 if the cell is not valid
+	 */
+	public int getInt(int column);
+
+	/**
+	 * Returns one decimal cell such as latitude or longitude, see
+	 * {@link NumberParser#parseDouble(CharSequence)}.
+	 *
+	 * @param column
+	 *            index of the column
+	 * @return the value, or {@code NaN} if the cell is empty or not valid
+	 */
+	public double getDouble(int column);
+
+	/**
+	 * Copy all cells into a new String array, for DAOs which keep whole rows.
+	 *
+	 * @return String array contains all data in this row
+	 */
+	public default String[] toArray() {
+		String[] row = new String[getColumnCount()];
+
+		for (int i = 0; i < row.length; i++) {
+			row[i] = getString(i);
+		}
+
+		return row;
+	}
+}
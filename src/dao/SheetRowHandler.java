@@ -0,0 +1,150 @@
+package dao;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+
+/**
+ * An implementation of the {@code SheetContentsHandler} interface, which
+ * receives the cells of sheet XML from SAX parser of Apache POI Event Model.
+ *
+ * <p>
+ * Cells of one row are collected into a {@link StringRowView} with the same
+ * layout as
+ * {@link ExcelDAOImpl#getRow(org.apache.poi.xssf.usermodel.XSSFRow) getRow},
+ * and as soon as the end of this row is reached, the view is given to
+ * TweetDAO and UserDAO, or to any other row handlers such as
+ * {@link RowPipeline}. The view is reused for every row, so the memory used by
+ * this class does not grow with the size of the sheet.
+ *
+ * <p>
+ * If a {@link RowInterner} is given, repeated cells of each row are replaced by
+ * their canonical objects before the row is handled.
+ *
+ * <p>
+ * The first row of the sheet is the title of columns, so it is skipped.
+ *
+ * <p>
+ * The time from the start of a row to its end, which is SAX parsing and
+ * formatting its cells, is recorded as {@code ingest_row_convert}, and the
+ * time of its handlers as {@code ingest_dao_handle}, see
+ * {@link MetricsRegistry}.
+ *
+ * @version 1.0
+ * @see ExcelDAOImpl
+ * @see IRowSink
+ */
+public class SheetRowHandler implements SheetContentsHandler {
+
+	/** Number of columns in one excel row. */
+	public static final int COLUMNS = 11;
+
+	/** Time of parsing one row into the view. */
+	private static final LatencyHistogram ROW_CONVERT = MetricsRegistry.getDefault().histogram("ingest_row_convert");
+
+	/** Time of giving one row to the handlers. */
+	private static final LatencyHistogram DAO_HANDLE = MetricsRegistry.getDefault().histogram("ingest_dao_handle");
+
+	/** Number of rows read. */
+	private static final LongAdder ROWS = MetricsRegistry.getDefault().counter("ingest_rows");
+
+	/** Row Data Access Objects which handle every completed row in order. */
+	private IRowSink[] handlers;
+
+	/** Deduplicates the cells of each row, null if rows are not interned. */
+	private RowInterner interner;
+
+	/** Cells of the row which is being parsed, reused for every row. */
+	private StringRowView row = new StringRowView();
+
+	/** Column of the next cell, used when a cell has no reference. */
+	private int nextColumn;
+
+	/** Time when the current row started. */
+	private long rowStart;
+
+	/**
+	 * Instantiates a new sheet row handler.
+	 *
+	 * @param handlers
+	 *            row handlers such as tweet and user cell dao instances
+	 */
+	public SheetRowHandler(IRowSink... handlers) {
+		this(null, handlers);
+	}
+
+	/**
+	 * Instantiates a new sheet row handler which interns every row.
+	 *
+	 * @param interner
+	 *            deduplicates the cells of each row, could be null
+	 * @param handlers
+	 *            row handlers such as tweet and user cell dao instances
+	 */
+	public SheetRowHandler(RowInterner interner, IRowSink... handlers) {
+		this.interner = interner;
+		this.handlers = handlers;
+	}
+
+	/**
+	 * Start a new row, all cells are empty by default.
+	 *
+	 * @param rowNum
+	 *            index of this row, starting from 0
+	 */
+	@Override
+	public void startRow(int rowNum) {
+		row.clear();
+		nextColumn = 0;
+		rowStart = System.nanoTime();
+	}
+
+	/**
+	 * Give the completed row to all row handlers, the title row is skipped.
+	 *
+	 * @param rowNum
+	 *            index of this row, starting from 0
+	 */
+	@Override
+	public void endRow(int rowNum) {
+		if (rowNum > 0) {
+			if (interner != null) {
+				row.intern(interner);
+			}
+			long time = ROW_CONVERT.recordSince(rowStart);
+
+			for (IRowSink handler : handlers) {
+				handler.handle_row(row);
+			}
+			DAO_HANDLE.recordSince(time);
+			ROWS.increment();
+		}
+	}
+
+	/**
+	 * Store the value of one cell into the current row, cells beyond the 11
+	 * columns are ignored.
+	 *
+	 * @param cellReference
+	 *            reference of this cell such as "A2", could be null
+	 * @param formattedValue
+	 *            formatted value of this cell
+	 * @param comment
+	 *            comment of this cell, not used
+	 */
+	@Override
+	public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+		int column = cellReference == null ? nextColumn : new CellReference(cellReference).getCol();
+		nextColumn = column + 1;
+
+		if (column < COLUMNS && formattedValue != null) {
+			row.set(column, formattedValue.trim());
+		}
+	}
+
+}
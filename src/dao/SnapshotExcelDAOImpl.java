@@ -0,0 +1,188 @@
+package dao;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+
+import entity.Tweet;
+import entity.User;
+
+/**
+ * An implementation of the {@code IExcelDAO} interface which reads rows from a
+ * binary snapshot written by {@link SnapshotFile} rather than from the excel
+ * file, so that the program starts in seconds when the excel file is not
+ * changed.
+ *
+ * <p>
+ * Rows of the snapshot are given to the same TweetDAO and UserDAO as
+ * {@link ExcelDAOImpl} does, so Tweet and User objects are exactly the same as
+ * the ones read from excel. Classes on <b>Controller</b> layer do not need to
+ * know which implementation they get, see {@link ExcelDAOFactory}.
+ *
+ * @version 1.0
+ * @see IExcelDAO
+ * @see SnapshotFile
+ * @see ExcelDAOFactory
+ */
+public class SnapshotExcelDAOImpl implements IExcelDAO {
+
+	/** The snapshot file. */
+	private File snapshot;
+
+	/** Fingerprint of the excel file, which must match the snapshot. */
+	private SourceFingerprint fingerprint;
+
+	/** Deduplicates repeated cells of each row, null if rows are not interned. */
+	private RowInterner interner;
+
+	/** Also receives every row as soon as it is read, null if nobody watches. */
+	private IRowSink observer;
+
+	/** List for storing all Tweet objects in the order of excel rows. */
+	private List<Tweet> tweets;
+
+	/** All user objects, one for each username. */
+	private Collection<User> users;
+
+	/** Row Data Access Object which outputs Tweet objects. */
+	private IEntityDAO tweetDAO;
+
+	/** Row Data Access Object which outputs User objects. */
+	private IEntityDAO userDAO;
+
+	/**
+	 * Constructs an instance of SnapshotExcelDAOImpl object and read all rows from
+	 * the snapshot.
+	 *
+	 * @param snapshot
+	 *            the snapshot file
+	 * @param fingerprint
+	 *            fingerprint of the excel file, which must match the snapshot
+	 * @param columnar
+	 *            true to store tweets in columns, see {@link ColumnarTweetDAOImpl}
+	 * @param interner
+	 *            deduplicates repeated cells of each row, null to keep every cell
+	 * @throws IOException
+	 *             If the snapshot cannot be read, or it does not match the excel
+	 *             file
+	 */
+	public SnapshotExcelDAOImpl(File snapshot, SourceFingerprint fingerprint, boolean columnar,
+			RowInterner interner) throws IOException {
+		this(snapshot, fingerprint, columnar, interner, null);
+	}
+
+	/**
+	 * Constructs an instance of SnapshotExcelDAOImpl object and read all rows from
+	 * the snapshot, every row is also given to an observer as soon as it is read.
+	 *
+	 * @param snapshot
+	 *            the snapshot file
+	 * @param fingerprint
+	 *            fingerprint of the excel file, which must match the snapshot
+	 * @param columnar
+	 *            true to store tweets in columns, see {@link ColumnarTweetDAOImpl}
+	 * @param interner
+	 *            deduplicates repeated cells of each row, null to keep every cell
+	 * @param observer
+	 *            also receives every row, null if not needed
+	 * @throws IOException
+	 *             If the snapshot cannot be read, or it does not match the excel
+	 *             file
+	 */
+	public SnapshotExcelDAOImpl(File snapshot, SourceFingerprint fingerprint, boolean columnar,
+			RowInterner interner, IRowSink observer) throws IOException {
+		this.snapshot = snapshot;
+		this.fingerprint = fingerprint;
+		this.interner = interner;
+		this.observer = observer;
+		this.tweetDAO = columnar ? new ColumnarTweetDAOImpl() : new TweetDAOImpl();
+		this.userDAO = new UserDAOImpl();
+
+		try {
+			read(tweetDAO, userDAO);
+		} catch (InvalidFormatException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Read all rows from the snapshot and give them to TweetDAO and UserDAO.
+	 *
+	 * @param tweetDAO
+	 *            tweet cell dao instance
+	 * @param userDAO
+	 *            user cell dao instance
+	 * @throws InvalidFormatException
+	 *             never, the snapshot is not an excel file
+	 * @throws IOException
+	 *             If the snapshot cannot be read, or it does not match the excel
+	 *             file
+	 * @throws FileNotFoundException
+	 *             If the snapshot does not exist
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public void read(IEntityDAO tweetDAO, IEntityDAO userDAO)
+			throws InvalidFormatException, IOException, FileNotFoundException {
+		if (observer == null) {
+			SnapshotFile.read(snapshot, fingerprint, interner, tweetDAO, userDAO);
+		} else {
+			SnapshotFile.read(snapshot, fingerprint, interner, tweetDAO, userDAO, observer);
+		}
+
+		this.tweetDAO = tweetDAO;
+		this.userDAO = userDAO;
+		tweets = (List<Tweet>) tweetDAO.getData();
+		users = (Collection<User>) userDAO.getData();
+	}
+
+	/**
+	 * Returns all Tweet objects.
+	 *
+	 * @return List that contains all Tweet objects
+	 */
+	@Override
+	public List<Tweet> getAllTweets() {
+		return tweets;
+	}
+
+	/**
+	 * Returns the top k Tweet objects ranked by the sum of favs and rts, the
+	 * biggest first.
+	 *
+	 * @param k
+	 *            number of Tweet objects needed
+	 * @return List that contains at most k Tweet objects
+	 */
+	@Override
+	public List<Tweet> getTopTweets(int k) {
+		return ((ITweetDAO) tweetDAO).getTopTweets(k);
+	}
+
+	/**
+	 * Returns all User objects.
+	 *
+	 * @return Collection that contains all User objects
+	 */
+	@Override
+	public Collection<User> getAllUsers() {
+		return users;
+	}
+
+	/**
+	 * Returns the top k User objects ranked by followers, the biggest first.
+	 *
+	 * @param k
+	 *            number of User objects needed
+	 * @return List that contains at most k User objects
+	 */
+	@Override
+	public List<User> getTopUsers(int k) {
+		return ((UserDAOImpl) userDAO).getTopUsers(k);
+	}
+
+}
@@ -0,0 +1,358 @@
+package dao;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import entity.Tweet;
+
+/**
+ * This class writes and reads the binary snapshot of all rows read from the
+ * excel file, so that the next start of the program could skip parsing excel
+ * entirely if the excel file is not changed.
+ *
+ * <p>
+ * The snapshot has the following layout, numbers are big-endian:
+ * <ol>
+ * <li>Header: magic number, format version, {@link SourceFingerprint} of the
+ * excel file (size, last modified time and CRC32) and the number of rows.</li>
+ * <li>Rows: the 11 cells of each row in the order of excel columns. Favs, rts
+ * and followers are variable-length ints, other cells are UTF-8 bytes
+ * prefixed with their variable-length byte count. Text cells are the text
+ * which was read, whether tweets are kept as Tweet objects or in a
+ * {@link ColumnarTweetStore}, so the snapshot is the same in both cases and
+ * could be read by either of them.</li>
+ * <li>Trailer: CRC32 of all bytes before it.</li>
+ * </ol>
+ *
+ * <p>
+ * Snapshots are read with memory-mapped NIO, the file is mapped window by
+ * window so that snapshots bigger than 2GB could also be read. A snapshot
+ * whose version, fingerprint or checksum does not match is rejected.
+ *
+ * @version 1.0
+ * @see SnapshotExcelDAOImpl
+ * @see SourceFingerprint
+ */
+public final class SnapshotFile {
+
+	/** Magic number at the beginning of each snapshot, "XRSN" in ASCII. */
+	private static final int MAGIC = 0x5852534E;
+
+	/**
+	 * Version of the layout, increased when the layout or the meaning of the
+	 * cells changes. Version 1 snapshots written from columns could have
+	 * coordinates which were printed from their values rather than read.
+	 */
+	public static final int VERSION = 2;
+
+	/** Size of the header in bytes. */
+	private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 8 + 4;
+
+	/** Size of the trailer in bytes. */
+	private static final int TRAILER_SIZE = 8;
+
+	/** Maximum size of one mapped window. */
+	private static final long WINDOW_SIZE = 1L << 28;
+
+	/** Columns which are stored as ints: favs, rts and followers. */
+	private static final boolean[] NUMERIC = { false, false, false, false, false, false, true, true, false, false,
+			true };
+
+	/**
+	 * No instance is needed, all methods are static.
+	 */
+	private SnapshotFile() {
+
+	}
+
+	/**
+	 * Write a snapshot of all tweets. The snapshot is written into a temporary
+	 * file first and then moved, so a half written snapshot would never be read.
+	 *
+	 * @param snapshot
+	 *            the snapshot file
+	 * @param fingerprint
+	 *            fingerprint of the excel file which the tweets are read from
+	 * @param tweets
+	 *            all tweets
+	 * @throws IOException
+	 *             If the snapshot cannot be written
+	 */
+	public static void write(File snapshot, SourceFingerprint fingerprint, Collection<Tweet> tweets)
+			throws IOException {
+		File temp = new File(snapshot.getPath() + ".tmp");
+		CRC32 crc = new CRC32();
+
+		try (BufferedOutputStream buffered = new BufferedOutputStream(new FileOutputStream(temp), 1 << 16)) {
+			DataOutputStream out = new DataOutputStream(new CheckedOutputStream(buffered, crc));
+
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(fingerprint.getSize());
+			out.writeLong(fingerprint.getLastModified());
+			out.writeLong(fingerprint.getChecksum());
+			out.writeInt(tweets.size());
+
+			for (Tweet t : tweets) {
+				writeString(out, t.getId());
+				writeString(out, t.getDate());
+				writeString(out, t.getHour());
+				writeString(out, t.getUsername());
+				writeString(out, t.getNickname());
+				writeString(out, t.getContent());
+				writeVarInt(out, t.getFavs());
+				writeVarInt(out, t.getRts());
+				writeString(out, t.getLatitude());
+				writeString(out, t.getLongitude());
+				writeVarInt(out, t.getFollowers());
+			}
+
+			// The checksum itself is written around the checked stream
+			out.flush();
+			new DataOutputStream(buffered).writeLong(crc.getValue());
+		}
+
+		Files.move(temp.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Check if a snapshot exists and was written from the excel file with the
+	 * given fingerprint. Only the header is read, the checksum is verified by
+	 * {@link #read(File, SourceFingerprint, RowInterner, IRowSink...)}.
+	 *
+	 * @param snapshot
+	 *            the snapshot file
+	 * @param fingerprint
+	 *            fingerprint of the excel file
+	 * @return true, if the snapshot could be used
+	 */
+	public static boolean matches(File snapshot, SourceFingerprint fingerprint) {
+		if (!snapshot.isFile() || snapshot.length() < HEADER_SIZE + TRAILER_SIZE) {
+			return false;
+		}
+
+		try (FileChannel channel = FileChannel.open(snapshot.toPath(), StandardOpenOption.READ)) {
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+			return checkHeader(header, fingerprint) >= 0;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Read all rows of a snapshot and give them to the row handlers, in the same
+	 * order as they were written.
+	 *
+	 * @param snapshot
+	 *            the snapshot file
+	 * @param fingerprint
+	 *            fingerprint of the excel file, which must match the header
+	 * @param interner
+	 *            deduplicates repeated cells of each row, could be null
+	 * @param handlers
+	 *            row handlers such as tweet and user cell dao instances
+	 * @return number of rows read
+	 * @throws IOException
+	 *             If the snapshot cannot be read, or it is not valid
+	 */
+	public static int read(File snapshot, SourceFingerprint fingerprint, RowInterner interner,
+			IRowSink... handlers) throws IOException {
+		try (FileChannel channel = FileChannel.open(snapshot.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_SIZE + TRAILER_SIZE) {
+				throw new IOException("Snapshot is truncated: " + snapshot);
+			}
+
+			verifyChecksum(channel, size - TRAILER_SIZE);
+
+			MappedInput in = new MappedInput(channel, size - TRAILER_SIZE);
+			in.ensure(HEADER_SIZE);
+			int rows = checkHeader(in.buffer, fingerprint);
+			if (rows < 0) {
+				throw new IOException("Snapshot does not match the excel file: " + snapshot);
+			}
+
+			StringRowView row = new StringRowView();
+
+			for (int r = 0; r < rows; r++) {
+				row.clear();
+
+				// Numbers are only turned into Strings if a DAO asks for them
+				for (int c = 0; c < SheetRowHandler.COLUMNS; c++) {
+					if (NUMERIC[c]) {
+						row.setInt(c, in.readVarInt());
+					} else {
+						row.set(c, in.readString());
+					}
+				}
+
+				if (interner != null) {
+					row.intern(interner);
+				}
+
+				for (IRowSink handler : handlers) {
+					handler.handle_row(row);
+				}
+			}
+
+			return rows;
+		}
+	}
+
+	/**
+	 * Check the header at the position of the buffer, which is moved to the end of
+	 * the header.
+	 *
+	 * @return number of rows, or -1 if this header does not match
+	 */
+	private static int checkHeader(MappedByteBuffer header, SourceFingerprint fingerprint) {
+		if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+			return -1;
+		}
+
+		SourceFingerprint written = new SourceFingerprint(header.getLong(), header.getLong(), header.getLong());
+		int rows = header.getInt();
+
+		return written.equals(fingerprint) && rows >= 0 ? rows : -1;
+	}
+
+	/**
+	 * Compute the CRC32 of all bytes before the trailer window by window, and
+	 * compare it with the trailer.
+	 */
+	private static void verifyChecksum(FileChannel channel, long end) throws IOException {
+		CRC32 crc = new CRC32();
+
+		for (long position = 0; position < end; position += WINDOW_SIZE) {
+			crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, end - position)));
+		}
+
+		long expected = channel.map(FileChannel.MapMode.READ_ONLY, end, TRAILER_SIZE).getLong();
+		if (crc.getValue() != expected) {
+			throw new IOException("Snapshot checksum does not match");
+		}
+	}
+
+	/**
+	 * Write a String as its UTF-8 byte count and bytes, null is written as empty.
+	 */
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(out, bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Write a non-negative int with 7 bits in each byte, the highest bit tells if
+	 * more bytes follow.
+	 */
+	private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	/**
+	 * Sequential reader over a file which is mapped window by window. A window is
+	 * mapped again from the current position whenever the next value does not fit
+	 * into the rest of it.
+	 */
+	private static class MappedInput {
+
+		/** The channel of the snapshot. */
+		private final FileChannel channel;
+
+		/** End of the readable part of the file. */
+		private final long end;
+
+		/** Position of the current window in the file. */
+		private long base;
+
+		/** The current window. */
+		private MappedByteBuffer buffer;
+
+		/** Reusable bytes of one String. */
+		private byte[] bytes = new byte[256];
+
+		/**
+		 * Instantiates a new mapped input.
+		 */
+		private MappedInput(FileChannel channel, long end) throws IOException {
+			this.channel = channel;
+			this.end = end;
+			map(0);
+		}
+
+		/**
+		 * Map a new window from the given position of the file.
+		 */
+		private void map(long position) throws IOException {
+			base = position;
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, end - position));
+		}
+
+		/**
+		 * Make sure that the next count bytes are in the current window.
+		 */
+		private void ensure(int count) throws IOException {
+			if (buffer.remaining() < count) {
+				long position = base + buffer.position();
+				if (end - position < count) {
+					throw new IOException("Snapshot is truncated");
+				}
+				map(position);
+			}
+		}
+
+		/**
+		 * Read a variable-length int.
+		 */
+		private int readVarInt() throws IOException {
+			int value = 0;
+
+			for (int shift = 0; shift < 32; shift += 7) {
+				ensure(1);
+				byte b = buffer.get();
+				value |= (b & 0x7F) << shift;
+
+				if (b >= 0) {
+					return value;
+				}
+			}
+
+			throw new IOException("Malformed variable-length int in snapshot");
+		}
+
+		/**
+		 * Read a String written by {@link SnapshotFile#writeString}.
+		 */
+		private String readString() throws IOException {
+			int length = readVarInt();
+			if (length == 0) {
+				return "";
+			}
+
+			ensure(length);
+			if (bytes.length < length) {
+				bytes = new byte[Math.max(length, bytes.length * 2)];
+			}
+			buffer.get(bytes, 0, length);
+
+			return new String(bytes, 0, length, StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -0,0 +1,182 @@
+package dao;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * The fingerprint of a source file, made of its size, its last modified time
+ * and the CRC32 of its bytes. If the fingerprint of the excel file is not
+ * changed, data read from it before could be used again, see
+ * {@link SnapshotFile}.
+ *
+ * @version 1.0
+ * @see SnapshotFile
+ */
+public final class SourceFingerprint {
+
+	/** Size of the buffer used to compute the checksum. */
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	/** Size of the file in bytes. */
+	private final long size;
+
+	/** Last modified time of the file in milliseconds. */
+	private final long lastModified;
+
+	/** CRC32 of all bytes of the file. */
+	private final long checksum;
+
+	/**
+	 * Instantiates a new fingerprint.
+	 *
+	 * @param size
+	 *            size of the file in bytes
+	 * @param lastModified
+	 *            last modified time of the file in milliseconds
+	 * @param checksum
+	 *            CRC32 of all bytes of the file
+	 */
+	public SourceFingerprint(long size, long lastModified, long checksum) {
+		this.size = size;
+		this.lastModified = lastModified;
+		this.checksum = checksum;
+	}
+
+	/**
+	 * Computes the fingerprint of a file.
+	 *
+	 * @param file
+	 *            the file
+	 * @return the fingerprint
+	 * @throws FileNotFoundException
+	 *             If the file does not exist
+	 * @throws IOException
+	 *             If the file cannot be read
+	 */
+	public static SourceFingerprint of(File file) throws FileNotFoundException, IOException {
+		if (!file.isFile()) {
+			throw new FileNotFoundException(file.getPath());
+		}
+
+		CRC32 crc = new CRC32();
+		update(crc, file, ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+		return new SourceFingerprint(file.length(), file.lastModified(), crc.getValue());
+	}
+
+	/**
+	 * Computes one fingerprint of several files. The size is the total size, the
+	 * last modified time is the latest one, and the CRC32 covers the name and
+	 * bytes of each file in the given order. The fingerprint of one file is the
+	 * same as {@link #of(File)}.
+	 *
+	 * @param files
+	 *            the files
+	 * @return the fingerprint
+	 * @throws FileNotFoundException
+	 *             If a file does not exist
+	 * @throws IOException
+	 *             If a file cannot be read
+	 */
+	public static SourceFingerprint of(List<File> files) throws FileNotFoundException, IOException {
+		if (files.size() == 1) {
+			return of(files.get(0));
+		}
+
+		CRC32 crc = new CRC32();
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		long size = 0;
+		long lastModified = 0;
+
+		for (File file : files) {
+			if (!file.isFile()) {
+				throw new FileNotFoundException(file.getPath());
+			}
+
+			crc.update(file.getName().getBytes(StandardCharsets.UTF_8));
+			update(crc, file, buffer);
+			size += file.length();
+			lastModified = Math.max(lastModified, file.lastModified());
+		}
+
+		return new SourceFingerprint(size, lastModified, crc.getValue());
+	}
+
+	/**
+	 * Add all bytes of a file to the checksum.
+	 */
+	private static void update(CRC32 crc, File file, ByteBuffer buffer) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			buffer.clear();
+
+			while (channel.read(buffer) > 0) {
+				buffer.flip();
+				crc.update(buffer);
+				buffer.clear();
+			}
+		}
+	}
+
+	/**
+	 * Gets the size.
+	 *
+	 * @return the size
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * Gets the last modified time.
+	 *
+	 * @return the last modified time
+	 */
+	public long getLastModified() {
+		return lastModified;
+	}
+
+	/**
+	 * Gets the checksum.
+	 *
+	 * @return the checksum
+	 */
+	public long getChecksum() {
+		return checksum;
+	}
+
+	/*
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof SourceFingerprint)) {
+			return false;
+		}
+
+		SourceFingerprint other = (SourceFingerprint) o;
+		return size == other.size && lastModified == other.lastModified && checksum == other.checksum;
+	}
+
+	/*
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return Long.hashCode(size) * 31 * 31 + Long.hashCode(lastModified) * 31 + Long.hashCode(checksum);
+	}
+
+	/*
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return size + ":" + lastModified + ":" + Long.toHexString(checksum);
+	}
+}
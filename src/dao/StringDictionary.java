@@ -0,0 +1,80 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A dictionary which encodes repeated strings such as usernames, dates and
+ * hours into int codes, so that a column only needs an int array and one copy
+ * of each distinct value.
+ *
+ * <p>
+ * Codes start from 0 and are given in the order values are first seen. This
+ * class is not thread-safe, each {@link ColumnarTweetStore} owns its
+ * dictionaries.
+ *
+ * @version 1.0
+ * @see ColumnarTweetStore
+ */
+public class StringDictionary {
+
+	/** Code of each distinct value. */
+	private Map<String, Integer> codes;
+
+	/** Distinct values, the index is the code. */
+	private List<String> values;
+
+	/**
+	 * Instantiates a new empty dictionary.
+	 */
+	public StringDictionary() {
+		codes = new HashMap<String, Integer>();
+		values = new ArrayList<String>();
+	}
+
+	/**
+	 * Returns the code of a value, a new code is given if this value is not in the
+	 * dictionary.
+	 *
+	 * @param value
+	 *            the value, null is stored as an empty string
+	 * @return the code
+	 */
+	public int encode(String value) {
+		if (value == null) {
+			value = "";
+		}
+
+		Integer code = codes.get(value);
+
+		if (code == null) {
+			code = values.size();
+			codes.put(value, code);
+			values.add(value);
+		}
+
+		return code;
+	}
+
+	/**
+	 * Returns the value of a code.
+	 *
+	 * @param code
+	 *            the code
+	 * @return the value
+	 */
+	public String decode(int code) {
+		return values.get(code);
+	}
+
+	/**
+	 * Returns the number of distinct values.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return values.size();
+	}
+}
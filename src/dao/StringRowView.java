@@ -0,0 +1,143 @@
+package dao;
+
+import java.util.Arrays;
+
+/**
+ * A {@link RowView} over cells which are already Strings, such as the
+ * formatted values given by the Event Model of Apache POI, or numbers read
+ * from a snapshot.
+ *
+ * <p>
+ * One view is reused for all rows of a reader: {@link #clear()} empties it,
+ * and cells are set one by one. A numeric cell could be set as an int, then
+ * it is only turned into a String if a DAO asks for it. Numbers parsed from
+ * String cells are cached, so a column read by both TweetDAO and UserDAO is
+ * parsed once.
+ *
+ * @version 1.0
+ * @see RowView
+ * @see SheetRowHandler
+ * @see SnapshotFile
+ */
+public class StringRowView implements RowView {
+
+	/** Cells of the row, null if a cell is only set as an int. */
+	private final String[] cells;
+
+	/** Numeric value of each column whose bit is set in parsed. */
+	private final int[] ints;
+
+	/** Bit of each column whose numeric value is known. */
+	private long parsed;
+
+	/**
+	 * Instantiates an empty view of {@link SheetRowHandler#COLUMNS} columns.
+	 */
+	public StringRowView() {
+		this.cells = new String[SheetRowHandler.COLUMNS];
+		this.ints = new int[cells.length];
+		clear();
+	}
+
+	/**
+	 * Empty all cells for the next row.
+	 */
+	public void clear() {
+		Arrays.fill(cells, "");
+		parsed = 0;
+	}
+
+	/**
+	 * Set one cell, cells beyond the columns are ignored.
+	 *
+	 * @param column
+	 *            index of the column
+	 * @param value
+	 *            the cell, null is empty
+	 */
+	public void set(int column, String value) {
+		if (column < cells.length) {
+			cells[column] = value == null ? "" : value;
+			parsed &= ~(1L << column);
+		}
+	}
+
+	/**
+	 * Set one numeric cell without creating a String.
+	 *
+	 * @param column
+	 *            index of the column
+	 * @param value
+	 *            the value
+	 */
+	public void setInt(int column, int value) {
+		if (column < cells.length) {
+			cells[column] = null;
+			ints[column] = value;
+			parsed |= 1L << column;
+		}
+	}
+
+	/**
+	 * Replace the String cells by their canonical objects.
+	 *
+	 * @param interner
+	 *            the interner
+	 */
+	public void intern(RowInterner interner) {
+		for (int i = 0; i < cells.length; i++) {
+			if (cells[i] != null) {
+				cells[i] = interner.intern(i, cells[i]);
+			}
+		}
+	}
+
+	/*
+	 * @see dao.RowView#getColumnCount()
+	 */
+	@Override
+	public int getColumnCount() {
+		return cells.length;
+	}
+
+	/*
+	 * @see dao.RowView#getCharSequence(int)
+	 */
+	@Override
+	public CharSequence getCharSequence(int column) {
+		return getString(column);
+	}
+
+	/*
+	 * @see dao.RowView#getString(int)
+	 */
+	@Override
+	public String getString(int column) {
+		if (cells[column] == null) {
+			cells[column] = Integer.toString(ints[column]);
+		}
+
+		return cells[column];
+	}
+
+	/*
+	 * @see dao.RowView#getInt(int)
+	 */
+	@Override
+	public int getInt(int column) {
+		if ((parsed & (1L << column)) == 0) {
+			ints[column] = NumberParser.parseInt(cells[column]);
+			parsed |= 1L << column;
+		}
+
+		return ints[column];
+	}
+
+	/*
+	 * @see dao.RowView#getDouble(int)
+	 */
+	@Override
+	public double getDouble(int column) {
+		return NumberParser.parseDouble(getString(column));
+	}
+}
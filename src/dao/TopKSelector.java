@@ -0,0 +1,206 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * A bounded accumulator which keeps only the best K objects offered to it, so
+ * that top Tweets or Users could be selected while rows are streamed in,
+ * without holding all objects in a {@link PriorityQueue}.
+ *
+ * <p>
+ * Objects are ranked by the given comparator, the object which is the smallest
+ * according to it is the best one. For example, with the natural ordering of
+ * {@link entity.Tweet Tweet}, the Tweet with the biggest sum of favs and rts
+ * is the best. Internally a min-heap of size K is used, whose head is the worst
+ * object kept, so each {@code offer} costs O(log K) and the whole selection
+ * costs O(n log K) rather than O(n log n).
+ *
+ * <p>
+ * When two objects are equal according to the comparator, the one offered
+ * earlier is ranked first, so the result is stable for the same input order.
+ *
+ * @version 1.0
+ * @param <T>
+ *            type of objects to be ranked
+ * @see TweetDAOImpl
+ */
+public class TopKSelector<T> {
+
+	/** Maximum number of objects kept. */
+	private final int k;
+
+	/** Ranking of objects, the smallest is the best. */
+	private final Comparator<? super T> order;
+
+	/** Heap whose head is the worst object kept. */
+	private final PriorityQueue<Entry<T>> heap;
+
+	/** Number of objects offered so far, used to keep ties in offered order. */
+	private long sequence;
+
+	/**
+	 * Instantiates a new selector.
+	 *
+	 * @param k
+	 *            maximum number of objects kept, must not be negative
+	 * @param order
+	 *            ranking of objects, the smallest is the best
+	 */
+	public TopKSelector(int k, Comparator<? super T> order) {
+		this.k = checkK(k);
+		this.order = order;
+		this.heap = new PriorityQueue<Entry<T>>(Math.max(1, k), this::compareWorstFirst);
+	}
+
+	/**
+	 * Checks the number of objects asked by a top K query, so that every
+	 * {@code getTopTweets(k)} and {@code getTopUsers(k)} fails in the same way.
+	 * A K of 0 is valid and gives an empty list.
+	 *
+	 * @param k
+	 *            number of objects needed
+	 * @return the same k
+	 * @throws IllegalArgumentException
+	 *             If k is negative
+	 */
+	public static int checkK(int k) {
+		if (k < 0) {
+			throw new IllegalArgumentException("K must not be negative: " + k);
+		}
+
+		return k;
+	}
+
+	/**
+	 * Offer one object, it is kept only if it is better than the worst object
+	 * kept, or fewer than K objects are kept.
+	 *
+	 * @param value
+	 *            the object, null is ignored
+	 * @return true, if this object is kept
+	 */
+	public boolean offer(T value) {
+		if (value == null || k == 0) {
+			return false;
+		}
+
+		Entry<T> entry = new Entry<T>(value, sequence++);
+
+		if (heap.size() < k) {
+			heap.add(entry);
+			return true;
+		}
+
+		if (compareWorstFirst(entry, heap.peek()) > 0) {
+			heap.poll();
+			heap.add(entry);
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Offer all objects kept by another selector, in their offered order. They
+	 * are ranked as offered after all objects offered to this selector, so
+	 * selectors of consecutive parts of the input must be merged in the order of
+	 * these parts to keep ties in the input order.
+	 *
+	 * @param other
+	 *            the other selector
+	 */
+	public void merge(TopKSelector<T> other) {
+		List<Entry<T>> entries = new ArrayList<Entry<T>>(other.heap);
+		entries.sort((a, b) -> Long.compare(a.sequence, b.sequence));
+
+		for (Entry<T> entry : entries) {
+			offer(entry.value);
+		}
+	}
+
+	/**
+	 * Returns the number of objects kept.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return heap.size();
+	}
+
+	/**
+	 * Returns the maximum number of objects kept.
+	 *
+	 * @return K
+	 */
+	public int capacity() {
+		return k;
+	}
+
+	/**
+	 * Returns the objects kept, the best one first. The selector is not changed.
+	 *
+	 * @return list of at most K objects
+	 */
+	public List<T> toList() {
+		List<Entry<T>> entries = new ArrayList<Entry<T>>(heap);
+		entries.sort((a, b) -> compareWorstFirst(b, a));
+
+		List<T> result = new ArrayList<T>(entries.size());
+		for (Entry<T> entry : entries) {
+			result.add(entry.value);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Compare two entries so that the worse one is smaller, an entry offered later
+	 * is worse than an equal one offered earlier.
+	 *
+	 * @param a
+	 *            the first entry
+	 * @param b
+	 *            the second entry
+	 * @return negative if a is worse than b
+	 */
+	private int compareWorstFirst(Entry<T> a, Entry<T> b) {
+		int result = order.compare(b.value, a.value);
+
+		if (result == 0) {
+			result = Long.compare(b.sequence, a.sequence);
+		}
+
+		return result;
+	}
+
+	/**
+	 * One object kept by the selector with its offered sequence.
+	 *
+	 * @param <T>
+	 *            type of the object
+	 */
+	private static class Entry<T> {
+
+		/** The object. */
+		private final T value;
+
+		/** Sequence when this object was offered. */
+		private final long sequence;
+
+		/**
+		 * Instantiates a new entry.
+		 *
+		 * @param value
+		 *            the object
+		 * @param sequence
+		 *            sequence when this object was offered
+		 */
+		private Entry(T value, long sequence) {
+			this.value = value;
+			this.sequence = sequence;
+		}
+	}
+}
@@ -1,6 +1,8 @@
 package dao;
 
-import java.util.PriorityQueue;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 
 import entity.Tweet;
 
@@ -11,31 +13,42 @@ import entity.Tweet;
  * data.
  * 
  * <h1> This class is only responsible for generating Tweet objects according to
- * the input data, and then store these Tweet objects into a queue. Since that
- * Tweet objects are needed to be sorted, so {@link PriorityQueue} is used to do
- * sort automatically. The {@code compareTo()}} method of Tweet entity is
- * overrided so that the first element in PriorityQueue would be the biggest
- * one, rather than the smallest by default. When the traverse of excel file is
- * done, TweetDAO will return its queue.
+ * the input data, and then store these Tweet objects into a list in the order
+ * of excel rows. When the traverse of excel file is done, TweetDAO will return
+ * its list.
+ * 
+ * <p>
+ * Only a few top Tweets are needed to be ranked, so rather than sorting all
+ * Tweet objects in a {@code PriorityQueue}, a {@link TopKSelector} keeps the
+ * best {@value #TOP_CAPACITY} Tweets while rows are handled. The
+ * {@code compareTo()} method of Tweet entity is overrided so that the first
+ * element would be the biggest one, rather than the smallest by default.
  *
  * @author Xunjie Liu
  * @version 1.0
- * @see IEntityDAO
+ * @see ITweetDAO
  * @see ExcelDAOImpl
  * @since 2019-03-20
  */
 
-public class TweetDAOImpl implements IEntityDAO {
+public class TweetDAOImpl implements ITweetDAO {
 	
-	/** PriorityQueue for sorting and storing all Tweet objects. */
-	private PriorityQueue<Tweet> queue;
+	/** Number of top Tweets kept while rows are handled. */
+	public static final int TOP_CAPACITY = 100;
+
+	/** List for storing all Tweet objects in the order of excel rows. */
+	private List<Tweet> tweets;
+
+	/** Top Tweets ranked by the natural ordering of Tweet. */
+	private TopKSelector<Tweet> top;
 
 	/**
-	 * Constructs an instance of TweetDAOImpl object and initial queue to store
+	 * Constructs an instance of TweetDAOImpl object and initial list to store
 	 * data.
 	 */
 	public TweetDAOImpl() {
-		queue = new PriorityQueue<Tweet>();
+		tweets = new ArrayList<Tweet>();
+		top = new TopKSelector<Tweet>(TOP_CAPACITY, Comparator.naturalOrder());
 	}
 
 	/**
@@ -47,7 +60,24 @@ public class TweetDAOImpl implements IEntityDAO {
 	@Override
 	public void handle_row(String[] row) {
 		Tweet tweet = getTweet(row);
-		queue.add(tweet);
+		tweets.add(tweet);
+		top.offer(tweet);
+	}
+
+	/**
+	 * This method will get a Tweet object from a view of one row and store it,
+	 * numeric cells are parsed without creating Strings.
+	 * 
+	 * @param row
+	 *            view of one excel row
+	 */
+	@Override
+	public void handle_row(RowView row) {
+		Tweet tweet = new Tweet(row.getString(0), row.getString(1), row.getString(2), row.getString(3),
+				row.getString(4), row.getString(5), row.getInt(6), row.getInt(7), row.getString(8),
+				row.getString(9), row.getInt(10));
+		tweets.add(tweet);
+		top.offer(tweet);
 	}
 
 	/**
@@ -74,41 +104,76 @@ public class TweetDAOImpl implements IEntityDAO {
 
 	/**
 	 * This method will validate a input string and turn it into Integer. If this
-	 * input string is not valid, it would directly return 0.
+	 * input string is not valid, it would directly return 0. See
+	 * {@link NumberParser} for accepted forms.
 	 * 
 	 * @param str
 	 *            String to be validated
 	 * @return A Integer, if not valid, return 0, else return its literal value
 	 */
 	public int isNumber(String str) {
-		String reg = "^[0-9]+(.[0-9]+)?$";
-		str = str.trim();
-		boolean isNum = str.matches(reg);
-
-		if (!isNum) {
-			return 0;
-		} else {
-			return Integer.parseInt(str);
-		}
+		return NumberParser.parseInt(str);
 	}
 
 	/**
-	 * This method will return a PriorityQueue which stores all Tweet objects.
+	 * This method will return a list which stores all Tweet objects.
 	 * 
-	 * @return Queue containing all Tweet objects.
+	 * @return List containing all Tweet objects.
 	 */
-	public PriorityQueue<Tweet> getQueue() {
-		return queue;
+	public List<Tweet> getTweets() {
+		return tweets;
+	}
+
+	/**
+	 * This method will return the top Tweets ranked by the sum of favs and rts,
+	 * the biggest first. If k is not bigger than {@value #TOP_CAPACITY}, Tweets
+	 * kept while rows were handled are returned directly, otherwise all Tweets
+	 * are traversed once with a new {@link TopKSelector}.
+	 * 
+	 * @param k
+	 *            number of Tweets needed
+	 * @return List containing at most k Tweet objects
+	 * @throws IllegalArgumentException
+	 *             If k is negative
+	 */
+	@Override
+	public List<Tweet> getTopTweets(int k) {
+		TopKSelector.checkK(k);
+		if (k <= top.capacity()) {
+			List<Tweet> result = top.toList();
+			return result.size() > k ? new ArrayList<Tweet>(result.subList(0, k)) : result;
+		}
+
+		TopKSelector<Tweet> selector = new TopKSelector<Tweet>(k, Comparator.naturalOrder());
+		for (Tweet t : tweets) {
+			selector.offer(t);
+		}
+
+		return selector.toList();
 	}
 
 	/**
 	 * This method will return a data structure which stores objects(Tweet or User).
 	 * 
-	 * @return Object, could be a queue or set
+	 * @return Object, could be a list or collection
 	 */
 	@Override
 	public Object getData() {
-		return queue;
+		return tweets;
+	}
+
+	/**
+	 * This method will add all Tweet objects of another TweetDAO into this list,
+	 * and merge their top Tweets.
+	 * 
+	 * @param other
+	 *            TweetDAO whose Tweet objects would be added
+	 */
+	@Override
+	public void merge(IEntityDAO other) {
+		TweetDAOImpl dao = (TweetDAOImpl) other;
+		tweets.addAll(dao.tweets);
+		top.merge(dao.top);
 	}
 
 }
@@ -1,7 +1,10 @@
 package dao;
 
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import entity.User;
 
@@ -13,11 +16,17 @@ import entity.User;
  * 
  * <p>
  * This class is only responsible for generating User objects according to the
- * input data, and then store these User objects into a set. User objects are
- * required to remove duplication according to the username, so the {@link Set}
- * data structure should be utilized, besides, orderliness is alse required, so
- * {@link TreeSet} is selected as its data structure. When the traverse of excel
- * file is done, TweetDAO will return its set.
+ * input data, and then store these User objects into a map. User objects are
+ * required to remove duplication according to the username, so the
+ * {@link HashMap} keyed by username is utilized, and each row costs O(1)
+ * rather than O(log n) of a sorted set. When a username appears again, its
+ * followers are merged by keeping the maximum, and its tweet count is
+ * increased.
+ * 
+ * <p>
+ * Orderliness is only needed when top users are requested, so users are
+ * ranked at that time by {@link TopKSelector}. When the traverse of excel file
+ * is done, UserDAO will return its users.
  * 
  * @author Xunjie Liu
  * @version 1.0
@@ -29,28 +38,58 @@ import entity.User;
 
 public class UserDAOImpl implements IEntityDAO{
 	/**
-	 * TreeSet for sorting and storing all User objects
+	 * HashMap for storing all User objects, keyed by username
 	 */
-	private Set<User> set;
+	private Map<String, User> users;
 	
 	/**
-	 * Constructs an instance of UserDAOImpl object and initial set to store data
+	 * Constructs an instance of UserDAOImpl object and initial map to store data
 	 *
 	 */
 	public UserDAOImpl() {
-		set = new TreeSet<User>();
+		users = new HashMap<String, User>();
 	}
 	
 	/**
-	 * This method will get a User object from input String array and store it.
+	 * This method will get a User object from input String array and store it,
+	 * or merge it into the stored User with the same username.
 	 * 
 	 * @param row
 	 *            String array contains all data in one excel row
 	 */
 	@Override
 	public void handle_row(String[] row) {
-		User user = getUser(row);
-		set.add(user);		
+		String username = row[3];
+		int followers = isNumber(row[10]);
+		User user = users.get(username);
+		
+		if (user == null) {
+			users.put(username, new User(row[0], username, followers));
+		} else {
+			user.setFollowers(Math.max(user.getFollowers(), followers));
+			user.setTweetCount(user.getTweetCount() + 1);
+		}
+	}
+	
+	/**
+	 * This method will get a User object from a view of one row and store it,
+	 * only the id, username and followers are read.
+	 * 
+	 * @param row
+	 *            view of one excel row
+	 */
+	@Override
+	public void handle_row(RowView row) {
+		String username = row.getString(3);
+		int followers = row.getInt(10);
+		User user = users.get(username);
+		
+		if (user == null) {
+			users.put(username, new User(row.getString(0), username, followers));
+		} else {
+			user.setFollowers(Math.max(user.getFollowers(), followers));
+			user.setTweetCount(user.getTweetCount() + 1);
+		}
 	}
 	
 	/**
@@ -75,35 +114,70 @@ public class UserDAOImpl implements IEntityDAO{
 	 * @param str
 	 *            String to be validated
 	 * @return A Integer, if not valid, return 0, else return its literal value
+	 * @see NumberParser
 	 */
 	public int isNumber(String str){
-		String reg = "^[0-9]+(.[0-9]+)?$";
-		boolean isNum = str.matches(reg);
-		
-		if(!isNum) {
-			return 0;
-		}else {
-			return Integer.parseInt(str);
-		}
+		return NumberParser.parseInt(str);
+	}
+	
+	/**
+	 * This method will return all User objects, one for each username.
+	 * 
+	 * @return Collection containing all User objects.
+	 */
+	public Collection<User> getUsers() {
+		return users.values();
 	}
 	
 	/**
-	 * This method will return a TreeSet which stores all User objects.
+	 * This method will return the top users ranked by followers, the biggest
+	 * first, users with the same followers are ordered by username.
 	 * 
-	 * @return Set containing all User objects.
+	 * @param k
+	 *            number of users needed
+	 * @return List containing at most k User objects
+	 * @throws IllegalArgumentException
+	 *             If k is negative
 	 */
-	public Set<User> getSet() {
-		return set;
+	public List<User> getTopUsers(int k) {
+		TopKSelector<User> selector = new TopKSelector<User>(k, Comparator.naturalOrder());
+		for (User user : users.values()) {
+			selector.offer(user);
+		}
+		
+		return selector.toList();
 	}
 	
 	/**
 	 * This method will return a data structure which stores objects(Tweet or User).
 	 * 
-	 * @return Object, could be a queue or set
+	 * @return Object, could be a list or collection
 	 */
 	@Override
 	public Object getData() {
-		return set;
+		return users.values();
+	}
+
+	/**
+	 * This method will merge all User objects of another UserDAO into this map.
+	 * Followers of the same username are merged by keeping the maximum, and
+	 * tweet counts are added up.
+	 * 
+	 * @param other
+	 *            UserDAO whose User objects would be merged
+	 */
+	@Override
+	public void merge(IEntityDAO other) {
+		for (User user : ((UserDAOImpl) other).users.values()) {
+			User stored = users.get(user.getUsername());
+			
+			if (stored == null) {
+				users.put(user.getUsername(), user);
+			} else {
+				stored.setFollowers(Math.max(stored.getFollowers(), user.getFollowers()));
+				stored.setTweetCount(stored.getTweetCount() + user.getTweetCount());
+			}
+		}
 	}
 
 }
@@ -12,7 +12,8 @@ import dao.ExcelDAOImpl;
  * <p>
  * Inside this entity, following attributes are used to implement sorting
  * operation: {@code username}, {@code followers}. Users would be ranked based
- * on the {@code followers} and unique identified by {@code username}.
+ * on the {@code followers} and unique identified by {@code username}. The
+ * number of tweets of this user is counted by {@code tweetCount}.
  * 
  * <p>
  * In order to visualize this object, toString() method is overrided and
@@ -47,6 +48,9 @@ public class User implements Comparable<User> {
 	/** The followers. */
 	private int followers;
 
+	/** Number of tweets published by this user. */
+	private int tweetCount = 1;
+
 	/**
 	 * Instantiates a new user.
 	 *
@@ -148,6 +152,25 @@ public class User implements Comparable<User> {
 		this.followers = followers;
 	}
 
+	/**
+	 * Gets the number of tweets published by this user.
+	 *
+	 * @return the tweet count
+	 */
+	public int getTweetCount() {
+		return tweetCount;
+	}
+
+	/**
+	 * Sets the number of tweets published by this user.
+	 *
+	 * @param tweetCount
+	 *            the new tweet count
+	 */
+	public void setTweetCount(int tweetCount) {
+		this.tweetCount = tweetCount;
+	}
+
 	/*
 	 * Firstly it would compare the followers, if equal, then username would be
 	 * compared.
@@ -2,19 +2,46 @@ package lucene;
 
 import java.io.IOException;
 import java.nio.file.Paths;
-import java.util.PriorityQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LatLonPoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexWriterConfig.OpenMode;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 
+import dao.DateParser;
 import entity.Tweet;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
 
 /**
  * This class implements index file creating work and Lucene 7.7.1 API is
@@ -22,9 +49,38 @@ import entity.Tweet;
  * using Lucene API.
  * 
  * <p>
- * There are 4 fields when creating index files, which are {@code contents},
- * {@code ID}, {@code username} and {@code Tweet}, the search will beased on
- * contents, and search result will show the username.
+ * Each tweet is one document with the following fields:
+ * <ul>
+ * <li>{@code tweet}: the content, tokenized and stored. The search is based
+ * on this field.</li>
+ * <li>{@code id} and {@code username}: not tokenized and stored, the search
+ * result will show the username.</li>
+ * <li>{@code favs}, {@code rts} and {@code followers}: indexed as points for
+ * range queries, and as doc values for sorting. They are not stored.</li>
+ * <li>{@code engagement}: favs + rts as doc values, to order results in the
+ * same way as {@link Tweet#compareTo(Tweet)}.</li>
+ * <li>{@code date}: the day since 1970-01-01 as a point for date ranges, only
+ * if the date is valid, see {@link DateParser}. It is not stored.</li>
+ * <li>{@code location}: latitude and longitude as a point, only if both are
+ * valid numbers.</li>
+ * </ul>
+ * 
+ * <p>
+ * Each document also has its tweet {@code id} as a stable key, so a tweet is
+ * replaced rather than added again when it is indexed twice. The version of
+ * the source data (for example the fingerprint of the excel file) is written
+ * into the user data of each commit. If the index was already built from the
+ * same version, {@link #writeDocument()} does nothing, so the index is only
+ * written when the excel file changes. Documents of tweets which are no longer
+ * in the source are deleted.
+ * 
+ * <p>
+ * IndexWriter is thread-safe, so tweets are split into one part for each
+ * thread and written in parallel, each thread reuses one Document and its
+ * Fields for all of its tweets. Tweets are split by the hash of their id, so
+ * all tweets with the same id are written by one thread in the order of the
+ * source, and the last one is kept whatever the number of threads. The number of threads and the settings of
+ * IndexWriter are given by {@link IndexerSettings}.
  * 
  * <p>
  * This entity would be instantiated by {@link service.Menu Menu} after extrated
@@ -43,33 +99,201 @@ import entity.Tweet;
  */
 public class Indexer {
 	
+	/** Field of the stable key of each document, the tweet id. */
+	public static final String ID_FIELD = "id";
+	
+	/** Field of the source version which wrote each document. */
+	public static final String SOURCE_FIELD = "source";
+	
+	/** Field of the tokenized tweet content. */
+	public static final String TWEET_FIELD = "tweet";
+	
+	/** Field of the username. */
+	public static final String USERNAME_FIELD = "username";
+	
+	/** Field of the number of favs. */
+	public static final String FAVS_FIELD = "favs";
+	
+	/** Field of the number of rts. */
+	public static final String RTS_FIELD = "rts";
+	
+	/** Field of the number of followers. */
+	public static final String FOLLOWERS_FIELD = "followers";
+	
+	/** Field of the latitude and longitude. */
+	public static final String LOCATION_FIELD = "location";
+	
+	/** Field of favs + rts. */
+	public static final String ENGAGEMENT_FIELD = "engagement";
+	
+	/** Field of the date. */
+	public static final String DATE_FIELD = "date";
+	
+	/** Key of the source version in the commit user data. */
+	public static final String SOURCE_KEY = "source";
+	
+	/** Key of the schema version in the commit user data. */
+	public static final String SCHEMA_KEY = "schema";
+	
+	/**
+	 * Version of the fields of documents, increased when fields are changed so
+	 * that an index with old fields is built again from scratch.
+	 */
+	public static final String SCHEMA_VERSION = "4";
+	
+	/** Time of each {@link #writeDocument()} which writes documents. */
+	private static final LatencyHistogram INDEX_BUILD = MetricsRegistry.getDefault().histogram("index_build");
+	
 	/** IndexWriter is used to write index files into disk */
 	private IndexWriter writer;
 	
 	/** The tweets stores all Tweet objects extracted from excel file */
-	private PriorityQueue<Tweet> tweets;
+	private Collection<Tweet> tweets;
+	
+	/** Version of the source data, null if unknown */
+	private String sourceVersion;
+	
+	/** Commit user data of the last commit when this indexer is opened */
+	private Map<String, String> lastCommitData;
+	
+	/** Settings of bulk indexing */
+	private IndexerSettings settings;
+	
+	/** Time used by the last {@link #writeDocument()} in nanoseconds */
+	private long elapsedNanos;
+	
+	/** Number of documents written by the last {@link #writeDocument()} */
+	private int written;
+	
+	/** Number of documents written since the last commit of the interval */
+	private final AtomicInteger uncommitted = new AtomicInteger();
+	
+	/** Called after each commit, null if nobody is told */
+	private volatile Runnable commitListener;
+
+	/**
+	 * Instantiates a new indexer using path url and all Tweet objects. The
+	 * version of the source data is unknown, so tweets are always written.
+	 *
+	 * @param indexDir
+	 *            the index directory where the index files would be stored.
+	 * @param tweets
+	 *            All Tweet objects to be indexed
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public Indexer(String indexDir, Collection<Tweet> tweets) throws IOException {
+		this(indexDir, tweets, null);
+	}
 
 	/**
-	 * Instantiates a new indexer using path url and all Tweet objects
+	 * Instantiates a new indexer using path url, all Tweet objects and the version
+	 * of the source data they are read from.
 	 *
 	 * @param indexDir
 	 *            the index directory where the index files would be stored.
 	 * @param tweets
 	 *            All Tweet objects to be indexed
+	 * @param sourceVersion
+	 *            version of the source data such as the fingerprint of the excel
+	 *            file, null if unknown
 	 * @throws IOException
 	 *             Signals that an I/O exception has occurred.
 	 */
-	public Indexer(String indexDir, PriorityQueue<Tweet> tweets) throws IOException {
+	public Indexer(String indexDir, Collection<Tweet> tweets, String sourceVersion) throws IOException {
+		this(indexDir, tweets, sourceVersion, new IndexerSettings());
+	}
+
+	/**
+	 * Instantiates a new indexer using path url, all Tweet objects, the version
+	 * of the source data they are read from and the settings of bulk indexing.
+	 *
+	 * @param indexDir
+	 *            the index directory where the index files would be stored.
+	 * @param tweets
+	 *            All Tweet objects to be indexed
+	 * @param sourceVersion
+	 *            version of the source data such as the fingerprint of the excel
+	 *            file, null if unknown
+	 * @param settings
+	 *            settings of threads and IndexWriter
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public Indexer(String indexDir, Collection<Tweet> tweets, String sourceVersion, IndexerSettings settings)
+			throws IOException {
 		// Get index path using input parameter
 		Directory dir = FSDirectory.open(Paths.get(indexDir));
+		this.lastCommitData = readCommitData(dir);
 		
-		// Initialize config
-		IndexWriterConfig config = new IndexWriterConfig(new StandardAnalyzer());
-		config.setOpenMode(OpenMode.CREATE_OR_APPEND);
+		// Initialize config, an index with other fields is built again
+		IndexWriterConfig config = settings.apply(new IndexWriterConfig(new StandardAnalyzer()));
+		if (SCHEMA_VERSION.equals(lastCommitData.get(SCHEMA_KEY))) {
+			config.setOpenMode(OpenMode.CREATE_OR_APPEND);
+		} else {
+			config.setOpenMode(OpenMode.CREATE);
+			lastCommitData = Collections.emptyMap();
+		}
 		
 		// Create writer
 		writer = new IndexWriter(dir, config);
 		this.tweets = tweets;
+		this.sourceVersion = sourceVersion;
+		this.settings = settings;
+	}
+
+	/**
+	 * Read the user data of the last commit of the index.
+	 *
+	 * @param dir
+	 *            the index directory
+	 * @return the user data, empty if there is no index yet
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private static Map<String, String> readCommitData(Directory dir) throws IOException {
+		if (!DirectoryReader.indexExists(dir)) {
+			return Collections.emptyMap();
+		}
+		
+		return SegmentInfos.readLatestCommit(dir).getUserData();
+	}
+
+	/**
+	 * Check if an index with the fields of this version of the program exists in
+	 * a directory, which could be searched before it is written again.
+	 *
+	 * @param indexDir
+	 *            the index directory
+	 * @return true, if the index has been committed with the current schema
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public static boolean hasIndex(String indexDir) throws IOException {
+		try (Directory dir = FSDirectory.open(Paths.get(indexDir))) {
+			return SCHEMA_VERSION.equals(readCommitData(dir).get(SCHEMA_KEY));
+		}
+	}
+
+	/**
+	 * Sets the listener which is called after each commit, on the thread which
+	 * committed, so that searchers could be opened or refreshed.
+	 *
+	 * @param commitListener
+	 *            the listener, null to remove it
+	 */
+	public void setCommitListener(Runnable commitListener) {
+		this.commitListener = commitListener;
+	}
+
+	/**
+	 * Check if the index was already built from the same version of the source
+	 * data, in which case nothing needs to be written.
+	 *
+	 * @return true, if the index is up to date
+	 */
+	public boolean isUpToDate() {
+		return sourceVersion != null && sourceVersion.equals(lastCommitData.get(SOURCE_KEY));
 	}
 
 	/**
@@ -84,21 +308,293 @@ public class Indexer {
 
 	/**
 	 * This method will generate Document object, and Document object is the
-	 * encapsulation for all attributes of this document.
+	 * encapsulation for all attributes of this document. Each document replaces
+	 * the one with the same tweet id, documents of tweets which are not in the
+	 * source any more are deleted, and the source version is committed.
+	 * 
+	 * <p>
+	 * Nothing is written if the index is up to date, see {@link #isUpToDate()}.
 	 *
+	 * @return number of documents written
 	 * @throws IOException
 	 *             Signals that an I/O exception has occurred.
 	 */
-	public void writeDocument() throws IOException {
-		Document doc;
+	public int writeDocument() throws IOException {
+		if (isUpToDate()) {
+			return 0;
+		}
+		
+		String source = sourceVersion == null ? "" : sourceVersion;
+		long startTime = System.nanoTime();
+		if (settings.getCommitInterval() > 0) {
+			// Commits of the interval must not claim that the source is written
+			writer.setLiveCommitData(
+					Collections.singletonMap(SCHEMA_KEY, SCHEMA_VERSION).entrySet());
+			uncommitted.set(0);
+		}
+		int count = writeAll(source);
+		
+		// Delete tweets which were written from another version of the source
+		BooleanQuery.Builder stale = new BooleanQuery.Builder();
+		stale.add(new MatchAllDocsQuery(), Occur.MUST);
+		stale.add(new TermQuery(new Term(SOURCE_FIELD, source)), Occur.MUST_NOT);
+		writer.deleteDocuments(stale.build());
+		
+		Map<String, String> commitData = new HashMap<String, String>();
+		commitData.put(SCHEMA_KEY, SCHEMA_VERSION);
+		if (sourceVersion != null) {
+			commitData.put(SOURCE_KEY, sourceVersion);
+		}
+		writer.setLiveCommitData(commitData.entrySet());
+		writer.commit();
+		
+		lastCommitData = commitData;
+		elapsedNanos = System.nanoTime() - startTime;
+		written = count;
+		INDEX_BUILD.record(elapsedNanos);
+		notifyCommit();
+		return count;
+	}
+
+	/**
+	 * Commit the documents written so far if a whole commit interval is written
+	 * since the last commit. IndexWriter allows commits while other threads add
+	 * documents.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private void maybeCommit() throws IOException {
+		int interval = settings.getCommitInterval();
+		
+		if (interval > 0 && uncommitted.incrementAndGet() % interval == 0) {
+			writer.commit();
+			notifyCommit();
+		}
+	}
+
+	/**
+	 * Call the commit listener if there is one.
+	 */
+	private void notifyCommit() {
+		Runnable listener = commitListener;
+		
+		if (listener != null) {
+			listener.run();
+		}
+	}
+
+	/**
+	 * Write all tweets, in parallel if more than one thread is set.
+	 *
+	 * @param source
+	 *            the source version written into each document
+	 * @return number of documents written
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@SuppressWarnings("unchecked")
+	private int writeAll(String source) throws IOException {
+		List<Tweet> list = tweets instanceof RandomAccess && tweets instanceof List ? (List<Tweet>) tweets
+				: new ArrayList<Tweet>(tweets);
+		int threads = Math.min(settings.getThreads(), Math.max(1, list.size()));
+		
+		if (threads == 1) {
+			return new DocumentWriter(list, 0, 1, source).call();
+		}
+		
+		// Split tweets into one part for each thread, tweets with the same id are in the same part
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+		
+		try {
+			for (int part = 0; part < threads; part++) {
+				futures.add(pool.submit(new DocumentWriter(list, part, threads, source)));
+			}
+			
+			int count = 0;
+			for (Future<Integer> future : futures) {
+				count += future.get();
+			}
+			return count;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Indexing is interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException("Fail to index tweets", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Returns the speed of the last {@link #writeDocument()}.
+	 *
+	 * @return documents written per second, 0 if nothing is written
+	 */
+	public double getDocsPerSecond() {
+		return elapsedNanos == 0 ? 0 : written * 1e9 / elapsedNanos;
+	}
 
-		for (Tweet t : tweets) {
-			doc = new Document();
-			doc.add(new Field("contents", t.toString().toLowerCase(), TextField.TYPE_STORED));
-			doc.add(new Field("username", t.getUsername(), TextField.TYPE_STORED));
-			doc.add(new Field("tweet", t.getContent(), TextField.TYPE_STORED));
-			writer.addDocument(doc);
+	/**
+	 * Writes one part of the tweets on one thread, the tweets whose id hash is
+	 * in this part, in the order of the source. One Document and its Fields
+	 * are created once and filled with the values of each tweet.
+	 */
+	private class DocumentWriter implements Callable<Integer> {
+		
+		/** All tweets */
+		private final List<Tweet> tweets;
+		
+		/** Index of this part */
+		private final int part;
+		
+		/** Number of parts */
+		private final int parts;
+		
+		/** The reused document */
+		private final Document doc = new Document();
+		
+		/** Field of the tweet id */
+		private final Field id = new StringField(ID_FIELD, "", Field.Store.YES);
+		
+		/** Field of username */
+		private final Field username = new StringField(USERNAME_FIELD, "", Field.Store.YES);
+		
+		/** Field of tweet content */
+		private final Field tweet = new Field(TWEET_FIELD, "", TextField.TYPE_STORED);
+		
+		/** Point of favs */
+		private final IntPoint favs = new IntPoint(FAVS_FIELD, 0);
+		
+		/** Doc values of favs */
+		private final NumericDocValuesField favsValue = new NumericDocValuesField(FAVS_FIELD, 0);
+		
+		/** Point of rts */
+		private final IntPoint rts = new IntPoint(RTS_FIELD, 0);
+		
+		/** Doc values of rts */
+		private final NumericDocValuesField rtsValue = new NumericDocValuesField(RTS_FIELD, 0);
+		
+		/** Point of followers */
+		private final IntPoint followers = new IntPoint(FOLLOWERS_FIELD, 0);
+		
+		/** Doc values of followers */
+		private final NumericDocValuesField followersValue = new NumericDocValuesField(FOLLOWERS_FIELD, 0);
+		
+		/** Doc values of favs + rts */
+		private final NumericDocValuesField engagement = new NumericDocValuesField(ENGAGEMENT_FIELD, 0);
+		
+		/** Point of the day, only added if the tweet has a valid date */
+		private final LongPoint date = new LongPoint(DATE_FIELD, 0);
+		
+		/** Point of the location, only added if the tweet has one */
+		private final LatLonPoint location = new LatLonPoint(LOCATION_FIELD, 0, 0);
+
+		/**
+		 * Instantiates a new document writer.
+		 */
+		private DocumentWriter(List<Tweet> tweets, int part, int parts, String source) {
+			this.tweets = tweets;
+			this.part = part;
+			this.parts = parts;
+			
+			doc.add(id);
+			doc.add(new StringField(SOURCE_FIELD, source, Field.Store.NO));
+			doc.add(username);
+			doc.add(tweet);
+			doc.add(favs);
+			doc.add(favsValue);
+			doc.add(rts);
+			doc.add(rtsValue);
+			doc.add(followers);
+			doc.add(followersValue);
+			doc.add(engagement);
+		}
+
+		/*
+		 * @see java.util.concurrent.Callable#call()
+		 */
+		@Override
+		public Integer call() throws IOException {
+			int count = 0;
+			
+			for (int i = 0; i < tweets.size(); i++) {
+				Tweet t = tweets.get(i);
+				if (parts > 1 && (t.getId().hashCode() & Integer.MAX_VALUE) % parts != part) {
+					continue;
+				}
+				
+				id.setStringValue(t.getId());
+				username.setStringValue(t.getUsername());
+				tweet.setStringValue(t.getContent());
+				favs.setIntValue(t.getFavs());
+				favsValue.setLongValue(t.getFavs());
+				rts.setIntValue(t.getRts());
+				rtsValue.setLongValue(t.getRts());
+				followers.setIntValue(t.getFollowers());
+				followersValue.setLongValue(t.getFollowers());
+				engagement.setLongValue((long) t.getFavs() + t.getRts());
+				
+				doc.removeFields(DATE_FIELD);
+				long day = DateParser.toEpochDay(t.getDate());
+				if (day != DateParser.INVALID) {
+					date.setLongValue(day);
+					doc.add(date);
+				}
+				
+				doc.removeFields(LOCATION_FIELD);
+				if (setLocation(t)) {
+					doc.add(location);
+				}
+				
+				// A later tweet with the same id replaces this one
+				writer.updateDocument(new Term(ID_FIELD, t.getId()), doc);
+				maybeCommit();
+				count++;
+			}
+			
+			return count;
 		}
 
+		/**
+		 * Set the location point to the coordinates of a tweet.
+		 *
+		 * @return true, if the tweet has valid coordinates
+		 */
+		private boolean setLocation(Tweet t) {
+			double latitude = parseCoordinate(t.getLatitude());
+			double longitude = parseCoordinate(t.getLongitude());
+			
+			// NaN is not in any range
+			if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+				return false;
+			}
+			
+			location.setLocationValue(latitude, longitude);
+			return true;
+		}
+	}
+
+	/**
+	 * Parse one coordinate of a tweet.
+	 *
+	 * @param value
+	 *            the latitude or longitude
+	 * @return the coordinate, or NaN if it is empty or not a number
+	 */
+	private static double parseCoordinate(String value) {
+		if (value == null || value.isEmpty()) {
+			return Double.NaN;
+		}
+		
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			return Double.NaN;
+		}
 	}
 }
@@ -0,0 +1,186 @@
+package lucene;
+
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.TieredMergePolicy;
+
+/**
+ * This class keeps the settings of bulk indexing used by {@link Indexer}: the
+ * number of threads which write documents, and the settings of the
+ * {@code IndexWriterConfig}.
+ *
+ * <p>
+ * The default settings are made for loading all tweets at once: one thread for
+ * each core, a large RAM buffer so that fewer segments are flushed, and no
+ * compound files, because packing segments into compound files costs extra
+ * copying while the index is built.
+ *
+ * @version 1.0
+ * @see Indexer
+ */
+public class IndexerSettings {
+
+	/** Number of threads which write documents. */
+	private int threads;
+
+	/** RAM buffer size of IndexWriter in MB. */
+	private double ramBufferSizeMB;
+
+	/** Number of segments allowed in each tier of TieredMergePolicy. */
+	private double segmentsPerTier;
+
+	/** Maximum size of a merged segment in MB. */
+	private double maxMergedSegmentMB;
+
+	/** If new segments are written as compound files. */
+	private boolean useCompoundFile;
+
+	/** Documents written between two commits, 0 to commit only at the end. */
+	private int commitInterval;
+
+	/**
+	 * Instantiates the default settings for bulk indexing.
+	 */
+	public IndexerSettings() {
+		this.threads = Runtime.getRuntime().availableProcessors();
+		this.ramBufferSizeMB = 256;
+		this.segmentsPerTier = 10;
+		this.maxMergedSegmentMB = 5 * 1024;
+		this.useCompoundFile = false;
+		this.commitInterval = 0;
+	}
+
+	/**
+	 * Apply the settings to the config of an IndexWriter.
+	 *
+	 * @param config
+	 *            the config
+	 * @return the same config
+	 */
+	public IndexWriterConfig apply(IndexWriterConfig config) {
+		TieredMergePolicy mergePolicy = new TieredMergePolicy();
+		mergePolicy.setSegmentsPerTier(segmentsPerTier);
+		mergePolicy.setMaxMergedSegmentMB(maxMergedSegmentMB);
+		mergePolicy.setNoCFSRatio(useCompoundFile ? TieredMergePolicy.DEFAULT_NO_CFS_RATIO : 0);
+
+		config.setRAMBufferSizeMB(ramBufferSizeMB);
+		config.setMergePolicy(mergePolicy);
+		config.setUseCompoundFile(useCompoundFile);
+		return config;
+	}
+
+	/**
+	 * Gets the number of threads.
+	 *
+	 * @return the threads
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Sets the number of threads.
+	 *
+	 * @param threads
+	 *            the new threads, at least 1
+	 */
+	public void setThreads(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Gets the RAM buffer size in MB.
+	 *
+	 * @return the RAM buffer size
+	 */
+	public double getRamBufferSizeMB() {
+		return ramBufferSizeMB;
+	}
+
+	/**
+	 * Sets the RAM buffer size in MB.
+	 *
+	 * @param ramBufferSizeMB
+	 *            the new RAM buffer size
+	 */
+	public void setRamBufferSizeMB(double ramBufferSizeMB) {
+		this.ramBufferSizeMB = ramBufferSizeMB;
+	}
+
+	/**
+	 * Gets the number of segments allowed in each tier.
+	 *
+	 * @return the segments per tier
+	 */
+	public double getSegmentsPerTier() {
+		return segmentsPerTier;
+	}
+
+	/**
+	 * Sets the number of segments allowed in each tier.
+	 *
+	 * @param segmentsPerTier
+	 *            the new segments per tier
+	 */
+	public void setSegmentsPerTier(double segmentsPerTier) {
+		this.segmentsPerTier = segmentsPerTier;
+	}
+
+	/**
+	 * Gets the maximum size of a merged segment in MB.
+	 *
+	 * @return the maximum merged segment size
+	 */
+	public double getMaxMergedSegmentMB() {
+		return maxMergedSegmentMB;
+	}
+
+	/**
+	 * Sets the maximum size of a merged segment in MB.
+	 *
+	 * @param maxMergedSegmentMB
+	 *            the new maximum merged segment size
+	 */
+	public void setMaxMergedSegmentMB(double maxMergedSegmentMB) {
+		this.maxMergedSegmentMB = maxMergedSegmentMB;
+	}
+
+	/**
+	 * Checks if new segments are written as compound files.
+	 *
+	 * @return true, if compound files are used
+	 */
+	public boolean isUseCompoundFile() {
+		return useCompoundFile;
+	}
+
+	/**
+	 * Sets if new segments are written as compound files.
+	 *
+	 * @param useCompoundFile
+	 *            true to use compound files
+	 */
+	public void setUseCompoundFile(boolean useCompoundFile) {
+		this.useCompoundFile = useCompoundFile;
+	}
+
+	/**
+	 * Gets the number of documents written between two commits.
+	 *
+	 * @return the commit interval, 0 if the index is only committed at the end
+	 */
+	public int getCommitInterval() {
+		return commitInterval;
+	}
+
+	/**
+	 * Sets the number of documents written between two commits. Each commit
+	 * makes the documents written so far visible to a {@link Searcher} while the
+	 * rest are still written, which costs some extra small segments.
+	 *
+	 * @param commitInterval
+	 *            the new commit interval, 0 to commit only at the end
+	 */
+	public void setCommitInterval(int commitInterval) {
+		this.commitInterval = Math.max(0, commitInterval);
+	}
+}
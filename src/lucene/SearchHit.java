@@ -0,0 +1,102 @@
+package lucene;
+
+/**
+ * One result of a search by {@link Searcher}, the tweet found and its
+ * engagement.
+ *
+ * @version 1.0
+ * @see SearchPage
+ */
+public class SearchHit {
+
+	/** The tweet id. */
+	private String id;
+
+	/** The username. */
+	private String username;
+
+	/** The content of the tweet. */
+	private String content;
+
+	/** Favs + rts of the tweet. */
+	private long engagement;
+
+	/** Score of the query, NaN if results are not ordered by relevance. */
+	private float score;
+
+	/**
+	 * Instantiates a new search hit.
+	 *
+	 * @param id
+	 *            the tweet id
+	 * @param username
+	 *            the username
+	 * @param content
+	 *            the content of the tweet
+	 * @param engagement
+	 *            favs + rts of the tweet
+	 * @param score
+	 *            score of the query
+	 */
+	public SearchHit(String id, String username, String content, long engagement, float score) {
+		this.id = id;
+		this.username = username;
+		this.content = content;
+		this.engagement = engagement;
+		this.score = score;
+	}
+
+	/**
+	 * Gets the tweet id.
+	 *
+	 * @return the id
+	 */
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * Gets the username.
+	 *
+	 * @return the username
+	 */
+	public String getUsername() {
+		return username;
+	}
+
+	/**
+	 * Gets the content.
+	 *
+	 * @return the content
+	 */
+	public String getContent() {
+		return content;
+	}
+
+	/**
+	 * Gets the engagement, which is favs + rts.
+	 *
+	 * @return the engagement
+	 */
+	public long getEngagement() {
+		return engagement;
+	}
+
+	/**
+	 * Gets the score.
+	 *
+	 * @return the score
+	 */
+	public float getScore() {
+		return score;
+	}
+
+	/*
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "SearchHit [id=" + id + ", username=" + username + ", content=" + content + ", engagement="
+				+ engagement + ", score=" + score + "]";
+	}
+}
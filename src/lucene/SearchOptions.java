@@ -0,0 +1,249 @@
+package lucene;
+
+import org.apache.lucene.search.ScoreDoc;
+
+import dao.DateParser;
+
+/**
+ * This class keeps the options of one search by {@link Searcher}: the query
+ * statement, the order of results, the filters on followers and date, and the
+ * page to return.
+ *
+ * <p>
+ * Results are ordered by relevance, or by engagement which is favs + rts, the
+ * same value used to rank Tweets by {@link entity.Tweet#compareTo(entity.Tweet)
+ * Tweet.compareTo}. Pages are read with a cursor: the next page starts after
+ * the last hit of the previous one, see {@link SearchPage#getAfter()}, so a deep
+ * page does not need to collect all hits before it.
+ *
+ * @version 1.0
+ * @see Searcher
+ * @see SearchPage
+ */
+public class SearchOptions {
+
+	/**
+	 * Order of search results.
+	 */
+	public enum Order {
+		/** Best match first, by the score of the query */
+		RELEVANCE,
+		/** Most favs + rts first, then best match */
+		ENGAGEMENT
+	}
+
+	/** Default number of hits in one page. */
+	public static final int DEFAULT_PAGE_SIZE = 100;
+
+	/** The query statement. */
+	private String query;
+
+	/** The order of results. */
+	private Order order;
+
+	/** Minimum number of followers, inclusive. */
+	private int minFollowers;
+
+	/** Maximum number of followers, inclusive. */
+	private int maxFollowers;
+
+	/** First date, inclusive, null if there is no lower bound. */
+	private String fromDate;
+
+	/** Last date, inclusive, null if there is no upper bound. */
+	private String toDate;
+
+	/** Day of the first date, Long.MIN_VALUE if there is no lower bound. */
+	private long fromDay = Long.MIN_VALUE;
+
+	/** Day of the last date, Long.MAX_VALUE if there is no upper bound. */
+	private long toDay = Long.MAX_VALUE;
+
+	/** Number of hits in one page. */
+	private int pageSize;
+
+	/** Last hit of the previous page, null for the first page. */
+	private ScoreDoc after;
+
+	/**
+	 * Instantiates options of a query, ordered by relevance without filters.
+	 *
+	 * @param query
+	 *            the query statement
+	 */
+	public SearchOptions(String query) {
+		this.query = query;
+		this.order = Order.RELEVANCE;
+		this.minFollowers = 0;
+		this.maxFollowers = Integer.MAX_VALUE;
+		this.pageSize = DEFAULT_PAGE_SIZE;
+	}
+
+	/**
+	 * Gets the query statement.
+	 *
+	 * @return the query
+	 */
+	public String getQuery() {
+		return query;
+	}
+
+	/**
+	 * Gets the order of results.
+	 *
+	 * @return the order
+	 */
+	public Order getOrder() {
+		return order;
+	}
+
+	/**
+	 * Sets the order of results.
+	 *
+	 * @param order
+	 *            the new order
+	 */
+	public void setOrder(Order order) {
+		this.order = order;
+	}
+
+	/**
+	 * Gets the minimum number of followers.
+	 *
+	 * @return the minimum followers
+	 */
+	public int getMinFollowers() {
+		return minFollowers;
+	}
+
+	/**
+	 * Gets the maximum number of followers.
+	 *
+	 * @return the maximum followers
+	 */
+	public int getMaxFollowers() {
+		return maxFollowers;
+	}
+
+	/**
+	 * Only return tweets whose user has followers in the range.
+	 *
+	 * @param min
+	 *            minimum number of followers, inclusive
+	 * @param max
+	 *            maximum number of followers, inclusive
+	 */
+	public void setFollowers(int min, int max) {
+		this.minFollowers = min;
+		this.maxFollowers = max;
+	}
+
+	/**
+	 * Gets the first date.
+	 *
+	 * @return the first date, null if there is no lower bound
+	 */
+	public String getFromDate() {
+		return fromDate;
+	}
+
+	/**
+	 * Gets the last date.
+	 *
+	 * @return the last date, null if there is no upper bound
+	 */
+	public String getToDate() {
+		return toDate;
+	}
+
+	/**
+	 * Gets the day of the first date, see {@link DateParser#toEpochDay(String)}.
+	 *
+	 * @return the first day, Long.MIN_VALUE if there is no lower bound
+	 */
+	public long getFromDay() {
+		return fromDay;
+	}
+
+	/**
+	 * Gets the day of the last date, see {@link DateParser#toEpochDay(String)}.
+	 *
+	 * @return the last day, Long.MAX_VALUE if there is no upper bound
+	 */
+	public long getToDay() {
+		return toDay;
+	}
+
+	/**
+	 * Only return tweets posted in the range of dates. Dates are compared as
+	 * days rather than as text, so "2019-03-20" and "3/20/19" are the same
+	 * date. The formats are listed in {@link DateParser}.
+	 *
+	 * @param from
+	 *            first date, inclusive, null if there is no lower bound
+	 * @param to
+	 *            last date, inclusive, null if there is no upper bound
+	 * @throws IllegalArgumentException
+	 *             if a date is not null and is not a valid date
+	 */
+	public void setDates(String from, String to) {
+		long first = from == null ? Long.MIN_VALUE : toEpochDay(from);
+		long last = to == null ? Long.MAX_VALUE : toEpochDay(to);
+
+		this.fromDate = from;
+		this.toDate = to;
+		this.fromDay = first;
+		this.toDay = last;
+	}
+
+	/**
+	 * Parse a date of the filter.
+	 */
+	private static long toEpochDay(String date) {
+		long day = DateParser.toEpochDay(date);
+		if (day == DateParser.INVALID) {
+			throw new IllegalArgumentException("Invalid date: " + date);
+		}
+
+		return day;
+	}
+
+	/**
+	 * Gets the number of hits in one page.
+	 *
+	 * @return the page size
+	 */
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * Sets the number of hits in one page.
+	 *
+	 * @param pageSize
+	 *            the new page size, at least 1
+	 */
+	public void setPageSize(int pageSize) {
+		this.pageSize = Math.max(1, pageSize);
+	}
+
+	/**
+	 * Gets the last hit of the previous page.
+	 *
+	 * @return the last hit, null for the first page
+	 */
+	public ScoreDoc getAfter() {
+		return after;
+	}
+
+	/**
+	 * Sets the last hit of the previous page, so that the next page is returned.
+	 * The options of both pages should be the same otherwise.
+	 *
+	 * @param after
+	 *            the last hit, see {@link SearchPage#getAfter()}
+	 */
+	public void setAfter(ScoreDoc after) {
+		this.after = after;
+	}
+}
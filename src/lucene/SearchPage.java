@@ -0,0 +1,95 @@
+package lucene;
+
+import java.util.List;
+
+import org.apache.lucene.search.ScoreDoc;
+
+/**
+ * One page of results of a search by {@link Searcher}, in the order given by
+ * {@link SearchOptions}.
+ *
+ * @version 1.0
+ * @see SearchOptions
+ * @see SearchHit
+ */
+public class SearchPage {
+
+	/** Hits of this page in order. */
+	private List<SearchHit> hits;
+
+	/** Number of tweets matching the query and filters. */
+	private long totalHits;
+
+	/** If totalHits is exact rather than a lower bound. */
+	private boolean exact;
+
+	/** Last hit of this page, null if there is no next page. */
+	private ScoreDoc after;
+
+	/**
+	 * Instantiates a new search page.
+	 *
+	 * @param hits
+	 *            hits of this page in order
+	 * @param totalHits
+	 *            number of tweets matching the query and filters
+	 * @param exact
+	 *            true if totalHits is exact rather than a lower bound
+	 * @param after
+	 *            last hit of this page, null if there is no next page
+	 */
+	public SearchPage(List<SearchHit> hits, long totalHits, boolean exact, ScoreDoc after) {
+		this.hits = hits;
+		this.totalHits = totalHits;
+		this.exact = exact;
+		this.after = after;
+	}
+
+	/**
+	 * Gets the hits of this page.
+	 *
+	 * @return the hits
+	 */
+	public List<SearchHit> getHits() {
+		return hits;
+	}
+
+	/**
+	 * Gets the number of tweets matching the query and filters.
+	 *
+	 * @return the total hits
+	 */
+	public long getTotalHits() {
+		return totalHits;
+	}
+
+	/**
+	 * Checks if the total hits is exact. Lucene stops counting hits when it is
+	 * sure that no more hits could be in the page, then the total hits is a lower
+	 * bound.
+	 *
+	 * @return true, if exact
+	 */
+	public boolean isExact() {
+		return exact;
+	}
+
+	/**
+	 * Gets the cursor of the next page, which is given to
+	 * {@link SearchOptions#setAfter(ScoreDoc)}.
+	 *
+	 * @return the last hit of this page, null if there is no next page
+	 */
+	public ScoreDoc getAfter() {
+		return after;
+	}
+
+	/**
+	 * Checks if there is a next page.
+	 *
+	 * @return true, if there are more hits
+	 */
+	public boolean hasNext() {
+		return after != null;
+	}
+}
@@ -1,25 +1,61 @@
 package lucene;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 
+import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
-import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
 
 /**
  * This class defines the method to do index search using Lucene API and print
  * out results.
+ * 
+ * <p>
+ * The index is opened once when the Searcher is created, and the same
+ * IndexSearcher is shared by all searches through a {@code SearcherManager},
+ * so a search does not open index files again. Searcher is thread-safe. After
+ * {@link Indexer} commits new documents, {@link #maybeRefresh()} makes them
+ * visible to the next search. The index files are closed by {@link #close()}.
+ * 
+ * <p>
+ * {@link #search(SearchOptions)} returns ordered results page by page, they
+ * could be ordered by engagement and filtered by followers and date using
+ * the points and doc values written by {@link Indexer}.
+ * 
+ * <p>
+ * The time of each search, from parsing the query to reading the documents of
+ * the results, is recorded as {@code query_lucene_search}, see
+ * {@link MetricsRegistry}.
  *
  * @author Xunjie Liu
  * @version 1.0
@@ -31,14 +67,45 @@ import org.apache.lucene.store.FSDirectory;
  *      Lucene 6.2.1 (1): Create index files and basic search operations</a>
  * @since 2019-03-20
  */
-public class Searcher {
+public class Searcher implements Closeable {
+	
+	/** The directory of index files */
+	private Directory dir;
+	
+	/** Shares one IndexSearcher between searches and refreshes it */
+	private SearcherManager manager;
+	
+	/** Analyzer of queries, same as the one used by Indexer */
+	private Analyzer analyzer;
+	
+	/** Time of each search */
+	private static final LatencyHistogram SEARCH = MetricsRegistry.getDefault().histogram("query_lucene_search");
+	
+	/** Order by engagement, the order of index is used for ties */
+	private static final Sort ENGAGEMENT_SORT = new Sort(new SortField(Indexer.ENGAGEMENT_FIELD, SortField.Type.LONG, true),
+			SortField.FIELD_DOC);
 
 	/**
-	 * This method will take the path of index files and query statement(What to
-	 * search), print out the result.
+	 * Instantiates a new searcher and open the index files.
 	 *
 	 * @param indexDir
 	 *            the index directory where the index files are stored
+	 * @throws IOException
+	 *             Fail to read index files
+	 */
+	public Searcher(String indexDir) throws IOException {
+		// Get index path using input parameter
+		dir = FSDirectory.open(Paths.get(indexDir));
+		
+		// Then get index files, they are kept open until close()
+		manager = new SearcherManager(dir, new SearcherFactory());
+		analyzer = new StandardAnalyzer();
+	}
+
+	/**
+	 * This method will take query statement(What to search), print out the
+	 * result.
+	 *
 	 * @param query
 	 *            the query statement
 	 * @return the hash map
@@ -47,33 +114,145 @@ public class Searcher {
 	 * @throws ParseException
 	 *             Fail to parse the query
 	 */
-	public HashMap<String, String> search(String indexDir, String query) throws IOException, ParseException {
-		// Get index path using input parameter
-		Directory dir = FSDirectory.open(Paths.get(indexDir));
+	public HashMap<String, String> search(String query) throws IOException, ParseException {
+		long searchStart = System.nanoTime();
+		
+		// Initialize the parser, and define to which field to search, in this example,
+		// the tweet content will be searched. QueryParser is not thread-safe, so one is
+		// created for each search
+		QueryParser parser = new QueryParser(Indexer.TWEET_FIELD, analyzer);
 
-		// Then get index files
-		IndexSearcher searcher = new IndexSearcher(DirectoryReader.open(dir));
+		// Initialize query, the analyzer turns terms into lower case
+		Query q = parser.parse(query);
 
-		// Initialize the parser, and define to which field to search, in this example,
-		// "contents" will be searched
-		QueryParser parser = new QueryParser("contents", new StandardAnalyzer());
+		IndexSearcher searcher = manager.acquire();
+		try {
+			long startTime = System.nanoTime();
+			// Search, return the result, it would only takes several milliseconds.
+			TopDocs hits = searcher.search(q, 100);
+			long endTime = System.nanoTime();
 
-		// Initialize query
-		Query q = parser.parse(query.toLowerCase());
+			// print out how mant matches
+			System.out.println("\n" + hits.totalHits);
+			System.out.println("Search time: " + (endTime - startTime) / 1000000 + "ms\nDetails(Only part of result is shown): \n-------------------------------------------------");
+			
+			HashMap<String, String> result = getResult(hits, searcher);
+			SEARCH.recordSince(searchStart);
+			return result;
+		} finally {
+			manager.release(searcher);
+		}
+	}
 
-		long startTime = System.currentTimeMillis() / 1000;
-		// Search, return the result, it would only takes several seconds.
-		TopDocs hits = searcher.search(q, 100);
-		long endTime = System.currentTimeMillis() / 1000;
+	/**
+	 * This method will search one page of results in the order and with the
+	 * filters of the options.
+	 *
+	 * @param options
+	 *            the query statement, order, filters and page
+	 * @return the page of results
+	 * @throws IOException
+	 *             Fail to read index files
+	 * @throws ParseException
+	 *             Fail to parse the query
+	 */
+	public SearchPage search(SearchOptions options) throws IOException, ParseException {
+		long searchStart = System.nanoTime();
+		Query q = buildQuery(options);
+		int pageSize = options.getPageSize();
+		boolean byEngagement = options.getOrder() == SearchOptions.Order.ENGAGEMENT;
 
-		// print out how mant matches
-		System.out.println("\n" + hits.totalHits);
-		System.out.println("Search time: " + (endTime - startTime) + "s\nDetails(Only part of result is shown): \n-------------------------------------------------");
-		
-		
-		HashMap<String, String> result = getResult(hits, searcher);
-		
-		return result;
+		IndexSearcher searcher = manager.acquire();
+		try {
+			// One more hit is collected to know if there is a next page
+			TopDocs hits = byEngagement
+					? searcher.searchAfter(options.getAfter(), q, pageSize + 1, ENGAGEMENT_SORT, false)
+					: searcher.searchAfter(options.getAfter(), q, pageSize + 1);
+
+			ScoreDoc[] scoreDocs = hits.scoreDocs;
+			ScoreDoc after = null;
+			if (scoreDocs.length > pageSize) {
+				scoreDocs = Arrays.copyOf(scoreDocs, pageSize);
+				after = scoreDocs[pageSize - 1];
+			}
+
+			List<SearchHit> result = new ArrayList<SearchHit>(scoreDocs.length);
+			List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+
+			for (ScoreDoc scoreDoc : scoreDocs) {
+				Document doc = searcher.doc(scoreDoc.doc);
+				result.add(new SearchHit(doc.get(Indexer.ID_FIELD), doc.get(Indexer.USERNAME_FIELD),
+						doc.get(Indexer.TWEET_FIELD), engagement(leaves, scoreDoc.doc), scoreDoc.score));
+			}
+
+			SearchPage page = new SearchPage(result, hits.totalHits.value,
+					hits.totalHits.relation == TotalHits.Relation.EQUAL_TO, after);
+			SEARCH.recordSince(searchStart);
+			return page;
+		} finally {
+			manager.release(searcher);
+		}
+	}
+
+	/**
+	 * Build the query of the options, the filters do not change the score.
+	 */
+	private Query buildQuery(SearchOptions options) throws ParseException {
+		Query text = new QueryParser(Indexer.TWEET_FIELD, analyzer).parse(options.getQuery());
+
+		if (options.getMinFollowers() <= 0 && options.getMaxFollowers() == Integer.MAX_VALUE
+				&& options.getFromDate() == null && options.getToDate() == null) {
+			return text;
+		}
+
+		BooleanQuery.Builder builder = new BooleanQuery.Builder();
+		builder.add(text, Occur.MUST);
+
+		if (options.getMinFollowers() > 0 || options.getMaxFollowers() != Integer.MAX_VALUE) {
+			builder.add(IntPoint.newRangeQuery(Indexer.FOLLOWERS_FIELD, options.getMinFollowers(),
+					options.getMaxFollowers()), Occur.FILTER);
+		}
+
+		if (options.getFromDate() != null || options.getToDate() != null) {
+			builder.add(LongPoint.newRangeQuery(Indexer.DATE_FIELD, options.getFromDay(), options.getToDay()),
+					Occur.FILTER);
+		}
+
+		return builder.build();
+	}
+
+	/**
+	 * Read the engagement of a document from its doc values.
+	 */
+	private static long engagement(List<LeafReaderContext> leaves, int doc) throws IOException {
+		LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(doc, leaves));
+		NumericDocValues values = DocValues.getNumeric(leaf.reader(), Indexer.ENGAGEMENT_FIELD);
+
+		return values.advanceExact(doc - leaf.docBase) ? values.longValue() : 0;
+	}
+
+	/**
+	 * Make documents committed since the last refresh visible to the next
+	 * search. Searches which are running keep their IndexSearcher.
+	 *
+	 * @return true, if the IndexSearcher is up to date
+	 * @throws IOException
+	 *             Fail to read index files
+	 */
+	public boolean maybeRefresh() throws IOException {
+		return manager.maybeRefresh();
+	}
+
+	/**
+	 * Close the shared IndexSearcher and the index directory.
+	 *
+	 * @throws IOException
+	 *             Fail to close index files
+	 */
+	@Override
+	public void close() throws IOException {
+		manager.close();
+		dir.close();
 	}
 	
 	
@@ -95,8 +274,8 @@ public class Searcher {
 
 		for (ScoreDoc scoreDoc : hits.scoreDocs) {
 			doc = searcher.doc(scoreDoc.doc);
-			username = doc.get("username");
-			contents = doc.get("contents");
+			username = doc.get(Indexer.USERNAME_FIELD);
+			contents = doc.get(Indexer.TWEET_FIELD);
 			
 			if(username != null && contents != null) {
 				result.put(username, contents);
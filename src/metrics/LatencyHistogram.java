@@ -0,0 +1,189 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class records latencies in nanoseconds and answers percentiles, in the
+ * same way as HdrHistogram: values are counted in log-linear buckets, every
+ * power of two is split into {@value #SUB_BUCKETS} buckets, so a percentile is
+ * at most 1/{@value #SUB_BUCKETS} above the recorded value, from nanoseconds to
+ * hours, with a fixed amount of memory.
+ *
+ * <p>
+ * Values could be recorded by several threads at the same time without locks,
+ * each value costs one atomic increment of its bucket and one atomic addition
+ * to the total. Reading percentiles while values are recorded gives an
+ * approximate result, which is enough for reports.
+ *
+ * @version 1.0
+ * @see MetricsRegistry
+ */
+public class LatencyHistogram {
+
+	/** Bits of the linear part of a bucket index. */
+	private static final int SUB_BITS = 8;
+
+	/** Number of buckets of each power of two. */
+	public static final int SUB_BUCKETS = 1 << (SUB_BITS - 1);
+
+	/** Number of buckets, enough for any positive long. */
+	private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS + (1 << SUB_BITS);
+
+	/** Number of values in each bucket. */
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	/** Sum of all values. */
+	private final AtomicLong total = new AtomicLong();
+
+	/** Largest value. */
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Record a value, negative values are recorded as 0.
+	 *
+	 * @param nanos
+	 *            the latency in nanoseconds
+	 */
+	public void record(long nanos) {
+		long value = Math.max(0, nanos);
+
+		counts.incrementAndGet(index(value));
+		total.addAndGet(value);
+
+		// The largest value rarely changes, so it is read before it is written
+		long current = max.get();
+		while (value > current && !max.compareAndSet(current, value)) {
+			current = max.get();
+		}
+	}
+
+	/**
+	 * Record the time from a start until now.
+	 *
+	 * @param startNanos
+	 *            the start, given by {@link System#nanoTime()}
+	 * @return now, so that the next phase could start from it
+	 */
+	public long recordSince(long startNanos) {
+		long now = System.nanoTime();
+		record(now - startNanos);
+		return now;
+	}
+
+	/**
+	 * Returns the number of recorded values.
+	 *
+	 * @return the count
+	 */
+	public long getCount() {
+		long count = 0;
+
+		for (int i = 0; i < BUCKETS; i++) {
+			count += counts.get(i);
+		}
+
+		return count;
+	}
+
+	/**
+	 * Returns the sum of all values.
+	 *
+	 * @return the total in nanoseconds
+	 */
+	public long getTotal() {
+		return total.get();
+	}
+
+	/**
+	 * Returns the largest value.
+	 *
+	 * @return the max in nanoseconds, 0 if nothing is recorded
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Returns the average of all values.
+	 *
+	 * @return the mean in nanoseconds, 0 if nothing is recorded
+	 */
+	public double getMean() {
+		long count = getCount();
+		return count == 0 ? 0 : (double) getTotal() / count;
+	}
+
+	/**
+	 * Returns the value below which the given percentage of values are, such as
+	 * 99 for the 99th percentile. The result is the largest value of the bucket
+	 * of that percentile, but never above the largest recorded value.
+	 *
+	 * @param percentile
+	 *            the percentile, between 0 and 100
+	 * @return the value in nanoseconds, 0 if nothing is recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long[] snapshot = new long[BUCKETS];
+		long count = 0;
+
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = counts.get(i);
+			count += snapshot[i];
+		}
+		if (count == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * count));
+		long seen = 0;
+
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return Math.min(highestValue(i), getMax());
+			}
+		}
+
+		return getMax();
+	}
+
+	/**
+	 * Remove all values.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+
+		total.set(0);
+		max.set(0);
+	}
+
+	/**
+	 * Returns the bucket of a value. Values below 2^SUB_BITS have one bucket
+	 * each, a larger value keeps its SUB_BITS highest bits, and the number of
+	 * dropped bits selects the group of buckets.
+	 */
+	static int index(long value) {
+		if (value < (1 << SUB_BITS)) {
+			return (int) value;
+		}
+
+		int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+		return shift * SUB_BUCKETS + (int) (value >>> shift);
+	}
+
+	/**
+	 * Returns the largest value of a bucket.
+	 */
+	static long highestValue(int index) {
+		if (index < (1 << SUB_BITS)) {
+			return index;
+		}
+
+		int shift = index / SUB_BUCKETS - 1;
+		long sub = index - shift * SUB_BUCKETS;
+		return ((sub + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,288 @@
+package metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * This class keeps the metrics of the program by name: counters such as the
+ * number of rows read, gauges such as rows per second, and latency histograms
+ * of each phase such as parsing the sheet or searching the index. All metrics
+ * could be exported as JSON or in the text format of Prometheus, so that the
+ * time of each phase is seen after a run.
+ *
+ * <p>
+ * A metric is created the first time its name is asked, and the same object
+ * is returned later, so classes keep their metrics in static fields and record
+ * values without looking them up again. {@link #reset()} clears the values but
+ * keeps the objects.
+ *
+ * <p>
+ * Names contain letters, digits and underscores, histograms are in
+ * nanoseconds in JSON and in seconds in Prometheus, following its
+ * conventions. Names used by the program:
+ * <ul>
+ * <li>{@code ingest_unzip}, {@code ingest_sheet_parse},
+ * {@code ingest_row_convert}, {@code ingest_dao_handle} and
+ * {@code ingest_worker_handle}: phases of reading a file</li>
+ * <li>{@code ingest_rows} and {@code ingest_bad_rows}: counters of rows</li>
+ * <li>{@code ingest_total}, {@code ingest_rows_per_second}: the whole
+ * load</li>
+ * <li>{@code index_build}, {@code text_index_build}: the Lucene and trigram
+ * indexes</li>
+ * <li>{@code query_top}, {@code query_text_match}, {@code query_index_search}
+ * and {@code query_lucene_search}: queries</li>
+ * <li>{@code http_request}, {@code http_requests} and {@code http_errors}:
+ * requests of the {@code QueryServer}</li>
+ * </ul>
+ *
+ * @version 1.0
+ * @see LatencyHistogram
+ */
+public class MetricsRegistry {
+
+	/** Prefix of the names in the Prometheus format. */
+	public static final String PROMETHEUS_PREFIX = "excel_reader_";
+
+	/** Percentiles of each histogram in exports. */
+	private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+	/** Valid names. */
+	private static final Pattern NAME = Pattern.compile("[a-z][a-z0-9_]*");
+
+	/** The registry used by the program. */
+	private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+	/** Counters by name. */
+	private final Map<String, LongAdder> counters = new ConcurrentHashMap<String, LongAdder>();
+
+	/** Gauges by name. */
+	private final Map<String, Double> gauges = new ConcurrentHashMap<String, Double>();
+
+	/** Histograms by name. */
+	private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<String, LatencyHistogram>();
+
+	/**
+	 * Returns the registry used by the program.
+	 *
+	 * @return the default registry
+	 */
+	public static MetricsRegistry getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Returns the counter of a name, which is created if it does not exist.
+	 *
+	 * @param name
+	 *            the name
+	 * @return the counter
+	 */
+	public LongAdder counter(String name) {
+		return counters.computeIfAbsent(checkName(name), n -> new LongAdder());
+	}
+
+	/**
+	 * Returns the histogram of a name, which is created if it does not exist.
+	 *
+	 * @param name
+	 *            the name
+	 * @return the histogram
+	 */
+	public LatencyHistogram histogram(String name) {
+		return histograms.computeIfAbsent(checkName(name), n -> new LatencyHistogram());
+	}
+
+	/**
+	 * Sets the value of a gauge.
+	 *
+	 * @param name
+	 *            the name
+	 * @param value
+	 *            the value
+	 */
+	public void setGauge(String name, double value) {
+		gauges.put(checkName(name), value);
+	}
+
+	/**
+	 * Returns the value of a gauge.
+	 *
+	 * @param name
+	 *            the name
+	 * @return the value, NaN if the gauge is not set
+	 */
+	public double getGauge(String name) {
+		Double value = gauges.get(name);
+		return value == null ? Double.NaN : value;
+	}
+
+	/**
+	 * Clear all values, counters and histograms which are kept by other classes
+	 * are still used.
+	 */
+	public void reset() {
+		counters.values().forEach(LongAdder::reset);
+		histograms.values().forEach(LatencyHistogram::reset);
+		gauges.clear();
+	}
+
+	/**
+	 * Check a name.
+	 */
+	private static String checkName(String name) {
+		if (!NAME.matcher(name).matches()) {
+			throw new IllegalArgumentException("Invalid metric name: " + name);
+		}
+
+		return name;
+	}
+
+	/**
+	 * Export all metrics as one JSON object, with the keys {@code counters},
+	 * {@code gauges} and {@code histograms}. Each histogram has its count, mean,
+	 * max, total and percentiles in nanoseconds.
+	 *
+	 * @return the JSON text
+	 */
+	public String toJson() {
+		StringBuilder json = new StringBuilder("{\n  \"counters\": {");
+		String separator = "\n";
+
+		for (Map.Entry<String, LongAdder> counter : new TreeMap<String, LongAdder>(counters).entrySet()) {
+			json.append(separator).append("    \"").append(counter.getKey()).append("\": ")
+					.append(counter.getValue().sum());
+			separator = ",\n";
+		}
+
+		json.append("\n  },\n  \"gauges\": {");
+		separator = "\n";
+		for (Map.Entry<String, Double> gauge : new TreeMap<String, Double>(gauges).entrySet()) {
+			json.append(separator).append("    \"").append(gauge.getKey()).append("\": ")
+					.append(jsonNumber(gauge.getValue()));
+			separator = ",\n";
+		}
+
+		json.append("\n  },\n  \"histograms\": {");
+		separator = "\n";
+		for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<String, LatencyHistogram>(histograms)
+				.entrySet()) {
+			LatencyHistogram histogram = entry.getValue();
+			json.append(separator).append("    \"").append(entry.getKey()).append("\": {\"count\": ")
+					.append(histogram.getCount()).append(", \"mean_ns\": ")
+					.append(jsonNumber(Math.round(histogram.getMean()))).append(", \"max_ns\": ")
+					.append(histogram.getMax()).append(", \"total_ns\": ").append(histogram.getTotal());
+			for (double percentile : PERCENTILES) {
+				json.append(", \"p").append(label(percentile).replace(".", "")).append("_ns\": ")
+						.append(histogram.getValueAtPercentile(percentile));
+			}
+			json.append('}');
+			separator = ",\n";
+		}
+
+		return json.append("\n  }\n}\n").toString();
+	}
+
+	/**
+	 * Export all metrics in the text format of Prometheus. Counters end with
+	 * {@code _total}, histograms are summaries in seconds with quantiles.
+	 *
+	 * @return the text
+	 */
+	public String toPrometheus() {
+		StringBuilder text = new StringBuilder();
+
+		for (Map.Entry<String, LongAdder> counter : new TreeMap<String, LongAdder>(counters).entrySet()) {
+			String name = PROMETHEUS_PREFIX + counter.getKey() + "_total";
+			text.append("# TYPE ").append(name).append(" counter\n");
+			text.append(name).append(' ').append(counter.getValue().sum()).append('\n');
+		}
+
+		for (Map.Entry<String, Double> gauge : new TreeMap<String, Double>(gauges).entrySet()) {
+			String name = PROMETHEUS_PREFIX + gauge.getKey();
+			text.append("# TYPE ").append(name).append(" gauge\n");
+			text.append(name).append(' ').append(promNumber(gauge.getValue())).append('\n');
+		}
+
+		for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<String, LatencyHistogram>(histograms)
+				.entrySet()) {
+			LatencyHistogram histogram = entry.getValue();
+			String name = PROMETHEUS_PREFIX + entry.getKey() + "_seconds";
+			text.append("# TYPE ").append(name).append(" summary\n");
+			for (double percentile : PERCENTILES) {
+				text.append(name).append("{quantile=\"").append(label(percentile / 100)).append("\"} ")
+						.append(seconds(histogram.getValueAtPercentile(percentile))).append('\n');
+			}
+			text.append(name).append("_sum ").append(seconds(histogram.getTotal())).append('\n');
+			text.append(name).append("_count ").append(histogram.getCount()).append('\n');
+		}
+
+		return text.toString();
+	}
+
+	/**
+	 * Write all metrics into a file, as JSON if its name ends with .json,
+	 * otherwise in the text format of Prometheus. The file is replaced at once,
+	 * so a reader never sees half of it.
+	 *
+	 * @param file
+	 *            the file
+	 * @throws IOException
+	 *             If the file cannot be written
+	 */
+	public void write(File file) throws IOException {
+		String text = file.getName().toLowerCase().endsWith(".json") ? toJson() : toPrometheus();
+		File parent = file.getAbsoluteFile().getParentFile();
+		File temp = new File(parent, file.getName() + ".tmp");
+
+		Files.write(temp.toPath(), text.getBytes(StandardCharsets.UTF_8));
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Format a percentile without a useless fraction, such as 50 or 99.9.
+	 */
+	private static String label(double value) {
+		return value == Math.rint(value) ? Long.toString((long) value) : Double.toString(value);
+	}
+
+	/**
+	 * Format nanoseconds as seconds.
+	 */
+	private static String seconds(long nanos) {
+		return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+	}
+
+	/**
+	 * Format a number for JSON, which has no NaN or infinity.
+	 */
+	private static String jsonNumber(double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			return "null";
+		}
+
+		return label(value);
+	}
+
+	/**
+	 * Format a number for Prometheus.
+	 */
+	private static String promNumber(double value) {
+		if (Double.isNaN(value)) {
+			return "NaN";
+		}
+		if (Double.isInfinite(value)) {
+			return value > 0 ? "+Inf" : "-Inf";
+		}
+
+		return label(value);
+	}
+}
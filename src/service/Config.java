@@ -0,0 +1,460 @@
+package service;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Properties;
+
+import dao.ExcelDAOImpl;
+
+/**
+ * This class keeps the settings of the program: where the excel data is, where
+ * the index files and the snapshot are written, and how many threads read the
+ * data.
+ *
+ * <p>
+ * Each setting could be given in the following ways, a later one replaces an
+ * earlier one:
+ * <ol>
+ * <li>Default values, {@value #DEFAULT_DATASET}, {@value #DEFAULT_INDEX_DIR}
+ * and {@value #DEFAULT_SNAPSHOT} in the working directory.</li>
+ * <li>A properties file, given by {@code --config=<file>} or
+ * {@value #DEFAULT_PROPERTIES} in the working directory, with the keys
+ * {@code dataset}, {@code index.dir}, {@code snapshot},
+ * {@code ingest.workers}, {@code columnar}, {@code metrics},
+ * {@code http.port} and {@code http.threads}.</li>
+ * <li>Environment variables {@code EXCEL_READER_DATASET},
+ * {@code EXCEL_READER_INDEX_DIR}, {@code EXCEL_READER_SNAPSHOT},
+ * {@code EXCEL_READER_INGEST_WORKERS}, {@code EXCEL_READER_COLUMNAR},
+ * {@code EXCEL_READER_METRICS}, {@code EXCEL_READER_HTTP_PORT} and
+ * {@code EXCEL_READER_HTTP_THREADS}.</li>
+ * <li>Java system properties with the prefix {@code excelreader.}, such as
+ * {@code -Dexcelreader.dataset=<path>}.</li>
+ * <li>Command line arguments {@code --dataset=<path>},
+ * {@code --index-dir=<path>}, {@code --snapshot=<path>},
+ * {@code --ingest-workers=<n>}, {@code --columnar=<true|false>},
+ * {@code --metrics=<path>},
+ * {@code --http-port=<port>} and {@code --http-threads=<n>}.</li>
+ * </ol>
+ *
+ * <p>
+ * The dataset could be one excel file, or a directory whose .xlsx files are
+ * all read, see {@link dao.ExcelDAOFactory#listSources(File)}. Tweets are
+ * kept in a {@link dao.ColumnarTweetStore} unless columnar is false, which
+ * keeps one Tweet object for each row and needs much more memory, both give
+ * the same tweets. The metrics of
+ * the run are written to the metrics file if it is given, see
+ * {@link metrics.MetricsRegistry#write(File)}. If an HTTP port is given,
+ * queries are also answered by a {@link QueryServer} on that port.
+ *
+ * @version 1.0
+ * @see Main
+ * @see Menu
+ */
+public class Config {
+
+	/** Default path of the excel file or directory. */
+	public static final String DEFAULT_DATASET = ExcelDAOImpl.DATASET_PATH;
+
+	/** Default path of the index directory. */
+	public static final String DEFAULT_INDEX_DIR = "luceneIndex";
+
+	/** Default path of the snapshot file. */
+	public static final String DEFAULT_SNAPSHOT = "dataset.snapshot";
+
+	/** Properties file read if no other one is given. */
+	public static final String DEFAULT_PROPERTIES = "excel-reader.properties";
+
+	/** Prefix of environment variables. */
+	private static final String ENV_PREFIX = "EXCEL_READER_";
+
+	/** Prefix of Java system properties. */
+	private static final String SYSTEM_PREFIX = "excelreader.";
+
+	/** Keys of all settings in properties files. */
+	private static final String[] KEYS = { "dataset", "index.dir", "snapshot", "ingest.workers", "columnar",
+			"metrics", "http.port", "http.threads" };
+
+	/** Path of the excel file or directory. */
+	private String dataset;
+
+	/** Path of the index directory. */
+	private String indexDir;
+
+	/** Path of the snapshot file. */
+	private String snapshot;
+
+	/** Number of threads which read excel files. */
+	private int ingestWorkers;
+
+	/** True to keep tweets in columns rather than Tweet objects. */
+	private boolean columnar;
+
+	/** Path of the metrics file, null if metrics are not written. */
+	private String metrics;
+
+	/** Port of the HTTP query server, 0 if there is no server. */
+	private int httpPort;
+
+	/** Number of threads which answer HTTP requests. */
+	private int httpThreads;
+
+	/**
+	 * Instantiates the default settings.
+	 */
+	public Config() {
+		this.dataset = DEFAULT_DATASET;
+		this.indexDir = DEFAULT_INDEX_DIR;
+		this.snapshot = DEFAULT_SNAPSHOT;
+		this.ingestWorkers = Runtime.getRuntime().availableProcessors();
+		this.columnar = true;
+		this.httpPort = 0;
+		this.httpThreads = QueryServer.DEFAULT_THREADS;
+	}
+
+	/**
+	 * Load the settings from the properties file, environment variables, system
+	 * properties and command line arguments.
+	 *
+	 * @param args
+	 *            command line arguments
+	 * @return the settings
+	 * @throws IOException
+	 *             If the properties file cannot be read
+	 * @throws IllegalArgumentException
+	 *             If an argument or a value is not valid
+	 */
+	public static Config load(String[] args) throws IOException {
+		return load(args, System.getenv(), System.getProperties());
+	}
+
+	/**
+	 * Load the settings from the given environment variables and system
+	 * properties, so that the order could be tested.
+	 *
+	 * @param args
+	 *            command line arguments
+	 * @param env
+	 *            environment variables
+	 * @param system
+	 *            Java system properties
+	 * @return the settings
+	 * @throws IOException
+	 *             If the properties file cannot be read
+	 * @throws IllegalArgumentException
+	 *             If an argument or a value is not valid
+	 */
+	public static Config load(String[] args, Map<String, String> env, Properties system) throws IOException {
+		Config config = new Config();
+		Properties cli = parseArgs(args);
+
+		// Properties file
+		String file = cli.getProperty("config");
+		if (file != null) {
+			config.apply(readProperties(new File(file)));
+		} else if (new File(DEFAULT_PROPERTIES).isFile()) {
+			config.apply(readProperties(new File(DEFAULT_PROPERTIES)));
+		}
+
+		// Environment variables
+		Properties fromEnv = new Properties();
+		for (String key : KEYS) {
+			String value = env.get(ENV_PREFIX + key.replace('.', '_').toUpperCase());
+			if (value != null) {
+				fromEnv.setProperty(key, value);
+			}
+		}
+		config.apply(fromEnv);
+
+		// System properties
+		Properties fromSystem = new Properties();
+		for (String key : KEYS) {
+			String value = system.getProperty(SYSTEM_PREFIX + key);
+			if (value != null) {
+				fromSystem.setProperty(key, value);
+			}
+		}
+		config.apply(fromSystem);
+
+		// Command line arguments
+		config.apply(cli);
+		return config;
+	}
+
+	/**
+	 * Turn arguments like {@code --index-dir=<path>} into properties like
+	 * {@code index.dir}.
+	 */
+	private static Properties parseArgs(String[] args) {
+		Properties properties = new Properties();
+
+		for (String arg : args) {
+			int equals = arg.indexOf('=');
+			if (!arg.startsWith("--") || equals < 0) {
+				throw new IllegalArgumentException("Invalid argument: " + arg + ", expected --<name>=<value>");
+			}
+
+			String key = arg.substring(2, equals).replace('-', '.');
+			if (!key.equals("config") && !isKey(key)) {
+				throw new IllegalArgumentException("Unknown argument: " + arg);
+			}
+
+			properties.setProperty(key, arg.substring(equals + 1));
+		}
+
+		return properties;
+	}
+
+	/**
+	 * Check if a key is the key of a setting.
+	 */
+	private static boolean isKey(String key) {
+		for (String k : KEYS) {
+			if (k.equals(key)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Read a properties file.
+	 */
+	private static Properties readProperties(File file) throws IOException {
+		Properties properties = new Properties();
+
+		try (InputStream in = new FileInputStream(file)) {
+			properties.load(in);
+		}
+
+		return properties;
+	}
+
+	/**
+	 * Replace the settings given by the properties.
+	 */
+	private void apply(Properties properties) {
+		dataset = properties.getProperty("dataset", dataset);
+		indexDir = properties.getProperty("index.dir", indexDir);
+		snapshot = properties.getProperty("snapshot", snapshot);
+
+		String file = properties.getProperty("metrics");
+		if (file != null) {
+			metrics = file.isEmpty() ? null : file;
+		}
+
+		String workers = properties.getProperty("ingest.workers");
+		if (workers != null) {
+			ingestWorkers = parseInt("ingest.workers", workers, 1, Integer.MAX_VALUE);
+		}
+
+		String columns = properties.getProperty("columnar");
+		if (columns != null) {
+			if (columns.trim().equalsIgnoreCase("true")) {
+				columnar = true;
+			} else if (columns.trim().equalsIgnoreCase("false")) {
+				columnar = false;
+			} else {
+				throw new IllegalArgumentException("Invalid columnar: " + columns + ", expected true or false");
+			}
+		}
+
+		String port = properties.getProperty("http.port");
+		if (port != null) {
+			httpPort = parseInt("http.port", port, 0, 65535);
+		}
+
+		String threads = properties.getProperty("http.threads");
+		if (threads != null) {
+			httpThreads = parseInt("http.threads", threads, 1, Integer.MAX_VALUE);
+		}
+	}
+
+	/**
+	 * Parse a whole number setting strictly, so that values such as "80.5" or
+	 * "1,000" are not valid rather than read in part.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the value is not a number in the range
+	 */
+	private static int parseInt(String key, String value, int min, int max) {
+		int number;
+		try {
+			number = Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid " + key + ": " + value, e);
+		}
+
+		if (number < min || number > max) {
+			throw new IllegalArgumentException("Invalid " + key + ": " + value);
+		}
+
+		return number;
+	}
+
+	/**
+	 * Gets the path of the excel file or directory.
+	 *
+	 * @return the dataset
+	 */
+	public String getDataset() {
+		return dataset;
+	}
+
+	/**
+	 * Sets the path of the excel file or directory.
+	 *
+	 * @param dataset
+	 *            the new dataset
+	 */
+	public void setDataset(String dataset) {
+		this.dataset = dataset;
+	}
+
+	/**
+	 * Gets the path of the index directory.
+	 *
+	 * @return the index dir
+	 */
+	public String getIndexDir() {
+		return indexDir;
+	}
+
+	/**
+	 * Sets the path of the index directory.
+	 *
+	 * @param indexDir
+	 *            the new index dir
+	 */
+	public void setIndexDir(String indexDir) {
+		this.indexDir = indexDir;
+	}
+
+	/**
+	 * Gets the path of the snapshot file.
+	 *
+	 * @return the snapshot
+	 */
+	public String getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Sets the path of the snapshot file.
+	 *
+	 * @param snapshot
+	 *            the new snapshot
+	 */
+	public void setSnapshot(String snapshot) {
+		this.snapshot = snapshot;
+	}
+
+	/**
+	 * Gets the number of threads which read excel files.
+	 *
+	 * @return the ingest workers
+	 */
+	public int getIngestWorkers() {
+		return ingestWorkers;
+	}
+
+	/**
+	 * Sets the number of threads which read excel files.
+	 *
+	 * @param ingestWorkers
+	 *            the new ingest workers, at least 1
+	 */
+	public void setIngestWorkers(int ingestWorkers) {
+		this.ingestWorkers = Math.max(1, ingestWorkers);
+	}
+
+	/**
+	 * Checks if tweets are kept in columns, see {@link dao.ColumnarTweetStore}.
+	 *
+	 * @return true, if tweets are kept in columns
+	 */
+	public boolean isColumnar() {
+		return columnar;
+	}
+
+	/**
+	 * Sets if tweets are kept in columns.
+	 *
+	 * @param columnar
+	 *            true to keep tweets in columns, false to keep Tweet objects
+	 */
+	public void setColumnar(boolean columnar) {
+		this.columnar = columnar;
+	}
+
+	/**
+	 * Gets the path of the metrics file, which is JSON if it ends with .json,
+	 * otherwise in the text format of Prometheus.
+	 *
+	 * @return the metrics, null if metrics are not written
+	 */
+	public String getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Sets the path of the metrics file.
+	 *
+	 * @param metrics
+	 *            the new metrics, null if metrics are not written
+	 */
+	public void setMetrics(String metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Gets the port of the HTTP query server.
+	 *
+	 * @return the HTTP port, 0 if there is no server
+	 */
+	public int getHttpPort() {
+		return httpPort;
+	}
+
+	/**
+	 * Sets the port of the HTTP query server.
+	 *
+	 * @param httpPort
+	 *            the new HTTP port, 0 if there is no server
+	 */
+	public void setHttpPort(int httpPort) {
+		this.httpPort = httpPort;
+	}
+
+	/**
+	 * Gets the number of threads which answer HTTP requests.
+	 *
+	 * @return the HTTP threads
+	 */
+	public int getHttpThreads() {
+		return httpThreads;
+	}
+
+	/**
+	 * Sets the number of threads which answer HTTP requests.
+	 *
+	 * @param httpThreads
+	 *            the new HTTP threads, at least 1
+	 */
+	public void setHttpThreads(int httpThreads) {
+		this.httpThreads = Math.max(1, httpThreads);
+	}
+
+	/*
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Config [dataset=" + dataset + ", indexDir=" + indexDir + ", snapshot=" + snapshot
+				+ ", ingestWorkers=" + ingestWorkers + ", columnar=" + columnar + ", metrics=" + metrics
+				+ ", httpPort=" + httpPort + ", httpThreads=" + httpThreads + "]";
+	}
+}
@@ -0,0 +1,409 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+import dao.ColumnarTweetStore;
+import dao.IRowSink;
+import dao.NumberParser;
+import dao.RowView;
+import dao.TopKSelector;
+import entity.Tweet;
+import entity.User;
+
+/**
+ * The rows read so far while the data is still being loaded, so that
+ * {@link Menu} could answer the top tweets, the top users and the text match
+ * before all rows are read. It is given to
+ * {@link dao.ExcelDAOFactory#open(List, java.io.File, dao.SourceFingerprint, boolean, dao.RowInterner, int, IRowSink)
+ * ExcelDAOFactory.open} as the observer of rows.
+ *
+ * <p>
+ * No object is created for a row. The cells are kept in columns of fixed
+ * chunks of rows, like {@link ColumnarTweetStore}: the Strings of the row,
+ * which are the same objects as the ones kept by the loaded data, numbers as
+ * ints and coordinates as doubles. The content is also kept in the normalized
+ * form of {@link TweetTextSearch#normalize(String)}, so a text match does not
+ * turn every content into lower case again, and the text match of the loaded
+ * data reuses these contents if the rows came in the order of the loaded
+ * data, see {@link #getContents(int)}. Tweet objects are only created for
+ * matching rows and for the top tweets, and the top tweets and users are
+ * ranked when they are asked.
+ *
+ * <p>
+ * Rows are handled by the threads which read the files while queries are
+ * asked by the console or the HTTP server, and no lock is taken for a row: a
+ * row reserves its index with an atomic counter, fills its cells and at last
+ * publishes its normalized content, and readers skip the rows whose content
+ * is not published yet. Only adding a chunk of {@value #CHUNK_SIZE} rows
+ * locks this object.
+ *
+ * <p>
+ * The menu drops this object as soon as the loaded data is published, and
+ * only keeps the normalized contents.
+ *
+ * @version 1.0
+ * @see Menu#start()
+ */
+public class LiveDataset implements IRowSink {
+
+	/** Number of rows of one chunk. */
+	public static final int CHUNK_SIZE = 1 << 14;
+
+	/** Chunks of rows, replaced by a longer array when a chunk is added. */
+	private volatile Chunk[] chunks = new Chunk[0];
+
+	/** Number of row indexes reserved. */
+	private final AtomicInteger reserved = new AtomicInteger();
+
+	/** Number of rows published. */
+	private final AtomicInteger published = new AtomicInteger();
+
+	/** The thread which gave the first row. */
+	private final AtomicReference<Thread> writer = new AtomicReference<Thread>();
+
+	/** False if rows were given by more than one thread. */
+	private volatile boolean ordered = true;
+
+	/**
+	 * Keep the cells of a row.
+	 *
+	 * @param row
+	 *            String array contains all data in one excel row
+	 */
+	@Override
+	public void handle_row(String[] row) {
+		int index = reserve();
+		Chunk chunk = chunk(index);
+		int i = index & (CHUNK_SIZE - 1);
+
+		chunk.set(i, row[0], row[1], row[2], row[3], row[4], row[5], NumberParser.parseInt(row[6]),
+				NumberParser.parseInt(row[7]), ColumnarTweetStore.parseCoordinate(row[8]),
+				ColumnarTweetStore.parseCoordinate(row[9]), NumberParser.parseInt(row[10]));
+		publish(chunk, i);
+	}
+
+	/**
+	 * Keep the cells of a row, numeric cells and coordinates are parsed without
+	 * creating Strings.
+	 *
+	 * @param row
+	 *            view of one excel row
+	 */
+	@Override
+	public void handle_row(RowView row) {
+		int index = reserve();
+		Chunk chunk = chunk(index);
+		int i = index & (CHUNK_SIZE - 1);
+
+		chunk.set(i, row.getString(0), row.getString(1), row.getString(2), row.getString(3), row.getString(4),
+				row.getString(5), row.getInt(6), row.getInt(7), row.getDouble(8), row.getDouble(9),
+				row.getInt(10));
+		publish(chunk, i);
+	}
+
+	/**
+	 * Reserve the index of a row, and remember if rows come from several threads.
+	 */
+	private int reserve() {
+		Thread current = Thread.currentThread();
+		if (ordered && writer.get() != current && !writer.compareAndSet(null, current)) {
+			ordered = false;
+		}
+
+		return reserved.getAndIncrement();
+	}
+
+	/**
+	 * Normalize the content of a row, which makes the row visible to readers.
+	 */
+	private void publish(Chunk chunk, int i) {
+		chunk.normalized.set(i, TweetTextSearch.normalize(chunk.contents[i]));
+		published.incrementAndGet();
+	}
+
+	/**
+	 * Returns the chunk of a row index, which is added if it does not exist.
+	 */
+	private Chunk chunk(int index) {
+		int c = index / CHUNK_SIZE;
+		Chunk[] current = chunks;
+		if (c < current.length) {
+			return current[c];
+		}
+
+		synchronized (this) {
+			current = chunks;
+			if (c >= current.length) {
+				int length = current.length;
+				current = Arrays.copyOf(current, c + 1);
+				for (int i = length; i <= c; i++) {
+					current[i] = new Chunk();
+				}
+				chunks = current;
+			}
+			return current[c];
+		}
+	}
+
+	/**
+	 * Returns the number of rows read so far.
+	 *
+	 * @return the number of rows
+	 */
+	public int getRowCount() {
+		return published.get();
+	}
+
+	/**
+	 * Returns the top tweets of the rows read so far.
+	 *
+	 * @param k
+	 *            number of tweets needed
+	 * @return at most k tweets, the biggest sum of favs and rts first
+	 * @throws IllegalArgumentException
+	 *             If k is negative
+	 */
+	public List<Tweet> getTopTweets(int k) {
+		TopKSelector.checkK(k);
+		Chunk[] chunks = this.chunks;
+		int rows = rows(chunks);
+
+		// Rows are ranked by index, in the same order as Tweet#compareTo
+		TopKSelector<Integer> selector = new TopKSelector<Integer>(k,
+				(a, b) -> Long.compare(engagement(chunks, b), engagement(chunks, a)));
+		for (int index = 0; index < rows; index++) {
+			if (isPublished(chunks, index)) {
+				selector.offer(index);
+			}
+		}
+
+		List<Tweet> result = new ArrayList<Tweet>(k);
+		for (int index : selector.toList()) {
+			result.add(tweet(chunks, index));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the top users of the rows read so far, users are merged by
+	 * username in the same way as {@link dao.UserDAOImpl}.
+	 *
+	 * @param k
+	 *            number of users needed
+	 * @return at most k users, the most followers first
+	 * @throws IllegalArgumentException
+	 *             If k is negative
+	 */
+	public List<User> getTopUsers(int k) {
+		TopKSelector.checkK(k);
+		Chunk[] chunks = this.chunks;
+		int rows = rows(chunks);
+		Map<String, User> users = new HashMap<String, User>();
+
+		for (int index = 0; index < rows; index++) {
+			if (!isPublished(chunks, index)) {
+				continue;
+			}
+
+			Chunk chunk = chunks[index / CHUNK_SIZE];
+			int i = index & (CHUNK_SIZE - 1);
+			User user = users.get(chunk.usernames[i]);
+
+			if (user == null) {
+				users.put(chunk.usernames[i], new User(chunk.ids[i], chunk.usernames[i], chunk.followers[i]));
+			} else {
+				user.setFollowers(Math.max(user.getFollowers(), chunk.followers[i]));
+				user.setTweetCount(user.getTweetCount() + 1);
+			}
+		}
+
+		TopKSelector<User> selector = new TopKSelector<User>(k, (a, b) -> a.compareTo(b));
+		users.values().forEach(selector::offer);
+		return selector.toList();
+	}
+
+	/**
+	 * Search the target literally in the contents of the tweets read so far, and
+	 * give the first matching tweets to the consumer in the order of rows.
+	 * Tweets read while searching are not searched.
+	 *
+	 * @param target
+	 *            the target
+	 * @param limit
+	 *            maximum number of matching tweets needed
+	 * @param consumer
+	 *            receives the matching tweets
+	 * @return number of matching tweets given to the consumer
+	 */
+	public int search(String target, int limit, Consumer<Tweet> consumer) {
+		Chunk[] chunks = this.chunks;
+		int rows = rows(chunks);
+		SubstringMatcher matcher = TweetTextSearch.compile(target);
+		int count = 0;
+
+		for (int index = 0; index < rows && count < limit; index++) {
+			String content = chunks[index / CHUNK_SIZE].normalized.get(index & (CHUNK_SIZE - 1));
+			if (content != null && matcher.matches(content)) {
+				consumer.accept(tweet(chunks, index));
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Returns the normalized contents of all rows in the order of rows, so that
+	 * the text match of the loaded data does not normalize them again. They are
+	 * only returned if all rows were given by one thread, which gives them in
+	 * the same order as the loaded data, and all rows of the loaded data are
+	 * here.
+	 *
+	 * @param rows
+	 *            number of rows of the loaded data
+	 * @return the contents, null if they are not in the order of the loaded data
+	 */
+	public String[] getContents(int rows) {
+		if (!ordered || published.get() != rows || reserved.get() != rows) {
+			return null;
+		}
+
+		Chunk[] chunks = this.chunks;
+		String[] contents = new String[rows];
+		for (int c = 0; c * CHUNK_SIZE < rows; c++) {
+			AtomicReferenceArray<String> normalized = chunks[c].normalized;
+			int end = Math.min(CHUNK_SIZE, rows - c * CHUNK_SIZE);
+			for (int i = 0; i < end; i++) {
+				contents[c * CHUNK_SIZE + i] = normalized.get(i);
+			}
+		}
+
+		return contents;
+	}
+
+	/**
+	 * Returns the tweets read so far, which are created for this call.
+	 *
+	 * @return List containing the Tweet objects in the order of rows
+	 */
+	public List<Tweet> getData() {
+		Chunk[] chunks = this.chunks;
+		int rows = rows(chunks);
+		List<Tweet> tweets = new ArrayList<Tweet>(rows);
+
+		for (int index = 0; index < rows; index++) {
+			if (isPublished(chunks, index)) {
+				tweets.add(tweet(chunks, index));
+			}
+		}
+
+		return tweets;
+	}
+
+	/**
+	 * Returns the number of rows reserved which have a chunk, the last row may be
+	 * reserved before its chunk is added.
+	 */
+	private int rows(Chunk[] chunks) {
+		return Math.min(reserved.get(), chunks.length * CHUNK_SIZE);
+	}
+
+	/**
+	 * Check if the cells of a row are all written.
+	 */
+	private static boolean isPublished(Chunk[] chunks, int index) {
+		return chunks[index / CHUNK_SIZE].normalized.get(index & (CHUNK_SIZE - 1)) != null;
+	}
+
+	/**
+	 * Returns the sum of favs and rts of a row.
+	 */
+	private static long engagement(Chunk[] chunks, int index) {
+		Chunk chunk = chunks[index / CHUNK_SIZE];
+		int i = index & (CHUNK_SIZE - 1);
+		return (long) chunk.favs[i] + chunk.rts[i];
+	}
+
+	/**
+	 * Create the Tweet of a published row.
+	 */
+	private static Tweet tweet(Chunk[] chunks, int index) {
+		Chunk chunk = chunks[index / CHUNK_SIZE];
+		int i = index & (CHUNK_SIZE - 1);
+		return new Tweet(chunk.ids[i], chunk.dates[i], chunk.hours[i], chunk.usernames[i], chunk.nicknames[i],
+				chunk.contents[i], chunk.favs[i], chunk.rts[i],
+				ColumnarTweetStore.formatCoordinate(chunk.latitudes[i]),
+				ColumnarTweetStore.formatCoordinate(chunk.longitudes[i]), chunk.followers[i]);
+	}
+
+	/**
+	 * Columns of {@value #CHUNK_SIZE} rows. The cells of a row are written before
+	 * its normalized content, which is written last through an atomic array, so
+	 * a reader which sees the content also sees the cells.
+	 */
+	private static class Chunk {
+
+		/** Column of ids. */
+		private final String[] ids = new String[CHUNK_SIZE];
+
+		/** Column of dates. */
+		private final String[] dates = new String[CHUNK_SIZE];
+
+		/** Column of hours. */
+		private final String[] hours = new String[CHUNK_SIZE];
+
+		/** Column of usernames. */
+		private final String[] usernames = new String[CHUNK_SIZE];
+
+		/** Column of nicknames. */
+		private final String[] nicknames = new String[CHUNK_SIZE];
+
+		/** Column of contents. */
+		private final String[] contents = new String[CHUNK_SIZE];
+
+		/** Column of favs. */
+		private final int[] favs = new int[CHUNK_SIZE];
+
+		/** Column of rts. */
+		private final int[] rts = new int[CHUNK_SIZE];
+
+		/** Column of followers. */
+		private final int[] followers = new int[CHUNK_SIZE];
+
+		/** Column of latitudes, NaN if it is empty. */
+		private final double[] latitudes = new double[CHUNK_SIZE];
+
+		/** Column of longitudes, NaN if it is empty. */
+		private final double[] longitudes = new double[CHUNK_SIZE];
+
+		/** Normalized contents, null until the row is published. */
+		private final AtomicReferenceArray<String> normalized = new AtomicReferenceArray<String>(CHUNK_SIZE);
+
+		/**
+		 * Write the cells of one row.
+		 */
+		private void set(int i, String id, String date, String hour, String username, String nickname,
+				String content, int favs, int rts, double latitude, double longitude, int followers) {
+			this.ids[i] = id;
+			this.dates[i] = date;
+			this.hours[i] = hour;
+			this.usernames[i] = username;
+			this.nicknames[i] = nickname;
+			this.contents[i] = content;
+			this.favs[i] = favs;
+			this.rts[i] = rts;
+			this.followers[i] = followers;
+			this.latitudes[i] = latitude;
+			this.longitudes[i] = longitude;
+		}
+	}
+}
@@ -2,6 +2,7 @@ package service;
 
 import java.io.IOException;
 import java.util.Scanner;
+import java.util.concurrent.CountDownLatch;
 
 import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
@@ -13,6 +14,13 @@ public class Main {
 	
 	/** The Menu object. */
 	static Menu menu;
+	
+	/** The HTTP server of queries, null if it is not started. */
+	static QueryServer server;
+	
+	/** True if the user quits, false if the console input is closed. */
+	static boolean quit;
+	
 	/**
 	 * The main method.
 	 *
@@ -24,17 +32,47 @@ public class Main {
 	 *             the parse exception
 	 * @throws InvalidFormatException
 	 *             the invalid format exception
+	 * @throws InterruptedException
+	 *             If waiting for the server is interrupted
 	 */
-	public static void main(String[] args) throws IOException, ParseException, InvalidFormatException {
-		long startTime = System.currentTimeMillis() / 1000;
+	public static void main(String[] args)
+			throws IOException, ParseException, InvalidFormatException, InterruptedException {
+		long startTime = System.nanoTime();
+		Config config = Config.load(args);
 		
-		menu = new Menu();
-		menu.init();
+		// Data is loaded in the background, queries are answered from the rows read so far
+		menu = new Menu(config);
+		menu.start();
+		
+		if (config.getHttpPort() > 0) {
+			server = new QueryServer(menu, config.getHttpPort(), config.getHttpThreads());
+			server.start();
+			System.out.println("Queries are served on http://127.0.0.1:" + server.getPort() + "/");
+		}
 		
 		menu();
+		
+		if (server != null && !quit) {
+			// Without a console, for example as a service, queries are served until the process is stopped
+			System.out.println("No console input, serving queries until the process is stopped");
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				server.close();
+				try {
+					menu.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}));
+			new CountDownLatch(1).await();
+		}
+		
+		if (server != null) {
+			server.close();
+		}
+		menu.close();
 
-		long endTime = System.currentTimeMillis() / 1000;
-		System.out.println("Total Running time: " + (endTime - startTime) + "s");
+		long endTime = System.nanoTime();
+		System.out.println("Total Running time: " + (endTime - startTime) / 1000000 + "ms");
 
 	}
 	
@@ -57,7 +95,11 @@ public class Main {
 		
 		
 		while(loop) {
+			menu.printProgress();
 			printOptions();
+			if(!input.hasNextLine()) {
+				break;
+			}
 			option = input.nextLine();
 			choice = isNumber(option);
 			
@@ -97,6 +139,7 @@ public class Main {
 						break;
 					case 5:
 						loop = false;
+						quit = true;
 						input.close();
 						break;
 				}
@@ -123,20 +166,37 @@ public class Main {
 	
 	/**
 	 * Checks if input option is number. If this option is valid, return corresponding integer, else return 0.
+	 * Only digits are valid, surrounding whitespace is ignored, so that options such as "1.5" or "1,0" are
+	 * not read as another option. Characters are scanned without a regular expression.
 	 *
 	 * @param str
 	 *            the str
 	 * @return the int
 	 */
 	public static int isNumber(String str) {
-		String reg = "^[0-9]+(.[0-9]+)?$";
-		boolean isNum = str.matches(reg);
+		int start = 0;
+		int end = str.length();
+		while (start < end && Character.isWhitespace(str.charAt(start))) {
+			start++;
+		}
+		while (end > start && Character.isWhitespace(str.charAt(end - 1))) {
+			end--;
+		}
 
-		if (!isNum) {
+		if (start == end) {
 			return 0;
-		} else {
-			return Integer.parseInt(str);
 		}
+
+		int value = 0;
+		for (int i = start; i < end; i++) {
+			char c = str.charAt(i);
+			if (c < '0' || c > '9' || value > (Integer.MAX_VALUE - (c - '0')) / 10) {
+				return 0;
+			}
+			value = value * 10 + (c - '0');
+		}
+
+		return value;
 	}
 	
 	/**
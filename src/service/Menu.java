@@ -1,27 +1,36 @@
 package service;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.PriorityQueue;
-import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
 
-import dao.ExcelDAOImpl;
+import dao.ExcelDAOFactory;
+import dao.IRowSink;
+import dao.IExcelDAO;
+import dao.RowInterner;
+import dao.SnapshotExcelDAOImpl;
+import dao.SourceFingerprint;
 import entity.Tweet;
 import entity.User;
 import lucene.Indexer;
+import lucene.IndexerSettings;
+import lucene.SearchHit;
+import lucene.SearchOptions;
+import lucene.SearchPage;
 import lucene.Searcher;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
 
 /**
  * <h1>Menu</h1> The Menu program provides highly abtracted methods for Main
@@ -32,6 +41,17 @@ import lucene.Searcher;
  * methods which are detached away from data access on the Model layer. In this
  * way, this whole project can be efficient and robust, modification of Model
  * layer on the botton would not influence the Controller.
+ * <p>
+ * The time of loading data, building indexes and answering each query is
+ * recorded by {@link MetricsRegistry}, and written to the metrics file of the
+ * settings after the data is loaded and when the menu is closed.
+ * <p>
+ * {@link #init()} loads everything before the menu is shown. {@link #start()}
+ * loads the data and builds the indexes on background threads instead, so
+ * the menu is shown at once: while rows are read, the top tweets, the top
+ * users and the text match are answered from the rows read so far (see
+ * {@link LiveDataset}) with a line of progress, and the quick search is
+ * available as soon as the first part of the Lucene index is committed.
  *
  * @author Xunjie Liu
  * @version jdk-10.0.2
@@ -40,20 +60,103 @@ import lucene.Searcher;
 
 public class Menu {
 	
-	/** The top 10 tweets. */
-	private List<Tweet> top10Tweets;
+	/**
+	 * Phases of loading the data in the background, see {@link Menu#start()}.
+	 */
+	public enum Phase {
+		/** Nothing is loaded yet. */
+		NOT_STARTED,
+		
+		/** Rows are being read, queries see the rows read so far. */
+		LOADING,
+		
+		/** All rows are read, the text and Lucene indexes are being built. */
+		INDEXING,
+		
+		/** Everything is loaded and indexed. */
+		READY,
+		
+		/** Loading or indexing failed, see {@link Menu#getProgress()}. */
+		FAILED
+	}
+	
+	/** The top 10 tweets, null until all data is loaded. */
+	private volatile List<Tweet> top10Tweets;
+	
+	/** The top 10 users, null until all data is loaded. */
+	private volatile List<User> top10Users;
+	
+	/** The excel DAO, null until all data is loaded. */
+	private volatile IExcelDAO excelDAO;
+	
+	/** Tweets and users read so far, null once all data is loaded. */
+	private volatile LiveDataset live;
+	
+	/** Phase of loading the data. */
+	private volatile Phase phase = Phase.NOT_STARTED;
+	
+	/** Why loading failed, null if it did not. */
+	private volatile Throwable failure;
 	
-	/** The top 10 users. */
-	private Map<String, Integer> top10Users;
+	/** True after the Lucene index of the current data is committed at least once. */
+	private volatile boolean indexCommitted;
 	
-	/** The excel DAO. */
-	private ExcelDAOImpl excelDAO;
+	/** Start of loading in nanoseconds. */
+	private volatile long startNanos;
 	
-	/** The Constant INDEX_DIR. */
-	private static final String INDEX_DIR = "D:\\Study\\Year 3\\CSE210\\CW\\luceneIndex";
+	/** Threads which load the data and build the indexes in the background. */
+	private ExecutorService startup;
+	
+	/** Loading in the background, null if {@link #start()} is not called. */
+	private Future<?> startupTask;
+	
+	/** The settings, including paths of the dataset, the index and the snapshot. */
+	private Config config;
+	
+	/** Deduplicates repeated cells while reading data. */
+	private RowInterner interner;
 	
 	/** The indexer. */
 	private Indexer indexer;
+	
+	/** The searcher, which keeps the index open, null until an index is committed. */
+	private volatile Searcher searcher;
+	
+	/** Literal text search over the contents of all tweets, null until all data is loaded. */
+	private volatile TweetTextSearch textSearch;
+	
+	/** Maximum number of results kept by each query cache. */
+	private static final int CACHE_ENTRIES = 256;
+	
+	/** Maximum number of tweets kept by each query cache. */
+	private static final long CACHE_TWEETS = 200000;
+	
+	/** Documents written between two commits of the index built in the background. */
+	private static final int COMMIT_INTERVAL = 100000;
+	
+	/** Results of text match by normalized target. */
+	private QueryCache<List<Tweet>> textCache = new QueryCache<List<Tweet>>(CACHE_ENTRIES, CACHE_TWEETS);
+	
+	/** Results of Lucene search by query. */
+	private QueryCache<SearchPage> searchCache = new QueryCache<SearchPage>(CACHE_ENTRIES, CACHE_TWEETS);
+	
+	/** Metrics of the program. */
+	private static final MetricsRegistry METRICS = MetricsRegistry.getDefault();
+	
+	/** Time of loading all data, from excel files or the snapshot. */
+	private static final LatencyHistogram INGEST_TOTAL = METRICS.histogram("ingest_total");
+	
+	/** Time of building the trigram index of text match. */
+	private static final LatencyHistogram TEXT_INDEX_BUILD = METRICS.histogram("text_index_build");
+	
+	/** Time of ranking the top tweets and users. */
+	private static final LatencyHistogram QUERY_TOP = METRICS.histogram("query_top");
+	
+	/** Time of each text match, including printing. */
+	private static final LatencyHistogram QUERY_TEXT_MATCH = METRICS.histogram("query_text_match");
+	
+	/** Time of each quick search, including the cache. */
+	private static final LatencyHistogram QUERY_INDEX_SEARCH = METRICS.histogram("query_index_search");
 
 	/**
 	 * This method is a constructor method which need no input parameter but only
@@ -61,7 +164,18 @@ public class Menu {
 	 *
 	 */
 	public Menu() {
-		
+		this(new Config());
+	}
+	
+	/**
+	 * Instantiates a new menu which reads data and writes index files at the
+	 * paths of the given settings.
+	 *
+	 * @param config
+	 *            the settings
+	 */
+	public Menu(Config config) {
+		this.config = config;
 	}
 	
 	/**
@@ -75,20 +189,254 @@ public class Menu {
 	 *             Signals that an I/O exception has occurred.
 	 */
 	public void init() throws InvalidFormatException, FileNotFoundException, IOException {
+		SourceFingerprint fingerprint = load(null);
+		buildTextIndex(null);
+		indexer = new Indexer(config.getIndexDir(), excelDAO.getAllTweets(), fingerprint.toString());
+		
+		System.out.println("Start to create index files...");
+		initIndex();
+		phase = Phase.READY;
+		writeMetrics();
+	}
+
+	/**
+	 * Start to load the data and build the indexes on background threads, and
+	 * return at once. Queries could be asked while the data is loaded, see
+	 * {@link #getPhase()} and {@link #getProgress()}. If the index of the last
+	 * run exists, the quick search uses it until the first part of the new
+	 * index is committed.
+	 *
+	 * @throws IOException
+	 *             If the existing index cannot be opened
+	 */
+	public void start() throws IOException {
+		if (Indexer.hasIndex(config.getIndexDir())) {
+			openSearcher();
+		}
+		
+		this.live = new LiveDataset();
+		this.phase = Phase.LOADING;
+		AtomicInteger threads = new AtomicInteger();
+		this.startup = Executors.newFixedThreadPool(2, r -> {
+			Thread thread = new Thread(r, "menu-startup-" + threads.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.startupTask = startup.submit(this::loadInBackground);
+	}
+
+	/**
+	 * Load the data and build both indexes, the text index on the second thread
+	 * while the Lucene index is written on this one.
+	 */
+	private void loadInBackground() {
+		try {
+			SourceFingerprint fingerprint = load(live);
+			phase = Phase.INDEXING;
+			
+			// Only the normalized contents of the live dataset are kept, it is dropped at once
+			List<Tweet> tweets = excelDAO.getAllTweets();
+			String[] contents = live.getContents(tweets.size());
+			if (contents == null) {
+				contents = TweetTextSearch.normalizeAll(tweets);
+			}
+			// Text match scans all contents serially until the index is built
+			textSearch = new TweetTextSearch(tweets, contents, 1, false);
+			textCache.invalidate();
+			live = null;
+			
+			String[] normalized = contents;
+			Future<?> text = startup.submit(() -> buildTextIndex(normalized));
+			
+			IndexerSettings settings = new IndexerSettings();
+			settings.setCommitInterval(COMMIT_INTERVAL);
+			indexer = new Indexer(config.getIndexDir(), excelDAO.getAllTweets(), fingerprint.toString(), settings);
+			indexer.setCommitListener(() -> {
+				indexCommitted = true;
+				try {
+					openSearcher();
+				} catch (IOException e) {
+					System.out.println("Fail to open the index: " + e.getMessage());
+				}
+			});
+			initIndex();
+			text.get();
+			
+			phase = Phase.READY;
+			writeMetrics();
+		} catch (ExecutionException e) {
+			fail(e.getCause());
+		} catch (Exception e) {
+			fail(e);
+		}
+	}
+
+	/**
+	 * Remember why loading failed.
+	 */
+	private void fail(Throwable e) {
+		failure = e;
+		phase = Phase.FAILED;
+		System.out.println("Fail to load data: " + e);
+	}
+
+	/**
+	 * Read all data from the excel files or the snapshot, and rank the top
+	 * tweets and users.
+	 *
+	 * @param observer
+	 *            also receives every row while it is read, null if not needed
+	 * @return the fingerprint of the excel files
+	 * @throws InvalidFormatException
+	 *             the invalid format exception
+	 * @throws FileNotFoundException
+	 *             If the dataset does not exist, the message names {@code --dataset}
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private SourceFingerprint load(IRowSink observer)
+			throws InvalidFormatException, FileNotFoundException, IOException {
 		System.out.println("Start to import data from excel file.....");
-		long startTime = System.currentTimeMillis() / 1000;
-		this.excelDAO = new ExcelDAOImpl();
-		long endTime = System.currentTimeMillis() / 1000;
-		System.out.println("Running time: " + (endTime - startTime) + "s");
+		long startTime = System.nanoTime();
+		startNanos = startTime;
+		this.interner = RowInterner.withDefaultColumns();
+		File dataset = new File(config.getDataset());
+		if (!dataset.exists()) {
+			throw new FileNotFoundException("Dataset not found: " + dataset.getAbsolutePath()
+					+ ", give the excel file or directory with --dataset=<path>");
+		}
+		List<File> sources = ExcelDAOFactory.listSources(dataset);
+		SourceFingerprint fingerprint = SourceFingerprint.of(sources);
+		IExcelDAO loaded = ExcelDAOFactory.open(sources, new File(config.getSnapshot()), fingerprint,
+				config.isColumnar(), interner, config.getIngestWorkers(), observer);
+		long endTime = INGEST_TOTAL.recordSince(startTime);
+		int rows = loaded.getAllTweets().size();
+		METRICS.setGauge("ingest_rows_per_second", Math.round(rows * 1e9 / Math.max(1, endTime - startTime)));
+		System.out.println("Running time: " + (endTime - startTime) / 1000000 + "ms ("
+				+ (loaded instanceof SnapshotExcelDAOImpl ? "from snapshot"
+						: "from " + sources.size() + " excel file(s)") + ", "
+				+ Math.round(METRICS.getGauge("ingest_rows_per_second")) + " rows/s)");
 		
 		System.out.println("All data imported!");
-		this.top10Tweets = new ArrayList<Tweet>();
-		this.top10Users = new HashMap<String, Integer>();
-		indexer = new Indexer(INDEX_DIR, excelDAO.getAllTweets());
+		System.out.println(interner.report());
+		textCache.invalidate();
+		searchCache.invalidate();
+		this.excelDAO = loaded;
 		getTop();
+		return fingerprint;
+	}
+
+	/**
+	 * Build the trigram index of the text match, and replace the text match
+	 * used until it is built.
+	 *
+	 * @param contents
+	 *            normalized contents of all tweets, null to normalize them here
+	 */
+	private void buildTextIndex(String[] contents) {
+		long indexStart = System.nanoTime();
+		TweetTextSearch search = new TweetTextSearch(excelDAO.getAllTweets(), contents,
+				Runtime.getRuntime().availableProcessors(), true);
+		TEXT_INDEX_BUILD.recordSince(indexStart);
+		System.out.println("Trigram index: " + search.getIndex().getTrigramCount() + " trigrams, "
+				+ search.getIndex().getMemoryBytes() / (1024 * 1024) + "MB");
+		TweetTextSearch previous = textSearch;
+		textSearch = search;
+		textCache.invalidate();
+		if (previous != null) {
+			previous.close();
+		}
+	}
+
+	/**
+	 * Open the searcher if the index has not been opened, otherwise let it see
+	 * the latest commit. Results cached before are not valid any more.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private synchronized void openSearcher() throws IOException {
+		if (searcher == null) {
+			searcher = new Searcher(config.getIndexDir());
+		} else {
+			searcher.maybeRefresh();
+		}
+		searchCache.invalidate();
+	}
+
+	/**
+	 * Gets the phase of loading the data.
+	 *
+	 * @return the phase
+	 */
+	public Phase getPhase() {
+		return phase;
+	}
+
+	/**
+	 * Describe how much of the data is loaded, so that users know if the answers
+	 * are partial.
+	 *
+	 * @return the progress, null if everything is loaded and indexed
+	 */
+	public String getProgress() {
+		long seconds = (System.nanoTime() - startNanos) / 1000000000L;
 		
-		System.out.println("Start to create index files...");
-		initIndex();
+		switch (phase) {
+		case NOT_STARTED:
+			return "Data is not loaded";
+		case LOADING:
+			LiveDataset dataset = live;
+			return "[Loading " + seconds + "s: " + (dataset == null ? 0 : dataset.getRowCount())
+					+ " rows read so far, results are partial"
+					+ (searcher == null ? ", quick search is not ready" : "") + "]";
+		case INDEXING:
+			return "[Indexing " + seconds + "s: all " + excelDAO.getAllTweets().size() + " rows are read"
+					+ (searcher == null ? ", quick search is not ready"
+							: indexCommitted ? ", quick search sees part of the tweets"
+									: ", quick search uses the index of the last run")
+					+ "]";
+		case FAILED:
+			return "[Fail to load data: " + failure + "]";
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Print the progress if the data is not completely loaded.
+	 */
+	public void printProgress() {
+		String progress = getProgress();
+		
+		if (progress != null) {
+			System.out.println(progress);
+		}
+	}
+
+	/**
+	 * Wait until the data is loaded and indexed by {@link #start()}.
+	 *
+	 * @throws IOException
+	 *             If loading failed, or waiting is interrupted
+	 */
+	public void awaitReady() throws IOException {
+		if (startupTask == null) {
+			return;
+		}
+		
+		try {
+			startupTask.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Waiting for data is interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Fail to load data", e.getCause());
+		}
+		
+		if (failure != null) {
+			throw new IOException("Fail to load data", failure);
+		}
 	}
 
 	/**
@@ -98,15 +446,27 @@ public class Menu {
 	 *             Signals that an I/O exception has occurred.
 	 */
 	public void initIndex() throws IOException {
-		indexer.writeDocument();
+		long startTime = System.currentTimeMillis();
+		// Checked before writing, an empty source also writes 0 documents
+		boolean upToDate = indexer.isUpToDate();
+		int count = indexer.writeDocument();
 
 		indexer.close();
+		long endTime = System.currentTimeMillis();
 		
-		System.out.println("Index files created !");
+		indexCommitted = true;
+		openSearcher();
+		
+		if (upToDate) {
+			System.out.println("Index files are up to date !");
+		} else {
+			System.out.println("Index files created ! " + count + " documents in " + (endTime - startTime) + "ms ("
+					+ Math.round(indexer.getDocsPerSecond()) + " docs/s)");
+		}
 	}
 
 	/**
-	 * Search using Luceue API.
+	 * Search using Luceue API, tweets with the most favs and rts are shown first.
 	 *
 	 * @param key
 	 *            The search key words
@@ -116,94 +476,326 @@ public class Menu {
 	 *             the parse exception
 	 */
 	public void indexSearch(String key) throws IOException, ParseException {
-		Searcher searcher = new Searcher();
-		HashMap<String, String> result = searcher.search(INDEX_DIR, key);
+		Searcher searcher = this.searcher;
+		if (searcher == null) {
+			System.out.println("Quick search is not ready until the first part of the index is written");
+			printProgress();
+			return;
+		}
+		
+		String cacheKey = searchKey(key, SearchOptions.DEFAULT_PAGE_SIZE);
 		
-		Iterator<Entry<String, String>> iterator = result.entrySet().iterator(); 
+		long startTime = System.nanoTime();
+		SearchPage page = searchCache.get(cacheKey);
+		boolean cached = page != null;
 		
-		while(iterator.hasNext()) {
-			Entry<String, String> entry = iterator.next();
-			System.out.println("Username: " + entry.getKey());
-			System.out.println("Contents: " + entry.getValue());
+		if (!cached) {
+			page = search(searcher, key, SearchOptions.DEFAULT_PAGE_SIZE, cacheKey);
+		}
+		long endTime = QUERY_INDEX_SEARCH.recordSince(startTime);
+		
+		System.out.println("\n" + page.getTotalHits() + (page.isExact() ? "" : "+") + " hits");
+		System.out.println("Search time: " + (endTime - startTime) / 1000 + "us" + (cached ? " (cached)" : "") + "\nDetails(Only part of result is shown): \n-------------------------------------------------");
+		
+		for (SearchHit hit : page.getHits()) {
+			System.out.println("Username: " + hit.getUsername());
+			System.out.println("Contents: " + hit.getContent());
+			System.out.println("Favs + Rts: " + hit.getEngagement());
 			System.out.println("<---------------------------------------------->");
 		}
 		
 	}
 
+	/**
+	 * Search using Lucene API and return the first page, tweets with the most
+	 * favs and rts first. Pages of recent queries are kept in a
+	 * {@link QueryCache}. This method could be called by several threads at the
+	 * same time, they share the searcher and the cache.
+	 *
+	 * @param key
+	 *            The search key words
+	 * @param pageSize
+	 *            maximum number of hits
+	 * @return the page, null if no index is committed yet
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 * @throws ParseException
+	 *             the parse exception
+	 */
+	public SearchPage searchIndex(String key, int pageSize) throws IOException, ParseException {
+		Searcher searcher = this.searcher;
+		if (searcher == null) {
+			return null;
+		}
+		
+		long startTime = System.nanoTime();
+		String cacheKey = searchKey(key, pageSize);
+		SearchPage page = searchCache.get(cacheKey);
+		
+		if (page == null) {
+			page = search(searcher, key, pageSize, cacheKey);
+		}
+		QUERY_INDEX_SEARCH.recordSince(startTime);
+		
+		return page;
+	}
+
+	/**
+	 * Search the index by engagement and keep the page in the cache.
+	 */
+	private SearchPage search(Searcher searcher, String key, int pageSize, String cacheKey)
+			throws IOException, ParseException {
+		// A page of the searcher before a commit is not cached after the commit
+		long generation = searchCache.getGeneration();
+		SearchOptions options = new SearchOptions(key);
+		options.setOrder(SearchOptions.Order.ENGAGEMENT);
+		options.setPageSize(pageSize);
+		SearchPage page = searcher.search(options);
+		searchCache.put(cacheKey, page, page.getHits().size(), generation);
+		return page;
+	}
+
+	/**
+	 * Key of a Lucene search in the cache, pages of other sizes are different
+	 * results.
+	 */
+	private static String searchKey(String key, int pageSize) {
+		return QueryCache.key(pageSize == SearchOptions.DEFAULT_PAGE_SIZE ? "index" : "index" + pageSize, key.trim());
+	}
+
+	/**
+	 * Gets the cache of text match results.
+	 *
+	 * @return the text cache
+	 */
+	public QueryCache<List<Tweet>> getTextCache() {
+		return textCache;
+	}
+
+	/**
+	 * Gets the cache of Lucene search results.
+	 *
+	 * @return the search cache
+	 */
+	public QueryCache<SearchPage> getSearchCache() {
+		return searchCache;
+	}
+
+	/**
+	 * Write all metrics to the metrics file of the settings, nothing is written if
+	 * there is no metrics file.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public void writeMetrics() throws IOException {
+		if (config.getMetrics() != null) {
+			METRICS.write(new File(config.getMetrics()));
+		}
+	}
+
+	/**
+	 * Wait for the data loaded in the background, close the index files opened
+	 * by the searcher, stop the threads of text match, and write the metrics.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public void close() throws IOException {
+		if (startupTask != null) {
+			if (!startupTask.isDone()) {
+				System.out.println("Waiting for the index files to be written...");
+			}
+			try {
+				awaitReady();
+			} catch (IOException e) {
+				// Already reported by the loading thread
+			}
+			startup.shutdown();
+		}
+		if (textSearch != null) {
+			textSearch.close();
+		}
+		if (searcher != null) {
+			searcher.close();
+			searcher = null;
+		}
+		writeMetrics();
+	}
+
 	/**
 	 * Gets the top Users and Tweets from excelDAO.
 	 *
 	 * @return the top
 	 */
 	public void getTop() {
-		PriorityQueue<Tweet> allTweets = excelDAO.getAllTweets();
-		TreeSet<User> allUsers = excelDAO.getAllUsers();
-		User temp;
+		long startTime = System.nanoTime();
+		List<Tweet> tweets = Collections.unmodifiableList(new ArrayList<Tweet>(excelDAO.getTopTweets(10)));
 
-		for (int i = 0; i < 10; i++) {
-			top10Tweets.add(allTweets.poll());
-			
-			// There are repeated users, so here using Map to delete duplicates
-			do {
-				temp = allUsers.pollFirst(); 
-			} while (top10Users.containsKey(temp.getUsername()));
+		// Users are already unique by username
+		List<User> users = Collections.unmodifiableList(new ArrayList<User>(excelDAO.getTopUsers(10)));
+		QUERY_TOP.recordSince(startTime);
+		this.top10Tweets = tweets;
+		this.top10Users = users;
+	}
 
-			top10Users.put(temp.getUsername(), temp.getFollowers());
-		}
+	/**
+	 * Returns the top 10 tweets, the top tweets of the rows read so far while the
+	 * data is loaded. The list is never modified, so it could be shared by
+	 * threads.
+	 *
+	 * @return the top tweets, the biggest sum of favs and rts first
+	 */
+	public List<Tweet> getTopTweets() {
+		List<Tweet> tweets = top10Tweets;
+		return tweets != null ? tweets : partial().getTopTweets(10);
+	}
 
-		for (Tweet t : top10Tweets) {
-			allTweets.add(t);
-		}
+	/**
+	 * Returns the top 10 users, the top users of the rows read so far while the
+	 * data is loaded. The list is never modified, so it could be shared by
+	 * threads.
+	 *
+	 * @return the top users, the most followers first
+	 */
+	public List<User> getTopUsers() {
+		List<User> users = top10Users;
+		return users != null ? users : partial().getTopUsers(10);
 	}
 
 	/**
-	 * Prints the top users in descending order using inner comparator class. 
+	 * Check if all rows are read, otherwise the answers are partial.
+	 *
+	 * @return true, if all data is loaded
 	 */
-	public void printTopUsers() {
-		List<Map.Entry<String, Integer>> sortedUsers = new ArrayList<>();
-		sortedUsers.addAll(top10Users.entrySet());
-		Menu.ValueComparator comparator = new ValueComparator();
-		Collections.sort(sortedUsers, comparator);
+	public boolean isLoaded() {
+		return top10Tweets != null;
+	}
 
-		for (Map.Entry<String, Integer> entry : sortedUsers) {
-			System.out.println("Username: " + entry.getKey() + "\nFollowers: " + entry.getValue()
+	/**
+	 * Prints the top users in descending order of followers, the top users of
+	 * the rows read so far while the data is loaded.
+	 */
+	public void printTopUsers() {
+		if (!isLoaded()) {
+			printProgress();
+		}
+		
+		for (User user : getTopUsers()) {
+			System.out.println("Username: " + user.getUsername() + "\nFollowers: " + user.getFollowers()
 					+ "\n<------------------------------>");
 		}
 	}
 
 	/**
-	 * Prints the top tweets.
+	 * Prints the top tweets, the top tweets of the rows read so far while the
+	 * data is loaded.
 	 */
 	public void printTopTweets() {
-		for (Tweet t : top10Tweets) {
+		if (!isLoaded()) {
+			printProgress();
+		}
+		
+		for (Tweet t : getTopTweets()) {
 			System.out.println(t.toString());
 			System.out.println("Favs: " + t.getFavs() + " Rts: " + t.getRts());
 		}
 	}
 
 	/**
-	 * Text match using regular expression.
+	 * Text match, the target is searched literally in the contents of all
+	 * tweets and matching tweets are printed while searching. Results of recent
+	 * targets are kept in a {@link QueryCache}. Before all data is loaded, the
+	 * tweets read so far are scanned and nothing is cached.
 	 *
 	 * @param target
 	 *            the target
 	 */
 	public void textMatch(String target) {
-		List<String> searchResult = new LinkedList<String>();
-		PriorityQueue<Tweet> tweets = excelDAO.getAllTweets();
+		long startTime = System.nanoTime();
 		
-		for (Tweet t : tweets) {
-			if (match(t, target)) {
-				searchResult.add(t.toString());
+		// The live dataset is dropped only after the text search is set, so it is read first
+		LiveDataset dataset = live;
+		// Read before the index, a result of an index replaced meanwhile is not cached
+		long generation = textCache.getGeneration();
+		TweetTextSearch textSearch = this.textSearch;
+		if (textSearch == null) {
+			// Partial results are not cached
+			printProgress();
+			LiveDataset tweets = dataset == null ? new LiveDataset() : dataset;
+			if (tweets.search(target, Integer.MAX_VALUE, t -> System.out.println(t.toString())) == 0) {
+				System.out.println("Cannot find what you are looking for");
 			}
+			QUERY_TEXT_MATCH.recordSince(startTime);
+			return;
+		}
+		
+		String cacheKey = QueryCache.key("text", TweetTextSearch.normalize(target));
+		List<Tweet> result = textCache.get(cacheKey);
+		
+		if (result != null) {
+			result.forEach(t -> System.out.println(t.toString()));
+		} else {
+			// Print matches while searching, and keep them for the next time
+			List<Tweet> found = new ArrayList<Tweet>();
+			textSearch.search(target, t -> {
+				System.out.println(t.toString());
+				found.add(t);
+			});
+			textCache.put(cacheKey, found, found.size(), generation);
+			result = found;
 		}
 		
-		if(searchResult.isEmpty()) {
+		if(result.isEmpty()) {
 			System.out.println("Cannot find what you are looking for");
-		}else {
-			for(String s: searchResult) {
-				System.out.println(s);
+		}
+		QUERY_TEXT_MATCH.recordSince(startTime);
+	}
+
+	/**
+	 * Text match which returns the first matching tweets rather than printing
+	 * them, in the order of excel rows. A complete result is kept in the same
+	 * {@link QueryCache} as {@link #textMatch(String)}. This method could be
+	 * called by several threads at the same time.
+	 *
+	 * @param target
+	 *            the target
+	 * @param limit
+	 *            maximum number of tweets
+	 * @return the matching tweets, which are never modified
+	 */
+	public List<Tweet> findTweets(String target, int limit) {
+		long startTime = System.nanoTime();
+		LiveDataset dataset = live;
+		long generation = textCache.getGeneration();
+		TweetTextSearch textSearch = this.textSearch;
+		List<Tweet> found = new ArrayList<Tweet>();
+		
+		if (textSearch == null) {
+			(dataset == null ? new LiveDataset() : dataset).search(target, limit, found::add);
+		} else {
+			String cacheKey = QueryCache.key("text", TweetTextSearch.normalize(target));
+			List<Tweet> result = textCache.get(cacheKey);
+			
+			if (result != null) {
+				found.addAll(result.size() > limit ? result.subList(0, limit) : result);
+			} else if (textSearch.search(target, limit, found::add) < limit) {
+				// Fewer tweets than the limit are all matching tweets
+				textCache.put(cacheKey, found, found.size(), generation);
 			}
 		}
+		QUERY_TEXT_MATCH.recordSince(startTime);
+		
+		return Collections.unmodifiableList(found);
+	}
+
+	/**
+	 * Returns the tweets and users read so far, empty if loading has not
+	 * started.
+	 */
+	private LiveDataset partial() {
+		LiveDataset dataset = live;
+		return dataset == null ? new LiveDataset() : dataset;
 	}
 
 	/**
@@ -216,27 +808,20 @@ public class Menu {
 	 * @return true, if successful
 	 */
 	public static boolean match(Tweet tweet, String target) {
-		boolean match = false;
-		String content = tweet.getContent().toLowerCase().trim();
-		String regex = "(.*)" + target.toLowerCase().trim() + "(.*)";
-
-		match = content.matches(regex);
-		return match;
+		return match(tweet.getContent(), target);
 	}
-	
+
 	/**
-	 * The Class ValueComparator, aiming to order a Map by its values rather than keys.
+	 * To check if query string is in the content of a Tweet.
+	 *
+	 * @param content
+	 *            the content of a tweet
+	 * @param target
+	 *            the target
+	 * @return true, if successful
 	 */
-	private static class ValueComparator implements Comparator<Map.Entry<String,Integer>>
-	{
-		
-		/* (non-Javadoc)
-		 * @see java.util.Comparator#compare(java.lang.Object, java.lang.Object)
-		 */
-		public int compare(Map.Entry<String,Integer> m,Map.Entry<String,Integer> n)
-		{
-			return n.getValue()-m.getValue();
-		}
+	public static boolean match(String content, String target) {
+		return TweetTextSearch.compile(target).matches(TweetTextSearch.normalize(content));
 	}
 
 }
@@ -0,0 +1,255 @@
+package service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of query results, so that a query repeated by users is
+ * answered without searching again. It is used by {@link Menu} in front of
+ * the text match and the Lucene search.
+ *
+ * <p>
+ * Results are kept in the order of their last use, and the least recently
+ * used results are evicted when there are more than {@code maxEntries}
+ * results, or the total weight of results is more than {@code maxWeight}. The
+ * weight of a result is given when it is put, for example the number of
+ * tweets in it, so a few huge results could not fill the memory.
+ *
+ * <p>
+ * Cached results are only valid for the data they were computed from, so the
+ * owner must call {@link #invalidate()} after data is reloaded or the index is
+ * committed. A search which is still running on the old data when the cache
+ * is invalidated must not put its result afterwards, so the searching thread
+ * reads {@link #getGeneration()} before it searches and gives it to
+ * {@link #put(String, Object, long, long)}, which drops the result if the
+ * cache was invalidated in between. Hits, misses and evictions are counted.
+ * This class is thread-safe.
+ *
+ * @version 1.0
+ * @param <V>
+ *            the type of results
+ * @see Menu
+ */
+public class QueryCache<V> {
+
+	/** Maximum number of results. */
+	private final int maxEntries;
+
+	/** Maximum total weight of results. */
+	private final long maxWeight;
+
+	/** Results and their weights in the order of last use. */
+	private final LinkedHashMap<String, Entry<V>> entries;
+
+	/** Total weight of results. */
+	private long weight;
+
+	/** Number of results found. */
+	private long hits;
+
+	/** Number of results not found. */
+	private long misses;
+
+	/** Number of results evicted. */
+	private long evictions;
+
+	/** Number of invalidations, see {@link #getGeneration()}. */
+	private long generation;
+
+	/**
+	 * Instantiates a new cache.
+	 *
+	 * @param maxEntries
+	 *            maximum number of results
+	 * @param maxWeight
+	 *            maximum total weight of results
+	 */
+	public QueryCache(int maxEntries, long maxWeight) {
+		this.maxEntries = maxEntries;
+		this.maxWeight = maxWeight;
+		this.entries = new LinkedHashMap<String, Entry<V>>(16, 0.75f, true);
+	}
+
+	/**
+	 * Build the key of a query. The query should already be normalized in the
+	 * same way as the search does, for example trimmed and in lower case for the
+	 * text match, so that queries with the same results have the same key.
+	 *
+	 * @param mode
+	 *            the kind of search, such as "text" or "index"
+	 * @param query
+	 *            the normalized query
+	 * @return the key
+	 */
+	public static String key(String mode, String query) {
+		return mode + ':' + query;
+	}
+
+	/**
+	 * Returns the cached result of a key, which becomes the most recently used.
+	 *
+	 * @param key
+	 *            the key, see {@link #key(String, String)}
+	 * @return the result, or null if it is not cached
+	 */
+	public synchronized V get(String key) {
+		Entry<V> entry = entries.get(key);
+
+		if (entry == null) {
+			misses++;
+			return null;
+		}
+
+		hits++;
+		return entry.value;
+	}
+
+	/**
+	 * Cache the result of a key, least recently used results are evicted if the
+	 * cache is full. A result heavier than the cache is not kept.
+	 *
+	 * @param key
+	 *            the key, see {@link #key(String, String)}
+	 * @param value
+	 *            the result
+	 * @param weight
+	 *            the weight of the result, such as the number of tweets
+	 */
+	public synchronized void put(String key, V value, long weight) {
+		if (weight > maxWeight) {
+			return;
+		}
+
+		Entry<V> old = entries.put(key, new Entry<V>(value, weight));
+		if (old != null) {
+			this.weight -= old.weight;
+		}
+		this.weight += weight;
+
+		Iterator<Map.Entry<String, Entry<V>>> iterator = entries.entrySet().iterator();
+		while ((entries.size() > maxEntries || this.weight > maxWeight) && iterator.hasNext()) {
+			Entry<V> eldest = iterator.next().getValue();
+			iterator.remove();
+			this.weight -= eldest.weight;
+			evictions++;
+		}
+	}
+
+	/**
+	 * Cache the result of a key like {@link #put(String, Object, long)}, only if
+	 * the cache has not been invalidated since the given generation was read.
+	 *
+	 * @param key
+	 *            the key, see {@link #key(String, String)}
+	 * @param value
+	 *            the result
+	 * @param weight
+	 *            the weight of the result, such as the number of tweets
+	 * @param generation
+	 *            the generation read before the result was computed
+	 * @return true, if the cache was not invalidated and the result is put
+	 */
+	public synchronized boolean put(String key, V value, long weight, long generation) {
+		if (generation != this.generation) {
+			return false;
+		}
+
+		put(key, value, weight);
+		return true;
+	}
+
+	/**
+	 * Remove all results, after the data they were computed from is changed.
+	 * Results of searches which started before are not put any more.
+	 */
+	public synchronized void invalidate() {
+		entries.clear();
+		weight = 0;
+		generation++;
+	}
+
+	/**
+	 * Returns the number of invalidations so far, read before searching and
+	 * given to {@link #put(String, Object, long, long)}.
+	 *
+	 * @return the generation
+	 */
+	public synchronized long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Returns the number of results found.
+	 *
+	 * @return the hits
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of results not found.
+	 *
+	 * @return the misses
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Returns the number of results evicted.
+	 *
+	 * @return the evictions
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Returns the number of results cached.
+	 *
+	 * @return the size
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns the total weight of results cached.
+	 *
+	 * @return the weight
+	 */
+	public synchronized long getWeight() {
+		return weight;
+	}
+
+	/*
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public synchronized String toString() {
+		return "QueryCache [size=" + entries.size() + ", weight=" + weight + ", hits=" + hits + ", misses=" + misses
+				+ ", evictions=" + evictions + "]";
+	}
+
+	/**
+	 * A cached result and its weight.
+	 */
+	private static class Entry<V> {
+
+		/** The result */
+		private final V value;
+
+		/** The weight */
+		private final long weight;
+
+		/**
+		 * Instantiates a new entry.
+		 */
+		private Entry(V value, long weight) {
+			this.value = value;
+			this.weight = weight;
+		}
+	}
+}
@@ -0,0 +1,499 @@
+package service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.lucene.queryparser.classic.ParseException;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import dao.NumberParser;
+import entity.Tweet;
+import entity.User;
+import lucene.SearchHit;
+import lucene.SearchOptions;
+import lucene.SearchPage;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+
+/**
+ * <h1>QueryServer</h1> A local HTTP server which answers the same queries as
+ * the options of the menu in JSON, so that several users or programs could
+ * query the data at the same time while the console is still used.
+ *
+ * <p>
+ * The server is the {@code HttpServer} of the JDK, bound to the loopback
+ * address, and requests are answered by a fixed pool of threads. All threads
+ * share the data of one {@link Menu}: its top tweets and users are lists which
+ * are never modified, the text match and the Lucene searcher are thread-safe,
+ * and the results of repeated queries are shared through its query caches.
+ * While the data is loaded in the background, answers are partial in the same
+ * way as in the menu, and {@code "loaded": false} is returned with them.
+ *
+ * <p>
+ * All requests are {@code GET}:
+ * <ul>
+ * <li>{@code /status}: the phase of loading and the progress.</li>
+ * <li>{@code /top/tweets}: the top 10 tweets, like option 1.</li>
+ * <li>{@code /top/users}: the top 10 users, like option 2.</li>
+ * <li>{@code /match?q=<text>&limit=<n>}: the first tweets containing the text,
+ * like option 3.</li>
+ * <li>{@code /search?q=<query>&limit=<n>}: Lucene search ordered by favs and
+ * rts, like option 4, 503 until the first part of the index is
+ * committed.</li>
+ * </ul>
+ * The limit is {@value #DEFAULT_LIMIT} if it is not given, and at most
+ * {@value #MAX_LIMIT}. The JSON of the top tweets and users is built once for
+ * each list and reused. The time of each request is recorded as
+ * {@code http_request}, and requests and errors are counted.
+ *
+ * @version 1.0
+ * @see Menu
+ */
+public class QueryServer implements Closeable {
+
+	/** Default number of threads which answer requests. */
+	public static final int DEFAULT_THREADS = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+	/** Number of tweets or hits returned if no limit is given. */
+	public static final int DEFAULT_LIMIT = SearchOptions.DEFAULT_PAGE_SIZE;
+
+	/** Largest limit which could be asked. */
+	public static final int MAX_LIMIT = 1000;
+
+	/** System property of the JDK server which disables Nagle's algorithm. */
+	private static final String NODELAY = "sun.net.httpserver.nodelay";
+
+	/** Maximum number of connections waiting to be accepted. */
+	private static final int BACKLOG = 1024;
+
+	/** Time of answering each request, including writing the response. */
+	private static final LatencyHistogram REQUEST = MetricsRegistry.getDefault().histogram("http_request");
+
+	/** Number of requests. */
+	private static final LongAdder REQUESTS = MetricsRegistry.getDefault().counter("http_requests");
+
+	/** Number of requests answered with an error status. */
+	private static final LongAdder ERRORS = MetricsRegistry.getDefault().counter("http_errors");
+
+	/** The menu whose data is queried. */
+	private final Menu menu;
+
+	/** The HTTP server. */
+	private final HttpServer server;
+
+	/** Threads which answer requests. */
+	private final ExecutorService executor;
+
+	/** JSON of the last top tweets, built again when the list changes. */
+	private volatile Rendered topTweets = new Rendered(null, null);
+
+	/** JSON of the last top users, built again when the list changes. */
+	private volatile Rendered topUsers = new Rendered(null, null);
+
+	/**
+	 * Instantiates a new server on a port of the loopback address, it does not
+	 * accept requests until it is started.
+	 *
+	 * @param menu
+	 *            the menu whose data is queried
+	 * @param port
+	 *            the port, 0 to use any free port
+	 * @param threads
+	 *            number of threads which answer requests
+	 * @throws IOException
+	 *             If the port cannot be bound
+	 */
+	public QueryServer(Menu menu, int port, int threads) throws IOException {
+		// Headers and body are written separately, with Nagle's algorithm the body
+		// waits for the delayed ACK of the client, about 40ms for each request
+		if (System.getProperty(NODELAY) == null) {
+			System.setProperty(NODELAY, "true");
+		}
+
+		this.menu = menu;
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+
+		AtomicInteger count = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+			Thread thread = new Thread(r, "http-query-" + count.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		server.setExecutor(executor);
+		server.createContext("/", new QueryHandler());
+	}
+
+	/**
+	 * Start to accept requests.
+	 */
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * Returns the port which is bound.
+	 *
+	 * @return the port
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * Stop accepting requests, wait at most one second for the requests which
+	 * are being answered, and stop the threads.
+	 */
+	@Override
+	public void close() {
+		server.stop(1);
+		executor.shutdown();
+
+		try {
+			executor.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Answer one request by its path.
+	 *
+	 * @return the status and JSON of the response
+	 */
+	private Response answer(String path, Map<String, String> params) throws IOException {
+		switch (path) {
+		case "/status":
+			return new Response(200, "{\"phase\": " + quote(menu.getPhase().name()) + ", \"loaded\": "
+					+ menu.isLoaded() + ", \"progress\": " + quote(menu.getProgress()) + "}");
+		case "/top/tweets":
+			return topTweets();
+		case "/top/users":
+			return topUsers();
+		case "/match":
+			return match(params);
+		case "/search":
+			return search(params);
+		default:
+			return error(404, "Not found: " + path);
+		}
+	}
+
+	/**
+	 * Answer the top tweets, the JSON is reused while the list is the same.
+	 */
+	private Response topTweets() {
+		// The list is read first, so that the final list is never marked as partial
+		List<Tweet> tweets = menu.getTopTweets();
+		boolean loaded = menu.isLoaded();
+		Rendered rendered = topTweets;
+
+		if (rendered.source != tweets) {
+			StringBuilder json = new StringBuilder("{\"loaded\": ").append(loaded).append(", \"tweets\": ");
+			appendTweets(json, tweets);
+			rendered = new Rendered(tweets, json.append('}').toString().getBytes(StandardCharsets.UTF_8));
+			topTweets = rendered;
+		}
+
+		return new Response(200, rendered.json);
+	}
+
+	/**
+	 * Answer the top users, the JSON is reused while the list is the same.
+	 */
+	private Response topUsers() {
+		List<User> users = menu.getTopUsers();
+		boolean loaded = menu.isLoaded();
+		Rendered rendered = topUsers;
+
+		if (rendered.source != users) {
+			StringBuilder json = new StringBuilder("{\"loaded\": ").append(loaded).append(", \"users\": [");
+			for (int i = 0; i < users.size(); i++) {
+				User user = users.get(i);
+				json.append(i == 0 ? "" : ", ").append("{\"username\": ").append(quote(user.getUsername()))
+						.append(", \"followers\": ").append(user.getFollowers()).append(", \"tweet_count\": ")
+						.append(user.getTweetCount()).append('}');
+			}
+			rendered = new Rendered(users, json.append("]}").toString().getBytes(StandardCharsets.UTF_8));
+			topUsers = rendered;
+		}
+
+		return new Response(200, rendered.json);
+	}
+
+	/**
+	 * Answer a text match.
+	 */
+	private Response match(Map<String, String> params) {
+		String target = params.get("q");
+		if (target == null || target.trim().isEmpty()) {
+			return error(400, "Missing q");
+		}
+		int limit = limit(params);
+		if (limit < 0) {
+			return error(400, "Invalid limit: " + params.get("limit"));
+		}
+
+		boolean loaded = menu.isLoaded();
+		List<Tweet> tweets = menu.findTweets(target, limit);
+		StringBuilder json = new StringBuilder("{\"query\": ").append(quote(target)).append(", \"loaded\": ")
+				.append(loaded).append(", \"count\": ").append(tweets.size()).append(", \"tweets\": ");
+		appendTweets(json, tweets);
+
+		return new Response(200, json.append('}').toString());
+	}
+
+	/**
+	 * Answer a Lucene search.
+	 */
+	private Response search(Map<String, String> params) throws IOException {
+		String query = params.get("q");
+		if (query == null || query.trim().isEmpty()) {
+			return error(400, "Missing q");
+		}
+		int limit = limit(params);
+		if (limit < 0) {
+			return error(400, "Invalid limit: " + params.get("limit"));
+		}
+
+		SearchPage page;
+		try {
+			page = menu.searchIndex(query, limit);
+		} catch (ParseException e) {
+			return error(400, "Invalid query: " + e.getMessage());
+		}
+		if (page == null) {
+			return error(503, "Quick search is not ready until the first part of the index is written");
+		}
+
+		StringBuilder json = new StringBuilder("{\"query\": ").append(quote(query)).append(", \"total_hits\": ")
+				.append(page.getTotalHits()).append(", \"exact\": ").append(page.isExact()).append(", \"hits\": [");
+		List<SearchHit> hits = page.getHits();
+		for (int i = 0; i < hits.size(); i++) {
+			SearchHit hit = hits.get(i);
+			json.append(i == 0 ? "" : ", ").append("{\"id\": ").append(quote(hit.getId())).append(", \"username\": ")
+					.append(quote(hit.getUsername())).append(", \"content\": ").append(quote(hit.getContent()))
+					.append(", \"engagement\": ").append(hit.getEngagement()).append('}');
+		}
+
+		return new Response(200, json.append("]}").toString());
+	}
+
+	/**
+	 * Returns the limit of a request.
+	 *
+	 * @return the limit, -1 if it is not valid
+	 */
+	private static int limit(Map<String, String> params) {
+		String value = params.get("limit");
+		if (value == null) {
+			return DEFAULT_LIMIT;
+		}
+
+		int limit = NumberParser.parseInt(value);
+		return limit > 0 && limit <= MAX_LIMIT ? limit : -1;
+	}
+
+	/**
+	 * Append tweets as a JSON array.
+	 */
+	private static void appendTweets(StringBuilder json, List<Tweet> tweets) {
+		json.append('[');
+		for (int i = 0; i < tweets.size(); i++) {
+			Tweet t = tweets.get(i);
+			json.append(i == 0 ? "" : ", ").append("{\"id\": ").append(quote(t.getId())).append(", \"date\": ")
+					.append(quote(t.getDate())).append(", \"hour\": ").append(quote(t.getHour()))
+					.append(", \"username\": ").append(quote(t.getUsername())).append(", \"nickname\": ")
+					.append(quote(t.getNickname())).append(", \"content\": ").append(quote(t.getContent()))
+					.append(", \"favs\": ").append(t.getFavs()).append(", \"rts\": ").append(t.getRts())
+					.append(", \"latitude\": ").append(quote(t.getLatitude())).append(", \"longitude\": ")
+					.append(quote(t.getLongitude())).append(", \"followers\": ").append(t.getFollowers())
+					.append('}');
+		}
+		json.append(']');
+	}
+
+	/**
+	 * Returns an error response.
+	 */
+	private static Response error(int status, String message) {
+		return new Response(status, "{\"error\": " + quote(message) + "}");
+	}
+
+	/**
+	 * Parse the parameters of a query string, a later parameter replaces an
+	 * earlier one with the same name. Returns null if the query string has an
+	 * invalid escape, like {@code %zz}.
+	 */
+	static Map<String, String> parseQuery(String rawQuery) {
+		Map<String, String> params = new HashMap<String, String>();
+		if (rawQuery == null || rawQuery.isEmpty()) {
+			return params;
+		}
+
+		for (String pair : rawQuery.split("&")) {
+			int equals = pair.indexOf('=');
+			String name = equals < 0 ? pair : pair.substring(0, equals);
+			String value = equals < 0 ? "" : pair.substring(equals + 1);
+			try {
+				params.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+						URLDecoder.decode(value, StandardCharsets.UTF_8));
+			} catch (IllegalArgumentException e) {
+				return null;
+			}
+		}
+
+		return params;
+	}
+
+	/**
+	 * Quote a String for JSON, null is written as null.
+	 *
+	 * @param value
+	 *            the value
+	 * @return the JSON string
+	 */
+	public static String quote(String value) {
+		if (value == null) {
+			return "null";
+		}
+
+		StringBuilder json = new StringBuilder(value.length() + 2).append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				json.append("\\\"");
+				break;
+			case '\\':
+				json.append("\\\\");
+				break;
+			case '\n':
+				json.append("\\n");
+				break;
+			case '\r':
+				json.append("\\r");
+				break;
+			case '\t':
+				json.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					json.append(String.format("\\u%04x", (int) c));
+				} else {
+					json.append(c);
+				}
+			}
+		}
+
+		return json.append('"').toString();
+	}
+
+	/**
+	 * Answers every path, only GET is allowed.
+	 */
+	private class QueryHandler implements HttpHandler {
+
+		/*
+		 * @see com.sun.net.httpserver.HttpHandler#handle(com.sun.net.httpserver.HttpExchange)
+		 */
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			long startTime = System.nanoTime();
+			Response response;
+
+			try {
+				if (!"GET".equals(exchange.getRequestMethod())) {
+					response = error(405, "Only GET is allowed");
+				} else {
+					Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+					response = params == null ? error(400, "Invalid escape in the query string")
+							: answer(exchange.getRequestURI().getPath(), params);
+				}
+			} catch (IOException | RuntimeException e) {
+				// The client only gets a generic message, the details are logged here
+				System.out.println("Fail to answer " + exchange.getRequestURI() + ": " + e);
+				e.printStackTrace();
+				response = error(500, "Internal error");
+			}
+
+			try {
+				exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+				exchange.sendResponseHeaders(response.status, response.json.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(response.json);
+				}
+			} finally {
+				exchange.close();
+				REQUESTS.increment();
+				if (response.status >= 400) {
+					ERRORS.increment();
+				}
+				REQUEST.recordSince(startTime);
+			}
+		}
+	}
+
+	/**
+	 * Status and JSON of a response.
+	 */
+	private static class Response {
+
+		/** The HTTP status. */
+		private final int status;
+
+		/** The JSON in UTF-8. */
+		private final byte[] json;
+
+		/**
+		 * Instantiates a new response from its JSON text.
+		 */
+		private Response(int status, String json) {
+			this(status, json.getBytes(StandardCharsets.UTF_8));
+		}
+
+		/**
+		 * Instantiates a new response from its JSON bytes.
+		 */
+		private Response(int status, byte[] json) {
+			this.status = status;
+			this.json = json;
+		}
+	}
+
+	/**
+	 * JSON built from a list, which is reused while the list is the same object.
+	 */
+	private static class Rendered {
+
+		/** The list which was rendered. */
+		private final Object source;
+
+		/** The JSON in UTF-8. */
+		private final byte[] json;
+
+		/**
+		 * Instantiates a new rendered list.
+		 */
+		private Rendered(Object source, byte[] json) {
+			this.source = source;
+			this.json = json;
+		}
+	}
+}
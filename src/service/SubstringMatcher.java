@@ -0,0 +1,122 @@
+package service;
+
+import java.util.Arrays;
+
+/**
+ * This class finds a literal pattern in texts with the Boyer-Moore-Horspool
+ * algorithm. The pattern is compiled once, then the matcher could be used for
+ * any number of texts without creating objects.
+ *
+ * <p>
+ * The pattern is matched character by character, nothing in it has a special
+ * meaning, so input like {@code c++} or {@code (} is searched as it is. For
+ * each mismatch, the text is shifted by the distance between the last
+ * occurrence of the current character in the pattern and the end of the
+ * pattern, so long patterns skip most of the text.
+ *
+ * <p>
+ * The shift table has 256 entries indexed by the lowest 8 bits of a character.
+ * Characters sharing an entry keep the smallest shift of them, so the shift is
+ * never too big for any character.
+ *
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @version 1.0
+ * @see TweetTextSearch
+ */
+public final class SubstringMatcher {
+
+	/** Size of the shift table. */
+	private static final int TABLE_SIZE = 256;
+
+	/** The pattern. */
+	private final char[] pattern;
+
+	/** Distance to shift for the last character of each window. */
+	private final int[] shift;
+
+	/**
+	 * Compile a pattern.
+	 *
+	 * @param pattern
+	 *            the literal pattern
+	 */
+	public SubstringMatcher(String pattern) {
+		this.pattern = pattern.toCharArray();
+		this.shift = new int[TABLE_SIZE];
+
+		int last = this.pattern.length - 1;
+		Arrays.fill(shift, Math.max(1, this.pattern.length));
+
+		for (int i = 0; i < last; i++) {
+			int slot = this.pattern[i] & (TABLE_SIZE - 1);
+			shift[slot] = Math.min(shift[slot], last - i);
+		}
+	}
+
+	/**
+	 * Gets the pattern.
+	 *
+	 * @return the pattern
+	 */
+	public String getPattern() {
+		return new String(pattern);
+	}
+
+	/**
+	 * Check if the pattern is in a text.
+	 *
+	 * @param text
+	 *            the text
+	 * @return true, if the text contains the pattern
+	 */
+	public boolean matches(CharSequence text) {
+		return indexOf(text) >= 0;
+	}
+
+	/**
+	 * Find the first occurrence of the pattern in a text.
+	 *
+	 * @param text
+	 *            the text
+	 * @return index of the first occurrence, or -1 if not found
+	 */
+	public int indexOf(CharSequence text) {
+		int m = pattern.length;
+		int n = text.length();
+
+		if (m == 0) {
+			return 0;
+		}
+
+		int last = m - 1;
+		char lastChar = pattern[last];
+
+		for (int start = 0; start <= n - m;) {
+			char c = text.charAt(start + last);
+
+			if (c == lastChar && regionMatches(text, start, last)) {
+				return start;
+			}
+
+			start += shift[c & (TABLE_SIZE - 1)];
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Compare the first count characters of the pattern with the text from the
+	 * given position.
+	 */
+	private boolean regionMatches(CharSequence text, int start, int count) {
+		for (int i = 0; i < count; i++) {
+			if (text.charAt(start + i) != pattern[i]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
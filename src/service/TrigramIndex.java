@@ -0,0 +1,293 @@
+package service;
+
+import java.util.Arrays;
+
+/**
+ * An in-memory inverted index from trigrams (3 consecutive characters) to the
+ * rows whose content contains them, used by {@link TweetTextSearch} to find
+ * any substring of at least 3 characters without scanning all contents.
+ *
+ * <p>
+ * A target such as {@code "ucen"} contains the trigrams {@code "uce"} and
+ * {@code "cen"}, so only rows having both of them could match. Their posting
+ * lists are intersected, and each candidate is verified with the
+ * {@link SubstringMatcher}, because the trigrams may appear at different
+ * places of a row.
+ *
+ * <p>
+ * All posting lists are kept in one {@code int[]} of row indexes in ascending
+ * order, the list of trigram {@code t} is between {@code offsets[t]} and
+ * {@code offsets[t + 1]}. Trigrams are mapped to their numbers by a hash table
+ * of primitive arrays, so the index does not create an object for each trigram
+ * or row. The index is built from contents already normalized by
+ * {@link TweetTextSearch#normalize(String)} and it is not changed afterwards,
+ * so it is thread-safe.
+ *
+ * @version 1.0
+ * @see TweetTextSearch
+ */
+public class TrigramIndex {
+
+	/** Number of characters of a gram. */
+	public static final int GRAM = 3;
+
+	/** Key of an empty slot of the hash table. */
+	private static final long EMPTY = -1;
+
+	/** Trigram of each slot of the hash table, EMPTY if the slot is not used. */
+	private long[] keys;
+
+	/** Number of the trigram of each slot of the hash table. */
+	private int[] ids;
+
+	/** Number of distinct trigrams. */
+	private int size;
+
+	/** Start of the posting list of each trigram in postings, and the end. */
+	private int[] offsets;
+
+	/** Row indexes of all posting lists. */
+	private int[] postings;
+
+	/**
+	 * Build the index of normalized contents.
+	 *
+	 * @param contents
+	 *            normalized content of each row
+	 */
+	public TrigramIndex(String[] contents) {
+		keys = new long[1 << 16];
+		ids = new int[keys.length];
+		Arrays.fill(keys, EMPTY);
+
+		// First pass: number the trigrams and count rows of each trigram
+		int[] counts = new int[1 << 12];
+		int[] lastRow = new int[counts.length];
+		Arrays.fill(lastRow, -1);
+
+		for (int row = 0; row < contents.length; row++) {
+			String content = contents[row];
+
+			for (int i = 0; i + GRAM <= content.length(); i++) {
+				int id = add(key(content, i));
+
+				if (id == counts.length) {
+					counts = Arrays.copyOf(counts, id * 2);
+					lastRow = Arrays.copyOf(lastRow, id * 2);
+					Arrays.fill(lastRow, id, lastRow.length, -1);
+				}
+
+				// A trigram repeated in one row is counted once
+				if (lastRow[id] != row) {
+					lastRow[id] = row;
+					counts[id]++;
+				}
+			}
+		}
+
+		offsets = new int[size + 1];
+		for (int id = 0; id < size; id++) {
+			offsets[id + 1] = offsets[id] + counts[id];
+		}
+
+		// Second pass: fill the posting lists, rows are added in ascending order
+		postings = new int[offsets[size]];
+		int[] next = Arrays.copyOf(offsets, size);
+		Arrays.fill(lastRow, -1);
+
+		for (int row = 0; row < contents.length; row++) {
+			String content = contents[row];
+
+			for (int i = 0; i + GRAM <= content.length(); i++) {
+				int id = find(key(content, i));
+
+				if (lastRow[id] != row) {
+					lastRow[id] = row;
+					postings[next[id]++] = row;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Find the candidate rows of a target, all trigrams of the target are in
+	 * these rows. Rows still need to be verified.
+	 *
+	 * @param target
+	 *            the normalized target, at least {@link #GRAM} characters
+	 * @return candidate rows in ascending order
+	 */
+	public int[] candidates(String target) {
+		int grams = target.length() - GRAM + 1;
+		if (grams <= 0) {
+			throw new IllegalArgumentException("Target is shorter than " + GRAM + " characters: " + target);
+		}
+
+		int[] terms = new int[grams];
+		int count = 0;
+
+		for (int i = 0; i < grams; i++) {
+			int id = find(key(target, i));
+			if (id < 0) {
+				// No row has this trigram
+				return new int[0];
+			}
+			terms[count++] = id;
+		}
+
+		// Intersect the shortest lists first
+		Integer[] order = new Integer[count];
+		for (int i = 0; i < count; i++) {
+			order[i] = terms[i];
+		}
+		Arrays.sort(order, (a, b) -> length(a) != length(b) ? Integer.compare(length(a), length(b))
+				: Integer.compare(a, b));
+
+		int[] result = Arrays.copyOfRange(postings, offsets[order[0]], offsets[order[0] + 1]);
+		int resultSize = result.length;
+
+		for (int i = 1; i < count && resultSize > 0; i++) {
+			if (order[i].equals(order[i - 1])) {
+				continue;
+			}
+			resultSize = intersect(result, resultSize, order[i]);
+		}
+
+		return Arrays.copyOf(result, resultSize);
+	}
+
+	/**
+	 * Keep the rows of the result which are also in the list of a trigram. The
+	 * result is changed in place.
+	 *
+	 * @return the new size of the result
+	 */
+	private int intersect(int[] result, int resultSize, int id) {
+		int position = offsets[id];
+		int end = offsets[id + 1];
+		int kept = 0;
+
+		for (int i = 0; i < resultSize && position < end; i++) {
+			int row = result[i];
+
+			// Skip rows before this one by exponential search, as the list is longer
+			int bound = 1;
+			while (position + bound < end && postings[position + bound] < row) {
+				bound <<= 1;
+			}
+
+			int found = Arrays.binarySearch(postings, position, Math.min(position + bound + 1, end), row);
+			if (found >= 0) {
+				result[kept++] = row;
+				position = found + 1;
+			} else {
+				position = -found - 1;
+			}
+		}
+
+		return kept;
+	}
+
+	/**
+	 * Returns the number of rows of a trigram.
+	 */
+	private int length(int id) {
+		return offsets[id + 1] - offsets[id];
+	}
+
+	/**
+	 * Pack 3 characters from the given position into one key.
+	 */
+	private static long key(CharSequence text, int i) {
+		return ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+	}
+
+	/**
+	 * Returns the slot of a key in the hash table, which holds the key or is
+	 * empty.
+	 */
+	private int slot(long key) {
+		int mask = keys.length - 1;
+		int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+
+		while (keys[slot] != EMPTY && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+
+		return slot;
+	}
+
+	/**
+	 * Returns the number of a trigram, a new number is given to a new trigram.
+	 */
+	private int add(long key) {
+		int slot = slot(key);
+
+		if (keys[slot] == EMPTY) {
+			if ((size + 1) * 2 > keys.length) {
+				grow();
+				slot = slot(key);
+			}
+			keys[slot] = key;
+			ids[slot] = size++;
+		}
+
+		return ids[slot];
+	}
+
+	/**
+	 * Returns the number of a trigram, or -1 if it is not in the index.
+	 */
+	private int find(long key) {
+		int slot = slot(key);
+		return keys[slot] == EMPTY ? -1 : ids[slot];
+	}
+
+	/**
+	 * Double the size of the hash table.
+	 */
+	private void grow() {
+		long[] oldKeys = keys;
+		int[] oldIds = ids;
+
+		keys = new long[oldKeys.length * 2];
+		ids = new int[keys.length];
+		Arrays.fill(keys, EMPTY);
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				int slot = slot(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				ids[slot] = oldIds[i];
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of distinct trigrams.
+	 *
+	 * @return the number of trigrams
+	 */
+	public int getTrigramCount() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of entries of all posting lists.
+	 *
+	 * @return the number of postings
+	 */
+	public int getPostingCount() {
+		return postings.length;
+	}
+
+	/**
+	 * Returns the memory used by the arrays of this index.
+	 *
+	 * @return size in bytes
+	 */
+	public long getMemoryBytes() {
+		return (long) keys.length * Long.BYTES + (long) ids.length * Integer.BYTES
+				+ (long) offsets.length * Integer.BYTES + (long) postings.length * Integer.BYTES;
+	}
+}
@@ -0,0 +1,413 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import dao.ColumnarTweetStore;
+import entity.Tweet;
+
+/**
+ * This class searches a literal text in the contents of all tweets loaded from
+ * the excel file, used by {@link Menu#textMatch(String)}.
+ *
+ * <p>
+ * The content of each tweet is turned into lower case once when this class is
+ * created, so a search only compiles the target into one
+ * {@link SubstringMatcher} and runs it over the prepared contents. The target
+ * is trimmed and turned into lower case in the same way, and it is searched
+ * literally, so characters such as {@code +} or {@code (} have no special
+ * meaning.
+ *
+ * <p>
+ * Matching tweets are given to a consumer one by one in the order of the excel
+ * rows, so results could be printed while the search goes on. For a
+ * {@link ColumnarTweetStore}, Tweet objects are only created for matching rows.
+ * 
+ * <p>
+ * With a parallelism above 1, the contents are split into chunks which are
+ * scanned on a fork/join pool. Matches of each chunk are kept as row indexes
+ * and given to the consumer in the order of chunks after the scan, so the
+ * result is the same as a serial scan. If only the first N matches are
+ * needed, a chunk stops after N matches, and chunks after a chunk which
+ * already has N matches are skipped.
+ * 
+ * <p>
+ * Optionally a {@link TrigramIndex} of the contents is built, then targets of
+ * at least 3 characters only verify the rows having all trigrams of the
+ * target, instead of scanning all contents.
+ *
+ * @version 1.0
+ * @see SubstringMatcher
+ * @see Menu
+ */
+public class TweetTextSearch implements AutoCloseable {
+
+	/** Minimum number of tweets in one chunk of a parallel scan. */
+	private static final int MIN_CHUNK = 4096;
+
+	/** Number of chunks for each thread, so that threads finish at similar time. */
+	private static final int CHUNKS_PER_THREAD = 8;
+
+	/** All tweets in the order of excel rows. */
+	private final List<Tweet> tweets;
+
+	/** Normalized content of each tweet, see {@link #normalize(String)}. */
+	private final String[] contents;
+
+	/** Number of threads which scan contents. */
+	private final int parallelism;
+
+	/** The pool of threads, null if contents are scanned serially. */
+	private final ForkJoinPool pool;
+
+	/** Index of trigrams of the contents, null if it is not built. */
+	private final TrigramIndex index;
+
+	/**
+	 * Instantiates a new search and prepare the contents of all tweets, contents
+	 * are scanned with one thread for each core.
+	 *
+	 * @param tweets
+	 *            all tweets
+	 */
+	public TweetTextSearch(List<Tweet> tweets) {
+		this(tweets, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Instantiates a new search and prepare the contents of all tweets.
+	 *
+	 * @param tweets
+	 *            all tweets
+	 * @param parallelism
+	 *            number of threads which scan contents, 1 to scan serially
+	 */
+	public TweetTextSearch(List<Tweet> tweets, int parallelism) {
+		this(tweets, parallelism, false);
+	}
+
+	/**
+	 * Instantiates a new search, prepare the contents of all tweets and
+	 * optionally build their trigram index.
+	 *
+	 * @param tweets
+	 *            all tweets
+	 * @param parallelism
+	 *            number of threads which scan contents, 1 to scan serially
+	 * @param indexed
+	 *            true to build a {@link TrigramIndex}
+	 */
+	public TweetTextSearch(List<Tweet> tweets, int parallelism, boolean indexed) {
+		this(tweets, null, parallelism, indexed);
+	}
+
+	/**
+	 * Instantiates a new search with contents which are already normalized, like
+	 * the ones kept by {@link LiveDataset} while the data is loaded, and
+	 * optionally build their trigram index.
+	 *
+	 * @param tweets
+	 *            all tweets
+	 * @param contents
+	 *            normalized content of each tweet in the same order, null to
+	 *            normalize them here
+	 * @param parallelism
+	 *            number of threads which scan contents, 1 to scan serially
+	 * @param indexed
+	 *            true to build a {@link TrigramIndex}
+	 * @throws IllegalArgumentException
+	 *             If the number of contents is not the number of tweets
+	 */
+	public TweetTextSearch(List<Tweet> tweets, String[] contents, int parallelism, boolean indexed) {
+		if (contents != null && contents.length != tweets.size()) {
+			throw new IllegalArgumentException(
+					contents.length + " contents are given for " + tweets.size() + " tweets");
+		}
+
+		this.tweets = tweets instanceof RandomAccess ? tweets : new ArrayList<Tweet>(tweets);
+		this.contents = contents != null ? contents : normalizeAll(this.tweets);
+		this.index = indexed ? new TrigramIndex(this.contents) : null;
+		this.parallelism = Math.max(1, parallelism);
+		this.pool = this.parallelism > 1 ? new ForkJoinPool(this.parallelism) : null;
+	}
+
+	/**
+	 * Normalize the contents of all tweets, see {@link #normalize(String)}.
+	 *
+	 * @param tweets
+	 *            all tweets
+	 * @return the normalized content of each tweet in the same order
+	 */
+	public static String[] normalizeAll(List<Tweet> tweets) {
+		String[] contents = new String[tweets.size()];
+
+		if (tweets instanceof ColumnarTweetStore) {
+			// Only read the content column
+			ColumnarTweetStore store = (ColumnarTweetStore) tweets;
+			for (int i = 0; i < contents.length; i++) {
+				contents[i] = normalize(store.getContent(i));
+			}
+		} else if (tweets instanceof RandomAccess) {
+			for (int i = 0; i < contents.length; i++) {
+				contents[i] = normalize(tweets.get(i).getContent());
+			}
+		} else {
+			int i = 0;
+			for (Tweet tweet : tweets) {
+				contents[i++] = normalize(tweet.getContent());
+			}
+		}
+
+		return contents;
+	}
+
+	/**
+	 * Normalize a content or a target, it is trimmed and turned into lower case.
+	 *
+	 * @param text
+	 *            the text, could be null
+	 * @return the normalized text, empty if the text is null
+	 */
+	public static String normalize(String text) {
+		return text == null ? "" : text.toLowerCase().trim();
+	}
+
+	/**
+	 * Compile a target into a matcher of normalized contents.
+	 *
+	 * @param target
+	 *            the target
+	 * @return the matcher
+	 */
+	public static SubstringMatcher compile(String target) {
+		return new SubstringMatcher(normalize(target));
+	}
+
+	/**
+	 * Search the target in all tweets, and give each matching tweet to the
+	 * consumer in the order of excel rows.
+	 *
+	 * @param target
+	 *            the target
+	 * @param consumer
+	 *            receives the matching tweets
+	 * @return number of matching tweets
+	 */
+	public int search(String target, Consumer<Tweet> consumer) {
+		return search(target, Integer.MAX_VALUE, consumer);
+	}
+
+	/**
+	 * Search the target in all tweets, and give the first matching tweets to the
+	 * consumer in the order of excel rows.
+	 *
+	 * @param target
+	 *            the target
+	 * @param limit
+	 *            maximum number of matching tweets needed
+	 * @param consumer
+	 *            receives the matching tweets
+	 * @return number of matching tweets given to the consumer
+	 */
+	public int search(String target, int limit, Consumer<Tweet> consumer) {
+		SubstringMatcher matcher = compile(target);
+
+		if (limit <= 0) {
+			return 0;
+		}
+
+		if (index != null && matcher.getPattern().length() >= TrigramIndex.GRAM) {
+			return verifyCandidates(matcher, limit, consumer);
+		}
+
+		if (pool == null || contents.length < MIN_CHUNK * 2) {
+			return scanSerially(matcher, limit, consumer);
+		}
+
+		int chunkSize = Math.max(MIN_CHUNK, contents.length / (parallelism * CHUNKS_PER_THREAD) + 1);
+		int chunks = (contents.length + chunkSize - 1) / chunkSize;
+		int[][] matches = new int[chunks][];
+
+		pool.invoke(new ChunkScan(matcher, limit, chunkSize, matches, new AtomicInteger(chunks), 0, chunks));
+
+		// Give matches in the order of chunks
+		int count = 0;
+		for (int c = 0; c < chunks && count < limit; c++) {
+			if (matches[c] == null) {
+				break;
+			}
+			for (int i = 0; i < matches[c].length && count < limit; i++) {
+				consumer.accept(tweets.get(matches[c][i]));
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Verify the candidate rows of the trigram index on the calling thread.
+	 */
+	private int verifyCandidates(SubstringMatcher matcher, int limit, Consumer<Tweet> consumer) {
+		int count = 0;
+
+		for (int row : index.candidates(matcher.getPattern())) {
+			if (count == limit) {
+				break;
+			}
+			if (matcher.matches(contents[row])) {
+				consumer.accept(tweets.get(row));
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Scan all contents on the calling thread.
+	 */
+	private int scanSerially(SubstringMatcher matcher, int limit, Consumer<Tweet> consumer) {
+		int count = 0;
+
+		for (int i = 0; i < contents.length && count < limit; i++) {
+			if (matcher.matches(contents[i])) {
+				consumer.accept(tweets.get(i));
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Gets the number of threads which scan contents.
+	 *
+	 * @return the parallelism
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Gets the trigram index.
+	 *
+	 * @return the index, null if it is not built
+	 */
+	public TrigramIndex getIndex() {
+		return index;
+	}
+
+	/**
+	 * Stop the threads of parallel scans.
+	 */
+	@Override
+	public void close() {
+		if (pool != null) {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Returns the number of tweets.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return contents.length;
+	}
+
+	/**
+	 * Scans a range of chunks, the range is split in halves until one chunk is
+	 * left. Matches of chunk {@code c} are written into {@code matches[c]}, chunks
+	 * after {@code cutoff} are left null.
+	 */
+	private class ChunkScan extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		/** The matcher of the target */
+		private final SubstringMatcher matcher;
+
+		/** Maximum number of matches needed */
+		private final int limit;
+
+		/** Number of contents in one chunk */
+		private final int chunkSize;
+
+		/** Matching row indexes of each chunk */
+		private final int[][] matches;
+
+		/** First chunk which alone has enough matches, chunks after it are skipped */
+		private final AtomicInteger cutoff;
+
+		/** First chunk of this range */
+		private final int from;
+
+		/** Chunk after the last one of this range */
+		private final int to;
+
+		/**
+		 * Instantiates a new scan of chunks.
+		 */
+		private ChunkScan(SubstringMatcher matcher, int limit, int chunkSize, int[][] matches, AtomicInteger cutoff,
+				int from, int to) {
+			this.matcher = matcher;
+			this.limit = limit;
+			this.chunkSize = chunkSize;
+			this.matches = matches;
+			this.cutoff = cutoff;
+			this.from = from;
+			this.to = to;
+		}
+
+		/*
+		 * @see java.util.concurrent.RecursiveAction#compute()
+		 */
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new ChunkScan(matcher, limit, chunkSize, matches, cutoff, from, middle),
+						new ChunkScan(matcher, limit, chunkSize, matches, cutoff, middle, to));
+				return;
+			}
+
+			scanChunk(from);
+		}
+
+		/**
+		 * Scan one chunk, unless an earlier chunk already has enough matches.
+		 */
+		private void scanChunk(int chunk) {
+			int[] found = new int[16];
+			int count = 0;
+			int end = Math.min(contents.length, (chunk + 1) * chunkSize);
+
+			for (int i = chunk * chunkSize; i < end && count < limit; i++) {
+				if (chunk > cutoff.get()) {
+					return;
+				}
+
+				if (matcher.matches(contents[i])) {
+					if (count == found.length) {
+						found = Arrays.copyOf(found, count * 2);
+					}
+					found[count++] = i;
+				}
+			}
+
+			matches[chunk] = Arrays.copyOf(found, count);
+
+			if (count >= limit) {
+				cutoff.accumulateAndGet(chunk, Math::min);
+			}
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import dao.ColumnarTweetDAOImpl;
+import dao.ColumnarTweetStore;
+import dao.StringRowView;
+import dao.TweetDAOImpl;
+import dao.UserDAOImpl;
+import entity.Tweet;
+
+public class ColumnarTweetStoreTest {
+	private TweetDAOImpl tweetDAO;
+	private ColumnarTweetDAOImpl columnarDAO;
+
+	@Before
+	public void setUp() {
+		tweetDAO = new TweetDAOImpl();
+		columnarDAO = new ColumnarTweetDAOImpl();
+		Random random = new Random(7);
+
+		for (int i = 0; i < 3000; i++) {
+			String[] row = { "id" + i, "2019-03-" + (1 + random.nextInt(28)), "1" + random.nextInt(10) + ":00",
+					"user" + random.nextInt(50), "nick", "content " + i, "" + random.nextInt(500),
+					"" + random.nextInt(500), i % 5 == 0 ? "" : "-33.25", i % 5 == 0 ? "" : "151.5",
+					"" + random.nextInt(10000) };
+			tweetDAO.handle_row(row);
+			columnarDAO.handle_row(row);
+		}
+	}
+
+	@Test
+	public void testSameTweets() {
+		List<Tweet> tweets = tweetDAO.getTweets();
+		ColumnarTweetStore store = columnarDAO.getStore();
+
+		assertEquals(tweets.size(), store.size());
+		for (int i = 0; i < tweets.size(); i++) {
+			assertEquals(tweets.get(i).toString(), store.get(i).toString());
+		}
+		assertEquals(50, store.getUsernameCount());
+	}
+
+	@Test
+	public void testSameTopTweets() {
+		for (int k : new int[] { 0, 1, 10, 150, 5000 }) {
+			List<Tweet> expected = tweetDAO.getTopTweets(k);
+			List<Tweet> actual = columnarDAO.getTopTweets(k);
+
+			assertEquals(expected.size(), actual.size());
+			for (int i = 0; i < expected.size(); i++) {
+				assertEquals(expected.get(i).toString(), actual.get(i).toString());
+			}
+		}
+	}
+
+	@Test
+	public void testNegativeTopTweets() {
+		assertTrue(tweetDAO.getTopTweets(0).isEmpty());
+		assertTrue(columnarDAO.getTopTweets(0).isEmpty());
+
+		List<Runnable> calls = Arrays.asList(() -> tweetDAO.getTopTweets(-1), () -> columnarDAO.getTopTweets(-1),
+				() -> columnarDAO.getStore().topIndexes(-5), () -> new UserDAOImpl().getTopUsers(-1));
+		for (Runnable call : calls) {
+			try {
+				call.run();
+				fail();
+			} catch (IllegalArgumentException e) {
+				assertTrue(e.getMessage(), e.getMessage().startsWith("K must not be negative"));
+			}
+		}
+	}
+
+	@Test
+	public void testMerge() {
+		ColumnarTweetDAOImpl other = new ColumnarTweetDAOImpl();
+		other.handle_row(new String[] { "x", "d", "h", "someone", "n", "c", "1", "2", "", "", "3" });
+
+		columnarDAO.merge(other);
+
+		ColumnarTweetStore store = columnarDAO.getStore();
+		assertEquals(3001, store.size());
+		assertEquals("someone", store.getUsername(3000));
+		assertEquals(3, store.getEngagement(3000));
+	}
+
+	@Test
+	public void testCoordinateTextIsKept() {
+		String[] coordinates = { "51.5074", "-0.1275", "151", "151.0", "51.50", "1e-5", "0.0001", "-0.0", " 51.5",
+				"abc", "", "12345678901234567890" };
+		ColumnarTweetDAOImpl fromArrays = new ColumnarTweetDAOImpl();
+		ColumnarTweetDAOImpl fromViews = new ColumnarTweetDAOImpl();
+		StringRowView view = new StringRowView();
+
+		for (int i = 0; i < coordinates.length; i++) {
+			String[] row = { "id" + i, "d", "h", "u", "n", "c", "1", "2", coordinates[i],
+					coordinates[coordinates.length - 1 - i], "3" };
+			fromArrays.handle_row(row);
+			view.clear();
+			for (int c = 0; c < row.length; c++) {
+				view.set(c, row[c]);
+			}
+			fromViews.handle_row(view);
+		}
+		ColumnarTweetDAOImpl merged = new ColumnarTweetDAOImpl();
+		merged.merge(fromArrays);
+
+		for (ColumnarTweetDAOImpl dao : new ColumnarTweetDAOImpl[] { fromArrays, fromViews, merged }) {
+			ColumnarTweetStore store = dao.getStore();
+			for (int i = 0; i < coordinates.length; i++) {
+				assertEquals(coordinates[i], store.get(i).getLatitude());
+				assertEquals(coordinates[coordinates.length - 1 - i], store.get(i).getLongitude());
+			}
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.Test;
+
+import service.Config;
+import service.Menu;
+
+public class ConfigTest {
+
+	@Test
+	public void testDefaults() throws IOException {
+		Config config = Config.load(new String[0], new HashMap<String, String>(), new Properties());
+		assertEquals(Config.DEFAULT_DATASET, config.getDataset());
+		assertEquals(Config.DEFAULT_INDEX_DIR, config.getIndexDir());
+		assertEquals(Config.DEFAULT_SNAPSHOT, config.getSnapshot());
+		assertTrue(config.getIngestWorkers() >= 1);
+		assertTrue(config.isColumnar());
+		assertNull(config.getMetrics());
+		assertEquals(0, config.getHttpPort());
+		assertTrue(config.getHttpThreads() >= 1);
+
+		// Relative to the working directory
+		assertFalse(new File(Config.DEFAULT_DATASET).isAbsolute());
+		assertFalse(new File(Config.DEFAULT_INDEX_DIR).isAbsolute());
+		assertFalse(new File(Config.DEFAULT_SNAPSHOT).isAbsolute());
+	}
+
+	@Test
+	public void testMissingDataset() throws Exception {
+		Config config = new Config();
+		config.setDataset(new File(System.getProperty("java.io.tmpdir"), "missing-dataset.xlsx").getPath());
+
+		try {
+			new Menu(config).init();
+			fail("A missing dataset is not reported");
+		} catch (FileNotFoundException e) {
+			assertTrue(e.getMessage().contains("--dataset"));
+		}
+	}
+
+	@Test
+	public void testLaterSourcesWin() throws IOException {
+		File file = File.createTempFile("excel-reader", ".properties");
+		file.deleteOnExit();
+		try (Writer writer = new FileWriter(file)) {
+			writer.write("dataset=/file/data\nindex.dir=/file/index\nsnapshot=/file/snapshot\ningest.workers=2\n");
+		}
+
+		Map<String, String> env = new HashMap<String, String>();
+		env.put("EXCEL_READER_INDEX_DIR", "/env/index");
+		env.put("EXCEL_READER_SNAPSHOT", "/env/snapshot");
+		env.put("EXCEL_READER_INGEST_WORKERS", "3");
+		env.put("EXCEL_READER_HTTP_PORT", "8080");
+
+		Properties system = new Properties();
+		system.setProperty("excelreader.snapshot", "/system/snapshot");
+		system.setProperty("excelreader.ingest.workers", "4");
+
+		Config config = Config.load(
+				new String[] { "--config=" + file.getPath(), "--ingest-workers=5", "--metrics=/cli/metrics.json" },
+				env, system);
+		assertEquals("/file/data", config.getDataset());
+		assertEquals("/env/index", config.getIndexDir());
+		assertEquals("/system/snapshot", config.getSnapshot());
+		assertEquals(5, config.getIngestWorkers());
+		assertEquals("/cli/metrics.json", config.getMetrics());
+		assertEquals(8080, config.getHttpPort());
+	}
+
+	@Test
+	public void testColumnar() throws IOException {
+		Map<String, String> env = new HashMap<String, String>();
+		env.put("EXCEL_READER_COLUMNAR", "false");
+		assertFalse(Config.load(new String[0], env, new Properties()).isColumnar());
+		assertTrue(Config.load(new String[] { "--columnar=TRUE" }, env, new Properties()).isColumnar());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidColumnar() throws IOException {
+		Config.load(new String[] { "--columnar=yes" }, new HashMap<String, String>(), new Properties());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownArgument() throws IOException {
+		Config.load(new String[] { "--index=/tmp" }, new HashMap<String, String>(), new Properties());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidWorkers() throws IOException {
+		Config.load(new String[] { "--ingest-workers=many" }, new HashMap<String, String>(), new Properties());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidHttpPort() throws IOException {
+		Config.load(new String[] { "--http-port=http" }, new HashMap<String, String>(), new Properties());
+	}
+
+	@Test
+	public void testNumbersAreStrict() throws IOException {
+		String[][] args = { { "--http-port=80.5" }, { "--http-port=1,000" }, { "--ingest-workers=2.9" },
+				{ "--ingest-workers=1,000" }, { "--http-threads=4x" }, { "--http-port=" } };
+		for (String[] arg : args) {
+			try {
+				Config.load(arg, new HashMap<String, String>(), new Properties());
+				fail(arg[0]);
+			} catch (IllegalArgumentException e) {
+				// Expected
+			}
+		}
+
+		assertEquals(8080, Config.load(new String[] { "--http-port= 8080 " }, new HashMap<String, String>(),
+				new Properties()).getHttpPort());
+	}
+}
@@ -0,0 +1,46 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.time.LocalDate;
+
+import org.junit.Test;
+
+import dao.DateParser;
+
+public class DateParserTest {
+
+	private static final long DAY = LocalDate.of(2019, 3, 20).toEpochDay();
+
+	@Test
+	public void testFormats() {
+		assertEquals(DAY, DateParser.toEpochDay("2019-03-20"));
+		assertEquals(DAY, DateParser.toEpochDay(" 2019-3-20 "));
+		assertEquals(DAY, DateParser.toEpochDay("2019/03/20"));
+		assertEquals(DAY, DateParser.toEpochDay("3/20/19"));
+		assertEquals(DAY, DateParser.toEpochDay("03/20/2019"));
+		assertEquals(DAY, DateParser.toEpochDay("20-Mar-19"));
+		assertEquals(DAY, DateParser.toEpochDay("20-Mar-2019"));
+	}
+
+	@Test
+	public void testOrder() {
+		assertTrue(DateParser.toEpochDay("2019-03-09") < DateParser.toEpochDay("2019-03-10"));
+		assertTrue(DateParser.toEpochDay("12/31/18") < DateParser.toEpochDay("1/1/19"));
+		assertEquals(DateParser.toEpochDay("2019-02-28") + 1, DateParser.toEpochDay("2019-03-01"));
+	}
+
+	@Test
+	public void testInvalid() {
+		assertEquals(DateParser.INVALID, DateParser.toEpochDay(null));
+		assertEquals(DateParser.INVALID, DateParser.toEpochDay(""));
+		assertEquals(DateParser.INVALID, DateParser.toEpochDay("   "));
+		assertEquals(DateParser.INVALID, DateParser.toEpochDay("2019-03-34"));
+		assertEquals(DateParser.INVALID, DateParser.toEpochDay("2019-02-29"));
+		assertEquals(DateParser.INVALID, DateParser.toEpochDay("2019-13-01"));
+		assertEquals(DateParser.INVALID, DateParser.toEpochDay("20/3/19"));
+		assertEquals(DateParser.INVALID, DateParser.toEpochDay("yesterday"));
+		assertEquals(DateParser.INVALID, DateParser.toEpochDay("2019-03-20 12:44"));
+	}
+
+}
@@ -0,0 +1,112 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import dao.DelimitedRowParser;
+import dao.IRowSink;
+import dao.RowView;
+
+public class DelimitedRowParserTest {
+
+	private static final String TITLE = "id,date,time,username,content,favs,rts,lat,lon,country,followers\n";
+
+	private static List<String[]> parse(String text, char delimiter, int bufferSize) throws IOException {
+		RowCollector collector = new RowCollector();
+		DelimitedRowParser parser = new DelimitedRowParser(delimiter, bufferSize, null, collector);
+		int count = parser.parse(Channels.newChannel(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))));
+		assertEquals(collector.rows.size(), count);
+		return collector.rows;
+	}
+
+	@Test
+	public void testPlainRows() throws IOException {
+		List<String[]> rows = parse(TITLE + "1,2019-01-01,10:00, alice ,hello,3,4,51.5,-0.1,UK,100\n"
+				+ "2,2019-01-02,11:00,bob,bye,0,1\n", ',', 1024);
+
+		assertEquals(2, rows.size());
+		assertEquals(11, rows.get(0).length);
+		assertEquals("alice", rows.get(0)[3]);
+		assertEquals("100", rows.get(0)[10]);
+		assertEquals("1", rows.get(1)[6]);
+		assertEquals("", rows.get(1)[7]);
+		assertEquals("", rows.get(1)[10]);
+	}
+
+	@Test
+	public void testQuotedFields() throws IOException {
+		List<String[]> rows = parse(TITLE + "1,d,t,alice,\"a, \"\"quoted\"\"\r\nline\",3,4,,,UK,100\r\n"
+				+ "2,d,t,bob,\"\",0,0,,,,1\r\n", ',', 1024);
+
+		assertEquals(2, rows.size());
+		assertEquals("a, \"quoted\"\r\nline", rows.get(0)[4]);
+		assertEquals("3", rows.get(0)[5]);
+		assertEquals("", rows.get(1)[4]);
+		assertEquals("1", rows.get(1)[10]);
+	}
+
+	@Test
+	public void testUnicodeAcrossBuffers() throws IOException {
+		String content = "caf\u00e9 \u4f60\u597d \"\u00fc\"";
+		StringBuilder text = new StringBuilder("\uFEFF").append(TITLE.replace(',', '\t'));
+		for (int i = 0; i < 50; i++) {
+			text.append(i).append("\td\tt\tuser").append(i).append('\t').append(content).append("\t1\t2\t\t\t\t3\n");
+		}
+		text.append("\n\n50\td\tt\tlast\tend\t0\t0\t\t\t\t0");
+
+		List<String[]> rows = parse(text.toString(), '\t', 16);
+
+		assertEquals(51, rows.size());
+		for (int i = 0; i < 50; i++) {
+			assertEquals(String.valueOf(i), rows.get(i)[0]);
+			assertEquals(content, rows.get(i)[4]);
+			assertEquals("3", rows.get(i)[10]);
+		}
+		assertEquals("last", rows.get(50)[3]);
+	}
+
+	@Test
+	public void testRowView() throws IOException {
+		String text = TITLE + "1,d,t,alice,nick,\"caf\u00e9\",\"1,234\",7,51.5,-0.25,100\n";
+		List<String> values = new ArrayList<String>();
+		IRowSink reader = new RowCollector() {
+			@Override
+			public void handle_row(RowView row) {
+				values.add(row.getCharSequence(3).toString());
+				values.add(row.getString(5));
+				values.add(String.valueOf(row.getInt(6) + row.getInt(7)));
+				values.add(String.valueOf(row.getDouble(8) + row.getDouble(9)));
+				values.add(String.valueOf(row.getInt(10)));
+				values.add(String.valueOf(row.getCharSequence(0).length()));
+			}
+		};
+
+		new DelimitedRowParser(',', null, reader)
+				.parse(Channels.newChannel(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))));
+		assertEquals(Arrays.asList("alice", "caf\u00e9", "1241", "51.25", "100", "1"), values);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidDelimiter() {
+		new DelimitedRowParser('"', null);
+	}
+
+	private static class RowCollector implements IRowSink {
+
+		private List<String[]> rows = new ArrayList<String[]>();
+
+		@Override
+		public void handle_row(String[] row) {
+			rows.add(row);
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import dao.ExcelDAOFactory;
+import dao.IExcelDAO;
+import dao.MultiFileExcelDAOImpl;
+import dao.SnapshotExcelDAOImpl;
+import dao.SnapshotFile;
+import dao.SourceFingerprint;
+
+public class ExcelDAOFactoryTest {
+	private Path dir;
+	private File first;
+	private File second;
+	private File snapshot;
+
+	@Before
+	public void setUp() throws IOException {
+		dir = Files.createTempDirectory("factory");
+		second = csv("2.csv", "b", 40);
+		first = csv("1.csv", "a", 60);
+		Files.write(new File(dir.toFile(), "~$1.xlsx").toPath(), new byte[] { 1 });
+		Files.write(new File(dir.toFile(), "notes.txt").toPath(), new byte[] { 1 });
+		snapshot = new File(dir.toFile(), "tweets.snapshot");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Files.walk(dir).sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+	}
+
+	private File csv(String name, String prefix, int rows) throws IOException {
+		StringBuilder text = new StringBuilder("id,date,hour,username,nickname,content,favs,rts,lat,long,followers\n");
+		for (int i = 0; i < rows; i++) {
+			text.append(prefix + i + ",2019-03-20,12:44,user" + i + ",nick,content " + i + "," + i + ",1,,,100\n");
+		}
+
+		File file = new File(dir.toFile(), name);
+		Files.write(file.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	@Test
+	public void testListSourcesByName() throws IOException {
+		assertEquals(Arrays.asList(first, second), ExcelDAOFactory.listSources(dir.toFile()));
+		assertEquals(Arrays.asList(second), ExcelDAOFactory.listSources(second));
+	}
+
+	@Test
+	public void testFingerprintCoversAllFiles() throws IOException {
+		List<File> sources = ExcelDAOFactory.listSources(dir.toFile());
+		SourceFingerprint fingerprint = SourceFingerprint.of(sources);
+		assertEquals(first.length() + second.length(), fingerprint.getSize());
+		assertEquals(fingerprint, SourceFingerprint.of(sources));
+
+		// One byte of the last file, with the same size and time
+		long modified = second.lastModified();
+		try (RandomAccessFile file = new RandomAccessFile(second, "rw")) {
+			file.seek(file.length() - 2);
+			file.write('9');
+		}
+		second.setLastModified(modified);
+		SourceFingerprint changed = SourceFingerprint.of(sources);
+		assertEquals(fingerprint.getSize(), changed.getSize());
+		assertNotEquals(fingerprint, changed);
+
+		// A new file, or the same files in another order
+		File third = csv("3.csv", "c", 1);
+		assertNotEquals(changed, SourceFingerprint.of(ExcelDAOFactory.listSources(dir.toFile())));
+		assertNotEquals(changed, SourceFingerprint.of(Arrays.asList(second, first)));
+		assertTrue(third.delete());
+	}
+
+	@Test
+	public void testSnapshotFallsBackToSources() throws Exception {
+		List<File> sources = ExcelDAOFactory.listSources(dir.toFile());
+		SourceFingerprint fingerprint = SourceFingerprint.of(sources);
+
+		IExcelDAO read = ExcelDAOFactory.open(sources, snapshot, fingerprint, false, null, 2);
+		assertTrue(read instanceof MultiFileExcelDAOImpl);
+		assertTrue(SnapshotFile.matches(snapshot, fingerprint));
+
+		IExcelDAO replayed = ExcelDAOFactory.open(sources, snapshot, fingerprint, false, null, 2);
+		assertTrue(replayed instanceof SnapshotExcelDAOImpl);
+		assertEquals(read.getAllTweets().toString(), replayed.getAllTweets().toString());
+
+		// A damaged snapshot with the same fingerprint is read from the sources again
+		try (RandomAccessFile file = new RandomAccessFile(snapshot, "rw")) {
+			file.seek(file.length() - 10);
+			int b = file.read();
+			file.seek(file.length() - 10);
+			file.write(b ^ 0xFF);
+		}
+		assertTrue(SnapshotFile.matches(snapshot, fingerprint));
+
+		IExcelDAO fallback = ExcelDAOFactory.open(sources, snapshot, fingerprint, false, null, 2);
+		assertTrue(fallback instanceof MultiFileExcelDAOImpl);
+		assertEquals(100, fallback.getAllTweets().size());
+		assertEquals(read.getAllTweets().toString(), fallback.getAllTweets().toString());
+
+		// The snapshot is written again
+		assertTrue(ExcelDAOFactory.open(sources, snapshot, fingerprint, false, null, 2) instanceof SnapshotExcelDAOImpl);
+	}
+
+	@Test
+	public void testFingerprintOfOtherSources() throws Exception {
+		List<File> sources = ExcelDAOFactory.listSources(dir.toFile());
+		ExcelDAOFactory.open(sources, snapshot, SourceFingerprint.of(sources), false, null, 2);
+
+		// The snapshot of both files is not used for one of them
+		List<File> one = Arrays.asList(first);
+		IExcelDAO read = ExcelDAOFactory.open(one, snapshot, SourceFingerprint.of(one), false, null, 2);
+		assertFalse(read instanceof SnapshotExcelDAOImpl);
+		assertEquals(60, read.getAllTweets().size());
+	}
+
+}
@@ -0,0 +1,179 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LatLonPoint;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import entity.Tweet;
+import lucene.Indexer;
+import lucene.IndexerSettings;
+
+public class IndexerTest {
+	private Path indexDir;
+	private List<Tweet> tweets;
+
+	@Before
+	public void setUp() throws IOException {
+		indexDir = Files.createTempDirectory("index");
+		tweets = new ArrayList<Tweet>();
+
+		for (int i = 0; i < 50; i++) {
+			tweets.add(tweet("id" + i, "content " + i));
+		}
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Files.walk(indexDir).sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+	}
+
+	private Tweet tweet(String id, String content) {
+		return new Tweet(id, "2019-03-20", "12:44", "user", "nick", content, 1, 2, "", "", 3);
+	}
+
+	private int index(List<Tweet> tweets, String version) throws IOException {
+		Indexer indexer = new Indexer(indexDir.toString(), tweets, version);
+		int count = indexer.writeDocument();
+		indexer.close();
+		return count;
+	}
+
+	private int numDocs() throws IOException {
+		try (IndexReader reader = DirectoryReader.open(FSDirectory.open(indexDir))) {
+			return reader.numDocs();
+		}
+	}
+
+	@Test
+	public void testSkipUnchangedSource() throws IOException {
+		assertEquals(50, index(tweets, "v1"));
+		assertEquals(0, index(tweets, "v1"));
+		assertEquals(50, numDocs());
+	}
+
+	@Test
+	public void testReplaceChangedSource() throws IOException {
+		index(tweets, "v1");
+
+		List<Tweet> changed = new ArrayList<Tweet>(tweets.subList(10, 50));
+		changed.add(tweet("new", "new content"));
+
+		assertEquals(41, index(changed, "v2"));
+		assertEquals(41, numDocs());
+	}
+
+	@Test
+	public void testParallelWriters() throws IOException {
+		IndexerSettings settings = new IndexerSettings();
+		settings.setThreads(4);
+		settings.setRamBufferSizeMB(16);
+
+		Indexer indexer = new Indexer(indexDir.toString(), tweets, "v1", settings);
+		assertEquals(50, indexer.writeDocument());
+		assertTrue(indexer.getDocsPerSecond() > 0);
+		indexer.close();
+
+		assertEquals(50, numDocs());
+	}
+
+	@Test
+	public void testLastDuplicateIsKept() throws IOException {
+		List<Tweet> duplicated = new ArrayList<Tweet>();
+		for (int round = 0; round < 5; round++) {
+			for (int i = 0; i < 200; i++) {
+				duplicated.add(tweet("id" + i, "content " + i + " round" + round));
+			}
+		}
+
+		for (int threads : new int[] { 1, 4 }) {
+			IndexerSettings settings = new IndexerSettings();
+			settings.setThreads(threads);
+			Indexer indexer = new Indexer(indexDir.toString(), duplicated, "v" + threads, settings);
+			assertEquals(1000, indexer.writeDocument());
+			indexer.close();
+
+			try (IndexReader reader = DirectoryReader.open(FSDirectory.open(indexDir))) {
+				IndexSearcher searcher = new IndexSearcher(reader);
+				assertEquals(200, reader.numDocs());
+				assertEquals(200, searcher.count(new TermQuery(new Term(Indexer.TWEET_FIELD, "round4"))));
+				for (int i = 0; i < 200; i += 17) {
+					int doc = searcher.search(new TermQuery(new Term(Indexer.ID_FIELD, "id" + i)), 1).scoreDocs[0].doc;
+					assertEquals("content " + i + " round4", searcher.doc(doc).get(Indexer.TWEET_FIELD));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testFields() throws IOException {
+		List<Tweet> located = new ArrayList<Tweet>();
+		located.add(new Tweet("a", "2019-03-20", "12:44", "Alice", "nick", "Hello Lucene", 1, 2, "-33.8", "151.2", 300));
+		located.add(new Tweet("b", "2019-03-20", "12:44", "bob", "nick", "Hello Excel", 1, 2, "", "", 50));
+		index(located, "v1");
+
+		try (IndexReader reader = DirectoryReader.open(FSDirectory.open(indexDir))) {
+			IndexSearcher searcher = new IndexSearcher(reader);
+
+			assertEquals(1, searcher.count(new TermQuery(new Term(Indexer.TWEET_FIELD, "lucene"))));
+			assertEquals(0, searcher.count(new TermQuery(new Term(Indexer.TWEET_FIELD, "favs"))));
+			assertEquals(1, searcher.count(new TermQuery(new Term(Indexer.USERNAME_FIELD, "Alice"))));
+			assertEquals(1, searcher.count(IntPoint.newRangeQuery(Indexer.FOLLOWERS_FIELD, 100, 1000)));
+			assertEquals(1, searcher.count(LatLonPoint.newDistanceQuery(Indexer.LOCATION_FIELD, -33.8, 151.2, 1000)));
+		}
+	}
+
+	@Test
+	public void testCommitInterval() throws IOException {
+		IndexerSettings settings = new IndexerSettings();
+		settings.setThreads(1);
+		settings.setCommitInterval(20);
+		List<Integer> committed = new ArrayList<Integer>();
+		AtomicInteger failures = new AtomicInteger();
+
+		assertFalse(Indexer.hasIndex(indexDir.toString()));
+		Indexer indexer = new Indexer(indexDir.toString(), tweets, "v1", settings);
+		indexer.setCommitListener(() -> {
+			try {
+				committed.add(numDocs());
+			} catch (IOException e) {
+				failures.incrementAndGet();
+			}
+		});
+		assertEquals(50, indexer.writeDocument());
+		indexer.close();
+
+		// Two commits of the interval, then the last one
+		assertEquals(0, failures.get());
+		assertEquals(3, committed.size());
+		assertEquals(20, (int) committed.get(0));
+		assertEquals(50, (int) committed.get(2));
+		assertTrue(Indexer.hasIndex(indexDir.toString()));
+		assertEquals(0, index(tweets, "v1"));
+	}
+
+	@Test
+	public void testUnknownSourceIsAlwaysWritten() throws IOException {
+		index(tweets, null);
+		assertEquals(50, index(tweets, null));
+		assertEquals(50, numDocs());
+	}
+
+}
@@ -0,0 +1,210 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import dao.DelimitedFileDAOImpl;
+import dao.ExcelDAOFactory;
+import dao.IExcelDAO;
+import dao.SourceFingerprint;
+import entity.Tweet;
+import entity.User;
+import service.Config;
+import service.LiveDataset;
+import service.Menu;
+import service.TweetTextSearch;
+import tools.DatasetGenerator;
+import tools.GeneratorSettings;
+
+public class LiveDatasetTest {
+	private Path directory;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("live-test");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Files.walk(directory).sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+	}
+
+	private List<File> generate(String name, long rowsPerFile) throws IOException {
+		GeneratorSettings settings = new GeneratorSettings();
+		settings.setSeed(7);
+		settings.setUsers(50);
+		DatasetGenerator generator = rowsPerFile > 0
+				? new DatasetGenerator(settings, DatasetGenerator.Format.CSV, rowsPerFile)
+				: new DatasetGenerator(settings, DatasetGenerator.Format.CSV);
+		return generator.write(directory.resolve(name).toFile(), 1000);
+	}
+
+	private List<String> ids(List<Tweet> tweets) {
+		List<String> ids = new ArrayList<String>();
+		tweets.forEach(t -> ids.add(t.getId()));
+		return ids;
+	}
+
+	private List<String> usernames(List<User> users) {
+		List<String> usernames = new ArrayList<String>();
+		users.forEach(u -> usernames.add(u.getUsername() + ":" + u.getFollowers()));
+		return usernames;
+	}
+
+	@Test
+	public void testSameAnswersAsLoadedData() throws IOException {
+		File source = generate("dataset.csv", 0).get(0);
+		LiveDataset live = new LiveDataset();
+		IExcelDAO dao = new DelimitedFileDAOImpl(source, ',', true, null, live);
+
+		assertEquals(1000, live.getRowCount());
+		assertEquals(ids(dao.getTopTweets(10)), ids(live.getTopTweets(10)));
+		assertEquals(usernames(dao.getTopUsers(10)), usernames(live.getTopUsers(10)));
+
+		try (TweetTextSearch search = new TweetTextSearch(dao.getAllTweets(), 1)) {
+			List<Tweet> expected = new ArrayList<Tweet>();
+			List<Tweet> found = new ArrayList<Tweet>();
+			search.search("java", expected::add);
+
+			assertEquals(expected.size(), live.search("JAVA", Integer.MAX_VALUE, found::add));
+			assertEquals(ids(expected), ids(found));
+		}
+	}
+
+	@Test
+	public void testObserverOfSeveralFiles() throws Exception {
+		File out = directory.resolve("exports").toFile();
+		List<File> sources = generate("exports", 300);
+		LiveDataset live = new LiveDataset();
+		File snapshot = directory.resolve("dataset.snapshot").toFile();
+
+		IExcelDAO dao = ExcelDAOFactory.open(sources, snapshot, SourceFingerprint.of(sources), false, null, 2,
+				live);
+		assertEquals(4, ExcelDAOFactory.listSources(out).size());
+		assertEquals(1000, live.getRowCount());
+		assertEquals(ids(dao.getTopTweets(5)), ids(live.getTopTweets(5)));
+
+		// The snapshot gives the same rows to the observer
+		LiveDataset fromSnapshot = new LiveDataset();
+		ExcelDAOFactory.open(sources, snapshot, SourceFingerprint.of(sources), false, null, 2, fromSnapshot);
+		assertEquals(1000, fromSnapshot.getRowCount());
+	}
+
+	@Test
+	public void testContentsInOrderOfRows() throws IOException {
+		File source = generate("dataset.csv", 0).get(0);
+		LiveDataset live = new LiveDataset();
+		IExcelDAO dao = new DelimitedFileDAOImpl(source, ',', true, null, live);
+
+		assertArrayEquals(TweetTextSearch.normalizeAll(dao.getAllTweets()), live.getContents(1000));
+		assertNull(live.getContents(999));
+		assertEquals(ids(dao.getAllTweets()), ids(live.getData()));
+		assertEquals(dao.getAllTweets().get(0).getContent(), live.getData().get(0).getContent());
+	}
+
+	@Test
+	public void testRowsOfSeveralThreads() throws InterruptedException {
+		LiveDataset live = new LiveDataset();
+		int rowsPerThread = LiveDataset.CHUNK_SIZE + 100;
+		List<Thread> threads = new ArrayList<Thread>();
+
+		for (int t = 0; t < 4; t++) {
+			int thread = t;
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < rowsPerThread; i++) {
+					live.handle_row(new String[] { thread + "-" + i, "2019-03-01", "10:00", "user" + thread,
+							"Nick", "Content " + i, Integer.toString(i), "0", "", "", Integer.toString(thread) });
+				}
+			}));
+		}
+		threads.forEach(Thread::start);
+		// Queries could be asked while rows are added
+		live.getTopTweets(10);
+		live.search("content", 10, t -> {
+		});
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(4 * rowsPerThread, live.getRowCount());
+		assertEquals(4 * rowsPerThread, live.getData().size());
+		// Rows of several threads are not in the order of the loaded data
+		assertNull(live.getContents(4 * rowsPerThread));
+		assertEquals(rowsPerThread - 1, live.getTopTweets(1).get(0).getFavs());
+		assertEquals("user3:3:" + rowsPerThread, live.getTopUsers(1).get(0).getUsername() + ":"
+				+ live.getTopUsers(1).get(0).getFollowers() + ":" + live.getTopUsers(1).get(0).getTweetCount());
+	}
+
+	@Test
+	public void testMenuStartsInBackground() throws IOException {
+		Config config = new Config();
+		config.setDataset(generate("dataset.csv", 0).get(0).getPath());
+		config.setIndexDir(directory.resolve("index").toString());
+		config.setSnapshot(directory.resolve("dataset.snapshot").toString());
+
+		Menu menu = new Menu(config);
+		assertEquals(Menu.Phase.NOT_STARTED, menu.getPhase());
+		menu.start();
+		assertNotEquals(Menu.Phase.NOT_STARTED, menu.getPhase());
+
+		// Queries are answered at any phase
+		menu.printTopTweets();
+		menu.textMatch("java");
+
+		menu.awaitReady();
+		assertEquals(Menu.Phase.READY, menu.getPhase());
+		assertNull(menu.getProgress());
+		menu.close();
+	}
+
+	@Test
+	public void testEmptyIndexIsNotUpToDate() throws IOException {
+		File source = directory.resolve("empty.csv").toFile();
+		Files.write(source.toPath(), "id,date,hour,username,nickname,content,favs,rts,lat,long,followers\n"
+				.getBytes(StandardCharsets.UTF_8));
+		Config config = new Config();
+		config.setDataset(source.getPath());
+		config.setIndexDir(directory.resolve("index").toString());
+		config.setSnapshot(directory.resolve("dataset.snapshot").toString());
+
+		String first = startMenu(config);
+		assertFalse(first, first.contains("up to date"));
+		assertTrue(first, first.contains("Index files created ! 0 documents"));
+
+		String second = startMenu(config);
+		assertTrue(second, second.contains("Index files are up to date"));
+	}
+
+	/**
+	 * Start a menu until it is ready, and return what it printed.
+	 */
+	private String startMenu(Config config) throws IOException {
+		PrintStream console = System.out;
+		ByteArrayOutputStream printed = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(printed, true, "UTF-8"));
+		try {
+			Menu menu = new Menu(config);
+			menu.start();
+			menu.awaitReady();
+			menu.close();
+		} finally {
+			System.setOut(console);
+		}
+
+		return printed.toString("UTF-8");
+	}
+}
@@ -0,0 +1,129 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.poi.xssf.usermodel.XSSFRow;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Test;
+
+import dao.ExcelDAOImpl;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+
+public class MetricsRegistryTest {
+
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long i = 1; i <= 100000; i++) {
+			histogram.record(i * 1000);
+		}
+
+		assertEquals(100000, histogram.getCount());
+		assertEquals(100000000, histogram.getMax());
+		assertEquals(50000500, histogram.getMean(), 1);
+
+		// Each percentile is at most 1/128 above the exact value
+		assertEquals(50000000, histogram.getValueAtPercentile(50), 50000000 / 128);
+		assertEquals(99000000, histogram.getValueAtPercentile(99), 99000000 / 128);
+		assertTrue(histogram.getValueAtPercentile(99) >= 99000000);
+		assertEquals(100000000, histogram.getValueAtPercentile(100));
+
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getValueAtPercentile(50));
+	}
+
+	@Test
+	public void testSmallAndLargeValues() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(-5);
+		histogram.record(3);
+		histogram.record(Long.MAX_VALUE);
+
+		assertEquals(0, histogram.getValueAtPercentile(10));
+		assertEquals(3, histogram.getValueAtPercentile(50));
+		assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+	}
+
+	@Test
+	public void testExport() throws IOException {
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.counter("ingest_rows").add(42);
+		registry.setGauge("ingest_rows_per_second", 1500);
+		registry.histogram("query_top").record(2000000);
+		assertSame(registry.histogram("query_top"), registry.histogram("query_top"));
+
+		String json = registry.toJson();
+		assertTrue(json.contains("\"ingest_rows\": 42"));
+		assertTrue(json.contains("\"ingest_rows_per_second\": 1500"));
+		assertTrue(json.contains("\"query_top\": {\"count\": 1, \"mean_ns\": 2000000"));
+		assertTrue(json.contains("\"p999_ns\": 2000000"));
+
+		String text = registry.toPrometheus();
+		assertTrue(text.contains("excel_reader_ingest_rows_total 42\n"));
+		assertTrue(text.contains("# TYPE excel_reader_query_top_seconds summary\n"));
+		assertTrue(text.contains("excel_reader_query_top_seconds{quantile=\"0.99\"} 0.002000000\n"));
+		assertTrue(text.contains("excel_reader_query_top_seconds_count 1\n"));
+
+		File file = File.createTempFile("metrics", ".json");
+		file.deleteOnExit();
+		registry.write(file);
+		assertEquals(json, new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+
+		registry.reset();
+		assertEquals(0, registry.counter("ingest_rows").sum());
+		assertTrue(Double.isNaN(registry.getGauge("ingest_rows_per_second")));
+	}
+
+	@Test
+	public void testBadRowsArePrintedOnce() throws Exception {
+		File source = File.createTempFile("bad-rows", ".xlsx");
+		try (XSSFWorkbook workbook = new XSSFWorkbook(); FileOutputStream out = new FileOutputStream(source)) {
+			XSSFSheet sheet = workbook.createSheet();
+			for (int r = 0; r <= 5; r++) {
+				XSSFRow row = sheet.createRow(r);
+				for (int c = 0; c <= 10; c++) {
+					row.createCell(c).setCellValue("cell" + c);
+				}
+				// A numeric cell whose value is not a number cannot be read
+				if (r % 2 == 1) {
+					row.getCell(7).setCellValue(r);
+					row.getCell(7).getCTCell().setV("not a number");
+				}
+			}
+			workbook.write(out);
+		}
+
+		long before = MetricsRegistry.getDefault().counter("ingest_bad_rows").sum();
+		PrintStream console = System.out;
+		ByteArrayOutputStream printed = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(printed, true, "UTF-8"));
+		try {
+			new ExcelDAOImpl(source, ExcelDAOImpl.ReadMode.USER_MODEL, 1, 8, false, null);
+		} finally {
+			System.setOut(console);
+			source.delete();
+		}
+
+		assertEquals(3, MetricsRegistry.getDefault().counter("ingest_bad_rows").sum() - before);
+		String output = printed.toString("UTF-8");
+		assertTrue(output.contains("3 row(s) of " + source.getName() + " have cells which cannot be read"));
+		assertTrue(output.contains("row 2, cell 7"));
+		assertEquals(output.indexOf("cannot be read"), output.lastIndexOf("cannot be read"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidName() {
+		new MetricsRegistry().counter("rows/second");
+	}
+}
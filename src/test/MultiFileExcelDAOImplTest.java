@@ -0,0 +1,127 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.xssf.usermodel.XSSFRow;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import dao.MultiFileExcelDAOImpl;
+import entity.Tweet;
+import entity.User;
+
+public class MultiFileExcelDAOImplTest {
+	private static final String HEADER = "id,date,hour,username,nickname,content,favs,rts,lat,long,followers\n";
+
+	private Path dir;
+	private File large;
+	private File small;
+	private File excel;
+
+	@Before
+	public void setUp() throws IOException {
+		dir = Files.createTempDirectory("sources");
+
+		// The first file is the largest, so it is the last one to be read
+		large = csv("large.csv", "a", 2000, "shared", 100);
+		small = csv("small.csv", "b", 3, "shared", 300);
+		excel = new File(dir.toFile(), "excel.xlsx");
+		try (XSSFWorkbook workbook = new XSSFWorkbook(); FileOutputStream out = new FileOutputStream(excel)) {
+			XSSFSheet sheet = workbook.createSheet();
+			String[] header = HEADER.trim().split(",");
+			XSSFRow first = sheet.createRow(0);
+			for (int c = 0; c < header.length; c++) {
+				first.createCell(c).setCellValue(header[c]);
+			}
+			for (int r = 1; r <= 2; r++) {
+				String[] cells = { "c" + (r - 1), "2019-03-20", "12:44", r == 1 ? "shared" : "carol", "nick",
+						"excel " + r, "1", "2", "", "", "200" };
+				XSSFRow row = sheet.createRow(r);
+				for (int c = 0; c < cells.length; c++) {
+					row.createCell(c).setCellValue(cells[c]);
+				}
+			}
+			workbook.write(out);
+		}
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Files.walk(dir).sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+	}
+
+	/**
+	 * Write a CSV file whose first tweet is posted by a user shared by all files.
+	 */
+	private File csv(String name, String prefix, int rows, String shared, int followers) throws IOException {
+		StringBuilder text = new StringBuilder(HEADER);
+		for (int i = 0; i < rows; i++) {
+			String username = i == 0 ? shared : prefix + "user" + i;
+			text.append(prefix + i + ",2019-03-20,12:44," + username + ",nick,content " + i + "," + i + ",1,,,"
+					+ followers + "\n");
+		}
+
+		File file = new File(dir.toFile(), name);
+		Files.write(file.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	@Test
+	public void testTweetsInFileOrder() throws Exception {
+		for (boolean columnar : new boolean[] { false, true }) {
+			List<File> sources = Arrays.asList(large, excel, small);
+			List<Tweet> tweets = new MultiFileExcelDAOImpl(sources, 3, columnar, null).getAllTweets();
+
+			List<String> ids = new ArrayList<String>();
+			for (Tweet tweet : tweets) {
+				ids.add(tweet.getId());
+			}
+
+			assertEquals(2005, ids.size());
+			assertEquals("a0", ids.get(0));
+			assertEquals("a1999", ids.get(1999));
+			assertEquals(Arrays.asList("c0", "c1", "b0", "b1", "b2"), ids.subList(2000, 2005));
+		}
+	}
+
+	@Test
+	public void testUsersMergedByName() throws Exception {
+		MultiFileExcelDAOImpl excelDAO = new MultiFileExcelDAOImpl(Arrays.asList(small, excel, large), 3, false,
+				null);
+
+		Map<String, User> users = new HashMap<String, User>();
+		for (User user : excelDAO.getAllUsers()) {
+			assertNull(user.getUsername(), users.put(user.getUsername(), user));
+		}
+
+		// 1999 + 2 users of their own files, carol and the shared one
+		assertEquals(2003, users.size());
+		User shared = users.get("shared");
+		assertEquals(300, shared.getFollowers());
+		assertEquals(3, shared.getTweetCount());
+		assertEquals(1, users.get("carol").getTweetCount());
+
+		int tweets = 0;
+		for (User user : users.values()) {
+			tweets += user.getTweetCount();
+		}
+		assertEquals(2005, tweets);
+	}
+
+}
@@ -0,0 +1,75 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import dao.NumberParser;
+
+public class NumberParserTest {
+
+	@Test
+	public void testDigits() {
+		assertEquals(0, NumberParser.parseInt("0"));
+		assertEquals(1, NumberParser.parseInt("1"));
+		assertEquals(1, NumberParser.parseInt(" 1 "));
+		assertEquals(1234, NumberParser.parseInt("1234"));
+		assertEquals(7, NumberParser.parseInt("007"));
+	}
+
+	@Test
+	public void testInvalid() {
+		assertEquals(0, NumberParser.parseInt(null));
+		assertEquals(0, NumberParser.parseInt(""));
+		assertEquals(0, NumberParser.parseInt("      "));
+		assertEquals(0, NumberParser.parseInt("1  3"));
+		assertEquals(0, NumberParser.parseInt("-5"));
+		assertEquals(0, NumberParser.parseInt("12a"));
+		assertEquals(0, NumberParser.parseInt("1x5"));
+	}
+
+	@Test
+	public void testDecimals() {
+		assertEquals(12, NumberParser.parseInt("12.5"));
+		assertEquals(12, NumberParser.parseInt("12.99"));
+		assertEquals(0, NumberParser.parseInt("12."));
+		assertEquals(0, NumberParser.parseInt(".5"));
+		assertEquals(0, NumberParser.parseInt("1.2.3"));
+	}
+
+	@Test
+	public void testThousandsSeparators() {
+		assertEquals(1234, NumberParser.parseInt("1,234"));
+		assertEquals(1234567, NumberParser.parseInt("1,234,567"));
+		assertEquals(1234, NumberParser.parseInt("1,234.5"));
+		assertEquals(0, NumberParser.parseInt("1,23"));
+		assertEquals(0, NumberParser.parseInt("1234,567"));
+		assertEquals(0, NumberParser.parseInt(",123"));
+		assertEquals(0, NumberParser.parseInt("1,,234"));
+	}
+
+	@Test
+	public void testOverflow() {
+		assertEquals(Integer.MAX_VALUE, NumberParser.parseInt("2147483647"));
+		assertEquals(Integer.MAX_VALUE, NumberParser.parseInt("2147483648"));
+		assertEquals(Integer.MAX_VALUE, NumberParser.parseInt("99999999999999999999999"));
+	}
+
+	@Test
+	public void testRange() {
+		assertEquals(42, NumberParser.parseInt("id=42;", 3, 5));
+	}
+
+	@Test
+	public void testDouble() {
+		String[] inputs = { "51.5074", "-0.1278", " 40.7 ", "0", "-33.868820", ".5", "1e-5", "12345678901234567.5" };
+		for (String input : inputs) {
+			assertEquals(input, Double.parseDouble(input), NumberParser.parseDouble(input), 0);
+		}
+		assertTrue(Double.isNaN(NumberParser.parseDouble("")));
+		assertTrue(Double.isNaN(NumberParser.parseDouble("-")));
+		assertTrue(Double.isNaN(NumberParser.parseDouble("abc")));
+		assertTrue(Double.isNaN(NumberParser.parseDouble(null)));
+	}
+
+}
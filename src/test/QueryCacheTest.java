@@ -0,0 +1,74 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import service.QueryCache;
+
+public class QueryCacheTest {
+
+	@Test
+	public void testLeastRecentlyUsedIsEvicted() {
+		QueryCache<String> cache = new QueryCache<String>(2, 100);
+		cache.put("a", "A", 1);
+		cache.put("b", "B", 1);
+		assertEquals("A", cache.get("a"));
+
+		cache.put("c", "C", 1);
+		assertNull(cache.get("b"));
+		assertEquals("A", cache.get("a"));
+		assertEquals("C", cache.get("c"));
+
+		assertEquals(3, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals(1, cache.getEvictions());
+	}
+
+	@Test
+	public void testWeightIsBounded() {
+		QueryCache<String> cache = new QueryCache<String>(10, 10);
+		cache.put("a", "A", 4);
+		cache.put("b", "B", 4);
+		cache.put("c", "C", 4);
+		assertNull(cache.get("a"));
+		assertEquals(8, cache.getWeight());
+
+		cache.put("huge", "H", 11);
+		assertNull(cache.get("huge"));
+		assertEquals(2, cache.size());
+
+		cache.put("b", "B2", 1);
+		assertEquals(5, cache.getWeight());
+	}
+
+	@Test
+	public void testInvalidate() {
+		QueryCache<String> cache = new QueryCache<String>(10, 10);
+		cache.put(QueryCache.key("text", "lucene"), "A", 1);
+		assertNotNull(cache.get(QueryCache.key("text", "lucene")));
+		assertNull(cache.get(QueryCache.key("index", "lucene")));
+
+		cache.invalidate();
+		assertNull(cache.get(QueryCache.key("text", "lucene")));
+		assertEquals(0, cache.getWeight());
+	}
+
+	@Test
+	public void testResultOfOldGenerationIsDropped() {
+		QueryCache<String> cache = new QueryCache<String>(10, 10);
+		long generation = cache.getGeneration();
+		assertTrue(cache.put("a", "A", 1, generation));
+
+		// A search started before the invalidation finishes after it
+		long before = cache.getGeneration();
+		cache.invalidate();
+		assertFalse(cache.put("a", "old A", 1, before));
+		assertNull(cache.get("a"));
+		assertEquals(0, cache.getWeight());
+
+		assertTrue(cache.put("a", "new A", 1, cache.getGeneration()));
+		assertEquals("new A", cache.get("a"));
+	}
+
+}
@@ -0,0 +1,134 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import entity.Tweet;
+import service.Config;
+import service.Menu;
+import service.QueryServer;
+import tools.DatasetGenerator;
+import tools.GeneratorSettings;
+import tools.QueryLoadTest;
+
+public class QueryServerTest {
+	private Path directory;
+	private Menu menu;
+	private QueryServer server;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("server-test");
+		GeneratorSettings settings = new GeneratorSettings();
+		settings.setSeed(7);
+		settings.setUsers(50);
+		List<java.io.File> files = new DatasetGenerator(settings, DatasetGenerator.Format.CSV)
+				.write(directory.resolve("dataset.csv").toFile(), 1000);
+
+		Config config = new Config();
+		config.setDataset(files.get(0).getPath());
+		config.setIndexDir(directory.resolve("index").toString());
+		config.setSnapshot(directory.resolve("dataset.snapshot").toString());
+
+		menu = new Menu(config);
+		menu.start();
+		menu.awaitReady();
+		server = new QueryServer(menu, 0, 4);
+		server.start();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		server.close();
+		menu.close();
+		Files.walk(directory).sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+	}
+
+	private String url(String path) {
+		return "http://127.0.0.1:" + server.getPort() + path;
+	}
+
+	private int status(String method, String path) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(url(path)).openConnection();
+		connection.setRequestMethod(method);
+		int status = connection.getResponseCode();
+		connection.disconnect();
+		return status;
+	}
+
+	private String get(String path) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(url(path)).openConnection();
+		assertEquals(200, connection.getResponseCode());
+		assertEquals("application/json; charset=utf-8", connection.getContentType());
+		try (InputStream in = connection.getInputStream()) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	@Test
+	public void testQueries() throws IOException {
+		assertEquals("{\"phase\": \"READY\", \"loaded\": true, \"progress\": null}", get("/status"));
+
+		String tweets = get("/top/tweets");
+		assertTrue(tweets.startsWith("{\"loaded\": true, \"tweets\": [{\"id\": "));
+		for (Tweet t : menu.getTopTweets()) {
+			assertTrue(tweets.contains(QueryServer.quote(t.getId())));
+		}
+		// The JSON of the same list is reused
+		assertEquals(tweets, get("/top/tweets"));
+
+		String users = get("/top/users");
+		assertTrue(users.contains("\"username\": " + QueryServer.quote(menu.getTopUsers().get(0).getUsername())));
+
+		List<Tweet> found = menu.findTweets("java", 3);
+		String match = get("/match?q=java&limit=3");
+		assertTrue(match.startsWith("{\"query\": \"java\", \"loaded\": true, \"count\": " + found.size() + ","));
+		for (Tweet t : found) {
+			assertTrue(match.contains(QueryServer.quote(t.getId())));
+		}
+
+		String search = get("/search?q=java+OR+good&limit=5");
+		assertTrue(search.startsWith("{\"query\": \"java OR good\", \"total_hits\": "));
+		assertTrue(search.contains("\"engagement\": "));
+	}
+
+	@Test
+	public void testErrors() throws IOException {
+		assertEquals(404, status("GET", "/unknown"));
+		assertEquals(400, status("GET", "/match"));
+		assertEquals(400, status("GET", "/match?q=java&limit=0"));
+		assertEquals(400, status("GET", "/search?q=java&limit=" + (QueryServer.MAX_LIMIT + 1)));
+		assertEquals(400, status("GET", "/search?q=%22java"));
+		assertEquals(400, status("GET", "/match?q=%zz"));
+		assertEquals(400, status("GET", "/search?q=java%"));
+		assertEquals(405, status("POST", "/top/tweets"));
+	}
+
+	@Test
+	public void testConcurrentClients() throws InterruptedException {
+		QueryLoadTest test = new QueryLoadTest(url(""), QueryLoadTest.DEFAULT_PATHS, 8);
+		test.run(0, 1);
+
+		assertTrue(test.getTotal().getCount() > 0);
+		assertEquals(0, test.getErrors());
+	}
+
+	@Test
+	public void testQuote() {
+		assertEquals("null", QueryServer.quote(null));
+		assertEquals("\"a \\\"b\\\" \\\\ \\n\\u0001\"", QueryServer.quote("a \"b\" \\ \n\u0001"));
+	}
+}
@@ -0,0 +1,117 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFRow;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import dao.ExcelDAOImpl;
+import dao.ExcelDAOImpl.ReadMode;
+import dao.IRowSink;
+
+public class ReadModeTest {
+	private File source;
+
+	/**
+	 * Write a small workbook with text, numeric, blank, missing, date and quoted
+	 * cells.
+	 */
+	@Before
+	public void setUp() throws Exception {
+		source = File.createTempFile("read-mode", ".xlsx");
+		try (XSSFWorkbook workbook = new XSSFWorkbook(); FileOutputStream out = new FileOutputStream(source)) {
+			XSSFCellStyle excelDate = workbook.createCellStyle();
+			excelDate.setDataFormat((short) 14);
+			XSSFCellStyle isoDate = workbook.createCellStyle();
+			isoDate.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+
+			XSSFSheet sheet = workbook.createSheet();
+			XSSFRow header = sheet.createRow(0);
+			for (int c = 0; c <= 10; c++) {
+				header.createCell(c).setCellValue("column" + c);
+			}
+
+			for (int r = 1; r <= 4; r++) {
+				XSSFRow row = sheet.createRow(r);
+				row.createCell(0).setCellValue("id" + r);
+				row.createCell(1).setCellValue(new GregorianCalendar(2019, Calendar.MARCH, 19 + r));
+				row.getCell(1).setCellStyle(r % 2 == 0 ? isoDate : excelDate);
+				row.createCell(2).setCellValue(" 12:4" + r + " ");
+				row.createCell(3).setCellValue("user" + r);
+				// Nickname is missing
+				row.createCell(5).setCellValue("\"Hello, \"\"world\"\"\" " + r);
+				row.createCell(6).setCellValue(r * 10);
+				row.createCell(7).setCellValue(r + 0.5);
+				row.createCell(8).setCellValue("0" + r);
+				row.createCell(9);
+				row.createCell(10).setCellValue(1500);
+			}
+
+			workbook.write(out);
+		}
+	}
+
+	@After
+	public void tearDown() {
+		source.delete();
+	}
+
+	/**
+	 * Read rows of the workbook in one mode.
+	 */
+	private List<String[]> read(ReadMode mode) throws Exception {
+		List<String[]> rows = new ArrayList<String[]>();
+		IRowSink observer = row -> rows.add(row.clone());
+		new ExcelDAOImpl(source, mode, 2, 4, false, null, observer);
+		return rows;
+	}
+
+	@Test
+	public void testUserModelReadsCellsAsEventModel() throws Exception {
+		List<String[]> userModel = read(ReadMode.USER_MODEL);
+		List<String[]> eventModel = read(ReadMode.EVENT_MODEL);
+
+		assertEquals(4, userModel.size());
+		assertEquals(userModel.size(), eventModel.size());
+		for (int i = 0; i < userModel.size(); i++) {
+			assertArrayEquals("row " + (i + 1), userModel.get(i), eventModel.get(i));
+		}
+
+		String[] first = userModel.get(0);
+		assertEquals("id1", first[0]);
+		assertFalse(first[1].isEmpty());
+		assertEquals("12:41", first[2]);
+		assertEquals("", first[4]);
+		assertEquals("\"Hello, \"\"world\"\"\" 1", first[5]);
+		assertEquals("10", first[6]);
+		assertEquals("1.5", first[7]);
+		assertEquals("01", first[8]);
+		assertEquals("", first[9]);
+		assertEquals("1500", first[10]);
+		assertEquals("2019-03-21", userModel.get(1)[1]);
+	}
+
+	@Test
+	public void testPipelinedReadsCellsAsEventModel() throws Exception {
+		List<String[]> eventModel = read(ReadMode.EVENT_MODEL);
+		List<String[]> pipelined = read(ReadMode.PIPELINED);
+
+		assertEquals(eventModel.size(), pipelined.size());
+		for (int i = 0; i < eventModel.size(); i++) {
+			assertArrayEquals("row " + (i + 1), eventModel.get(i), pipelined.get(i));
+		}
+	}
+
+}
@@ -0,0 +1,62 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import dao.ColumnDictionary;
+import dao.RowInterner;
+import dao.TweetDAOImpl;
+import dao.UserDAOImpl;
+
+public class RowInternerTest {
+
+	private String[] row(String id, String username) {
+		return new String[] { id, new String("2019-03-20"), "12:44", new String(username), "nick", "content " + id,
+				"1", "2", "", "", "3" };
+	}
+
+	@Test
+	public void testSameObjectForEqualValues() {
+		RowInterner interner = RowInterner.withDefaultColumns();
+		String[] first = interner.intern(row("1", "alice"));
+		String[] second = interner.intern(row("2", "alice"));
+
+		assertSame(first[3], second[3]);
+		assertSame(first[1], second[1]);
+		assertNotSame(first[5], second[5]);
+		assertEquals(0.5, interner.getDictionary(3).getHitRate(), 1e-9);
+		assertNull(interner.getDictionary(0));
+	}
+
+	@Test
+	public void testSharedByTweetAndUser() {
+		RowInterner interner = RowInterner.withDefaultColumns();
+		TweetDAOImpl tweetDAO = new TweetDAOImpl();
+		UserDAOImpl userDAO = new UserDAOImpl();
+
+		for (int i = 0; i < 3; i++) {
+			String[] row = interner.intern(row("" + i, "alice"));
+			tweetDAO.handle_row(row);
+			userDAO.handle_row(row);
+		}
+
+		String username = userDAO.getUsers().iterator().next().getUsername();
+		assertSame(username, tweetDAO.getTweets().get(2).getUsername());
+	}
+
+	@Test
+	public void testBounded() {
+		ColumnDictionary dictionary = new ColumnDictionary(2);
+		dictionary.intern("a");
+		dictionary.intern("b");
+		String c = new String("c");
+
+		assertSame(c, dictionary.intern(c));
+		assertTrue(dictionary.isFull());
+		assertEquals(2, dictionary.size());
+		assertEquals(0, dictionary.getHits());
+		assertEquals(3, dictionary.getMisses());
+	}
+
+}
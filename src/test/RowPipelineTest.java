@@ -0,0 +1,111 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+import dao.ColumnarTweetDAOImpl;
+import dao.ExcelDAOImpl;
+import dao.IEntityDAO;
+import dao.RowPipeline;
+import dao.TweetDAOImpl;
+import dao.UserDAOImpl;
+import entity.Tweet;
+import entity.User;
+import tools.DatasetGenerator;
+import tools.GeneratorSettings;
+
+public class RowPipelineTest {
+
+	private static final int ROWS = 20000;
+
+	private String[] row(int i) {
+		// Few distinct sums of favs and rts, so that most top tweets are ties
+		return new String[] { "id" + i, "2019-03-01", "10:00", "user" + (i % 500), "Nick " + (i % 500),
+				"content " + i, Integer.toString(i % 3), "0", "", "", Integer.toString(i % 7) };
+	}
+
+	private List<String> ids(List<Tweet> tweets) {
+		List<String> ids = new ArrayList<String>();
+		tweets.forEach(t -> ids.add(t.getId()));
+		return ids;
+	}
+
+	private List<String> usernames(List<User> users) {
+		List<String> usernames = new ArrayList<String>();
+		users.forEach(u -> usernames.add(u.getUsername() + ":" + u.getFollowers() + ":" + u.getTweetCount()));
+		return usernames;
+	}
+
+	private void assertSameAsOneThread(Supplier<IEntityDAO> tweetDAOs) throws IOException {
+		IEntityDAO expectedTweets = tweetDAOs.get();
+		UserDAOImpl expectedUsers = new UserDAOImpl();
+		IEntityDAO tweetDAO = tweetDAOs.get();
+		UserDAOImpl userDAO = new UserDAOImpl();
+		RowPipeline pipeline = new RowPipeline(4, 8, tweetDAOs, UserDAOImpl::new, tweetDAO, userDAO);
+
+		for (int i = 0; i < ROWS; i++) {
+			expectedTweets.handle_row(row(i));
+			expectedUsers.handle_row(row(i));
+			pipeline.handle_row(row(i));
+		}
+		pipeline.finish();
+
+		assertEquals(ROWS, pipeline.getRowCount());
+		assertEquals(ids(tweets(expectedTweets)), ids(tweets(tweetDAO)));
+		assertEquals(ids(top(expectedTweets)), ids(top(tweetDAO)));
+		assertEquals(usernames(expectedUsers.getTopUsers(50)), usernames(userDAO.getTopUsers(50)));
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Tweet> tweets(IEntityDAO dao) {
+		return (List<Tweet>) dao.getData();
+	}
+
+	private List<Tweet> top(IEntityDAO dao) {
+		return dao instanceof TweetDAOImpl ? ((TweetDAOImpl) dao).getTopTweets(TweetDAOImpl.TOP_CAPACITY)
+				: ((ColumnarTweetDAOImpl) dao).getTopTweets(TweetDAOImpl.TOP_CAPACITY);
+	}
+
+	@Test
+	public void testRowOrderAndTies() throws IOException {
+		assertSameAsOneThread(TweetDAOImpl::new);
+	}
+
+	@Test
+	public void testRowOrderOfColumns() throws IOException {
+		assertSameAsOneThread(ColumnarTweetDAOImpl::new);
+	}
+
+	@Test
+	public void testSameAsEventModel() throws Exception {
+		Path directory = Files.createTempDirectory("pipeline-test");
+		try {
+			GeneratorSettings settings = new GeneratorSettings();
+			settings.setSeed(11);
+			settings.setUsers(100);
+			File source = new DatasetGenerator(settings, DatasetGenerator.Format.XLSX)
+					.write(directory.resolve("dataset.xlsx").toFile(), 5000).get(0);
+
+			ExcelDAOImpl event = new ExcelDAOImpl(source, ExcelDAOImpl.ReadMode.EVENT_MODEL, 1, 8, false, null);
+			ExcelDAOImpl pipelined = new ExcelDAOImpl(source, ExcelDAOImpl.ReadMode.PIPELINED, 4, 8, false, null);
+
+			assertEquals(5000, pipelined.getAllTweets().size());
+			assertEquals(ids(event.getAllTweets()), ids(pipelined.getAllTweets()));
+			assertEquals(ids(event.getTopTweets(TweetDAOImpl.TOP_CAPACITY)),
+					ids(pipelined.getTopTweets(TweetDAOImpl.TOP_CAPACITY)));
+			assertEquals(usernames(event.getTopUsers(10)), usernames(pipelined.getTopUsers(10)));
+		} finally {
+			Files.walk(directory).sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+		}
+	}
+}
@@ -0,0 +1,172 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import entity.Tweet;
+import lucene.Indexer;
+import lucene.SearchHit;
+import lucene.SearchOptions;
+import lucene.SearchPage;
+import lucene.Searcher;
+
+public class SearcherTest {
+	private Path indexDir;
+	private Searcher searcher;
+
+	@Before
+	public void setUp() throws IOException {
+		indexDir = Files.createTempDirectory("index");
+
+		List<Tweet> tweets = new ArrayList<Tweet>();
+		tweets.add(tweet("1", "alice", "Lucene is fast"));
+		tweets.add(tweet("2", "bob", "Excel is slow"));
+		index(tweets, "v1");
+
+		searcher = new Searcher(indexDir.toString());
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		searcher.close();
+		Files.walk(indexDir).sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+	}
+
+	private Tweet tweet(String id, String username, String content) {
+		return new Tweet(id, "2019-03-20", "12:44", username, "nick", content, 1, 2, "", "", 3);
+	}
+
+	private void index(List<Tweet> tweets, String version) throws IOException {
+		Indexer indexer = new Indexer(indexDir.toString(), tweets, version);
+		indexer.writeDocument();
+		indexer.close();
+	}
+
+	@Test
+	public void testSearch() throws IOException, ParseException {
+		assertTrue(searcher.search("lucene").containsKey("alice"));
+		assertFalse(searcher.search("lucene").containsKey("bob"));
+	}
+
+	@Test
+	public void testRefreshAfterCommit() throws IOException, ParseException {
+		List<Tweet> tweets = new ArrayList<Tweet>();
+		tweets.add(tweet("3", "carol", "Lucene again"));
+		index(tweets, "v2");
+
+		assertFalse(searcher.search("lucene").containsKey("carol"));
+		searcher.maybeRefresh();
+		assertTrue(searcher.search("lucene").containsKey("carol"));
+		assertFalse(searcher.search("lucene").containsKey("alice"));
+	}
+
+	private void indexRanked() throws IOException {
+		indexRanked(DateTimeFormatter.ISO_LOCAL_DATE, DateTimeFormatter.ISO_LOCAL_DATE);
+	}
+
+	/**
+	 * Index 25 tweets posted from 2019-03-10 to 2019-04-03, even ones use the
+	 * first format of date and odd ones use the second.
+	 */
+	private void indexRanked(DateTimeFormatter even, DateTimeFormatter odd) throws IOException {
+		List<Tweet> tweets = new ArrayList<Tweet>();
+		for (int i = 0; i < 25; i++) {
+			LocalDate date = LocalDate.of(2019, 3, 10).plusDays(i);
+			String text = (i % 2 == 0 ? even : odd).format(date);
+			tweets.add(new Tweet("id" + i, text, "12:44", "user" + i, "nick", "lucene tweet " + i,
+					i * 7 % 25, 1, "", "", i * 100));
+		}
+		index(tweets, "ranked");
+		searcher.maybeRefresh();
+	}
+
+	@Test
+	public void testEngagementOrderAndPaging() throws IOException, ParseException {
+		indexRanked();
+
+		SearchOptions options = new SearchOptions("lucene");
+		options.setOrder(SearchOptions.Order.ENGAGEMENT);
+		options.setPageSize(10);
+
+		Set<String> ids = new HashSet<String>();
+		long last = Long.MAX_VALUE;
+		int pages = 0;
+		SearchPage page;
+
+		do {
+			page = searcher.search(options);
+			assertEquals(25, page.getTotalHits());
+			for (SearchHit hit : page.getHits()) {
+				assertTrue(hit.getEngagement() <= last);
+				last = hit.getEngagement();
+				assertTrue(ids.add(hit.getId()));
+			}
+			options.setAfter(page.getAfter());
+			pages++;
+		} while (page.hasNext());
+
+		assertEquals(3, pages);
+		assertEquals(25, ids.size());
+		assertEquals(25, last + 24);
+	}
+
+	@Test
+	public void testFilters() throws IOException, ParseException {
+		indexRanked();
+
+		SearchOptions options = new SearchOptions("lucene");
+		options.setFollowers(500, 1500);
+		assertEquals(11, searcher.search(options).getHits().size());
+
+		options.setDates("2019-03-20", null);
+		assertEquals(6, searcher.search(options).getHits().size());
+
+		options.setFollowers(0, Integer.MAX_VALUE);
+		options.setDates(null, "2019-03-12");
+		assertEquals(3, searcher.search(options).getHits().size());
+	}
+
+	@Test
+	public void testDateFilterOnMixedFormats() throws IOException, ParseException {
+		indexRanked(DateTimeFormatter.ISO_LOCAL_DATE, DateTimeFormatter.ofPattern("M/d/yy"));
+
+		SearchOptions options = new SearchOptions("lucene");
+		options.setDates("2019-03-20", null);
+		assertEquals(15, searcher.search(options).getTotalHits());
+
+		options.setDates("3/20/19", "2019-03-31");
+		assertEquals(12, searcher.search(options).getTotalHits());
+
+		options.setDates(null, "3/12/19");
+		assertEquals(3, searcher.search(options).getTotalHits());
+
+		options.setDates("2019-04-01", "2019-04-03");
+		assertEquals(3, searcher.search(options).getTotalHits());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidFromDate() {
+		new SearchOptions("lucene").setDates("2019-03-34", null);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidToDate() {
+		new SearchOptions("lucene").setDates(null, "2019-02-29");
+	}
+
+}
@@ -0,0 +1,117 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import dao.DelimitedFileDAOImpl;
+import dao.ExcelDAOFactory;
+import dao.IExcelDAO;
+import dao.SnapshotExcelDAOImpl;
+import dao.SnapshotFile;
+import dao.SourceFingerprint;
+import dao.TweetDAOImpl;
+import dao.UserDAOImpl;
+import entity.Tweet;
+
+public class SnapshotFileTest {
+	private File snapshot;
+	private TweetDAOImpl tweetDAO;
+	private SourceFingerprint fingerprint = new SourceFingerprint(1234, 5678, 0xCAFE);
+
+	@Before
+	public void setUp() throws IOException {
+		snapshot = File.createTempFile("tweets", ".snapshot");
+		tweetDAO = new TweetDAOImpl();
+
+		for (int i = 0; i < 500; i++) {
+			tweetDAO.handle_row(new String[] { "id" + i, "2019-03-20", "12:44", "user" + (i % 7), "nick",
+					"content é中 " + i, "" + i * 1000, "" + (i % 3), "-33.8", "151.2", "" + i * 100000 });
+		}
+
+		SnapshotFile.write(snapshot, fingerprint, tweetDAO.getTweets());
+	}
+
+	@After
+	public void tearDown() {
+		snapshot.delete();
+	}
+
+	@Test
+	public void testReadSameRows() throws IOException {
+		assertTrue(SnapshotFile.matches(snapshot, fingerprint));
+
+		TweetDAOImpl readTweets = new TweetDAOImpl();
+		UserDAOImpl readUsers = new UserDAOImpl();
+		assertEquals(500, SnapshotFile.read(snapshot, fingerprint, null, readTweets, readUsers));
+
+		List<Tweet> expected = tweetDAO.getTweets();
+		List<Tweet> actual = readTweets.getTweets();
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).toString(), actual.get(i).toString());
+		}
+		assertEquals(7, readUsers.getUsers().size());
+	}
+
+	@Test
+	public void testFingerprintChanged() {
+		assertFalse(SnapshotFile.matches(snapshot, new SourceFingerprint(1234, 5679, 0xCAFE)));
+	}
+
+	@Test(expected = IOException.class)
+	public void testCorrupted() throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(snapshot, "rw")) {
+			file.seek(100);
+			int b = file.read();
+			file.seek(100);
+			file.write(b ^ 0xFF);
+		}
+
+		SnapshotFile.read(snapshot, fingerprint, null, new TweetDAOImpl());
+	}
+
+	@Test
+	public void testSameSnapshotFromColumns() throws Exception {
+		File source = File.createTempFile("tweets", ".csv");
+		File fromColumns = File.createTempFile("columns", ".snapshot");
+		try {
+			StringBuilder csv = new StringBuilder("id,date,hour,username,nickname,content,favs,rts,lat,long,followers\n");
+			String[] coordinates = { "51.5074", "151.0", "51.50", "1e-5", "0.0001", "abc", "", "-0" };
+			for (int i = 0; i < coordinates.length; i++) {
+				csv.append("id" + i + ",2019-03-20,12:44,user" + i + ",nick,content " + i + "," + i + ",1,"
+						+ coordinates[i] + "," + coordinates[coordinates.length - 1 - i] + ",100\n");
+			}
+			Files.write(source.toPath(), csv.toString().getBytes(StandardCharsets.UTF_8));
+			SourceFingerprint fingerprint = SourceFingerprint.of(source);
+
+			// The snapshot written from columns is the same as the one written from Tweet objects
+			List<Tweet> tweets = new DelimitedFileDAOImpl(source, false, null).getAllTweets();
+			SnapshotFile.write(snapshot, fingerprint, tweets);
+			ExcelDAOFactory.open(Collections.singletonList(source), fromColumns, fingerprint, true, null, 1, null);
+			assertArrayEquals(Files.readAllBytes(snapshot.toPath()), Files.readAllBytes(fromColumns.toPath()));
+
+			// Read back without columns, the cells are the ones of the source
+			IExcelDAO replayed = ExcelDAOFactory.open(Collections.singletonList(source), fromColumns, fingerprint,
+					false, null, 1, null);
+			assertTrue(replayed instanceof SnapshotExcelDAOImpl);
+			for (int i = 0; i < coordinates.length; i++) {
+				assertEquals(tweets.get(i).toString(), replayed.getAllTweets().get(i).toString());
+				assertEquals(coordinates[i], replayed.getAllTweets().get(i).getLatitude());
+				assertEquals(coordinates[coordinates.length - 1 - i], replayed.getAllTweets().get(i).getLongitude());
+			}
+		} finally {
+			source.delete();
+			fromColumns.delete();
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import service.SubstringMatcher;
+
+public class SubstringMatcherTest {
+
+	@Test
+	public void testIndexOf() {
+		assertEquals(0, new SubstringMatcher("").indexOf("abc"));
+		assertEquals(0, new SubstringMatcher("abc").indexOf("abc"));
+		assertEquals(4, new SubstringMatcher("c++").indexOf("i c c++ code"));
+		assertEquals(-1, new SubstringMatcher("abcd").indexOf("abc"));
+		assertEquals(-1, new SubstringMatcher("x").indexOf(""));
+		assertEquals(3, new SubstringMatcher("(.*)").indexOf("ab (.*)"));
+	}
+
+	@Test
+	public void testSameAsStringIndexOf() {
+		Random random = new Random(42);
+		// Few letters and characters sharing a slot of the shift table
+		char[] alphabet = { 'a', 'b', 'c', 'š', 'ɡ', ' ' };
+
+		for (int round = 0; round < 2000; round++) {
+			String text = randomString(random, alphabet, random.nextInt(40));
+			String pattern = randomString(random, alphabet, 1 + random.nextInt(4));
+
+			assertEquals(text + " / " + pattern, text.indexOf(pattern), new SubstringMatcher(pattern).indexOf(text));
+		}
+	}
+
+	private String randomString(Random random, char[] alphabet, int length) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			builder.append(alphabet[random.nextInt(alphabet.length)]);
+		}
+		return builder.toString();
+	}
+
+}
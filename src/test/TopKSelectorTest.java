@@ -0,0 +1,93 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import dao.TopKSelector;
+import entity.Tweet;
+
+public class TopKSelectorTest {
+
+	private Tweet tweet(String id, int favs, int rts) {
+		return new Tweet(id, "", "", "", "", "", favs, rts, "", "", 0);
+	}
+
+	@Test
+	public void testSameOrderAsCompareTo() {
+		Random random = new Random(42);
+		List<Tweet> tweets = new ArrayList<Tweet>();
+		for (int i = 0; i < 1000; i++) {
+			tweets.add(tweet("" + i, random.nextInt(100), random.nextInt(100)));
+		}
+
+		TopKSelector<Tweet> selector = new TopKSelector<Tweet>(10, Comparator.naturalOrder());
+		for (Tweet t : tweets) {
+			selector.offer(t);
+		}
+
+		List<Tweet> sorted = new ArrayList<Tweet>(tweets);
+		Collections.sort(sorted);
+
+		assertEquals(sorted.subList(0, 10), selector.toList());
+	}
+
+	@Test
+	public void testTiesKeepOfferedOrder() {
+		Tweet a = tweet("a", 1, 1);
+		Tweet b = tweet("b", 2, 0);
+		Tweet c = tweet("c", 0, 2);
+		Tweet d = tweet("d", 5, 5);
+
+		TopKSelector<Tweet> selector = new TopKSelector<Tweet>(3, Comparator.naturalOrder());
+		for (Tweet t : Arrays.asList(a, b, c, d)) {
+			selector.offer(t);
+		}
+
+		assertEquals(Arrays.asList(d, a, b), selector.toList());
+	}
+
+	@Test
+	public void testFewerThanK() {
+		TopKSelector<Integer> selector = new TopKSelector<Integer>(5, Comparator.reverseOrder());
+		selector.offer(3);
+		selector.offer(null);
+		selector.offer(7);
+
+		assertEquals(Arrays.asList(7, 3), selector.toList());
+		assertEquals(2, selector.size());
+	}
+
+	@Test
+	public void testMerge() {
+		TopKSelector<Integer> first = new TopKSelector<Integer>(3, Comparator.reverseOrder());
+		TopKSelector<Integer> second = new TopKSelector<Integer>(3, Comparator.reverseOrder());
+		for (int i = 0; i < 10; i++) {
+			(i % 2 == 0 ? first : second).offer(i);
+		}
+
+		first.merge(second);
+
+		assertEquals(Arrays.asList(9, 8, 7), first.toList());
+	}
+
+	@Test
+	public void testZero() {
+		TopKSelector<Integer> selector = new TopKSelector<Integer>(0, Comparator.reverseOrder());
+		assertFalse(selector.offer(1));
+		assertTrue(selector.toList().isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegative() {
+		new TopKSelector<Integer>(-1, Comparator.reverseOrder());
+	}
+
+}
@@ -0,0 +1,105 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import dao.DelimitedFileDAOImpl;
+import dao.ExcelDAOFactory;
+import tools.DatasetGenerator;
+import tools.GeneratorSettings;
+import tools.TweetRowGenerator;
+
+public class TweetRowGeneratorTest {
+
+	private GeneratorSettings settings(double skew) {
+		GeneratorSettings settings = new GeneratorSettings();
+		settings.setSeed(42);
+		settings.setUsers(100);
+		settings.setUsernameSkew(skew);
+		return settings;
+	}
+
+	private int[] countUsers(GeneratorSettings settings, int rows) {
+		TweetRowGenerator generator = new TweetRowGenerator(settings);
+		int[] counts = new int[settings.getUsers()];
+
+		for (int i = 0; i < rows; i++) {
+			counts[Integer.parseInt(generator.next()[3].substring(4))]++;
+		}
+
+		return counts;
+	}
+
+	@Test
+	public void testDeterministic() {
+		TweetRowGenerator first = new TweetRowGenerator(settings(1));
+		TweetRowGenerator second = new TweetRowGenerator(settings(1));
+
+		for (int i = 0; i < 1000; i++) {
+			assertArrayEquals(first.next(), second.next());
+		}
+		assertEquals(1000, first.getRowCount());
+	}
+
+	@Test
+	public void testUsernameSkew() {
+		int[] uniform = countUsers(settings(0), 20000);
+		int[] skewed = countUsers(settings(1.5), 20000);
+
+		// The first user writes about 1% of uniform rows, and about 40% of skewed rows
+		assertTrue(uniform[0] < 400);
+		assertTrue(skewed[0] > 6000);
+		assertTrue(skewed[0] > skewed[1] && skewed[1] > skewed[9]);
+	}
+
+	@Test
+	public void testWordsAndFollowers() {
+		GeneratorSettings settings = settings(1);
+		settings.setWords(5, 7);
+		settings.setFollowers(50, 1.5);
+		settings.setLocationRatio(0);
+		TweetRowGenerator generator = new TweetRowGenerator(settings);
+		Map<String, String> followers = new HashMap<String, String>();
+
+		for (int i = 0; i < 5000; i++) {
+			String[] row = generator.next();
+			int words = row[5].split(" ").length;
+
+			assertTrue(words >= 5 && words <= 7);
+			assertTrue(Integer.parseInt(row[10]) >= 50);
+			assertEquals("", row[8]);
+
+			// Followers are fixed for each user
+			String previous = followers.put(row[3], row[10]);
+			assertTrue(previous == null || previous.equals(row[10]));
+		}
+	}
+
+	@Test
+	public void testSplitFiles() throws IOException {
+		File directory = Files.createTempDirectory("generator-test").toFile();
+
+		try {
+			File out = new File(directory, "dataset");
+			List<File> files = new DatasetGenerator(settings(1), DatasetGenerator.Format.CSV, 400).write(out, 1000);
+
+			assertEquals(3, files.size());
+			assertEquals(files, ExcelDAOFactory.listSources(out));
+			assertEquals(200, new DelimitedFileDAOImpl(files.get(2), false, null).getAllTweets().size());
+		} finally {
+			for (File file : directory.listFiles()[0].listFiles()) {
+				file.delete();
+			}
+			directory.listFiles()[0].delete();
+			directory.delete();
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import dao.ColumnarTweetStore;
+import entity.Tweet;
+import service.Menu;
+import service.TweetTextSearch;
+
+public class TweetTextSearchTest {
+	private List<Tweet> tweets;
+
+	@Before
+	public void setUp() {
+		tweets = new ArrayList<Tweet>();
+		tweets.add(tweet("1", "I like C++"));
+		tweets.add(tweet("2", "  Java and c++ "));
+		tweets.add(tweet("3", "Python (3.7)"));
+	}
+
+	private Tweet tweet(String id, String content) {
+		Tweet t = new Tweet();
+		t.setId(id);
+		t.setContent(content);
+		return t;
+	}
+
+	private List<String> search(TweetTextSearch search, String target) {
+		List<String> ids = new ArrayList<String>();
+		search.search(target, t -> ids.add(t.getId()));
+		return ids;
+	}
+
+	@Test
+	public void testLiteralSearch() {
+		TweetTextSearch search = new TweetTextSearch(tweets);
+
+		assertEquals(List.of("1", "2"), search(search, " C++"));
+		assertEquals(List.of("3"), search(search, "(3."));
+		assertEquals(List.of("1", "2", "3"), search(search, ""));
+		assertEquals(List.of(), search(search, "ruby"));
+	}
+
+	@Test
+	public void testColumnarStore() {
+		ColumnarTweetStore store = new ColumnarTweetStore();
+		store.add(new String[] { "1", "", "", "u", "n", "I like C++", "1", "1", "", "", "1" });
+		store.add(new String[] { "2", "", "", "u", "n", "Java", "1", "1", "", "", "1" });
+
+		assertEquals(List.of("1"), search(new TweetTextSearch(store), "c++"));
+	}
+
+	@Test
+	public void testMenuMatch() {
+		assertTrue(Menu.match("I like C++", "c++"));
+		assertTrue(Menu.match("a.b", "."));
+		assertFalse(Menu.match("ab", "."));
+	}
+
+	@Test
+	public void testParallelSameAsSerial() {
+		List<Tweet> many = new ArrayList<Tweet>();
+		for (int i = 0; i < 100000; i++) {
+			many.add(tweet("" + i, i % 7 == 0 || i % 9973 == 0 ? "lucky " + i : "other " + i));
+		}
+
+		TweetTextSearch serial = new TweetTextSearch(many, 1);
+		TweetTextSearch parallel = new TweetTextSearch(many, 4);
+
+		for (String target : new String[] { "lucky", "lucky 99", "none" }) {
+			for (int limit : new int[] { 1, 10, 5000, Integer.MAX_VALUE }) {
+				List<String> expected = new ArrayList<String>();
+				List<String> actual = new ArrayList<String>();
+				serial.search(target, limit, t -> expected.add(t.getId()));
+				parallel.search(target, limit, t -> actual.add(t.getId()));
+
+				assertEquals(expected, actual);
+			}
+		}
+
+		parallel.close();
+	}
+
+	@Test
+	public void testIndexedSameAsScan() {
+		Random random = new Random(7);
+		String[] words = { "lucene", "excel", "c++", "java", "Luc", "ÉTÉ", "cel", "ene" };
+		List<Tweet> many = new ArrayList<Tweet>();
+
+		for (int i = 0; i < 5000; i++) {
+			StringBuilder content = new StringBuilder();
+			for (int w = random.nextInt(6); w > 0; w--) {
+				content.append(words[random.nextInt(words.length)]).append(random.nextBoolean() ? " " : "");
+			}
+			many.add(tweet("" + i, content.toString()));
+		}
+
+		TweetTextSearch scan = new TweetTextSearch(many, 1);
+		TweetTextSearch indexed = new TweetTextSearch(many, 1, true);
+
+		for (String target : new String[] { "lucene", "c++ java", "celu", "été", "ene excel", "xyz", "lu", " C" }) {
+			for (int limit : new int[] { 3, Integer.MAX_VALUE }) {
+				List<String> expected = new ArrayList<String>();
+				List<String> actual = new ArrayList<String>();
+				scan.search(target, limit, t -> expected.add(t.getId()));
+				indexed.search(target, limit, t -> actual.add(t.getId()));
+
+				assertEquals(target, expected, actual);
+			}
+		}
+	}
+
+}
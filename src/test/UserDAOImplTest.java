@@ -0,0 +1,53 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import dao.UserDAOImpl;
+import entity.User;
+
+public class UserDAOImplTest {
+
+	private String[] row(String id, String username, String followers) {
+		return new String[] { id, "", "", username, "", "", "0", "0", "", "", followers };
+	}
+
+	@Test
+	public void testDuplicatedUsernameIsMerged() {
+		UserDAOImpl userDAO = new UserDAOImpl();
+		userDAO.handle_row(row("1", "alice", "10"));
+		userDAO.handle_row(row("2", "alice", "30"));
+		userDAO.handle_row(row("3", "alice", "20"));
+		userDAO.handle_row(row("4", "bob", "15"));
+
+		assertEquals(2, userDAO.getUsers().size());
+
+		List<User> top = userDAO.getTopUsers(10);
+		assertEquals("alice", top.get(0).getUsername());
+		assertEquals(30, top.get(0).getFollowers());
+		assertEquals(3, top.get(0).getTweetCount());
+		assertEquals("bob", top.get(1).getUsername());
+		assertEquals(1, top.get(1).getTweetCount());
+	}
+
+	@Test
+	public void testMerge() {
+		UserDAOImpl first = new UserDAOImpl();
+		UserDAOImpl second = new UserDAOImpl();
+		first.handle_row(row("1", "alice", "10"));
+		second.handle_row(row("2", "alice", "40"));
+		second.handle_row(row("3", "carol", "5"));
+
+		first.merge(second);
+
+		List<User> top = first.getTopUsers(1);
+		assertEquals(1, top.size());
+		assertEquals(40, top.get(0).getFollowers());
+		assertEquals(2, top.get(0).getTweetCount());
+		assertEquals(2, first.getUsers().size());
+	}
+
+}
@@ -0,0 +1,392 @@
+package tools;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+/**
+ * This class writes large synthetic datasets for scale testing, with rows of
+ * {@link TweetRowGenerator}. Rows are written as soon as they are generated,
+ * so the memory does not grow with the number of rows: CSV and TSV files are
+ * written through a buffer, and excel files through {@link SXSSFWorkbook},
+ * which keeps only a window of rows in memory and flushes the others into a
+ * compressed temporary file.
+ *
+ * <p>
+ * An excel sheet has at most {@value #MAX_SHEET_ROWS} rows below the title, so
+ * larger excel datasets are split into several files in one directory, which
+ * is read as one dataset by {@link dao.ExcelDAOFactory#listSources(File)}.
+ * Delimited files could be split in the same way with {@code --rows-per-file}.
+ *
+ * <p>
+ * Usage:
+ *
+ * <pre>
+ * java tools.DatasetGenerator --rows=10000000 --format=csv --out=dataset.csv
+ * java tools.DatasetGenerator --rows=5000000 --users=200000 --skew=1.1 --format=xlsx --out=dataset
+ * </pre>
+ *
+ * Other arguments are {@code --seed}, {@code --min-words},
+ * {@code --max-words}, {@code --followers-min}, {@code --followers-alpha}
+ * and {@code --location-ratio}, see {@link GeneratorSettings}.
+ *
+ * @version 1.0
+ * @see TweetRowGenerator
+ * @see GeneratorSettings
+ */
+public class DatasetGenerator {
+
+	/** Formats of the written files. */
+	public enum Format {
+
+		/** Excel files written by SXSSFWorkbook. */
+		XLSX("xlsx"),
+
+		/** Comma separated values. */
+		CSV("csv"),
+
+		/** Tab separated values. */
+		TSV("tsv");
+
+		/** Extension of the files. */
+		private final String extension;
+
+		/**
+		 * Instantiates a new format.
+		 *
+		 * @param extension
+		 *            extension of the files
+		 */
+		Format(String extension) {
+			this.extension = extension;
+		}
+
+		/**
+		 * Gets the extension of the files, without the dot.
+		 *
+		 * @return the extension
+		 */
+		public String getExtension() {
+			return extension;
+		}
+	}
+
+	/** Largest number of rows of an excel sheet below the title. */
+	public static final int MAX_SHEET_ROWS = 1048575;
+
+	/** Number of rows kept in memory by SXSSFWorkbook. */
+	private static final int WINDOW_SIZE = 1000;
+
+	/** Number of rows between two progress messages. */
+	private static final long PROGRESS_ROWS = 1000000;
+
+	/** Settings of the rows. */
+	private final GeneratorSettings settings;
+
+	/** Format of the files. */
+	private final Format format;
+
+	/** Largest number of rows of one file. */
+	private final long rowsPerFile;
+
+	/**
+	 * Instantiates a new generator which splits files only when a sheet is full.
+	 *
+	 * @param settings
+	 *            settings of the rows
+	 * @param format
+	 *            format of the files
+	 */
+	public DatasetGenerator(GeneratorSettings settings, Format format) {
+		this(settings, format, format == Format.XLSX ? MAX_SHEET_ROWS : Long.MAX_VALUE);
+	}
+
+	/**
+	 * Instantiates a new generator.
+	 *
+	 * @param settings
+	 *            settings of the rows
+	 * @param format
+	 *            format of the files
+	 * @param rowsPerFile
+	 *            largest number of rows of one file, at most
+	 *            {@value #MAX_SHEET_ROWS} for excel files
+	 */
+	public DatasetGenerator(GeneratorSettings settings, Format format, long rowsPerFile) {
+		if (rowsPerFile <= 0 || format == Format.XLSX && rowsPerFile > MAX_SHEET_ROWS) {
+			throw new IllegalArgumentException("Invalid rows per file: " + rowsPerFile);
+		}
+
+		this.settings = settings;
+		this.format = format;
+		this.rowsPerFile = rowsPerFile;
+	}
+
+	/**
+	 * Write a dataset. If all rows fit in one file, the output is that file,
+	 * otherwise the output is a directory of files named
+	 * {@code part-00001.<extension>} and so on.
+	 *
+	 * @param out
+	 *            the output file or directory
+	 * @param rows
+	 *            number of rows without the title
+	 * @return the written files
+	 * @throws IOException
+	 *             If a file cannot be written
+	 */
+	public List<File> write(File out, long rows) throws IOException {
+		TweetRowGenerator generator = new TweetRowGenerator(settings);
+		List<File> files = new ArrayList<File>();
+
+		if (rows <= rowsPerFile) {
+			writeFile(generator, out, rows);
+			files.add(out);
+			return files;
+		}
+
+		if (!out.isDirectory() && !out.mkdirs()) {
+			throw new FileNotFoundException("Cannot create directory: " + out.getPath());
+		}
+
+		for (int part = 1; generator.getRowCount() < rows; part++) {
+			File file = new File(out, String.format("part-%05d.%s", part, format.getExtension()));
+			writeFile(generator, file, Math.min(rowsPerFile, rows - generator.getRowCount()));
+			files.add(file);
+		}
+
+		return files;
+	}
+
+	/**
+	 * Write the title and the next rows of a generator into one file.
+	 */
+	private void writeFile(TweetRowGenerator generator, File file, long rows) throws IOException {
+		if (format == Format.XLSX) {
+			writeXlsx(generator, file, rows);
+		} else {
+			writeDelimited(generator, file, rows, format == Format.TSV ? '\t' : ',');
+		}
+	}
+
+	/**
+	 * Write rows into a CSV or TSV file.
+	 */
+	private static void writeDelimited(TweetRowGenerator generator, File file, long rows, char delimiter)
+			throws IOException {
+		try (Writer writer = new BufferedWriter(
+				new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+			writeDelimitedRow(writer, TweetRowGenerator.TITLES, delimiter);
+			for (long i = 0; i < rows; i++) {
+				writeDelimitedRow(writer, generator.next(), delimiter);
+				progress(generator);
+			}
+		}
+	}
+
+	/**
+	 * Write rows into an excel file.
+	 */
+	private static void writeXlsx(TweetRowGenerator generator, File file, long rows) throws IOException {
+		SXSSFWorkbook workbook = new SXSSFWorkbook(WINDOW_SIZE);
+		workbook.setCompressTempFiles(true);
+
+		try {
+			Sheet sheet = workbook.createSheet();
+			writeXlsxRow(sheet.createRow(0), TweetRowGenerator.TITLES);
+			for (int i = 1; i <= rows; i++) {
+				writeXlsxRow(sheet.createRow(i), generator.next());
+				progress(generator);
+			}
+
+			try (FileOutputStream out = new FileOutputStream(file)) {
+				workbook.write(out);
+			}
+		} finally {
+			// Delete the temporary files
+			workbook.dispose();
+			workbook.close();
+		}
+	}
+
+	/**
+	 * Print the number of rows every {@value #PROGRESS_ROWS} rows.
+	 */
+	private static void progress(TweetRowGenerator generator) {
+		if (generator.getRowCount() % PROGRESS_ROWS == 0) {
+			System.out.println(generator.getRowCount() + " rows generated");
+		}
+	}
+
+	/**
+	 * Write one row of a delimited file, cells containing the delimiter, quotes
+	 * or line breaks are quoted as RFC 4180.
+	 *
+	 * @param writer
+	 *            the writer of the file
+	 * @param row
+	 *            the cells
+	 * @param delimiter
+	 *            the delimiter, such as ',' or '\t'
+	 * @throws IOException
+	 *             If the row cannot be written
+	 */
+	public static void writeDelimitedRow(Writer writer, String[] row, char delimiter) throws IOException {
+		for (int i = 0; i < row.length; i++) {
+			if (i > 0) {
+				writer.write(delimiter);
+			}
+
+			String cell = row[i];
+			if (cell.indexOf(delimiter) >= 0 || cell.indexOf('"') >= 0 || cell.indexOf('\n') >= 0
+					|| cell.indexOf('\r') >= 0) {
+				writer.write('"');
+				writer.write(cell.replace("\"", "\"\""));
+				writer.write('"');
+			} else {
+				writer.write(cell);
+			}
+		}
+
+		writer.write('\n');
+	}
+
+	/**
+	 * Write one row of an excel sheet as text cells, like the cells of the real
+	 * dataset.
+	 *
+	 * @param row
+	 *            the row of the sheet
+	 * @param cells
+	 *            the cells
+	 */
+	public static void writeXlsxRow(Row row, String[] cells) {
+		for (int i = 0; i < cells.length; i++) {
+			row.createCell(i).setCellValue(cells[i]);
+		}
+	}
+
+	/**
+	 * Gets the settings of the rows.
+	 *
+	 * @return the settings
+	 */
+	public GeneratorSettings getSettings() {
+		return settings;
+	}
+
+	/**
+	 * Gets the format of the files.
+	 *
+	 * @return the format
+	 */
+	public Format getFormat() {
+		return format;
+	}
+
+	/**
+	 * Gets the largest number of rows of one file.
+	 *
+	 * @return the rows per file
+	 */
+	public long getRowsPerFile() {
+		return rowsPerFile;
+	}
+
+	/**
+	 * The main method, see the usage above.
+	 *
+	 * @param args
+	 *            the arguments, like {@code --rows=1000000}
+	 * @throws IOException
+	 *             If a file cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		GeneratorSettings settings = new GeneratorSettings();
+		long rows = 1000000;
+		Format format = Format.CSV;
+		long rowsPerFile = 0;
+		String out = null;
+		int minWords = settings.getMinWords();
+		int maxWords = settings.getMaxWords();
+		int minFollowers = settings.getMinFollowers();
+		double followersAlpha = settings.getFollowersAlpha();
+
+		for (String arg : args) {
+			int equals = arg.indexOf('=');
+			if (!arg.startsWith("--") || equals < 0) {
+				throw new IllegalArgumentException("Invalid argument: " + arg + ", expected --<name>=<value>");
+			}
+
+			String value = arg.substring(equals + 1);
+			switch (arg.substring(2, equals)) {
+			case "rows":
+				rows = Long.parseLong(value);
+				break;
+			case "users":
+				settings.setUsers(Integer.parseInt(value));
+				break;
+			case "seed":
+				settings.setSeed(Long.parseLong(value));
+				break;
+			case "skew":
+				settings.setUsernameSkew(Double.parseDouble(value));
+				break;
+			case "min-words":
+				minWords = Integer.parseInt(value);
+				break;
+			case "max-words":
+				maxWords = Integer.parseInt(value);
+				break;
+			case "followers-min":
+				minFollowers = Integer.parseInt(value);
+				break;
+			case "followers-alpha":
+				followersAlpha = Double.parseDouble(value);
+				break;
+			case "location-ratio":
+				settings.setLocationRatio(Double.parseDouble(value));
+				break;
+			case "format":
+				format = Format.valueOf(value.toUpperCase());
+				break;
+			case "rows-per-file":
+				rowsPerFile = Long.parseLong(value);
+				break;
+			case "out":
+				out = value;
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown argument: " + arg);
+			}
+		}
+
+		settings.setWords(minWords, maxWords);
+		settings.setFollowers(minFollowers, followersAlpha);
+		DatasetGenerator generator = rowsPerFile > 0 ? new DatasetGenerator(settings, format, rowsPerFile)
+				: new DatasetGenerator(settings, format);
+		if (out == null) {
+			// A directory if the rows are split
+			out = rows > generator.getRowsPerFile() ? "dataset" : "dataset." + format.getExtension();
+		}
+
+		System.out.println("Writing " + rows + " rows to " + out + ", " + settings);
+
+		long startTime = System.nanoTime();
+		List<File> files = generator.write(new File(out), rows);
+		long endTime = System.nanoTime();
+
+		System.out.println(files.size() + " file(s) written in " + (endTime - startTime) / 1000000 + "ms");
+	}
+}
@@ -0,0 +1,214 @@
+package tools;
+
+/**
+ * This class keeps the settings of {@link TweetRowGenerator}: the seed, the
+ * number of users, and the distributions of usernames, contents and
+ * followers.
+ *
+ * <p>
+ * The default settings give rows similar to the real dataset: a few users
+ * write many tweets (Zipf distribution of usernames with exponent 1), contents
+ * have 3 to 20 words, followers have a heavy tail (Pareto distribution), and
+ * about one row in seven has no location.
+ *
+ * @version 1.0
+ * @see TweetRowGenerator
+ * @see DatasetGenerator
+ */
+public class GeneratorSettings {
+
+	/** The seed of the rows. */
+	private long seed;
+
+	/** Number of distinct users. */
+	private int users;
+
+	/** Exponent of the Zipf distribution of usernames, 0 for uniform. */
+	private double usernameSkew;
+
+	/** Minimum number of words of a content. */
+	private int minWords;
+
+	/** Maximum number of words of a content. */
+	private int maxWords;
+
+	/** Smallest number of followers of a user. */
+	private int minFollowers;
+
+	/** Shape of the Pareto distribution of followers, a smaller one has a longer tail. */
+	private double followersAlpha;
+
+	/** Part of rows which have a location, between 0 and 1. */
+	private double locationRatio;
+
+	/**
+	 * Instantiates the default settings.
+	 */
+	public GeneratorSettings() {
+		this.seed = 20190320L;
+		this.users = TweetRowGenerator.DEFAULT_USERS;
+		this.usernameSkew = 1.0;
+		this.minWords = 3;
+		this.maxWords = 20;
+		this.minFollowers = 10;
+		this.followersAlpha = 1.2;
+		this.locationRatio = 6.0 / 7;
+	}
+
+	/**
+	 * Gets the seed.
+	 *
+	 * @return the seed
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Sets the seed, the same seed always gives the same rows.
+	 *
+	 * @param seed
+	 *            the new seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Gets the number of distinct users.
+	 *
+	 * @return the users
+	 */
+	public int getUsers() {
+		return users;
+	}
+
+	/**
+	 * Sets the number of distinct users.
+	 *
+	 * @param users
+	 *            the new users, at least 1
+	 */
+	public void setUsers(int users) {
+		this.users = Math.max(1, users);
+	}
+
+	/**
+	 * Gets the exponent of the Zipf distribution of usernames.
+	 *
+	 * @return the username skew
+	 */
+	public double getUsernameSkew() {
+		return usernameSkew;
+	}
+
+	/**
+	 * Sets the exponent of the Zipf distribution of usernames. With 0 all users
+	 * write the same number of tweets, with 1 the first user writes twice as many
+	 * tweets as the second one, and so on.
+	 *
+	 * @param usernameSkew
+	 *            the new username skew, at least 0
+	 */
+	public void setUsernameSkew(double usernameSkew) {
+		this.usernameSkew = Math.max(0, usernameSkew);
+	}
+
+	/**
+	 * Gets the minimum number of words of a content.
+	 *
+	 * @return the min words
+	 */
+	public int getMinWords() {
+		return minWords;
+	}
+
+	/**
+	 * Gets the maximum number of words of a content.
+	 *
+	 * @return the max words
+	 */
+	public int getMaxWords() {
+		return maxWords;
+	}
+
+	/**
+	 * Sets the number of words of contents, which is uniform between the minimum
+	 * and the maximum.
+	 *
+	 * @param minWords
+	 *            the minimum, at least 1
+	 * @param maxWords
+	 *            the maximum, at least the minimum
+	 */
+	public void setWords(int minWords, int maxWords) {
+		this.minWords = Math.max(1, minWords);
+		this.maxWords = Math.max(this.minWords, maxWords);
+	}
+
+	/**
+	 * Gets the smallest number of followers of a user.
+	 *
+	 * @return the min followers
+	 */
+	public int getMinFollowers() {
+		return minFollowers;
+	}
+
+	/**
+	 * Gets the shape of the Pareto distribution of followers.
+	 *
+	 * @return the followers alpha
+	 */
+	public double getFollowersAlpha() {
+		return followersAlpha;
+	}
+
+	/**
+	 * Sets the Pareto distribution of followers. Half of the users have less than
+	 * {@code minFollowers * 2^(1/alpha)} followers, and a smaller alpha gives
+	 * more users with millions of followers.
+	 *
+	 * @param minFollowers
+	 *            the smallest number of followers, at least 1
+	 * @param followersAlpha
+	 *            the shape, above 0
+	 */
+	public void setFollowers(int minFollowers, double followersAlpha) {
+		if (!(followersAlpha > 0)) {
+			throw new IllegalArgumentException("Invalid followers alpha: " + followersAlpha);
+		}
+
+		this.minFollowers = Math.max(1, minFollowers);
+		this.followersAlpha = followersAlpha;
+	}
+
+	/**
+	 * Gets the part of rows which have a location.
+	 *
+	 * @return the location ratio
+	 */
+	public double getLocationRatio() {
+		return locationRatio;
+	}
+
+	/**
+	 * Sets the part of rows which have a location.
+	 *
+	 * @param locationRatio
+	 *            the new location ratio, between 0 and 1
+	 */
+	public void setLocationRatio(double locationRatio) {
+		this.locationRatio = Math.min(1, Math.max(0, locationRatio));
+	}
+
+	/*
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "GeneratorSettings [seed=" + seed + ", users=" + users + ", usernameSkew=" + usernameSkew
+				+ ", words=" + minWords + "-" + maxWords + ", minFollowers=" + minFollowers + ", followersAlpha="
+				+ followersAlpha + ", locationRatio=" + locationRatio + "]";
+	}
+}
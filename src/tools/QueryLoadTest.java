@@ -0,0 +1,272 @@
+package tools;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+import metrics.LatencyHistogram;
+
+/**
+ * This class measures the {@link service.QueryServer QueryServer} with many
+ * concurrent clients. Each client is a thread which sends requests one after
+ * another until the end, to the given paths in turn, and the time of each
+ * request is recorded in a {@link LatencyHistogram} of its path. Requests of
+ * the warm-up are not recorded. The sustained requests per second, the
+ * percentiles of the latency and the errors are printed at the end.
+ *
+ * <p>
+ * Connections are kept alive between requests of the same client, as a
+ * browser or a program using the service would do.
+ *
+ * <p>
+ * Usage, with the server started by {@code java service.Main --http-port=8080}:
+ *
+ * <pre>
+ * java tools.QueryLoadTest --url=http://127.0.0.1:8080 --clients=64 --seconds=30
+ * java tools.QueryLoadTest --clients=200 --path=/top/tweets --path=/search?q=java&amp;limit=10
+ * </pre>
+ *
+ * Other arguments are {@code --warmup}, seconds of warm-up, 5 by default.
+ *
+ * @version 1.0
+ * @see service.QueryServer
+ */
+public class QueryLoadTest {
+
+	/** Paths requested if none is given. */
+	public static final List<String> DEFAULT_PATHS = Arrays.asList("/top/tweets", "/top/users",
+			"/match?q=java&limit=100", "/search?q=java&limit=10");
+
+	/** Percentiles which are printed. */
+	private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+	/** Base URL of the server. */
+	private final String url;
+
+	/** Paths requested in turn. */
+	private final List<String> paths;
+
+	/** Number of concurrent clients. */
+	private final int clients;
+
+	/** Latency of each path. */
+	private final LatencyHistogram[] histograms;
+
+	/** Latency of all paths. */
+	private final LatencyHistogram total = new LatencyHistogram();
+
+	/** Requests which failed or were answered with an error status. */
+	private final LongAdder errors = new LongAdder();
+
+	/**
+	 * Instantiates a new load test.
+	 *
+	 * @param url
+	 *            base URL of the server, like http://127.0.0.1:8080
+	 * @param paths
+	 *            paths requested in turn
+	 * @param clients
+	 *            number of concurrent clients
+	 */
+	public QueryLoadTest(String url, List<String> paths, int clients) {
+		if (paths.isEmpty() || clients < 1) {
+			throw new IllegalArgumentException("At least one path and one client are needed");
+		}
+
+		this.url = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+		this.paths = new ArrayList<String>(paths);
+		this.clients = clients;
+		this.histograms = new LatencyHistogram[paths.size()];
+		for (int i = 0; i < histograms.length; i++) {
+			histograms[i] = new LatencyHistogram();
+		}
+	}
+
+	/**
+	 * Send requests from all clients for the warm-up and the measured time, and
+	 * wait until all clients stop.
+	 *
+	 * @param warmupSeconds
+	 *            seconds which are not recorded
+	 * @param seconds
+	 *            seconds which are recorded
+	 * @return number of seconds which were measured
+	 * @throws InterruptedException
+	 *             If waiting for the clients is interrupted
+	 */
+	public double run(int warmupSeconds, int seconds) throws InterruptedException {
+		long recordFrom = System.nanoTime() + warmupSeconds * 1000000000L;
+		long end = recordFrom + seconds * 1000000000L;
+		List<Thread> threads = new ArrayList<Thread>();
+
+		for (int c = 0; c < clients; c++) {
+			int first = c;
+			Thread thread = new Thread(() -> client(first, recordFrom, end), "load-client-" + c);
+			threads.add(thread);
+			thread.start();
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		return (System.nanoTime() - recordFrom) / 1e9;
+	}
+
+	/**
+	 * Send requests one after another until the end.
+	 */
+	private void client(int first, long recordFrom, long end) {
+		for (int i = first; System.nanoTime() < end; i++) {
+			int path = i % paths.size();
+			long startTime = System.nanoTime();
+			boolean ok = request(paths.get(path));
+
+			if (startTime >= recordFrom) {
+				long nanos = System.nanoTime() - startTime;
+				histograms[path].record(nanos);
+				total.record(nanos);
+				if (!ok) {
+					errors.increment();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Send one request and read the whole response, so that the connection
+	 * could be used again.
+	 *
+	 * @return true, if the status is 200
+	 */
+	private boolean request(String path) {
+		HttpURLConnection connection = null;
+		try {
+			connection = (HttpURLConnection) new URL(url + path).openConnection();
+			int status = connection.getResponseCode();
+			InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+			if (in != null) {
+				try (InputStream body = in) {
+					byte[] buffer = new byte[8192];
+					while (body.read(buffer) >= 0) {
+						// Read until the end
+					}
+				}
+			}
+
+			return status == 200;
+		} catch (IOException e) {
+			if (connection != null) {
+				connection.disconnect();
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Print the requests per second and the percentiles of each path and of all
+	 * paths, in milliseconds.
+	 *
+	 * @param seconds
+	 *            seconds which were measured
+	 */
+	public void printReport(double seconds) {
+		System.out.println(String.format(Locale.ROOT, "%d clients, %.1fs: %d requests, %.0f requests/s, %d errors",
+				clients, seconds, total.getCount(), total.getCount() / seconds, errors.sum()));
+		System.out.println(String.format(Locale.ROOT, "%-32s %10s %8s %8s %8s %8s %8s", "path (ms)", "requests",
+				"p50", "p90", "p99", "p99.9", "max"));
+
+		for (int i = 0; i < histograms.length; i++) {
+			printRow(paths.get(i), histograms[i]);
+		}
+		printRow("all", total);
+	}
+
+	/**
+	 * Print the percentiles of one histogram.
+	 */
+	private static void printRow(String name, LatencyHistogram histogram) {
+		StringBuilder row = new StringBuilder(String.format(Locale.ROOT, "%-32s %10d", name, histogram.getCount()));
+		for (double percentile : PERCENTILES) {
+			row.append(String.format(Locale.ROOT, " %8.2f", histogram.getValueAtPercentile(percentile) / 1e6));
+		}
+		System.out.println(row.append(String.format(Locale.ROOT, " %8.2f", histogram.getMax() / 1e6)));
+	}
+
+	/**
+	 * Returns the latency of all paths.
+	 *
+	 * @return the histogram
+	 */
+	public LatencyHistogram getTotal() {
+		return total;
+	}
+
+	/**
+	 * Returns the number of requests which failed or were answered with an
+	 * error status.
+	 *
+	 * @return the errors
+	 */
+	public long getErrors() {
+		return errors.sum();
+	}
+
+	/**
+	 * The main method, see the usage above.
+	 *
+	 * @param args
+	 *            the arguments, like {@code --clients=64}
+	 * @throws InterruptedException
+	 *             If waiting for the clients is interrupted
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		String url = "http://127.0.0.1:8080";
+		List<String> paths = new ArrayList<String>();
+		int clients = 64;
+		int warmup = 5;
+		int seconds = 30;
+
+		for (String arg : args) {
+			int equals = arg.indexOf('=');
+			if (!arg.startsWith("--") || equals < 0) {
+				throw new IllegalArgumentException("Invalid argument: " + arg + ", expected --<name>=<value>");
+			}
+
+			String value = arg.substring(equals + 1);
+			switch (arg.substring(2, equals)) {
+			case "url":
+				url = value;
+				break;
+			case "path":
+				paths.add(value);
+				break;
+			case "clients":
+				clients = Integer.parseInt(value);
+				break;
+			case "warmup":
+				warmup = Integer.parseInt(value);
+				break;
+			case "seconds":
+				seconds = Integer.parseInt(value);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown argument: " + arg);
+			}
+		}
+
+		// Keep one connection alive for each client, the JDK keeps 5 by default
+		System.setProperty("http.maxConnections", Integer.toString(clients));
+
+		QueryLoadTest test = new QueryLoadTest(url, paths.isEmpty() ? DEFAULT_PATHS : paths, clients);
+		System.out.println("Sending requests to " + url + " from " + clients + " clients for " + warmup + "s + "
+				+ seconds + "s");
+		test.printReport(test.run(warmup, seconds));
+	}
+}
@@ -0,0 +1,276 @@
+package tools;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class generates synthetic rows with the same 11 columns as the excel
+ * file: id, date, hour, username, nickname, content, favs, rts, latitude,
+ * longitude and followers. The rows are used by benchmarks and scale tests,
+ * so that they do not depend on the real dataset.
+ *
+ * <p>
+ * Rows only depend on the settings, the same seed always gives the same rows.
+ * Every user has a fixed nickname, number of followers and home location, so
+ * rows of one user could be merged into one User like rows of the real data.
+ * Usernames follow a Zipf distribution, the number of words of contents is
+ * uniform, and followers follow a Pareto distribution, all of them are tuned
+ * by {@link GeneratorSettings}.
+ *
+ * @version 1.0
+ * @see GeneratorSettings
+ */
+public class TweetRowGenerator {
+
+	/** Titles of the columns, the first row of a dataset. */
+	public static final String[] TITLES = { "id", "date", "hour", "username", "nickname", "content", "favs", "rts",
+			"lat", "long", "followers" };
+
+	/** Default number of distinct users. */
+	public static final int DEFAULT_USERS = 10000;
+
+	/** Words used to build contents. */
+	private static final String[] WORDS = { "the", "a", "java", "lucene", "excel", "tweet", "data", "search",
+			"index", "fast", "slow", "today", "new", "release", "c++", "python", "big", "small", "love", "hate",
+			"#news", "#tech", "@friend", "http://t.co/x", "caf\u00e9", "2019", "world", "hello", "read", "write" };
+
+	/** Largest number of followers, the Pareto distribution has no upper bound. */
+	private static final int MAX_FOLLOWERS = 100000000;
+
+	/** The seed of the rows. */
+	private final long seed;
+
+	/** Number of distinct users. */
+	private final int users;
+
+	/** Minimum number of words of a content. */
+	private final int minWords;
+
+	/** Number of possible word counts of a content. */
+	private final int wordRange;
+
+	/** Smallest number of followers. */
+	private final int minFollowers;
+
+	/** Inverse of the shape of the Pareto distribution of followers. */
+	private final double followersExponent;
+
+	/** Part of rows which have a location. */
+	private final double locationRatio;
+
+	/**
+	 * Cumulative probabilities of users in the Zipf distribution, null if users
+	 * are uniform.
+	 */
+	private final double[] userCdf;
+
+	/** The random generator of the rows. */
+	private final SplittableRandom random;
+
+	/** Number of rows generated. */
+	private long rowCount;
+
+	/**
+	 * Instantiates a new generator with {@link #DEFAULT_USERS} users.
+	 *
+	 * @param seed
+	 *            the seed of the rows
+	 */
+	public TweetRowGenerator(long seed) {
+		this(seed, DEFAULT_USERS);
+	}
+
+	/**
+	 * Instantiates a new generator with the default distributions.
+	 *
+	 * @param seed
+	 *            the seed of the rows
+	 * @param users
+	 *            number of distinct users
+	 */
+	public TweetRowGenerator(long seed, int users) {
+		this(settings(seed, users));
+	}
+
+	/**
+	 * Instantiates a new generator.
+	 *
+	 * @param settings
+	 *            the settings, later changes of them are not used
+	 */
+	public TweetRowGenerator(GeneratorSettings settings) {
+		this.seed = settings.getSeed();
+		this.users = settings.getUsers();
+		this.minWords = settings.getMinWords();
+		this.wordRange = settings.getMaxWords() - settings.getMinWords() + 1;
+		this.minFollowers = settings.getMinFollowers();
+		this.followersExponent = 1 / settings.getFollowersAlpha();
+		this.locationRatio = settings.getLocationRatio();
+		this.userCdf = settings.getUsernameSkew() > 0 ? zipf(users, settings.getUsernameSkew()) : null;
+		this.random = new SplittableRandom(seed);
+	}
+
+	/**
+	 * Default settings with a seed and a number of users.
+	 */
+	private static GeneratorSettings settings(long seed, int users) {
+		GeneratorSettings settings = new GeneratorSettings();
+		settings.setSeed(seed);
+		settings.setUsers(users);
+		return settings;
+	}
+
+	/**
+	 * Build the cumulative probabilities of a Zipf distribution, the user of rank
+	 * k has a weight of 1 / k^skew.
+	 */
+	private static double[] zipf(int users, double skew) {
+		double[] cdf = new double[users];
+		double sum = 0;
+
+		for (int i = 0; i < users; i++) {
+			sum += 1 / Math.pow(i + 1, skew);
+			cdf[i] = sum;
+		}
+		for (int i = 0; i < users; i++) {
+			cdf[i] /= sum;
+		}
+
+		cdf[users - 1] = 1;
+		return cdf;
+	}
+
+	/**
+	 * Generate the next row.
+	 *
+	 * @return String array contains all data in one row
+	 */
+	public String[] next() {
+		long n = rowCount++;
+		int user = user();
+		String[] row = new String[TITLES.length];
+
+		row[0] = Long.toString(1100000000000000000L + n);
+		row[1] = "2019-03-" + twoDigits(1 + random.nextInt(28));
+		row[2] = twoDigits(random.nextInt(24)) + ":" + twoDigits(random.nextInt(60));
+		row[3] = "user" + user;
+		row[4] = "Nick " + user;
+		row[5] = content();
+		row[6] = Integer.toString(random.nextInt(1000));
+		row[7] = Integer.toString(random.nextInt(500));
+
+		if (random.nextDouble() >= locationRatio) {
+			row[8] = "";
+			row[9] = "";
+		} else {
+			// Near the home of the user
+			row[8] = coordinate(home(user, 0) * 140 - 70 + random.nextDouble() - 0.5);
+			row[9] = coordinate(home(user, 1) * 340 - 170 + random.nextDouble() - 0.5);
+		}
+
+		row[10] = Integer.toString(followers(user));
+		return row;
+	}
+
+	/**
+	 * Draw a user, the users of small numbers write more tweets if usernames are
+	 * skewed.
+	 */
+	private int user() {
+		if (userCdf == null) {
+			return random.nextInt(users);
+		}
+
+		double p = random.nextDouble();
+		int low = 0;
+		int high = users - 1;
+
+		// First user whose cumulative probability is above p
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (userCdf[middle] > p) {
+				high = middle;
+			} else {
+				low = middle + 1;
+			}
+		}
+
+		return low;
+	}
+
+	/**
+	 * Build a content between the minimum and maximum number of words.
+	 */
+	private String content() {
+		StringBuilder content = new StringBuilder();
+
+		for (int words = minWords + random.nextInt(wordRange); words > 0; words--) {
+			if (content.length() > 0) {
+				content.append(' ');
+			}
+			content.append(WORDS[random.nextInt(WORDS.length)]);
+		}
+
+		return content.toString();
+	}
+
+	/**
+	 * Format a number below 100 with two digits.
+	 */
+	private static String twoDigits(int value) {
+		return value < 10 ? "0" + value : Integer.toString(value);
+	}
+
+	/**
+	 * Format a coordinate with 5 decimals, independent of the default locale.
+	 */
+	private static String coordinate(double value) {
+		long scaled = Math.round(Math.abs(value) * 100000);
+		String fraction = Long.toString(100000 + scaled % 100000).substring(1);
+		return (value < 0 && scaled != 0 ? "-" : "") + scaled / 100000 + "." + fraction;
+	}
+
+	/**
+	 * Returns the fixed number of followers of a user, drawn from the Pareto
+	 * distribution with the hash of the user.
+	 */
+	private int followers(int user) {
+		// Uniform in (0, 1], so that the power is finite
+		double u = ((hash(user, 2) >>> 10) + 1) * 0x1.0p-53;
+		return (int) Math.min(MAX_FOLLOWERS, minFollowers * Math.pow(u, -followersExponent));
+	}
+
+	/**
+	 * Returns a fixed value between 0 and 1 of a user.
+	 */
+	private double home(int user, int salt) {
+		return (hash(user, salt) >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * Mix a user and a salt with the seed, see SplitMix64.
+	 */
+	private long hash(int user, int salt) {
+		long z = seed + (user * 3L + salt + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return (z ^ (z >>> 31)) >>> 1;
+	}
+
+	/**
+	 * Returns the number of rows generated.
+	 *
+	 * @return the row count
+	 */
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * Returns the number of distinct users.
+	 *
+	 * @return the users
+	 */
+	public int getUsers() {
+		return users;
+	}
+}